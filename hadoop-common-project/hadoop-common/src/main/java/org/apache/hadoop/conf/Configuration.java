@@ -99,6 +99,8 @@
 import org.apache.hadoop.security.alias.CredentialProvider.CredentialEntry;
 import org.apache.hadoop.security.alias.CredentialProviderFactory;
 import org.apache.hadoop.thirdparty.com.google.common.base.Strings;
+import org.apache.hadoop.thirdparty.com.google.common.cache.Cache;
+import org.apache.hadoop.thirdparty.com.google.common.cache.CacheBuilder;
 import org.apache.hadoop.util.Preconditions;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.hadoop.util.StringInterner;
@@ -323,6 +325,19 @@ private static boolean getRestrictParserDefault(Object resource) {
   private static final WeakHashMap<Configuration,Object> REGISTRY = 
     new WeakHashMap<Configuration,Object>();
 
+  /** The maximum number of jar resources whose properties are cached. */
+  private static final int MAX_PARSED_JAR_RESOURCES = 256;
+
+  /**
+   * The properties of resources in jars, which do not change, as read from
+   * their XML. They are loaded again without parsing the XML. The cache is
+   * bounded, as long-running services may load resources from many jars.
+   */
+  private static final Cache<String, List<PropertyRecord>>
+      PARSED_JAR_RESOURCES = CacheBuilder.newBuilder()
+          .maximumSize(MAX_PARSED_JAR_RESOURCES)
+          .build();
+
   /**
    * Map to hold properties by there tag groupings.
    */
@@ -838,8 +853,22 @@ public Configuration(boolean loadDefaults) {
    * 
    * @param other the configuration from which to clone settings.
    */
-  @SuppressWarnings("unchecked")
   public Configuration(Configuration other) {
+    this(other, true);
+  }
+
+  /**
+   * A new configuration with the same settings cloned from another, which
+   * is only reloaded with the existing configurations if registered.
+   * Subclasses which cannot be reloaded are not registered, as they could
+   * otherwise be reloaded before they are constructed.
+   *
+   * @param other the configuration from which to clone settings.
+   * @param register whether to reload the new configuration with the
+   *                 existing configurations.
+   */
+  @SuppressWarnings("unchecked")
+  Configuration(Configuration other, boolean register) {
     synchronized(other) {
       // Make sure we clone a finalized state
       // Resources like input streams can be processed only once
@@ -864,8 +893,10 @@ public Configuration(Configuration other) {
       this.propertyTagsMap.putAll(other.propertyTagsMap);
     }
 
-    synchronized(Configuration.class) {
-      REGISTRY.put(this, null);
+    if (register) {
+      synchronized(Configuration.class) {
+        REGISTRY.put(this, null);
+      }
     }
     this.classLoader = other.classLoader;
     this.loadDefaults = other.loadDefaults;
@@ -1030,11 +1061,19 @@ public synchronized void reloadConfiguration() {
   }
 
   private synchronized void addResourceObject(Resource resource) {
+    checkResourcesModifiable();
     resources.add(resource);                      // add to resources
     restrictSystemProps |= resource.isParserRestricted();
     loadProps(properties, resources.size() - 1, false);
   }
 
+  /**
+   * Check that resources can be added to this configuration.
+   * @throws UnsupportedOperationException if they cannot.
+   */
+  void checkResourcesModifiable() {
+  }
+
   private static final int MAX_SUBST = 20;
 
   private static final int SUB_START_IDX = 0;
@@ -1926,7 +1965,7 @@ public long getTimeDurationHelper(String name, String vStr, TimeUnit unit) {
    * @param returnUnit Unit for the returned value.
    * @return time duration in given time unit.
    */
-  private long getTimeDurationHelper(String name, String vStr,
+  long getTimeDurationHelper(String name, String vStr,
       TimeUnit defaultUnit, TimeUnit returnUnit) {
     vStr = vStr.trim();
     vStr = StringUtils.toLowerCase(vStr);
@@ -3091,24 +3130,43 @@ private Resource loadResource(Properties properties,
         overlay(properties, (Properties)resource);
       }
 
-      XMLStreamReader2 reader = getStreamReader(wrapper, quiet);
-      if (reader == null) {
-        if (quiet) {
-          return null;
+      String jarResourceKey = getJarResourceKey(wrapper);
+      List<PropertyRecord> records = jarResourceKey == null ? null :
+          PARSED_JAR_RESOURCES.getIfPresent(jarResourceKey);
+      XMLStreamReader2 reader = null;
+      if (records == null) {
+        reader = getStreamReader(wrapper, quiet);
+        if (reader == null) {
+          if (quiet) {
+            return null;
+          }
+          throw new RuntimeException(resource + " not found");
         }
-        throw new RuntimeException(resource + " not found");
       }
       Properties toAddTo = properties;
       if(returnCachedProperties) {
         toAddTo = new Properties();
       }
 
-      List<ParsedItem> items = new Parser(reader, wrapper, quiet).parse();
+      List<ParsedItem> items;
+      if (records != null) {
+        items = new ArrayList<>(records.size());
+        DeprecationContext deprecations = deprecationContext.get();
+        for (PropertyRecord record : records) {
+          addParsedItems(items, name, deprecations, record);
+        }
+      } else {
+        Parser parser = new Parser(reader, wrapper, quiet);
+        items = parser.parse();
+        reader.close();
+        if (jarResourceKey != null && !parser.hasIncludes) {
+          PARSED_JAR_RESOURCES.put(jarResourceKey, parser.records);
+        }
+      }
       for (ParsedItem item : items) {
         loadProperty(toAddTo, item.name, item.key, item.value,
             item.isFinal, item.sources);
       }
-      reader.close();
 
       if (returnCachedProperties) {
         overlay(properties, toAddTo);
@@ -3154,6 +3212,73 @@ private XMLStreamReader2 getStreamReader(Resource wrapper, boolean quiet)
     return reader;
   }
 
+  /**
+   * @return the key of the parsed properties of a resource in a jar, or null
+   * if the resource is not in a jar.
+   */
+  private String getJarResourceKey(Resource wrapper) {
+    Object resource = wrapper.getResource();
+    URL url;
+    if (resource instanceof URL) {
+      url = (URL) resource;
+    } else if (resource instanceof String) {
+      url = getResource((String) resource);
+    } else {
+      return null;
+    }
+    if (url == null || !"jar".equals(url.getProtocol())) {
+      return null;
+    }
+    // the sources of the properties contain the name of the resource.
+    return wrapper.isParserRestricted() + "," + wrapper.getName() + "," + url;
+  }
+
+  /**
+   * Add the items of a property of a resource, for the keys which replace it
+   * if it is deprecated, and record its tags.
+   */
+  private void addParsedItems(List<ParsedItem> results, String name,
+      DeprecationContext deprecations, PropertyRecord record) {
+    // Read tags and put them in propertyTagsMap
+    if (record.tag != null) {
+      readTagFromConfig(record.tag, record.name, record.value,
+          record.sources);
+    }
+
+    DeprecatedKeyInfo keyInfo =
+        deprecations.getDeprecatedKeyMap().get(record.name);
+
+    if (keyInfo != null) {
+      keyInfo.clearAccessed();
+      for (String key : keyInfo.newKeys) {
+        // update new keys with deprecated key's value
+        results.add(new ParsedItem(
+            name, key, record.value, record.isFinal, record.sources));
+      }
+    } else {
+      results.add(new ParsedItem(name, record.name, record.value,
+          record.isFinal, record.sources));
+    }
+  }
+
+  /** A property as read from a resource. */
+  private static class PropertyRecord {
+    private final String name;
+    private final String value;
+    private final boolean isFinal;
+    private final String tag;
+    private final String[] sources;
+
+    PropertyRecord(String name, String value, boolean isFinal, String tag,
+        String[] sources) {
+      this.name = name;
+      this.value = value;
+      this.isFinal = isFinal;
+      this.tag = tag;
+      this.sources = sources;
+    }
+  }
+
   private static class ParsedItem {
     String name;
     String key;
@@ -3195,6 +3320,9 @@ private class Parser {
     private boolean parseToken = false;
     private List<String> confSource = new ArrayList<>();
     private List<ParsedItem> results = new ArrayList<>();
+    // the properties of the resource itself, without the included ones
+    private final List<PropertyRecord> records = new ArrayList<>();
+    private boolean hasIncludes = false;
 
     Parser(XMLStreamReader2 reader,
            Resource wrapper,
@@ -3289,6 +3417,7 @@ private void handleInclude() throws XMLStreamException, IOException {
         throw new RuntimeException("Error parsing resource " + wrapper
             + ": XInclude is not supported for restricted resources");
       }
+      hasIncludes = true;
       // Determine if the included resource is a classpath resource
       // otherwise fallback to a file resource
       // xi:include are treated as inline and retain current source
@@ -3402,25 +3531,10 @@ void handleEndProperty() {
         confSourceArray = confSource.toArray(new String[confSource.size()]);
       }
 
-      // Read tags and put them in propertyTagsMap
-      if (confTag != null) {
-        readTagFromConfig(confTag, confName, confValue, confSourceArray);
-      }
-
-      DeprecatedKeyInfo keyInfo =
-          deprecations.getDeprecatedKeyMap().get(confName);
-
-      if (keyInfo != null) {
-        keyInfo.clearAccessed();
-        for (String key : keyInfo.newKeys) {
-          // update new keys with deprecated key's value
-          results.add(new ParsedItem(
-              name, key, confValue, confFinal, confSourceArray));
-        }
-      } else {
-        results.add(new ParsedItem(name, confName, confValue, confFinal,
-            confSourceArray));
-      }
+      PropertyRecord record = new PropertyRecord(confName, confValue,
+          confFinal, confTag, confSourceArray);
+      records.add(record);
+      addParsedItems(results, name, deprecations, record);
     }
 
     void parseNext() throws IOException, XMLStreamException {
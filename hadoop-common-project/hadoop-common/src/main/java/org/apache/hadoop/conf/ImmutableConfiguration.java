@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.conf;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+
+/**
+ * An immutable snapshot of a {@link Configuration}, for code which reads
+ * the same properties over and over again.
+ *
+ * The values of the properties are substituted when the snapshot is taken,
+ * or on the first access of deprecated and unset properties, and are then
+ * read from a concurrent map without locking. The values of
+ * {@link #getInt(String, int)}, {@link #getLong(String, long)},
+ * {@link #getBoolean(String, boolean)} and the time durations are parsed
+ * once per property.
+ *
+ * Setting or unsetting properties and adding resources is not supported.
+ * Later changes of system properties, the environment and deprecations are
+ * not visible in the values which have been read already, and the snapshot
+ * is not reloaded when default resources are added.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class ImmutableConfiguration extends Configuration {
+  /** Stands in for properties without value, as the maps hold no nulls. */
+  private static final String UNSET = new String("");
+  private static final int NUM_UNITS = TimeUnit.values().length;
+
+  private final Map<String, String> values = new ConcurrentHashMap<>();
+  private final Map<String, Integer> ints = new ConcurrentHashMap<>();
+  private final Map<String, Long> longs = new ConcurrentHashMap<>();
+  private final Map<String, Boolean> booleans = new ConcurrentHashMap<>();
+  // the durations per default and return unit.
+  private final Map<String, Long>[] durations;
+
+  /**
+   * Take a snapshot of a configuration.
+   * @param other the configuration.
+   */
+  @SuppressWarnings("unchecked")
+  public ImmutableConfiguration(Configuration other) {
+    // not registered, so it is not reloaded when defaults are added.
+    super(other, false);
+    durations = new Map[NUM_UNITS * NUM_UNITS];
+    for (int i = 0; i < durations.length; i++) {
+      durations[i] = new ConcurrentHashMap<>();
+    }
+    for (String name : getProps().stringPropertyNames()) {
+      // deprecated names are resolved when they are read, so that their
+      // deprecation is logged as usual.
+      if (!isDeprecated(name)) {
+        String value = super.get(name);
+        values.put(name, value == null ? UNSET : value);
+      }
+    }
+  }
+
+  @Override
+  public String get(String name) {
+    if (name == null) {
+      return super.get(name);
+    }
+    String value = values.get(name);
+    if (value == null) {
+      value = super.get(name);
+      values.put(name, value == null ? UNSET : value);
+      return value;
+    }
+    return value == UNSET ? null : value;
+  }
+
+  @Override
+  public String get(String name, String defaultValue) {
+    String value = get(name);
+    if (value != null) {
+      return value;
+    }
+    // only defaults with variables need to be substituted.
+    return defaultValue == null || !defaultValue.contains("${") ?
+        defaultValue : super.get(name, defaultValue);
+  }
+
+  @Override
+  public int getInt(String name, int defaultValue) {
+    Integer value = ints.get(name);
+    if (value == null) {
+      if (get(name) == null) {
+        return defaultValue;
+      }
+      value = super.getInt(name, defaultValue);
+      ints.put(name, value);
+    }
+    return value;
+  }
+
+  @Override
+  public long getLong(String name, long defaultValue) {
+    Long value = longs.get(name);
+    if (value == null) {
+      if (get(name) == null) {
+        return defaultValue;
+      }
+      value = super.getLong(name, defaultValue);
+      longs.put(name, value);
+    }
+    return value;
+  }
+
+  @Override
+  public boolean getBoolean(String name, boolean defaultValue) {
+    Boolean value = booleans.get(name);
+    if (value == null) {
+      String valueString = getTrimmed(name);
+      if ("true".equalsIgnoreCase(valueString)) {
+        value = true;
+      } else if ("false".equalsIgnoreCase(valueString)) {
+        value = false;
+      } else {
+        // unset or invalid, the value depends on the default.
+        return super.getBoolean(name, defaultValue);
+      }
+      booleans.put(name, value);
+    }
+    return value;
+  }
+
+  @Override
+  public long getTimeDuration(String name, long defaultValue,
+      TimeUnit defaultUnit, TimeUnit returnUnit) {
+    String value = get(name);
+    if (value == null) {
+      return returnUnit.convert(defaultValue, defaultUnit);
+    }
+    return getCachedTimeDuration(name, value, defaultUnit, returnUnit);
+  }
+
+  @Override
+  public long getTimeDuration(String name, String defaultValue,
+      TimeUnit defaultUnit, TimeUnit returnUnit) {
+    String value = get(name);
+    if (value == null) {
+      return getTimeDurationHelper(name, defaultValue, defaultUnit,
+          returnUnit);
+    }
+    return getCachedTimeDuration(name, value, defaultUnit, returnUnit);
+  }
+
+  private long getCachedTimeDuration(String name, String value,
+      TimeUnit defaultUnit, TimeUnit returnUnit) {
+    Map<String, Long> cache =
+        durations[defaultUnit.ordinal() * NUM_UNITS + returnUnit.ordinal()];
+    Long duration = cache.get(name);
+    if (duration == null) {
+      duration = getTimeDurationHelper(name, value, defaultUnit, returnUnit);
+      cache.put(name, duration);
+    }
+    return duration;
+  }
+
+  @Override
+  public void set(String name, String value, String source) {
+    throw new UnsupportedOperationException(
+        "Cannot set " + name + " of an immutable configuration");
+  }
+
+  @Override
+  public synchronized void unset(String name) {
+    throw new UnsupportedOperationException(
+        "Cannot unset " + name + " of an immutable configuration");
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException(
+        "Cannot clear an immutable configuration");
+  }
+
+  @Override
+  public synchronized void reloadConfiguration() {
+    throw new UnsupportedOperationException(
+        "Cannot reload an immutable configuration");
+  }
+
+  @Override
+  void checkResourcesModifiable() {
+    throw new UnsupportedOperationException(
+        "Cannot add resources to an immutable configuration");
+  }
+}
@@ -26,9 +26,16 @@
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.util.Preconditions;
 import org.apache.hadoop.classification.InterfaceAudience;
@@ -51,6 +58,8 @@
 import org.apache.hadoop.io.ByteBufferPool;
 import org.apache.hadoop.util.StringUtils;
 
+import org.apache.hadoop.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import static org.apache.hadoop.fs.statistics.IOStatisticsSupport.retrieveIOStatistics;
 
 /**
@@ -63,6 +72,10 @@
  * padding = pos%(algorithm blocksize); 
  * <p>
  * The underlying stream offset is maintained as state.
+ * <p>
+ * Since CTR mode decrypts any range independently, large reads are split
+ * into ranges which are decrypted in parallel when
+ * hadoop.security.crypto.parallel.decrypt.threads is greater than 1.
  */
 @InterfaceAudience.Private
 @InterfaceStability.Evolving
@@ -114,6 +127,24 @@ public class CryptoInputStream extends FilterInputStream implements
   /** Decryptor pool */
   private final Queue<Decryptor> decryptorPool = 
       new ConcurrentLinkedQueue<Decryptor>();
+
+  /**
+   * The threads decrypting the ranges of large reads, shared by streams.
+   * There is at most one per processor; when they are all busy the calling
+   * thread decrypts the range itself.
+   */
+  private static final ThreadPoolExecutor DECRYPT_EXECUTOR;
+  static {
+    int threads = Runtime.getRuntime().availableProcessors();
+    DECRYPT_EXECUTOR = new ThreadPoolExecutor(threads, threads,
+        60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("CryptoInputStream-decrypt-%d").build(),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+    DECRYPT_EXECUTOR.allowCoreThreadTimeOut(true);
+  }
+  private final int parallelDecryptThreads;
+  private final int parallelDecryptMinSize;
   
   public CryptoInputStream(InputStream in, CryptoCodec codec, 
       int bufferSize, byte[] key, byte[] iv) throws IOException {
@@ -131,6 +162,10 @@ public CryptoInputStream(InputStream in, CryptoCodec codec,
     this.initIV = iv.clone();
     this.iv = iv.clone();
     this.streamOffset = streamOffset;
+    this.parallelDecryptThreads =
+        CryptoStreamUtils.getParallelDecryptThreads(codec.getConf());
+    this.parallelDecryptMinSize =
+        CryptoStreamUtils.getParallelDecryptMinSize(codec.getConf());
     isByteBufferReadable = in instanceof ByteBufferReadable;
     isReadableByteChannel = in instanceof ReadableByteChannel;
     inBuffer = ByteBuffer.allocateDirect(this.bufferSize);
@@ -175,6 +210,19 @@ public int read(byte[] b, int off, int len) throws IOException {
       int n = Math.min(len, remaining);
       outBuffer.get(b, off, n);
       return n;
+    } else if (isParallelDecrypt(len)) {
+      /*
+       * Read a large request directly into the caller's buffer and decrypt
+       * it in place, in parallel, like a positioned read. Then move the
+       * stream decryptor past it.
+       */
+      int n = in.read(b, off, len);
+      if (n <= 0) {
+        return n;
+      }
+      decrypt(streamOffset, b, off, n);
+      resetStreamOffset(streamOffset + n);
+      return n;
     } else {
       int n = 0;
       
@@ -388,12 +436,23 @@ public void readFully(long position, final ByteBuffer buf)
     }
   }
 
+  /**
+   * Decrypt length bytes in buffer starting at offset, in parallel if the
+   * read is large. Output is also put into buffer starting at offset. It is
+   * thread-safe.
+   */
+  private void decrypt(long position, byte[] buffer, int offset, int length)
+      throws IOException {
+    decryptRanges(length,
+        (off, len) -> decryptRange(position + off, buffer, offset + off, len));
+  }
+
   /**
    * Decrypt length bytes in buffer starting at offset. Output is also put 
    * into buffer starting at offset. It is thread-safe.
    */
-  private void decrypt(long position, byte[] buffer, int offset, int length) 
-      throws IOException {
+  private void decryptRange(long position, byte[] buffer, int offset,
+      int length) throws IOException {
     ByteBuffer localInBuffer = null;
     ByteBuffer localOutBuffer = null;
     Decryptor decryptor = null;
@@ -453,8 +512,8 @@ private void decrypt(long position, byte[] buffer, int offset, int length)
    * @param length the number of bytes in {@code buf} to decrypt
    * @param start the position in {@code buf} to start decrypting data from
    */
-  private void decrypt(long filePosition, ByteBuffer buf, int length, int start)
-          throws IOException {
+  private void decryptRange(long filePosition, ByteBuffer buf, int length,
+      int start) throws IOException {
     ByteBuffer localInBuffer = null;
     ByteBuffer localOutBuffer = null;
 
@@ -498,6 +557,87 @@ private void decrypt(long filePosition, ByteBuffer buf, int length, int start)
     }
   }
 
+  /**
+   * Decrypts the given {@link ByteBuffer} in place, in parallel if the read
+   * is large. See {@link #decryptRange(long, ByteBuffer, int, int)}.
+   */
+  private void decrypt(long filePosition, ByteBuffer buf, int length,
+      int start) throws IOException {
+    decryptRanges(length,
+        (off, len) -> decryptRange(filePosition + off, buf, len, start + off));
+  }
+
+  /** Decrypts the range of a read at an offset into the read. */
+  @FunctionalInterface
+  private interface RangeDecryptor {
+    void decrypt(int offset, int length) throws IOException;
+  }
+
+  private boolean isParallelDecrypt(int length) {
+    return parallelDecryptThreads > 1 && length >= parallelDecryptMinSize
+        && length >= 2 * bufferSize;
+  }
+
+  /**
+   * Decrypt a read of length bytes. A large read is split into ranges of
+   * whole buffers, which are decrypted on up to
+   * {@link #parallelDecryptThreads} threads including the calling thread,
+   * which also decrypts the ranges no pooled thread is free for.
+   * This returns once all the ranges are decrypted, even if one fails.
+   */
+  private void decryptRanges(int length, RangeDecryptor decryptor)
+      throws IOException {
+    if (!isParallelDecrypt(length)) {
+      decryptor.decrypt(0, length);
+      return;
+    }
+    int buffers = (length - 1) / bufferSize + 1;
+    int ranges = Math.min(parallelDecryptThreads, buffers);
+    final int rangeSize = ((buffers - 1) / ranges + 1) * bufferSize;
+    List<Future<Void>> futures = new ArrayList<>(ranges - 1);
+    Exception failure = null;
+    try {
+      for (int off = rangeSize; off < length; off += rangeSize) {
+        final int offset = off;
+        final int len = Math.min(rangeSize, length - off);
+        futures.add(DECRYPT_EXECUTOR.submit(() -> {
+          decryptor.decrypt(offset, len);
+          return null;
+        }));
+      }
+      decryptor.decrypt(0, rangeSize);
+    } catch (IOException | RuntimeException e) {
+      // the submitted ranges still write to the caller's buffer.
+      failure = e;
+    }
+    boolean interrupted = false;
+    for (Future<Void> future : futures) {
+      while (true) {
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException e) {
+          // the ranges write to the caller's buffer, so wait for them.
+          interrupted = true;
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause() instanceof IOException ?
+                (IOException) e.getCause() : new IOException(e.getCause());
+          }
+          break;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure != null) {
+      throw (RuntimeException) failure;
+    }
+  }
+
   /** Positioned read fully. It is thread-safe */
   @Override
   public void readFully(long position, byte[] buffer, int offset, int length)
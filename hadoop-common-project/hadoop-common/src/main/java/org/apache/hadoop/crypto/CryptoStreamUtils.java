@@ -19,6 +19,10 @@
 
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_SECURITY_CRYPTO_BUFFER_SIZE_DEFAULT;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_SECURITY_CRYPTO_BUFFER_SIZE_KEY;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_MIN_SIZE_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_MIN_SIZE_KEY;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_KEY;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -67,6 +71,30 @@ public static int getBufferSize(Configuration conf) {
         HADOOP_SECURITY_CRYPTO_BUFFER_SIZE_DEFAULT);
   }
 
+  /**
+   * Read the number of threads decrypting a large read.
+   *
+   * @param conf configuration, may be null.
+   * @return hadoop.security.crypto.parallel.decrypt.threads.
+   */
+  public static int getParallelDecryptThreads(Configuration conf) {
+    return conf == null ? HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_DEFAULT
+        : conf.getInt(HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_KEY,
+            HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_DEFAULT);
+  }
+
+  /**
+   * Read the minimum size of a read which is decrypted in parallel.
+   *
+   * @param conf configuration, may be null.
+   * @return hadoop.security.crypto.parallel.decrypt.min.size.
+   */
+  public static int getParallelDecryptMinSize(Configuration conf) {
+    return conf == null ? HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_MIN_SIZE_DEFAULT
+        : conf.getInt(HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_MIN_SIZE_KEY,
+            HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_MIN_SIZE_DEFAULT);
+  }
+
   /**
    * AES/CTR/NoPadding or SM4/CTR/NoPadding is required.
    *
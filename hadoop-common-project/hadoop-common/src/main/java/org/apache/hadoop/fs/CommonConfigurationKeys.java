@@ -78,6 +78,35 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final int IPC_SERVER_RPC_READ_CONNECTION_QUEUE_SIZE_DEFAULT =
       100;
 
+  /**
+   * Whether the IPC server accepts connections and reads calls with Netty
+   * instead of its own NIO listener, readers and responder.
+   */
+  public static final String IPC_SERVER_NETTY_ENABLED_KEY =
+      "ipc.server.netty.enabled";
+  /** Default value for IPC_SERVER_NETTY_ENABLED_KEY */
+  public static final boolean IPC_SERVER_NETTY_ENABLED_DEFAULT = false;
+
+  /**
+   * Whether the IPC server runs every call on its own thread, which is virtual
+   * when the JVM supports virtual threads, instead of on the handler threads.
+   */
+  public static final String IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_KEY =
+      "ipc.server.handler.virtual-threads.enabled";
+  /** Default value for IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_KEY */
+  public static final boolean
+      IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_DEFAULT = false;
+  /**
+   * The maximum number of calls that run at the same time when every call
+   * runs on its own thread. 0 means the number of handlers.
+   */
+  public static final String
+      IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_CONCURRENCY_KEY =
+      "ipc.server.handler.virtual-threads.max-concurrency";
+  /** Default value for IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_CONCURRENCY_KEY */
+  public static final int
+      IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_CONCURRENCY_DEFAULT = 0;
+
   /** Max request size a server will accept. */
   public static final String IPC_MAXIMUM_DATA_LENGTH =
       "ipc.maximum.data.length";
@@ -184,6 +213,35 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final boolean IO_COMPRESSION_CODEC_LZ4_USELZ4HC_DEFAULT =
       false;
 
+  /**
+   * Number of threads compressing independent blocks of the output streams
+   * of the Gzip and ZStandard codecs, and decompressing the blocks of
+   * ZStandard input streams written this way. 1 disables this.
+   */
+  public static final String IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY =
+      "io.compression.codec.parallel.threads";
+
+  /** Default value for IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY. */
+  public static final int IO_COMPRESSION_CODEC_PARALLEL_THREADS_DEFAULT = 1;
+
+  /** Size of the uncompressed blocks which are compressed in parallel. */
+  public static final String IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY =
+      "io.compression.codec.parallel.block.size";
+
+  /** Default value for IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY. */
+  public static final int IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_DEFAULT =
+      4 * 1024 * 1024;
+
+  /**
+   * Whether MapFile readers keep the index keys serialized in one array
+   * rather than as objects.
+   */
+  public static final String IO_MAP_INDEX_COMPACT_KEY =
+      "io.map.index.compact";
+
+  /** Default value for IO_MAP_INDEX_COMPACT_KEY. */
+  public static final boolean IO_MAP_INDEX_COMPACT_DEFAULT = false;
+
 
 
   /**
@@ -381,6 +439,9 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final boolean RPC_METRICS_QUANTILE_ENABLE_DEFAULT = false;
   public static final String  RPC_METRICS_PERCENTILES_INTERVALS_KEY =
       "rpc.metrics.percentiles.intervals";
+  public static final String RPC_METRICS_QUANTILE_HISTOGRAM =
+      "rpc.metrics.quantile.histogram";
+  public static final boolean RPC_METRICS_QUANTILE_HISTOGRAM_DEFAULT = false;
 
   public static final String RPC_METRICS_TIME_UNIT = "rpc.metrics.timeunit";
 
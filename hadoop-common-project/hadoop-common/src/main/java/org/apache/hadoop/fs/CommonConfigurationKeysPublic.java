@@ -188,6 +188,23 @@ public class CommonConfigurationKeysPublic {
   public static final int FS_CREATION_PARALLEL_COUNT_DEFAULT =
       64;
 
+  /**
+   * Time after which cached filesystem instances which have not been
+   * returned by {@code FileSystem.get()} are removed from the cache, without
+   * closing them; 0 disables eviction.
+   * Default value: {@value}.
+   */
+  public static final String FS_CACHE_IDLE_TIMEOUT_KEY =
+      "fs.cache.idle.timeout";
+
+  /**
+   * Default value for {@link #FS_CACHE_IDLE_TIMEOUT_KEY}.
+   * <p>
+   * Default value: {@value}.
+   * </p>
+   */
+  public static final long FS_CACHE_IDLE_TIMEOUT_DEFAULT = 0;
+
   /**
    * @see
    * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
@@ -372,6 +389,15 @@ public class CommonConfigurationKeysPublic {
     "tfile.fs.output.buffer.size";
   /** Default value for TFILE_FS_OUTPUT_BUFFER_SIZE_KEY */
   public static final int     TFILE_FS_OUTPUT_BUFFER_SIZE_DEFAULT = 256*1024;
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String  TFILE_INDEX_CACHE_SIZE_KEY =
+    "tfile.index.cache.size";
+  /** Default value for TFILE_INDEX_CACHE_SIZE_KEY */
+  public static final int     TFILE_INDEX_CACHE_SIZE_DEFAULT = 0;
 
   public static final String  HADOOP_CALLER_CONTEXT_ENABLED_KEY =
       "hadoop.caller.context.enabled";
@@ -532,6 +558,25 @@ public class CommonConfigurationKeysPublic {
     "hadoop.util.hash.type";
   /** Default value for HADOOP_UTIL_HASH_TYPE_KEY */
   public static final String  HADOOP_UTIL_HASH_TYPE_DEFAULT = "murmur";
+  /**
+   * Number of threads listing directories in a recursive listing or a glob.
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String FS_LISTING_THREADS_KEY = "fs.listing.threads";
+  /** Default value for {@link #FS_LISTING_THREADS_KEY}: serial listing. */
+  public static final int FS_LISTING_THREADS_DEFAULT = 1;
+  /**
+   * Whether a parallel recursive listing returns the files in the order of
+   * a serial listing.
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String FS_LISTING_ORDERED_KEY = "fs.listing.ordered";
+  /** Default value for {@link #FS_LISTING_ORDERED_KEY}. */
+  public static final boolean FS_LISTING_ORDERED_DEFAULT = true;
   /**
    * @see
    * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
@@ -610,6 +655,16 @@ public class CommonConfigurationKeysPublic {
    * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
    * core-default.xml</a>
    */
+  public static final String HADOOP_SECURITY_GROUPS_CACHE_SNAPSHOT_FILE =
+      "hadoop.security.groups.cache.snapshot.file";
+  /** Default value for {@link #HADOOP_SECURITY_GROUPS_CACHE_SNAPSHOT_FILE}. */
+  public static final String HADOOP_SECURITY_GROUPS_CACHE_SNAPSHOT_FILE_DEFAULT =
+      "";
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
   public static final String HADOOP_SECURITY_GROUP_SHELL_COMMAND_TIMEOUT_KEY =
       "hadoop.security.groups.shell.command.timeout";
   /**
@@ -785,6 +840,26 @@ public class CommonConfigurationKeysPublic {
     "hadoop.security.crypto.buffer.size";
   /** Defalt value for HADOOP_SECURITY_CRYPTO_BUFFER_SIZE_KEY */
   public static final int HADOOP_SECURITY_CRYPTO_BUFFER_SIZE_DEFAULT = 8192;
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_KEY =
+      "hadoop.security.crypto.parallel.decrypt.threads";
+  /** Default value for HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_KEY. */
+  public static final int HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_DEFAULT
+      = 1;
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_MIN_SIZE_KEY =
+      "hadoop.security.crypto.parallel.decrypt.min.size";
+  /** Default value for HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_MIN_SIZE_KEY. */
+  public static final int
+      HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_MIN_SIZE_DEFAULT = 256 * 1024;
   /** Class to override Impersonation provider */
   public static final String  HADOOP_SECURITY_IMPERSONATION_PROVIDER_CLASS =
     "hadoop.security.impersonation.provider.class";
@@ -2922,6 +2922,10 @@ Tracer getTracer() {
     return tracer;
   }
 
+  Configuration getConf() {
+    return conf;
+  }
+
   /**
    * Open a file for reading through a builder API.
    * Ultimately calls {@link #open(Path, int)} unless a subclass
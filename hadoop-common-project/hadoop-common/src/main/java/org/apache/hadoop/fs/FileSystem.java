@@ -43,8 +43,13 @@
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hadoop.classification.InterfaceAudience;
@@ -58,6 +63,7 @@
 import org.apache.hadoop.fs.impl.AbstractFSBuilderImpl;
 import org.apache.hadoop.fs.impl.FutureDataInputStreamBuilderImpl;
 import org.apache.hadoop.fs.impl.OpenFileParameters;
+import org.apache.hadoop.fs.impl.ParallelListing;
 import org.apache.hadoop.fs.permission.AclEntry;
 import org.apache.hadoop.fs.permission.AclStatus;
 import org.apache.hadoop.fs.permission.FsAction;
@@ -65,6 +71,12 @@
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.MultipleIOException;
+import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsException;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.metrics2.MetricsSource;
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
+import org.apache.hadoop.metrics2.lib.Interns;
 import org.apache.hadoop.net.NetUtils;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.Credentials;
@@ -80,6 +92,7 @@
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.hadoop.util.ShutdownHookManager;
 import org.apache.hadoop.util.StringUtils;
+import org.apache.hadoop.util.Time;
 import org.apache.hadoop.tracing.Tracer;
 import org.apache.hadoop.tracing.TraceScope;
 import org.apache.hadoop.util.Preconditions;
@@ -200,11 +213,14 @@ public abstract class FileSystem extends Configured
   public static final String USER_HOME_PREFIX = "/user";
 
   /** FileSystem cache. */
-  static final Cache CACHE = new Cache(new Configuration());
+  static final Cache CACHE = new Cache(new Configuration(), true);
 
   /** The key this instance is stored under in the cache. */
   private Cache.Key key;
 
+  /** Monotonic time this instance was last returned by the cache. */
+  private volatile long lastCacheAccess;
+
   /** Recording statistics per a FileSystem class. */
   private static final Map<Class<? extends FileSystem>, Statistics>
       statisticsTable = new IdentityHashMap<>();
@@ -1820,6 +1836,15 @@ public boolean cancelDeleteOnExit(Path f) {
     }
   }
 
+  /**
+   * @return whether any path is marked as delete-on-exit.
+   */
+  private boolean hasDeleteOnExit() {
+    synchronized (deleteOnExit) {
+      return !deleteOnExit.isEmpty();
+    }
+  }
+
   /**
    * Delete all paths that were marked as delete-on-exit. This recursively
    * deletes all files and directories in the specified paths.
@@ -2370,6 +2395,8 @@ public RemoteIterator<FileStatus> listStatusIterator(final Path p)
    *   if recursive is true, return files in the subtree rooted at the path.
    * If the path is a file, return the file's status and block locations.
    * </pre>
+   * A recursive listing lists directories with the number of threads set by
+   * {@link CommonConfigurationKeysPublic#FS_LISTING_THREADS_KEY}.
    * @param f is the path
    * @param recursive if the subdirectories need to be traversed recursively
    *
@@ -2381,6 +2408,13 @@ public RemoteIterator<FileStatus> listStatusIterator(final Path p)
   public RemoteIterator<LocatedFileStatus> listFiles(
       final Path f, final boolean recursive)
   throws FileNotFoundException, IOException {
+    Configuration conf = getConf();
+    int threads = conf == null ? FS_LISTING_THREADS_DEFAULT
+        : conf.getInt(FS_LISTING_THREADS_KEY, FS_LISTING_THREADS_DEFAULT);
+    if (recursive && threads > 1) {
+      return ParallelListing.listFiles(this::listLocatedStatus, f, threads,
+          conf.getBoolean(FS_LISTING_ORDERED_KEY, FS_LISTING_ORDERED_DEFAULT));
+    }
     return new RemoteIterator<LocatedFileStatus>() {
       private Stack<RemoteIterator<LocatedFileStatus>> itors = new Stack<>();
       private RemoteIterator<LocatedFileStatus> curItor =
@@ -3614,22 +3648,48 @@ private static FileSystem createFileSystem(URI uri, Configuration conf)
     }
   }
 
-  /** Caching FileSystem objects. */
-  static final class Cache {
+  /**
+   * Caching FileSystem objects.
+   * <p></p>
+   * Lookups of cached instances do not take any lock. Instances are created
+   * once per key: concurrent callers asking for the same key wait for the
+   * instance being created, while callers of other keys are not blocked by
+   * the slow initialization of a filesystem.
+   * <p></p>
+   * If {@link CommonConfigurationKeysPublic#FS_CACHE_IDLE_TIMEOUT_KEY} is
+   * set, instances which have not been looked up for that long are closed
+   * and removed from the cache.
+   */
+  static final class Cache implements MetricsSource {
     private final ClientFinalizer clientFinalizer = new ClientFinalizer();
 
-    private final Map<Key, FileSystem> map = new HashMap<>();
+    private final Map<Key, FileSystem> map = new ConcurrentHashMap<>();
+    /** The instances being created, guarded by the creation itself. */
+    private final Map<Key, CompletableFuture<FileSystem>> creations =
+        new ConcurrentHashMap<>();
     private final Set<Key> toAutoClose = new HashSet<>();
 
     /** Semaphore used to serialize creation of new FS instances. */
     private final Semaphore creatorPermits;
 
+    /** Idle time in milliseconds after which instances are evicted. */
+    private final long idleTimeout;
+    /** Monotonic time of the next scan for idle instances. */
+    private final AtomicLong nextEviction = new AtomicLong();
+
     /**
      * Counter of the number of discarded filesystem instances
      * in this cache. Primarily for testing, but it could possibly
      * be made visible as some kind of metric.
      */
     private final AtomicLong discardedInstances = new AtomicLong(0);
+    private final AtomicLong evictedInstances = new AtomicLong(0);
+
+    /** Name of the metrics source and record. */
+    static final String METRICS_NAME = "FileSystemCache";
+    /** Whether the cache is registered as a metrics source. */
+    private final boolean publishMetrics;
+    private final AtomicBoolean metricsRegistered = new AtomicBoolean();
 
     /** A variable that makes all objects in the cache unique. */
     private static AtomicLong unique = new AtomicLong(1);
@@ -3641,11 +3701,26 @@ static final class Cache {
      * @param conf configuration
      */
     Cache(final Configuration conf) {
+      this(conf, false);
+    }
+
+    /**
+     * Instantiate.
+     * @param conf configuration
+     * @param publishMetrics whether to register the cache as a metrics
+     * source once it holds a filesystem.
+     */
+    Cache(final Configuration conf, final boolean publishMetrics) {
       int permits = conf.getInt(FS_CREATION_PARALLEL_COUNT,
           FS_CREATION_PARALLEL_COUNT_DEFAULT);
       checkArgument(permits > 0, "Invalid value of %s: %s",
           FS_CREATION_PARALLEL_COUNT, permits);
       creatorPermits = new Semaphore(permits);
+      idleTimeout = conf.getTimeDuration(FS_CACHE_IDLE_TIMEOUT_KEY,
+          FS_CACHE_IDLE_TIMEOUT_DEFAULT, TimeUnit.MILLISECONDS);
+      checkArgument(idleTimeout >= 0, "Invalid value of %s: %s",
+          FS_CACHE_IDLE_TIMEOUT_KEY, idleTimeout);
+      this.publishMetrics = publishMetrics;
     }
 
     FileSystem get(URI uri, Configuration conf) throws IOException{
@@ -3662,10 +3737,9 @@ FileSystem getUnique(URI uri, Configuration conf) throws IOException{
     /**
      * Get the FS instance if the key maps to an instance, creating and
      * initializing the FS if it is not found.
-     * If this is the first entry in the map and the JVM is not shutting down,
-     * this registers a shutdown hook to close filesystems, and adds this
-     * FS to the {@code toAutoClose} set if {@code "fs.automatic.close"}
-     * is set in the configuration (default: true).
+     * If another thread is already creating the FS for the same key, wait
+     * for it and return its instance; if that creation fails, try again in
+     * this thread.
      * @param uri filesystem URI
      * @param conf configuration
      * @param key key to store/retrieve this FileSystem in the cache
@@ -3674,26 +3748,68 @@ FileSystem getUnique(URI uri, Configuration conf) throws IOException{
      */
     private FileSystem getInternal(URI uri, Configuration conf, Key key)
         throws IOException{
-      FileSystem fs;
-      synchronized (this) {
-        fs = map.get(key);
+      if (idleTimeout > 0) {
+        evictIdle();
       }
-      if (fs != null) {
-        return fs;
+      while (true) {
+        FileSystem fs = map.get(key);
+        if (fs != null) {
+          touch(fs);
+          return fs;
+        }
+        CompletableFuture<FileSystem> creation = new CompletableFuture<>();
+        CompletableFuture<FileSystem> pending =
+            creations.putIfAbsent(key, creation);
+        if (pending != null) {
+          try {
+            fs = pending.join();
+            LOGGER.debug("Filesystem {} created by another thread", uri);
+            touch(fs);
+            return fs;
+          } catch (CompletionException | CancellationException e) {
+            // the other thread failed, so try again.
+            continue;
+          }
+        }
+        try {
+          fs = createAndCache(uri, conf, key);
+          creation.complete(fs);
+          return fs;
+        } catch (IOException | RuntimeException e) {
+          creation.completeExceptionally(e);
+          throw e;
+        } finally {
+          creations.remove(key, creation);
+        }
       }
+    }
+
+    /**
+     * Create a FS instance and add it to the cache.
+     * If this is the first entry in the map and the JVM is not shutting down,
+     * this registers a shutdown hook to close filesystems, and adds this
+     * FS to the {@code toAutoClose} set if {@code "fs.automatic.close"}
+     * is set in the configuration (default: true).
+     * @param uri filesystem URI
+     * @param conf configuration
+     * @param key key to store this FileSystem in the cache
+     * @return the cached FileSystem.
+     * @throws IOException If an I/O error occurred.
+     */
+    private FileSystem createAndCache(URI uri, Configuration conf, Key key)
+        throws IOException {
       // fs not yet created, acquire lock
       // to construct an instance.
       try (DurationInfo d = new DurationInfo(LOGGER, false,
           "Acquiring creator semaphore for %s", uri)) {
         creatorPermits.acquireUninterruptibly();
       }
+      FileSystem fs;
       FileSystem fsToClose = null;
       try {
         // See if FS was instantiated by another thread while waiting
         // for the permit.
-        synchronized (this) {
-          fs = map.get(key);
-        }
+        fs = map.get(key);
         if (fs != null) {
           LOGGER.debug("Filesystem {} created while awaiting semaphore", uri);
           return fs;
@@ -3726,6 +3842,7 @@ private FileSystem getInternal(URI uri, Configuration conf, Key key)
             }
             // insert the new file system into the map
             fs.key = key;
+            touch(fs);
             map.put(key, fs);
             if (conf.getBoolean(
                 FS_AUTOMATIC_CLOSE_KEY, FS_AUTOMATIC_CLOSE_DEFAULT)) {
@@ -3741,15 +3858,54 @@ private FileSystem getInternal(URI uri, Configuration conf, Key key)
         LOGGER.debug("Duplicate FS created for {}; discarding {}",
             uri, fs);
         discardedInstances.incrementAndGet();
-        // close the new file system
-        // note this will briefly remove and reinstate "fsToClose" from
-        // the map. It is done in a synchronized block so will not be
-        // visible to others.
+        // close the new file system; this does not remove the cached
+        // instance, as only an identical instance is removed from the map.
         IOUtils.cleanupWithLogger(LOGGER, fsToClose);
       }
+      registerMetrics();
       return fs;
     }
 
+    /** Record the access of a cached instance, if idle ones are evicted. */
+    private void touch(FileSystem fs) {
+      if (idleTimeout > 0) {
+        long now = Time.monotonicNow();
+        // avoid writing the shared field on every lookup.
+        if (fs.lastCacheAccess != now) {
+          fs.lastCacheAccess = now;
+        }
+      }
+    }
+
+    /**
+     * Drop the instances which have not been looked up for the idle
+     * timeout from the cache, without closing them, as their callers may
+     * still use them; they are closed by their callers, or collected once
+     * unused. Instances with paths to delete on exit stay cached, so that
+     * the paths are still deleted when the cache is closed. Scans run at
+     * most every half of the timeout, in a single caller thread.
+     */
+    private void evictIdle() {
+      final long now = Time.monotonicNow();
+      final long next = nextEviction.get();
+      if (now < next || !nextEviction.compareAndSet(next,
+          now + Math.max(idleTimeout / 2, 1))) {
+        return;
+      }
+      synchronized (this) {
+        for (Map.Entry<Key, FileSystem> entry : map.entrySet()) {
+          FileSystem fs = entry.getValue();
+          if (now - fs.lastCacheAccess > idleTimeout
+              && !fs.hasDeleteOnExit()
+              && map.remove(entry.getKey(), fs)) {
+            toAutoClose.remove(entry.getKey());
+            LOGGER.debug("Dropping idle filesystem {}", fs.key);
+            evictedInstances.incrementAndGet();
+          }
+        }
+      }
+    }
+
     /**
      * Get the count of discarded instances.
      * @return the new instance.
@@ -3759,12 +3915,19 @@ long getDiscardedInstances() {
       return discardedInstances.get();
     }
 
+    /**
+     * Get the count of instances dropped as they were idle.
+     * @return the count.
+     */
+    @VisibleForTesting
+    long getEvictedInstances() {
+      return evictedInstances.get();
+    }
+
     synchronized void remove(Key key, FileSystem fs) {
-      FileSystem cachedFs = map.remove(key);
-      if (fs == cachedFs) {
+      // instances which were never cached have no key.
+      if (key != null && map.remove(key, fs)) {
         toAutoClose.remove(key);
-      } else if (cachedFs != null) {
-        map.put(key, cachedFs);
       }
     }
 
@@ -3853,12 +4016,54 @@ synchronized void closeAll(UserGroupInformation ugi) throws IOException {
       }
     }
 
+    /** Register this cache as a metrics source, once. */
+    private void registerMetrics() {
+      if (publishMetrics && metricsRegistered.compareAndSet(false, true)) {
+        try {
+          DefaultMetricsSystem.instance().register(METRICS_NAME,
+              "Cached FileSystem instances", this);
+        } catch (MetricsException e) {
+          LOGGER.debug("Failed to register metrics of the FileSystem cache",
+              e);
+        }
+      }
+    }
+
+    /**
+     * Publish the number of cached instances in total and per scheme, so
+     * that filesystems which are never closed can be spotted. There is no
+     * count per user, as a gateway may serve any number of users.
+     */
+    @Override
+    public void getMetrics(MetricsCollector collector, boolean all) {
+      Map<String, Integer> schemes = new HashMap<>();
+      int instances = 0;
+      for (Key key : map.keySet()) {
+        schemes.merge(key.scheme, 1, Integer::sum);
+        instances++;
+      }
+      MetricsRecordBuilder rb = collector.addRecord(METRICS_NAME)
+          .setContext("fs")
+          .addGauge(Interns.info("NumInstances",
+              "Number of cached instances"), instances)
+          .addCounter(Interns.info("DiscardedInstances",
+              "Number of duplicate instances closed on creation"),
+              discardedInstances.get())
+          .addCounter(Interns.info("EvictedInstances",
+              "Number of idle instances dropped"), evictedInstances.get());
+      for (Map.Entry<String, Integer> entry : schemes.entrySet()) {
+        rb.addGauge(Interns.info("Scheme(" + entry.getKey() + ").NumInstances",
+            "Number of cached instances of the scheme"), entry.getValue());
+      }
+    }
+
     /** FileSystem.Cache.Key */
     static class Key {
       final String scheme;
       final String authority;
       final UserGroupInformation ugi;
       final long unique;   // an artificial way to make a key unique
+      private final int hash;   // keys are built for every lookup
 
       Key(URI uri, Configuration conf) throws IOException {
         this(uri, conf, 0);
@@ -3872,11 +4077,13 @@ static class Key {
         this.unique = unique;
 
         this.ugi = UserGroupInformation.getCurrentUser();
+        this.hash = 31 * scheme.hashCode() + authority.hashCode()
+            + ugi.hashCode() + (int)unique;
       }
 
       @Override
       public int hashCode() {
-        return (scheme + authority).hashCode() + ugi.hashCode() + (int)unique;
+        return hash;
       }
 
       static boolean isEqual(Object a, Object b) {
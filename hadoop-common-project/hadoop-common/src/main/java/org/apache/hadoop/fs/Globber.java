@@ -21,10 +21,13 @@
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.impl.ParallelListing;
 import org.apache.hadoop.util.DurationInfo;
 
 import org.apache.hadoop.tracing.TraceScope;
@@ -52,6 +55,7 @@ public class Globber {
   private final PathFilter filter;
   private final Tracer tracer;
   private final boolean resolveSymlinks;
+  private final int listingThreads;
 
   Globber(FileSystem fs, Path pathPattern, PathFilter filter) {
     this.fs = fs;
@@ -59,6 +63,7 @@ public class Globber {
     this.pathPattern = pathPattern;
     this.filter = filter;
     this.tracer = FsTracer.get(fs.getConf());
+    this.listingThreads = getListingThreads(fs.getConf());
     this.resolveSymlinks = true;
   }
 
@@ -68,6 +73,7 @@ public class Globber {
     this.pathPattern = pathPattern;
     this.filter = filter;
     this.tracer = fc.getTracer();
+    this.listingThreads = getListingThreads(fc.getConf());
     this.resolveSymlinks = true;
   }
 
@@ -86,6 +92,7 @@ private Globber(FileSystem fs, Path pathPattern, PathFilter filter,
     this.filter = filter;
     this.resolveSymlinks = resolveSymlinks;
     this.tracer = FsTracer.get(fs.getConf());
+    this.listingThreads = getListingThreads(fs.getConf());
     LOG.debug("Created Globber for path={}, symlinks={}",
         pathPattern, resolveSymlinks);
   }
@@ -105,10 +112,18 @@ private Globber(FileContext fc, Path pathPattern, PathFilter filter,
     this.filter = filter;
     this.resolveSymlinks = resolveSymlinks;
     this.tracer = fc.getTracer();
+    this.listingThreads = getListingThreads(fc.getConf());
     LOG.debug("Created Globber path={}, symlinks={}",
         pathPattern, resolveSymlinks);
   }
 
+  private static int getListingThreads(Configuration conf) {
+    return conf == null
+        ? CommonConfigurationKeysPublic.FS_LISTING_THREADS_DEFAULT
+        : conf.getInt(CommonConfigurationKeysPublic.FS_LISTING_THREADS_KEY,
+            CommonConfigurationKeysPublic.FS_LISTING_THREADS_DEFAULT);
+  }
+
   private FileStatus getFileStatus(Path path) throws IOException {
     try {
       if (fs != null) {
@@ -286,71 +301,17 @@ private FileStatus[] doGlob() throws IOException {
           }
           continue;
         }
-        for (FileStatus candidate : candidates) {
-          if (globFilter.hasPattern()) {
-            FileStatus[] children = listStatus(candidate.getPath());
-            if (children.length == 1) {
-              // If we get back only one result, this could be either a listing
-              // of a directory with one entry, or it could reflect the fact
-              // that what we listed resolved to a file.
-              //
-              // Unfortunately, we can't just compare the returned paths to
-              // figure this out.  Consider the case where you have /a/b, where
-              // b is a symlink to "..".  In that case, listing /a/b will give
-              // back "/a/b" again.  If we just went by returned pathname, we'd
-              // incorrectly conclude that /a/b was a file and should not match
-              // /a/*/*.  So we use getFileStatus of the path we just listed to
-              // disambiguate.
-              if (resolveSymlinks) {
-                LOG.debug("listStatus found one entry; disambiguating {}",
-                    children[0]);
-                Path path = candidate.getPath();
-                FileStatus status = getFileStatus(path);
-                if (status == null) {
-                  // null means the file was not found
-                  LOG.warn("File/directory {} not found:"
-                      + " it may have been deleted."
-                      + " If this is an object store, this can be a sign of"
-                      + " eventual consistency problems.",
-                      path);
-                  continue;
-                }
-                if (!status.isDirectory()) {
-                  LOG.debug("Resolved entry is a file; skipping: {}", status);
-                  continue;
-                }
-              } else {
-                // there's no symlinks in this store, so no need to issue
-                // another call, just see if the result is a directory or a file
-                if (children[0].getPath().equals(candidate.getPath())) {
-                  // the listing status is of a file
-                  continue;
-                }
-              }
-            }
-            for (FileStatus child : children) {
-              if (componentIdx < components.size() - 1) {
-                // Don't try to recurse into non-directories.  See HADOOP-10957.
-                if (!child.isDirectory()) continue; 
-              }
-              // Set the child path based on the parent path.
-              child.setPath(new Path(candidate.getPath(),
-                      child.getPath().getName()));
-              if (globFilter.accept(child.getPath())) {
-                newCandidates.add(child);
-              }
-            }
-          } else {
-            // When dealing with non-glob components, use getFileStatus 
-            // instead of listStatus.  This is an optimization, but it also
-            // is necessary for correctness in HDFS, since there are some
-            // special HDFS directories like .reserved and .snapshot that are
-            // not visible to listStatus, but which do exist.  (See HADOOP-9877)
-            FileStatus childStatus = getFileStatus(
-                new Path(candidate.getPath(), component));
-            if (childStatus != null) {
-              newCandidates.add(childStatus);
-            }
+        final boolean last = componentIdx == components.size() - 1;
+        if (listingThreads > 1 && candidates.size() > 1) {
+          for (List<FileStatus> matches : ParallelListing.map(candidates,
+              listingThreads,
+              candidate -> expand(candidate, globFilter, component, last))) {
+            newCandidates.addAll(matches);
+          }
+        } else {
+          for (FileStatus candidate : candidates) {
+            newCandidates.addAll(
+                expand(candidate, globFilter, component, last));
           }
         }
         candidates = newCandidates;
@@ -395,6 +356,86 @@ private FileStatus[] doGlob() throws IOException {
     return ret;
   }
 
+  /**
+   * Match a path component against the children of a candidate.
+   * @param candidate the candidate parent.
+   * @param globFilter the filter of the component.
+   * @param component the component, unescaped.
+   * @param last whether this is the terminal path component.
+   * @return the matching children.
+   * @throws IOException failure to list or get the status of the children.
+   */
+  private List<FileStatus> expand(FileStatus candidate, GlobFilter globFilter,
+      String component, boolean last) throws IOException {
+    List<FileStatus> matches = new ArrayList<>();
+    if (globFilter.hasPattern()) {
+      FileStatus[] children = listStatus(candidate.getPath());
+      if (children.length == 1) {
+        // If we get back only one result, this could be either a listing
+        // of a directory with one entry, or it could reflect the fact
+        // that what we listed resolved to a file.
+        //
+        // Unfortunately, we can't just compare the returned paths to
+        // figure this out.  Consider the case where you have /a/b, where
+        // b is a symlink to "..".  In that case, listing /a/b will give
+        // back "/a/b" again.  If we just went by returned pathname, we'd
+        // incorrectly conclude that /a/b was a file and should not match
+        // /a/*/*.  So we use getFileStatus of the path we just listed to
+        // disambiguate.
+        if (resolveSymlinks) {
+          LOG.debug("listStatus found one entry; disambiguating {}",
+              children[0]);
+          Path path = candidate.getPath();
+          FileStatus status = getFileStatus(path);
+          if (status == null) {
+            // null means the file was not found
+            LOG.warn("File/directory {} not found:"
+                + " it may have been deleted."
+                + " If this is an object store, this can be a sign of"
+                + " eventual consistency problems.",
+                path);
+            return Collections.emptyList();
+          }
+          if (!status.isDirectory()) {
+            LOG.debug("Resolved entry is a file; skipping: {}", status);
+            return Collections.emptyList();
+          }
+        } else {
+          // there's no symlinks in this store, so no need to issue
+          // another call, just see if the result is a directory or a file
+          if (children[0].getPath().equals(candidate.getPath())) {
+            // the listing status is of a file
+            return Collections.emptyList();
+          }
+        }
+      }
+      for (FileStatus child : children) {
+        if (!last) {
+          // Don't try to recurse into non-directories.  See HADOOP-10957.
+          if (!child.isDirectory()) continue; 
+        }
+        // Set the child path based on the parent path.
+        child.setPath(new Path(candidate.getPath(),
+                child.getPath().getName()));
+        if (globFilter.accept(child.getPath())) {
+          matches.add(child);
+        }
+      }
+    } else {
+      // When dealing with non-glob components, use getFileStatus 
+      // instead of listStatus.  This is an optimization, but it also
+      // is necessary for correctness in HDFS, since there are some
+      // special HDFS directories like .reserved and .snapshot that are
+      // not visible to listStatus, but which do exist.  (See HADOOP-9877)
+      FileStatus childStatus = getFileStatus(
+          new Path(candidate.getPath(), component));
+      if (childStatus != null) {
+        matches.add(childStatus);
+      }
+    }
+    return matches;
+  }
+
   /**
    * Create a builder for a Globber, bonded to the specific filesystem.
    * @param filesystem filesystem
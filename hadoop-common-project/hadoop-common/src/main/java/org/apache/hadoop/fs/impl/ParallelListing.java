@@ -0,0 +1,594 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.fs.impl;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.fs.statistics.IOStatistics;
+import org.apache.hadoop.fs.statistics.IOStatisticsSource;
+import org.apache.hadoop.fs.statistics.impl.IOStatisticsStore;
+import org.apache.hadoop.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hadoop.util.Time;
+import org.apache.hadoop.util.functional.CallableRaisingIOE;
+import org.apache.hadoop.util.functional.FunctionRaisingIOE;
+import org.apache.hadoop.util.functional.FutureIO;
+
+import static org.apache.hadoop.fs.statistics.StoreStatisticNames.OP_LIST_STATUS;
+import static org.apache.hadoop.fs.statistics.impl.IOStatisticsBinding.iostatisticsStore;
+import static org.apache.hadoop.fs.statistics.impl.IOStatisticsBinding.trackDuration;
+
+/**
+ * Lists directories with a bounded number of threads, for recursive
+ * listings and globbing of large trees, which are slow when every
+ * directory is listed in turn, especially in object stores.
+ * The number of threads is set by <b>fs.listing.threads</b>.
+ *
+ * Directories are listed through a function, usually
+ * {@code FileSystem.listLocatedStatus(Path)}, so stores which list
+ * faster in bulk should rather override {@code FileSystem.listFiles}.
+ */
+@InterfaceAudience.Private
+@InterfaceStability.Unstable
+public final class ParallelListing {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(ParallelListing.class);
+
+  /**
+   * The gauge of the directories listed per second by a recursive listing,
+   * set once the listing is complete: {@value}.
+   */
+  public static final String DIRECTORIES_PER_SECOND =
+      "directories_per_second";
+
+  /**
+   * The number of directory listings a listing may run ahead of its
+   * caller, per thread.
+   */
+  private static final int PREFETCH_PER_THREAD = 16;
+
+  private static final ExecutorService EXECUTOR =
+      Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("parallel-listing-%d")
+          .build());
+
+  private ParallelListing() {
+  }
+
+  /**
+   * Apply a function to each input, with at most the given number of
+   * threads, including the calling thread.
+   *
+   * @param inputs the inputs.
+   * @param threads the maximum number of threads.
+   * @param fn the function, which must be thread safe.
+   * @param <S> the type of the inputs.
+   * @param <T> the type of the results.
+   * @return the results, in the order of the inputs.
+   * @throws IOException the first failure of the function.
+   */
+  public static <S, T> List<T> map(List<S> inputs, int threads,
+      FunctionRaisingIOE<S, T> fn) throws IOException {
+    int n = inputs.size();
+    List<T> results = new ArrayList<>(Collections.nCopies(n, null));
+    AtomicInteger next = new AtomicInteger();
+    AtomicBoolean failed = new AtomicBoolean();
+    CallableRaisingIOE<Void> worker = () -> {
+      try {
+        for (int i = next.getAndIncrement(); i < n && !failed.get();
+             i = next.getAndIncrement()) {
+          results.set(i, fn.apply(inputs.get(i)));
+        }
+      } catch (IOException | RuntimeException e) {
+        failed.set(true);
+        throw e;
+      }
+      return null;
+    };
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 1; i < Math.min(threads, n); i++) {
+      futures.add(EXECUTOR.submit(() -> worker.apply()));
+    }
+    IOException failure = null;
+    try {
+      worker.apply();
+    } catch (IOException e) {
+      failure = e;
+    } finally {
+      // do not return while the other threads still use the inputs.
+      for (Future<Void> future : futures) {
+        try {
+          FutureIO.awaitFuture(future);
+        } catch (IOException e) {
+          if (failure == null) {
+            failure = e;
+          }
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return results;
+  }
+
+  /**
+   * List the files under a path recursively.
+   * An ordered listing returns the files in the order of a serial
+   * depth-first listing, listing the directories ahead of the caller.
+   * An unordered listing returns the files of each directory as soon as it
+   * is listed, and stops listing while the files of a bounded number of
+   * directories wait for the caller.
+   * Directories which are deleted during the listing are skipped.
+   * The iterator is {@link Closeable} to stop listing, and an
+   * {@link IOStatisticsSource} with the number and duration of the
+   * directory listings.
+   *
+   * @param lister lists a directory, which must be thread safe.
+   * @param path the path to list.
+   * @param threads the maximum number of threads.
+   * @param ordered whether to return the files in depth-first order.
+   * @return an iterator over the files.
+   * @throws FileNotFoundException if the path does not exist.
+   * @throws IOException if the path cannot be listed.
+   */
+  public static RemoteIterator<LocatedFileStatus> listFiles(
+      FunctionRaisingIOE<Path, RemoteIterator<LocatedFileStatus>> lister,
+      Path path, int threads, boolean ordered) throws IOException {
+    FileListing listing = ordered
+        ? new OrderedListing(lister, path, threads)
+        : new UnorderedListing(lister, path, threads);
+    listing.start();
+    return listing;
+  }
+
+  /**
+   * Run tasks on the shared pool, with at most a given number of them at a
+   * time, queueing the others.
+   */
+  private static final class BoundedRunner {
+    private final int threads;
+    private final Queue<Runnable> queue = new ArrayDeque<>();
+    private int active;
+
+    BoundedRunner(int threads) {
+      this.threads = threads;
+    }
+
+    synchronized void submit(Runnable task) {
+      if (active < threads) {
+        active++;
+        EXECUTOR.execute(() -> run(task));
+      } else {
+        queue.add(task);
+      }
+    }
+
+    private void run(Runnable first) {
+      Runnable task = first;
+      while (task != null) {
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          LOG.warn("Listing task failed", e);
+        }
+        synchronized (this) {
+          task = queue.poll();
+          if (task == null) {
+            active--;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The parts shared by ordered and unordered listings.
+   */
+  private abstract static class FileListing
+      implements RemoteIterator<LocatedFileStatus>, IOStatisticsSource,
+      Closeable {
+    private final FunctionRaisingIOE<Path, RemoteIterator<LocatedFileStatus>>
+        lister;
+    private final Path path;
+    private final IOStatisticsStore statistics = iostatisticsStore()
+        .withDurationTracking(OP_LIST_STATUS)
+        .withGauges(DIRECTORIES_PER_SECOND)
+        .build();
+    private final long startTime = Time.monotonicNow();
+    private final BoundedRunner runner;
+    private volatile boolean closed;
+    private LocatedFileStatus next;
+    private boolean finished;
+
+    FileListing(
+        FunctionRaisingIOE<Path, RemoteIterator<LocatedFileStatus>> lister,
+        Path path, int threads) {
+      this.lister = lister;
+      this.path = path;
+      this.runner = new BoundedRunner(threads);
+    }
+
+    /**
+     * List the top directory in the calling thread, so that its failures
+     * are raised to the caller.
+     */
+    abstract void start() throws IOException;
+
+    /**
+     * @return the next file, or null at the end of the listing.
+     */
+    abstract LocatedFileStatus nextFile() throws IOException;
+
+    Path getPath() {
+      return path;
+    }
+
+    boolean isClosed() {
+      return closed;
+    }
+
+    void submit(Runnable task) {
+      runner.submit(task);
+    }
+
+    /**
+     * List a directory, with its files and subdirectories.
+     */
+    List<LocatedFileStatus> listDirectory(Path dir) throws IOException {
+      return trackDuration(statistics, OP_LIST_STATUS, () -> {
+        List<LocatedFileStatus> entries = new ArrayList<>();
+        RemoteIterator<LocatedFileStatus> it = lister.apply(dir);
+        while (it.hasNext()) {
+          entries.add(it.next());
+        }
+        return entries;
+      });
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+      if (next == null && !finished) {
+        try {
+          next = nextFile();
+        } catch (IOException | RuntimeException e) {
+          close();
+          throw e;
+        }
+        if (next == null) {
+          finished = true;
+          long elapsed = Math.max(1, Time.monotonicNow() - startTime);
+          long directories = statistics.counters().get(OP_LIST_STATUS);
+          statistics.setGauge(DIRECTORIES_PER_SECOND,
+              directories * 1000 / elapsed);
+          LOG.debug("Listed {} directories under {} in {} ms", directories,
+              path, elapsed);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public LocatedFileStatus next() throws IOException {
+      if (!hasNext()) {
+        throw new NoSuchElementException("No more entry in " + path);
+      }
+      LocatedFileStatus result = next;
+      next = null;
+      return result;
+    }
+
+    @Override
+    public IOStatistics getIOStatistics() {
+      return statistics;
+    }
+
+    /**
+     * Stop listing directories which have not been listed yet.
+     */
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  /**
+   * A listing which returns the files of the directories as they are
+   * listed. Subdirectories are only submitted while the directories being
+   * listed, or listed but not taken by the caller, are under a bound, and
+   * the caller submits more as it takes their files, so a listing which is
+   * abandoned stops.
+   */
+  private static final class UnorderedListing extends FileListing {
+    /** Marks the end of the listing in the results. */
+    private static final Object END = new Object();
+
+    /** Lists of files, one per directory, failures, or the end. */
+    private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+    /** The subdirectories found but not submitted yet. */
+    private final Deque<Path> waiting = new ArrayDeque<>();
+    /** The directories being listed, or waiting to be. */
+    private final AtomicInteger pending = new AtomicInteger();
+    /** The directories submitted whose results are not taken yet. */
+    private int outstanding;
+    private final int maxOutstanding;
+    private Iterator<LocatedFileStatus> batch = Collections.emptyIterator();
+    private boolean done;
+
+    UnorderedListing(
+        FunctionRaisingIOE<Path, RemoteIterator<LocatedFileStatus>> lister,
+        Path path, int threads) {
+      super(lister, path, threads);
+      this.maxOutstanding = threads * PREFETCH_PER_THREAD;
+    }
+
+    @Override
+    void start() throws IOException {
+      batch = add(listDirectory(getPath())).iterator();
+      if (pending.get() == 0) {
+        results.add(END);
+      }
+    }
+
+    /**
+     * Queue the subdirectories of a directory for listing. They are counted
+     * before the directory itself is, so that the count only reaches zero
+     * once all directories are listed.
+     *
+     * @return the files of the directory.
+     */
+    private List<LocatedFileStatus> add(List<LocatedFileStatus> entries) {
+      List<LocatedFileStatus> files = new ArrayList<>(entries.size());
+      List<Path> dirs = new ArrayList<>();
+      for (LocatedFileStatus entry : entries) {
+        if (entry.isFile()) {
+          files.add(entry);
+        } else {
+          dirs.add(entry.getPath());
+        }
+      }
+      if (!dirs.isEmpty()) {
+        pending.addAndGet(dirs.size());
+        synchronized (this) {
+          waiting.addAll(dirs);
+          submitWaiting();
+        }
+      }
+      return files;
+    }
+
+    /**
+     * Submit waiting subdirectories as far as the bound allows, or drop
+     * them once the listing is closed.
+     */
+    private synchronized void submitWaiting() {
+      if (isClosed()) {
+        int dropped = waiting.size();
+        waiting.clear();
+        if (dropped > 0 && pending.addAndGet(-dropped) == 0) {
+          results.add(END);
+        }
+        return;
+      }
+      while (outstanding < maxOutstanding && !waiting.isEmpty()) {
+        Path dir = waiting.poll();
+        outstanding++;
+        submit(() -> list(dir));
+      }
+    }
+
+    /**
+     * List a directory, adding exactly one result for it unless the
+     * listing is closed.
+     */
+    private void list(Path dir) {
+      try {
+        if (!isClosed()) {
+          results.add(add(listDirectory(dir)));
+        }
+      } catch (FileNotFoundException e) {
+        LOG.debug("Directory {} deleted while listing", dir);
+        results.add(Collections.emptyList());
+      } catch (IOException | RuntimeException e) {
+        results.add(e);
+      } finally {
+        if (pending.decrementAndGet() == 0) {
+          results.add(END);
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      super.close();
+      submitWaiting();
+    }
+
+    /**
+     * The caller took the result of a directory, so another one may be
+     * listed.
+     */
+    private synchronized void taken() {
+      outstanding--;
+      submitWaiting();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    LocatedFileStatus nextFile() throws IOException {
+      while (!batch.hasNext()) {
+        if (done) {
+          return null;
+        }
+        Object result;
+        try {
+          result = results.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw (IOException) new InterruptedIOException(
+              "Interrupted listing " + getPath()).initCause(e);
+        }
+        if (result == END) {
+          done = true;
+          continue;
+        }
+        taken();
+        if (result instanceof IOException) {
+          throw (IOException) result;
+        } else if (result instanceof RuntimeException) {
+          throw (RuntimeException) result;
+        } else {
+          batch = ((List<LocatedFileStatus>) result).iterator();
+        }
+      }
+      return batch.next();
+    }
+  }
+
+  /**
+   * A listing which returns the files in depth-first order, while the
+   * directories after the current one are listed by the other threads.
+   */
+  private static final class OrderedListing extends FileListing {
+    /** The entries of the directories being returned, innermost first. */
+    private final Deque<Iterator<Entry>> stack = new ArrayDeque<>();
+    /** The directories listed, or being listed, but not returned yet. */
+    private final AtomicInteger prefetched = new AtomicInteger();
+    private final int maxPrefetched;
+
+    OrderedListing(
+        FunctionRaisingIOE<Path, RemoteIterator<LocatedFileStatus>> lister,
+        Path path, int threads) {
+      super(lister, path, threads);
+      this.maxPrefetched = threads * PREFETCH_PER_THREAD;
+    }
+
+    /**
+     * An entry of a directory, with the listing of a subdirectory if it
+     * was started.
+     */
+    private static final class Entry {
+      private final LocatedFileStatus status;
+      private final CompletableFuture<List<Entry>> listing;
+
+      Entry(LocatedFileStatus status, CompletableFuture<List<Entry>> listing) {
+        this.status = status;
+        this.listing = listing;
+      }
+    }
+
+    @Override
+    void start() throws IOException {
+      stack.push(toEntries(listDirectory(getPath())).iterator());
+    }
+
+    /**
+     * Start listing the subdirectories, as far as the limit allows.
+     */
+    private List<Entry> toEntries(List<LocatedFileStatus> statuses) {
+      List<Entry> entries = new ArrayList<>(statuses.size());
+      for (LocatedFileStatus status : statuses) {
+        CompletableFuture<List<Entry>> listing = null;
+        if (!status.isFile() && !isClosed()
+            && prefetched.get() < maxPrefetched) {
+          prefetched.incrementAndGet();
+          listing = new CompletableFuture<>();
+          CompletableFuture<List<Entry>> future = listing;
+          submit(() -> list(status.getPath(), future));
+        }
+        entries.add(new Entry(status, listing));
+      }
+      return entries;
+    }
+
+    private void list(Path dir, CompletableFuture<List<Entry>> future) {
+      try {
+        future.complete(isClosed()
+            ? Collections.emptyList()
+            : toEntries(listDirectory(dir)));
+      } catch (FileNotFoundException e) {
+        LOG.debug("Directory {} deleted while listing", dir);
+        future.complete(Collections.emptyList());
+      } catch (IOException | RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    @Override
+    LocatedFileStatus nextFile() throws IOException {
+      while (!stack.isEmpty()) {
+        Iterator<Entry> entries = stack.peek();
+        if (!entries.hasNext()) {
+          stack.pop();
+          continue;
+        }
+        Entry entry = entries.next();
+        if (entry.status.isFile()) {
+          return entry.status;
+        }
+        List<Entry> children;
+        if (entry.listing != null) {
+          try {
+            children = FutureIO.awaitFuture(entry.listing);
+          } finally {
+            prefetched.decrementAndGet();
+          }
+        } else {
+          try {
+            children = toEntries(listDirectory(entry.status.getPath()));
+          } catch (FileNotFoundException e) {
+            LOG.debug("Directory {} deleted while listing",
+                entry.status.getPath());
+            continue;
+          }
+        }
+        stack.push(children.iterator());
+      }
+      return null;
+    }
+  }
+}
@@ -22,6 +22,7 @@
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -33,8 +34,12 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.hadoop.fs.ChecksumFileSystem;
+import org.apache.hadoop.fs.CommonPathCapabilities;
 import org.apache.hadoop.fs.CreateFlag;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileChecksum;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.FilterFileSystem;
 import org.apache.hadoop.fs.Path;
@@ -76,6 +81,7 @@ abstract class CommandWithDestination extends FsCommand {
   private boolean writeChecksum = true;
   private boolean lazyPersist = false;
   private boolean direct = false;
+  private boolean resume = false;
 
   /**
    * The name of the raw xattr namespace. It would be nice to use
@@ -88,6 +94,12 @@ abstract class CommandWithDestination extends FsCommand {
    */
   private static final String RESERVED_RAW = "/.reserved/raw";
 
+  /**
+   * The number of bytes at the end of a partial copy which are compared with
+   * the source before resuming the copy.
+   */
+  private static final int RESUME_VERIFY_LENGTH = 64 * 1024;
+
   /**
    * 
    * This method is used to enable the force(-f)  option while copying the files.
@@ -114,6 +126,17 @@ protected void setDirectWrite(boolean flag) {
     direct = flag;
   }
 
+  /**
+   * If true, a target of the same length as its source is not copied again,
+   * and a partially copied file is completed instead of being copied from
+   * the start. Partially copied files are kept when a copy fails.
+   *
+   * @param flag true/false
+   */
+  protected void setResume(boolean flag) {
+    resume = flag;
+  }
+
   /**
    * If true, the last modified time, last access time,
    * owner, group and permission information of the source
@@ -233,7 +256,7 @@ protected void processArguments(LinkedList<PathData> args)
         throw new PathIsNotDirectoryException(dst.toString());
       }
     } else if (dst.exists) {
-      if (!dst.stat.isDirectory() && !overwrite) {
+      if (!dst.stat.isDirectory() && !overwrite && !resume) {
         LOG.debug("Destination file exists: {}", dst.stat);
         throw new PathExistsException(dst.toString());
       }
@@ -352,19 +375,155 @@ protected void copyFileToTarget(PathData src, PathData target)
     final boolean preserveRawXattrs =
         checkPathsForReservedRaw(src.path, target.path);
     src.fs.setVerifyChecksum(verifyChecksum);
+    if (resume && resumeCopy(src, target)) {
+      preserveAttributes(src, target, preserveRawXattrs);
+      return;
+    }
     InputStream in = null;
     try {
-      in = awaitFuture(src.fs.openFile(src.path)
-          .withFileStatus(src.stat)
-          .opt(FS_OPTION_OPENFILE_READ_POLICY,
-              FS_OPTION_OPENFILE_READ_POLICY_WHOLE_FILE)
-          .build());
+      in = openSource(src, 0);
       copyStreamToTarget(in, target);
       preserveAttributes(src, target, preserveRawXattrs);
     } finally {
       IOUtils.closeStream(in);
     }
   }
+
+  /**
+   * Opens a source file for copying.
+   * @param src the file to copy
+   * @param offset the offset to start reading from
+   * @return the stream of the file from the offset
+   * @throws IOException if the file cannot be opened
+   */
+  protected InputStream openSource(PathData src, long offset)
+      throws IOException {
+    FSDataInputStream in = awaitFuture(src.fs.openFile(src.path)
+        .withFileStatus(src.stat)
+        .opt(FS_OPTION_OPENFILE_READ_POLICY,
+            FS_OPTION_OPENFILE_READ_POLICY_WHOLE_FILE)
+        .build());
+    if (offset > 0) {
+      try {
+        in.seek(offset);
+      } catch (IOException e) {
+        IOUtils.closeStream(in);
+        throw e;
+      }
+    }
+    return in;
+  }
+
+  /**
+   * Completes an interrupted copy of a file. A target of the same length as
+   * the source has been copied if it has the same checksum, or, when the
+   * filesystems have no comparable checksums, if it was not modified before
+   * the source. A shorter partial file, the temporary file
+   * or the target itself with direct writes, is appended to if the target
+   * filesystem supports it and the tail of the file matches the source.
+   * @param src the file to copy
+   * @param target where to copy the file
+   * @return true if the copy is complete, false to copy the whole file
+   * @throws IOException if the copy fails
+   */
+  private boolean resumeCopy(PathData src, PathData target)
+      throws IOException {
+    long length = src.stat.getLen();
+    if (target.exists && target.stat.isFile()
+        && target.stat.getLen() == length) {
+      if (isCopied(src, target)) {
+        LOG.debug("Skipping copied file {}", target);
+        return true;
+      }
+      LOG.info("{} differs from {}; copying the whole file", target, src);
+      return false;
+    }
+    PathData partial = direct ? target : target.suffix("._COPYING_");
+    if (!partial.exists || !partial.stat.isFile()
+        || partial.stat.getLen() == 0 || partial.stat.getLen() >= length) {
+      return false;
+    }
+    if (!direct && target.exists && (target.stat.isDirectory() || !overwrite)) {
+      throw new PathExistsException(target.toString());
+    }
+    FileSystem targetFs = partial.fs;
+    if (!writeChecksum && targetFs instanceof ChecksumFileSystem) {
+      // no checksums are written, so append to the raw file.
+      ChecksumFileSystem checksumFs = (ChecksumFileSystem) targetFs;
+      if (checksumFs.exists(checksumFs.getChecksumFile(partial.path))) {
+        return false;
+      }
+      targetFs = checksumFs.getRawFileSystem();
+    }
+    if (!targetFs.hasPathCapability(partial.path,
+        CommonPathCapabilities.FS_APPEND)) {
+      LOG.debug("Cannot append to {}; copying the whole file", partial);
+      return false;
+    }
+    long offset = partial.stat.getLen();
+    if (!tailMatches(src, partial, offset)) {
+      LOG.info("{} does not match {}; copying the whole file", partial, src);
+      return false;
+    }
+    LOG.debug("Resuming the copy of {} to {} at {}", src, partial, offset);
+    try (InputStream in = openSource(src, offset);
+        FSDataOutputStream out = targetFs.append(partial.path)) {
+      IOUtils.copyBytes(in, out, getConf(), false);
+    }
+    if (!direct) {
+      TargetFileSystem renameFs = new TargetFileSystem(target.fs);
+      try {
+        renameFs.rename(partial, target);
+      } finally {
+        renameFs.close();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether a target of the same length as the source is a copy of
+   * it, by their checksums if both filesystems return checksums of the same
+   * algorithm, otherwise by their modification times.
+   * @param src the source file
+   * @param target the target file
+   * @return true if the target is a copy of the source
+   * @throws IOException if the checksums cannot be read
+   */
+  private static boolean isCopied(PathData src, PathData target)
+      throws IOException {
+    FileChecksum srcChecksum = src.fs.getFileChecksum(src.path);
+    FileChecksum targetChecksum = srcChecksum == null
+        ? null : target.fs.getFileChecksum(target.path);
+    if (targetChecksum != null && srcChecksum.getAlgorithmName()
+        .equals(targetChecksum.getAlgorithmName())) {
+      return srcChecksum.equals(targetChecksum);
+    }
+    return target.stat.getModificationTime()
+        >= src.stat.getModificationTime();
+  }
+
+  /**
+   * Checks that the last bytes of a partial copy match the source.
+   * @param src the source file
+   * @param partial the partial copy
+   * @param length the length of the partial copy
+   * @return true if the bytes match
+   * @throws IOException if either file cannot be read
+   */
+  private static boolean tailMatches(PathData src, PathData partial,
+      long length) throws IOException {
+    int n = (int) Math.min(length, RESUME_VERIFY_LENGTH);
+    byte[] expected = new byte[n];
+    byte[] actual = new byte[n];
+    try (FSDataInputStream in = src.fs.open(src.path)) {
+      in.readFully(length - n, expected);
+    }
+    try (FSDataInputStream in = partial.fs.open(partial.path)) {
+      in.readFully(length - n, actual);
+    }
+    return Arrays.equals(expected, actual);
+  }
   
   /**
    * Check the source and target paths to ensure that they are either both in
@@ -424,7 +583,8 @@ protected void copyStreamToTarget(InputStream in, PathData target)
     try {
       PathData tempTarget = direct ? target : target.suffix("._COPYING_");
       targetFs.setWriteChecksum(writeChecksum);
-      targetFs.writeStreamToFile(in, tempTarget, lazyPersist, direct);
+      targetFs.writeStreamToFile(in, tempTarget, lazyPersist,
+          direct || resume);
       if (!direct) {
         targetFs.rename(tempTarget, target);
       }
@@ -497,14 +657,14 @@ private static class TargetFileSystem extends FilterFileSystem {
     }
 
     void writeStreamToFile(InputStream in, PathData target,
-        boolean lazyPersist, boolean direct)
+        boolean lazyPersist, boolean keepOnFailure)
         throws IOException {
       FSDataOutputStream out = null;
       try {
         out = create(target, lazyPersist);
         IOUtils.copyBytes(in, out, getConf(), true);
       } finally {
-        if (!direct) {
+        if (!keepOnFailure) {
           deleteOnExit(target.path);
         }
         IOUtils.closeStream(out); // just in case copyBytes didn't
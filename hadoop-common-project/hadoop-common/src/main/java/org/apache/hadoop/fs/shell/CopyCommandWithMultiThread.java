@@ -18,16 +18,29 @@
 
 package org.apache.hadoop.fs.shell;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.LinkedList;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.hadoop.classification.VisibleForTesting;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hadoop.util.StringUtils;
+import org.apache.hadoop.util.Time;
 
 /**
  * Abstract command to enable sub copy commands run with multi-thread.
+ * Files are copied in parallel, and the ranges of large files are read in
+ * parallel; the writes of a file are sequential.
  */
 public abstract class CopyCommandWithMultiThread
     extends CommandWithDestination {
@@ -35,9 +48,32 @@
   private int threadCount = 1;
   private ThreadPoolExecutor executor = null;
   private int threadPoolQueueSize = DEFAULT_QUEUE_SIZE;
+  private ExecutorService rangeExecutor = null;
+  private Semaphore rangePermits = null;
+  private int rangeSize = DEFAULT_RANGE_SIZE;
+  private boolean progress = false;
+  private final LongAdder bytesCopied = new LongAdder();
+  private final LongAdder filesCopied = new LongAdder();
+  private final AtomicLong lastProgress = new AtomicLong();
+  private long startTime;
 
   public static final int DEFAULT_QUEUE_SIZE = 1024;
 
+  /**
+   * The size of the ranges of a file which are read in parallel; files of
+   * less than two ranges are read sequentially.
+   */
+  public static final int DEFAULT_RANGE_SIZE = 8 * 1024 * 1024;
+
+  /**
+   * The maximum number of bytes of the ranges read ahead or being copied by
+   * all threads, whatever their number.
+   */
+  public static final long MAX_READ_AHEAD = 128 * 1024 * 1024;
+
+  /** The interval between reports of the progress of a copy. */
+  private static final long PROGRESS_INTERVAL_MS = 10_000;
+
   /**
    * set thread count by option value, if the value less than 1,
    * use 1 instead.
@@ -63,6 +99,31 @@ protected void setThreadPoolQueueSize(String optValue) {
     }
   }
 
+  /**
+   * Report the progress of the copy.
+   *
+   * @param flag true/false
+   */
+  protected void setProgress(boolean flag) {
+    progress = flag;
+  }
+
+  @VisibleForTesting
+  protected void setRangeSize(int size) {
+    rangeSize = size;
+  }
+
+  @VisibleForTesting
+  protected int getRangePermits() {
+    return (int) Math.max(1,
+        Math.min(2L * threadCount, MAX_READ_AHEAD / rangeSize));
+  }
+
+  @VisibleForTesting
+  protected long getBytesCopied() {
+    return bytesCopied.sum();
+  }
+
   @VisibleForTesting
   protected int getThreadCount() {
     return this.threadCount;
@@ -82,14 +143,29 @@ protected ThreadPoolExecutor getExecutor() {
   protected void processArguments(LinkedList<PathData> args)
       throws IOException {
 
+    startTime = Time.monotonicNow();
+    lastProgress.set(startTime);
     if (isMultiThreadNecessary(args)) {
       initThreadPoolExecutor();
     }
+    if (threadCount > 1) {
+      initRangeExecutor();
+    }
 
-    super.processArguments(args);
+    try {
+      super.processArguments(args);
 
-    if (executor != null) {
-      waitForCompletion();
+      if (executor != null) {
+        waitForCompletion();
+      }
+    } finally {
+      if (rangeExecutor != null) {
+        rangeExecutor.shutdownNow();
+        rangeExecutor = null;
+      }
+    }
+    if (progress) {
+      reportProgress("Copied");
     }
   }
 
@@ -124,6 +200,35 @@ private void initThreadPoolExecutor() {
             new ThreadPoolExecutor.CallerRunsPolicy());
   }
 
+  // the ranges read ahead or being copied are bounded by the permits, two
+  // for each thread, up to MAX_READ_AHEAD bytes.
+  private void initRangeExecutor() {
+    rangeExecutor = Executors.newFixedThreadPool(threadCount,
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("copy-range-%d")
+            .build());
+    rangePermits = new Semaphore(getRangePermits());
+  }
+
+  private void reportProgress(String prefix) {
+    long elapsed = Math.max(Time.monotonicNow() - startTime, 1);
+    long bytes = bytesCopied.sum();
+    out.println(String.format("%s %d files, %s in %.1f s (%s/s)", prefix,
+        filesCopied.sum(), StringUtils.byteDesc(bytes), elapsed / 1000.0,
+        StringUtils.byteDesc(bytes * 1000 / elapsed)));
+  }
+
+  private void bytesCopied(int n) {
+    bytesCopied.add(n);
+    long now = Time.monotonicNow();
+    long last = lastProgress.get();
+    if (progress && now - last >= PROGRESS_INTERVAL_MS
+        && lastProgress.compareAndSet(last, now)) {
+      reportProgress("Copying:");
+    }
+  }
+
   private void waitForCompletion() {
     if (executor != null) {
       executor.shutdown();
@@ -142,14 +247,47 @@ protected void copyFileToTarget(PathData src, PathData target)
       throws IOException {
     if (executor == null) {
       super.copyFileToTarget(src, target);
+      filesCopied.increment();
     } else {
       executor.submit(() -> {
         try {
           super.copyFileToTarget(src, target);
+          filesCopied.increment();
         } catch (IOException e) {
           displayError(e);
         }
       });
     }
   }
+
+  @Override
+  protected InputStream openSource(PathData src, long offset)
+      throws IOException {
+    InputStream in = super.openSource(src, offset);
+    long length = src.stat.getLen();
+    if (rangeExecutor != null && in instanceof FSDataInputStream
+        && length - offset >= 2L * rangeSize) {
+      in = new ParallelRangeInputStream((FSDataInputStream) in, offset,
+          length, rangeSize, rangeExecutor, rangePermits);
+    }
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+          bytesCopied(1);
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+          bytesCopied(n);
+        }
+        return n;
+      }
+    };
+  }
 }
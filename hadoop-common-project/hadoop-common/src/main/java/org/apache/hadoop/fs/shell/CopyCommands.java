@@ -40,6 +40,13 @@
 @InterfaceStability.Evolving
 
 class CopyCommands {  
+  private static final String RESUME_DESCRIPTION =
+      "Skip the files already copied, and complete the partially"
+      + " copied files (<dst>._COPYING_, or <dst> with -d) instead of"
+      + " copying them again. Partially copied files are kept on failure.\n";
+  private static final String PROGRESS_DESCRIPTION =
+      "Report the number of files and bytes copied.\n";
+
   public static void registerCommands(CommandFactory factory) {
     factory.addClass(Merge.class, "-getmerge");
     factory.addClass(Cp.class, "-cp");
@@ -152,7 +159,8 @@ static class Cp extends CopyCommandWithMultiThread {
     public static final String NAME = "cp";
     public static final String USAGE =
         "[-f] [-p | -p[topax]] [-d] [-t <thread count>]"
-            + " [-q <thread pool queue size>] <src> ... <dst>";
+            + " [-q <thread pool queue size>] [-resume] [-progress]"
+            + " <src> ... <dst>";
     public static final String DESCRIPTION =
         "Copy files that match the file pattern <src> to a destination."
             + " When copying multiple files, the destination must be a "
@@ -169,17 +177,22 @@ static class Cp extends CopyCommandWithMultiThread {
             + "  -t <thread count> : Number of threads to be used, "
             + "default is 1.\n"
             + "  -q <thread pool queue size> : Thread pool queue size to be "
-            + "used, default is 1024.\n";
+            + "used, default is 1024.\n"
+            + "  -resume : " + RESUME_DESCRIPTION
+            + "  -progress : " + PROGRESS_DESCRIPTION;
 
     @Override
     protected void processOptions(LinkedList<String> args) throws IOException {
       popPreserveOption(args);
-      CommandFormat cf = new CommandFormat(2, Integer.MAX_VALUE, "f", "d");
+      CommandFormat cf = new CommandFormat(2, Integer.MAX_VALUE, "f", "d",
+          "resume", "progress");
       cf.addOptionWithValue("t");
       cf.addOptionWithValue("q");
       cf.parse(args);
       setDirectWrite(cf.getOpt("d"));
       setOverwrite(cf.getOpt("f"));
+      setResume(cf.getOpt("resume"));
+      setProgress(cf.getOpt("progress"));
       setThreadCount(cf.getOptValue("t"));
       setThreadPoolQueueSize(cf.getOptValue("q"));
       // should have a -r option
@@ -193,7 +206,7 @@ private void popPreserveOption(List<String> args) {
         if (cur.equals("--")) {
           // stop parsing arguments when you see --
           break;
-        } else if (cur.startsWith("-p")) {
+        } else if (cur.startsWith("-p") && !cur.equals("-progress")) {
           iter.remove();
           if (cur.length() == 2) {
             setPreserve(true);
@@ -216,7 +229,8 @@ public static class Get extends CopyCommandWithMultiThread {
     public static final String NAME = "get";
     public static final String USAGE =
         "[-f] [-p] [-crc] [-ignoreCrc] [-t <thread count>]"
-            + " [-q <thread pool queue size>] <src> ... <localdst>";
+            + " [-q <thread pool queue size>] [-resume] [-progress]"
+            + " <src> ... <localdst>";
     public static final String DESCRIPTION =
         "Copy files that match the file pattern <src> to the local name. "
             + "<src> is kept.\nWhen copying multiple files, the destination"
@@ -228,15 +242,20 @@ public static class Get extends CopyCommandWithMultiThread {
             + "  -t <thread count> : Number of threads to be used,"
             + " default is 1.\n"
             + "  -q <thread pool queue size> : Thread pool queue size to be"
-            + " used, default is 1024.\n";
+            + " used, default is 1024.\n"
+            + "  -resume : " + RESUME_DESCRIPTION
+            + "  -progress : " + PROGRESS_DESCRIPTION;
 
     @Override
     protected void processOptions(LinkedList<String> args) throws IOException {
       CommandFormat cf =
-          new CommandFormat(1, Integer.MAX_VALUE, "crc", "ignoreCrc", "p", "f");
+          new CommandFormat(1, Integer.MAX_VALUE, "crc", "ignoreCrc", "p", "f",
+              "resume", "progress");
       cf.addOptionWithValue("t");
       cf.addOptionWithValue("q");
       cf.parse(args);
+      setResume(cf.getOpt("resume"));
+      setProgress(cf.getOpt("progress"));
       setWriteChecksum(cf.getOpt("crc"));
       setVerifyChecksum(!cf.getOpt("ignoreCrc"));
       setPreserve(cf.getOpt("p"));
@@ -256,7 +275,7 @@ public static class Put extends CopyCommandWithMultiThread {
     public static final String NAME = "put";
     public static final String USAGE =
         "[-f] [-p] [-l] [-d] [-t <thread count>] [-q <thread pool queue size>]"
-            + " <localsrc> ... <dst>";
+            + " [-resume] [-progress] <localsrc> ... <dst>";
     public static final String DESCRIPTION =
         "Copy files from the local file system " +
         "into fs. Copying fails if the file already " +
@@ -270,17 +289,22 @@ public static class Put extends CopyCommandWithMultiThread {
         "  -l : Allow DataNode to lazily persist the file to disk. Forces " +
         "replication factor of 1. This flag will result in reduced " +
         "durability. Use with care.\n" +
-        "  -d : Skip creation of temporary file(<dst>._COPYING_).\n";
+        "  -d : Skip creation of temporary file(<dst>._COPYING_).\n" +
+        "  -resume : " + RESUME_DESCRIPTION +
+        "  -progress : " + PROGRESS_DESCRIPTION;
 
     @Override
     protected void processOptions(LinkedList<String> args) throws IOException {
       CommandFormat cf =
-          new CommandFormat(1, Integer.MAX_VALUE, "f", "p", "l", "d");
+          new CommandFormat(1, Integer.MAX_VALUE, "f", "p", "l", "d",
+              "resume", "progress");
       cf.addOptionWithValue("t");
       cf.addOptionWithValue("q");
       cf.parse(args);
       setThreadCount(cf.getOptValue("t"));
       setThreadPoolQueueSize(cf.getOptValue("q"));
+      setResume(cf.getOpt("resume"));
+      setProgress(cf.getOpt("progress"));
       setOverwrite(cf.getOpt("f"));
       setPreserve(cf.getOpt("p"));
       setLazyPersist(cf.getOpt("l"));
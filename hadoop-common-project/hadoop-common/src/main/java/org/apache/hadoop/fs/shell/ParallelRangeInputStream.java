@@ -0,0 +1,189 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.fs.shell;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSExceptionMessages;
+import org.apache.hadoop.fs.FileRange;
+import org.apache.hadoop.fs.StreamCapabilities;
+
+import static org.apache.hadoop.util.functional.FutureIO.awaitFuture;
+
+/**
+ * A stream of a file which reads the ranges ahead of the reader in
+ * parallel, and returns them in order. The ranges are read with the
+ * vectored IO of the stream when it has it, otherwise with positioned reads
+ * on an executor. The number of ranges read ahead or being returned by all
+ * the streams which share a semaphore is bounded by its permits, which
+ * bounds their memory.
+ */
+class ParallelRangeInputStream extends InputStream {
+
+  private final FSDataInputStream in;
+  private final long end;
+  private final int rangeSize;
+  private final Executor executor;
+  private final Semaphore permits;
+  private final boolean vectored;
+  private final Deque<FileRange> ranges = new ArrayDeque<>();
+  private final byte[] oneByte = new byte[1];
+  private long next;
+  private ByteBuffer buffer;
+  private boolean closed;
+
+  /**
+   * @param in the stream of the file
+   * @param start the offset to read from
+   * @param end the length of the file
+   * @param rangeSize the size of the ranges
+   * @param executor runs the positioned reads
+   * @param permits one for each range read ahead or being returned
+   */
+  ParallelRangeInputStream(FSDataInputStream in, long start, long end,
+      int rangeSize, Executor executor, Semaphore permits) {
+    this.in = in;
+    this.next = start;
+    this.end = end;
+    this.rangeSize = rangeSize;
+    this.executor = executor;
+    this.permits = permits;
+    this.vectored = in.hasCapability(StreamCapabilities.VECTOREDIO);
+  }
+
+  /**
+   * Start reading the next ranges, for as many permits as are available.
+   * @param wait whether to wait for a permit if no range is being read
+   */
+  private void readAhead(boolean wait) throws IOException {
+    List<FileRange> batch = new ArrayList<>();
+    while (next < end) {
+      if (wait && ranges.isEmpty() && batch.isEmpty()) {
+        try {
+          permits.acquire();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw (IOException) new InterruptedIOException(
+              "Interrupted reading " + in).initCause(e);
+        }
+      } else if (!permits.tryAcquire()) {
+        break;
+      }
+      int length = (int) Math.min(rangeSize, end - next);
+      batch.add(FileRange.createFileRange(next, length));
+      next += length;
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    if (vectored) {
+      try {
+        in.readVectored(batch, ByteBuffer::allocate);
+      } catch (IOException | RuntimeException e) {
+        permits.release(batch.size());
+        throw e;
+      }
+      ranges.addAll(batch);
+      return;
+    }
+    for (FileRange range : batch) {
+      CompletableFuture<ByteBuffer> data = new CompletableFuture<>();
+      range.setData(data);
+      ranges.add(range);
+      try {
+        executor.execute(() -> {
+          try {
+            byte[] bytes = new byte[range.getLength()];
+            in.readFully(range.getOffset(), bytes);
+            data.complete(ByteBuffer.wrap(bytes));
+          } catch (Throwable t) {
+            data.completeExceptionally(t);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        data.completeExceptionally(new IOException(e));
+      }
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    return read(oneByte, 0, 1) == -1 ? -1 : oneByte[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException(FSExceptionMessages.STREAM_IS_CLOSED);
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (buffer == null || !buffer.hasRemaining()) {
+      if (buffer != null) {
+        buffer = null;
+        permits.release();
+      }
+      readAhead(true);
+      FileRange range = ranges.poll();
+      if (range == null) {
+        return -1;
+      }
+      try {
+        buffer = awaitFuture(range.getData());
+      } catch (IOException | RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+      // the permit of the buffer is held, so do not wait for another.
+      readAhead(false);
+    }
+    int n = Math.min(len, buffer.remaining());
+    buffer.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return buffer == null ? 0 : buffer.remaining();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      permits.release(ranges.size() + (buffer != null ? 1 : 0));
+      ranges.clear();
+      buffer = null;
+      in.close();
+    }
+  }
+}
@@ -38,6 +38,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.apache.hadoop.fs.CommonConfigurationKeys.IO_MAP_INDEX_COMPACT_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeys.IO_MAP_INDEX_COMPACT_KEY;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_MAP_INDEX_SKIP_DEFAULT;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_MAP_INDEX_SKIP_KEY;
 
@@ -437,6 +439,9 @@ public static class Reader implements java.io.Closeable {
      * Setting this to values larger than zero can facilitate opening large map
      * files using less memory. */
     private int INDEX_SKIP = 0;
+
+    /** Whether to keep the index keys serialized in {@link #keyData}. */
+    private boolean compactIndex;
       
     private WritableComparator comparator;
 
@@ -457,6 +462,17 @@ public static class Reader implements java.io.Closeable {
     private WritableComparable[] keys;
     private long[] positions;
 
+    // the serialized index keys of a compact index, key i is in
+    // keyData[keyOffsets[i], keyOffsets[i + 1]).
+    private byte[] keyData;
+    private int[] keyOffsets;
+    // the serialized key being looked up in a compact index, if the
+    // comparator compares serialized keys.
+    private DataOutputBuffer searchKey;
+    // otherwise, the index key being compared, and its serialized form.
+    private WritableComparable indexKey;
+    private DataInputBuffer indexKeyIn;
+
     /**
      * Returns the class of keys in this file.
      *
@@ -495,6 +511,8 @@ public Reader(Path dir, Configuration conf,
         comparatorOption == null ? null : comparatorOption.getValue();
       INDEX_SKIP = conf.getInt(
           IO_MAP_INDEX_SKIP_KEY, IO_MAP_INDEX_SKIP_DEFAULT);
+      compactIndex = conf.getBoolean(
+          IO_MAP_INDEX_COMPACT_KEY, IO_MAP_INDEX_COMPACT_DEFAULT);
       open(dir, comparator, conf, opts);
     }
  
@@ -576,7 +594,7 @@ protected synchronized void open(Path dir,
 
     private void readIndex() throws IOException {
       // read the index entirely into memory
-      if (this.keys != null)
+      if (this.keys != null || this.keyData != null)
         return;
       this.count = 0;
       this.positions = new long[1024];
@@ -586,9 +604,25 @@ private void readIndex() throws IOException {
         LongWritable position = new LongWritable();
         WritableComparable lastKey = null;
         long lastIndex = -1;
-        ArrayList<WritableComparable> keyBuilder = new ArrayList<WritableComparable>(1024);
+        ArrayList<WritableComparable> keyBuilder = null;
+        DataOutputBuffer keyBytes = null;
+        WritableComparable spareKey = null;
+        if (compactIndex) {
+          keyBytes = new DataOutputBuffer();
+          keyOffsets = new int[positions.length + 1];
+          spareKey = comparator.newKey();
+        } else {
+          keyBuilder = new ArrayList<WritableComparable>(1024);
+        }
         while (true) {
-          WritableComparable k = comparator.newKey();
+          WritableComparable k;
+          if (compactIndex) {
+            // the keys are serialized, so only the last one is kept.
+            k = spareKey;
+            spareKey = lastKey == null ? comparator.newKey() : lastKey;
+          } else {
+            k = comparator.newKey();
+          }
 
           if (!index.next(k, position))
             break;
@@ -614,12 +648,32 @@ private void readIndex() throws IOException {
 	    positions = Arrays.copyOf(positions, positions.length * 2);
           }
 
-          keyBuilder.add(k);
+          if (compactIndex) {
+            if (count + 1 == keyOffsets.length) {
+              keyOffsets = Arrays.copyOf(keyOffsets, keyOffsets.length * 2);
+            }
+            k.write(keyBytes);
+            keyOffsets[count + 1] = keyBytes.getLength();
+          } else {
+            keyBuilder.add(k);
+          }
           positions[count] = position.get();
           count++;
         }
 
-        this.keys = keyBuilder.toArray(new WritableComparable[count]);
+        if (compactIndex) {
+          this.keyData = Arrays.copyOf(keyBytes.getData(),
+              keyBytes.getLength());
+          keyOffsets = Arrays.copyOf(keyOffsets, count + 1);
+          if (hasRawCompare(comparator)) {
+            searchKey = new DataOutputBuffer();
+          } else {
+            indexKey = comparator.newKey();
+            indexKeyIn = new DataInputBuffer();
+          }
+        } else {
+          this.keys = keyBuilder.toArray(new WritableComparable[count]);
+        }
         positions = Arrays.copyOf(positions, count);
       } catch (EOFException e) {
         LOG.warn("Unexpected EOF reading " + index +
@@ -653,7 +707,58 @@ public synchronized WritableComparable midKey() throws IOException {
         return null;
       }
     
-      return keys[(count - 1) / 2];
+      return getIndexKey((count - 1) / 2);
+    }
+
+    /**
+     * Returns an index key, deserializing it from a compact index.
+     */
+    private WritableComparable getIndexKey(int i) throws IOException {
+      if (keys != null) {
+        return keys[i];
+      }
+      WritableComparable key = comparator.newKey();
+      DataInputBuffer in = new DataInputBuffer();
+      in.reset(keyData, keyOffsets[i], keyOffsets[i + 1] - keyOffsets[i]);
+      key.readFields(in);
+      return key;
+    }
+
+    /**
+     * Compares an index key with the key being looked up, which must be in
+     * {@link #searchKey} for a compact index with a raw comparator.
+     * Otherwise a compact index key is deserialized into a reused instance.
+     */
+    private int compareIndexKey(int i, WritableComparable key)
+        throws IOException {
+      if (keys != null) {
+        return comparator.compare(keys[i], key);
+      }
+      if (searchKey != null) {
+        return comparator.compare(keyData, keyOffsets[i],
+            keyOffsets[i + 1] - keyOffsets[i],
+            searchKey.getData(), 0, searchKey.getLength());
+      }
+      indexKeyIn.reset(keyData, keyOffsets[i],
+          keyOffsets[i + 1] - keyOffsets[i]);
+      indexKey.readFields(indexKeyIn);
+      return comparator.compare(indexKey, key);
+    }
+
+    /**
+     * Whether a comparator compares serialized keys itself. The raw compare
+     * of {@link WritableComparator} needs key instances, which comparators
+     * created without them, such as subclasses which only compare objects,
+     * do not have.
+     */
+    private static boolean hasRawCompare(WritableComparator comparator) {
+      try {
+        return comparator.getClass().getMethod("compare", byte[].class,
+            int.class, int.class, byte[].class, int.class, int.class)
+            .getDeclaringClass() != WritableComparator.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
     }
     
     /**
@@ -722,10 +827,14 @@ private synchronized int seekInternal(WritableComparable key,
         final boolean before)
       throws IOException {
       readIndex();                                // make sure index is read
+      if (searchKey != null) {
+        searchKey.reset();
+        key.write(searchKey);
+      }
 
       if (seekIndex != -1                         // seeked before
           && seekIndex+1 < count           
-          && comparator.compare(key, keys[seekIndex+1])<0 // before next indexed
+          && compareIndexKey(seekIndex+1, key)>0  // before next indexed
           && comparator.compare(key, nextKey)
           >= 0) {                                 // but after last seeked
         // do nothing
@@ -779,14 +888,13 @@ private synchronized int seekInternal(WritableComparable key,
       return 1;
     }
 
-    private int binarySearch(WritableComparable key) {
+    private int binarySearch(WritableComparable key) throws IOException {
       int low = 0;
       int high = count-1;
 
       while (low <= high) {
         int mid = (low + high) >>> 1;
-        WritableComparable midVal = keys[mid];
-        int cmp = comparator.compare(midVal, key);
+        int cmp = compareIndexKey(mid, key);
 
         if (cmp < 0)
           low = mid + 1;
@@ -46,6 +46,7 @@
 import org.apache.hadoop.util.Progress;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.hadoop.util.MergeSort;
+import org.apache.hadoop.util.Preconditions;
 import org.apache.hadoop.util.PriorityQueue;
 import org.apache.hadoop.util.Time;
 import org.slf4j.Logger;
@@ -721,6 +722,120 @@ public void writeCompressedBytes(DataOutputStream outStream)
     }
 
   } // CompressedBytes
+
+  /**
+   * A batch of raw records read by {@link Reader#nextBatch(RecordBatch)}.
+   * The serialized keys and the uncompressed values of the batch are kept
+   * in two buffers, which are reused by the next batch, and each record is
+   * a range of these buffers.
+   */
+  public static class RecordBatch {
+    /** The default maximum number of records in a batch. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final DataOutputBuffer keys = new DataOutputBuffer();
+    private final DataOutputBuffer values = new DataOutputBuffer();
+    // the start of each record in the buffers, and the end of the last one.
+    private int[] keyOffsets = new int[17];
+    private int[] valueOffsets = new int[17];
+    private int size;
+
+    public RecordBatch() {
+      this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximum number of records in a batch.
+     */
+    public RecordBatch(int capacity) {
+      Preconditions.checkArgument(capacity > 0,
+          "capacity must be positive: %s", capacity);
+      this.capacity = capacity;
+    }
+
+    private void reset() {
+      keys.reset();
+      values.reset();
+      size = 0;
+    }
+
+    /** Add the record at the ends of the buffers. */
+    private void add(int keyStart, int valueStart) {
+      if (size + 1 == keyOffsets.length) {
+        keyOffsets = Arrays.copyOf(keyOffsets, keyOffsets.length * 2);
+        valueOffsets = Arrays.copyOf(valueOffsets, valueOffsets.length * 2);
+      }
+      keyOffsets[size] = keyStart;
+      valueOffsets[size] = valueStart;
+      size++;
+      keyOffsets[size] = keys.getLength();
+      valueOffsets[size] = values.getLength();
+    }
+
+    /** @return the maximum number of records in a batch. */
+    public int getCapacity() {
+      return capacity;
+    }
+
+    /** @return the number of records in the batch. */
+    public int size() {
+      return size;
+    }
+
+    /** @return the buffer of the serialized keys. */
+    public byte[] getKeyData() {
+      return keys.getData();
+    }
+
+    /**
+     * @param i the index of a record in the batch.
+     * @return the offset of its key in {@link #getKeyData()}.
+     */
+    public int getKeyOffset(int i) {
+      checkIndex(i);
+      return keyOffsets[i];
+    }
+
+    /**
+     * @param i the index of a record in the batch.
+     * @return the length of its serialized key.
+     */
+    public int getKeyLength(int i) {
+      checkIndex(i);
+      return keyOffsets[i + 1] - keyOffsets[i];
+    }
+
+    /** @return the buffer of the serialized values. */
+    public byte[] getValueData() {
+      return values.getData();
+    }
+
+    /**
+     * @param i the index of a record in the batch.
+     * @return the offset of its value in {@link #getValueData()}.
+     */
+    public int getValueOffset(int i) {
+      checkIndex(i);
+      return valueOffsets[i];
+    }
+
+    /**
+     * @param i the index of a record in the batch.
+     * @return the length of its serialized value.
+     */
+    public int getValueLength(int i) {
+      checkIndex(i);
+      return valueOffsets[i + 1] - valueOffsets[i];
+    }
+
+    private void checkIndex(int i) {
+      if (i < 0 || i >= size) {
+        throw new IndexOutOfBoundsException(
+            "record " + i + " of a batch of " + size);
+      }
+    }
+  } // RecordBatch
   
   /**
    * The class encapsulating with the metadata of a file.
@@ -1797,6 +1912,9 @@ public static class Reader implements java.io.Closeable {
     private Deserializer keyDeserializer;
     private Deserializer valDeserializer;
 
+    // the raw value of nextBatch for files which are not block compressed.
+    private ValueBytes batchValue;
+
     /**
      * A tag interface for all of the Reader options
      */
@@ -2653,6 +2771,67 @@ public synchronized int nextRaw(DataOutputBuffer key, ValueBytes val)
       
     }
 
+    /**
+     * Read the next records into a batch of raw keys and uncompressed raw
+     * values, replacing its previous records. Block compressed files
+     * fill a batch with the remaining records of the current block, up to
+     * the capacity of the batch, copying them from the decompressed block
+     * without deserializing them. Other files read up to the capacity of
+     * the batch.
+     *
+     * @param batch the batch to read the records into.
+     * @return the number of records read, or -1 at the end of the file.
+     * @throws IOException raised on errors performing I/O.
+     */
+    public synchronized int nextBatch(RecordBatch batch) throws IOException {
+      batch.reset();
+      if (!blockCompressed) {
+        if (batchValue == null) {
+          batchValue = createValueBytes();
+        }
+        while (batch.size() < batch.getCapacity()) {
+          int keyStart = batch.keys.getLength();
+          if (nextRaw(batch.keys, batchValue) == -1) {
+            break;
+          }
+          int valueStart = batch.values.getLength();
+          batchValue.writeUncompressedBytes(batch.values);
+          batch.add(keyStart, valueStart);
+        }
+      } else {
+        //Reset syncSeen
+        syncSeen = false;
+
+        if (noBufferedKeys == 0) {
+          if (in.getPos() >= end) {
+            return -1;
+          }
+          try {
+            readBlock();
+          } catch (EOFException eof) {
+            return -1;
+          }
+        }
+        while (noBufferedKeys > 0 && batch.size() < batch.getCapacity()) {
+          int keyLength = WritableUtils.readVInt(keyLenIn);
+          if (keyLength < 0) {
+            throw new IOException("zero length key found!");
+          }
+          int keyStart = batch.keys.getLength();
+          batch.keys.write(keyIn, keyLength);
+          --noBufferedKeys;
+
+          seekToCurrentValue();
+          int valLength = WritableUtils.readVInt(valLenIn);
+          int valueStart = batch.values.getLength();
+          batch.values.write(valIn, valLength);
+          --noBufferedValues;
+          batch.add(keyStart, valueStart);
+        }
+      }
+      return batch.size() == 0 ? -1 : batch.size();
+    }
+
     /**
      * Read 'raw' keys.
      * @param key - The buffer into which the key is read
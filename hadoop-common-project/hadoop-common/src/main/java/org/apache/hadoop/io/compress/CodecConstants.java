@@ -65,4 +65,10 @@ private CodecConstants() {
    * Default extension for {@link org.apache.hadoop.io.compress.ZStandardCodec}.
    */
   public static final String ZSTANDARD_CODEC_EXTENSION = ".zst";
+
+  /**
+   * Default extension for
+   * {@link org.apache.hadoop.io.compress.SeekableZStandardCodec}.
+   */
+  public static final String SEEKABLE_ZSTANDARD_CODEC_EXTENSION = ".szst";
 }
@@ -17,10 +17,10 @@
  */
 package org.apache.hadoop.io.compress;
 
-import java.util.HashSet;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Set;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.classification.InterfaceAudience;
@@ -37,6 +37,9 @@
 /**
  * A global compressor/decompressor pool used to save and reuse 
  * (possibly native) compression/decompression codecs.
+ *
+ * The pools are concurrent sets, so that borrowing and returning do not
+ * contend on a lock when many threads compress, as in parallel compression.
  */
 @InterfaceAudience.Public
 @InterfaceStability.Evolving
@@ -47,15 +50,15 @@ public class CodecPool {
    * A global compressor pool used to save the expensive 
    * construction/destruction of (possibly native) decompression codecs.
    */
-  private static final Map<Class<Compressor>, Set<Compressor>> compressorPool =
-    new HashMap<Class<Compressor>, Set<Compressor>>();
+  private static final ConcurrentMap<Class<Compressor>, Set<Compressor>>
+      compressorPool = new ConcurrentHashMap<>();
   
   /**
    * A global decompressor pool used to save the expensive 
    * construction/destruction of (possibly native) decompression codecs.
    */
-  private static final Map<Class<Decompressor>, Set<Decompressor>> decompressorPool =
-    new HashMap<Class<Decompressor>, Set<Decompressor>>();
+  private static final ConcurrentMap<Class<Decompressor>, Set<Decompressor>>
+      decompressorPool = new ConcurrentHashMap<>();
 
   private static <T> LoadingCache<Class<T>, AtomicInteger> createCache(
       Class<T> klass) {
@@ -80,43 +83,34 @@ public AtomicInteger load(Class<T> key) throws Exception {
   private static final LoadingCache<Class<Decompressor>, AtomicInteger> decompressorCounts =
       createCache(Decompressor.class);
 
-  private static <T> T borrow(Map<Class<T>, Set<T>> pool,
+  private static <T> T borrow(ConcurrentMap<Class<T>, Set<T>> pool,
                              Class<? extends T> codecClass) {
-    T codec = null;
-    
-    // Check if an appropriate codec is available
-    Set<T> codecSet;
-    synchronized (pool) {
-      codecSet = pool.get(codecClass);
+    // codecs without a compressor type have none pooled.
+    if (codecClass == null) {
+      return null;
     }
-
+    // Check if an appropriate codec is available
+    Set<T> codecSet = pool.get(codecClass);
     if (codecSet != null) {
-      synchronized (codecSet) {
-        if (!codecSet.isEmpty()) {
-          codec = codecSet.iterator().next();
-          codecSet.remove(codec);
+      Iterator<T> it = codecSet.iterator();
+      while (it.hasNext()) {
+        T codec = it.next();
+        // another thread may have borrowed it meanwhile.
+        if (codecSet.remove(codec)) {
+          return codec;
         }
       }
     }
-    
-    return codec;
+    return null;
   }
 
-  private static <T> boolean payback(Map<Class<T>, Set<T>> pool, T codec) {
+  private static <T> boolean payback(ConcurrentMap<Class<T>, Set<T>> pool,
+      T codec) {
     if (codec != null) {
       Class<T> codecClass = ReflectionUtils.getClass(codec);
-      Set<T> codecSet;
-      synchronized (pool) {
-        codecSet = pool.get(codecClass);
-        if (codecSet == null) {
-          codecSet = new HashSet<>();
-          pool.put(codecClass, codecSet);
-        }
-      }
-
-      synchronized (codecSet) {
-        return codecSet.add(codec);
-      }
+      Set<T> codecSet = pool.computeIfAbsent(codecClass,
+          k -> ConcurrentHashMap.newKeySet());
+      return codecSet.add(codec);
     }
     return false;
   }
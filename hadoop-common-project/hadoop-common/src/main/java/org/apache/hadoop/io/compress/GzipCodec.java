@@ -44,6 +44,10 @@ public class GzipCodec extends DefaultCodec {
   @Override
   public CompressionOutputStream createOutputStream(OutputStream out) 
     throws IOException {
+    if (ParallelCompressorStream.getThreads(conf) > 1) {
+      // gzip members are compressed in parallel, but read serially.
+      return new ParallelCompressorStream(out, this, conf, false);
+    }
     return CompressionCodec.Util.
         createOutputStreamWithCodecPool(this, conf, out);
   }
@@ -52,6 +56,10 @@ public CompressionOutputStream createOutputStream(OutputStream out)
   public CompressionOutputStream createOutputStream(OutputStream out, 
                                                     Compressor compressor) 
   throws IOException {
+    if (compressor != null && ParallelCompressorStream.getThreads(conf) > 1) {
+      // the blocks are compressed by pooled compressors of their own.
+      return new ParallelCompressorStream(out, this, conf, false);
+    }
     return (compressor != null) ?
                new CompressorStream(out, compressor,
                                     conf.getInt(IO_FILE_BUFFER_SIZE_KEY,
@@ -31,7 +31,8 @@
 /**
  * This class creates lz4 compressors/decompressors.
  */
-public class Lz4Codec implements Configurable, CompressionCodec {
+public class Lz4Codec implements Configurable, CompressionCodec,
+    DirectDecompressionCodec {
 
   Configuration conf;
 
@@ -175,6 +176,14 @@ public Decompressor createDecompressor() {
     return new Lz4Decompressor(bufferSize);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DirectDecompressor createDirectDecompressor() {
+    return new Lz4Decompressor.Lz4DirectDecompressor();
+  }
+
   /**
    * Get the default filename extension for this kind of compression.
    *
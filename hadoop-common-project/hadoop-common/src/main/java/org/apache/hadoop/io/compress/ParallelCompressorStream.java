@@ -0,0 +1,331 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.io.compress;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A {@link CompressionOutputStream} which splits the data into blocks and
+ * compresses them on several threads. Each block is compressed into an
+ * independent stream of the codec, such as a gzip member or a zstd frame,
+ * and the compressed blocks are written in order. The result is read as a
+ * single stream by the decompressors of codecs which support concatenated
+ * streams, as {@link DecompressorStream} does.
+ *
+ * Optionally, each compressed block is preceded by a zstd skippable frame
+ * with the compressed and uncompressed size of the block, which lets
+ * {@link ParallelDecompressorStream} decompress the blocks in parallel as
+ * well. These frames are only valid in zstd streams, where decompressors
+ * skip them.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class ParallelCompressorStream extends CompressionOutputStream {
+
+  /** The magic number of the skippable frames with the block sizes. */
+  static final int BLOCK_SIZES_MAGIC = 0x184D2A5C;
+  /** The length of the content of the skippable frames. */
+  static final int BLOCK_SIZES_LENGTH = 8;
+  /** The length of the skippable frames with the block sizes. */
+  static final int BLOCK_SIZES_FRAME_LENGTH = 8 + BLOCK_SIZES_LENGTH;
+
+  /** Shared by the streams, which limit their own number of tasks. */
+  static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder().setDaemon(true)
+          .setNameFormat("ParallelCompression-%d").build());
+
+  private final CompressionCodec codec;
+  private final Configuration conf;
+  private final int threads;
+  private final int blockSize;
+  private final boolean writeBlockSizes;
+  // the blocks which are being compressed, in order.
+  private final Deque<Block> pending = new ArrayDeque<>();
+  // the blocks which can be reused.
+  private final Deque<Block> free = new ArrayDeque<>();
+  private final byte[] oneByte = new byte[1];
+  private Block current;
+  private boolean wroteBlock = false;
+  private boolean closed = false;
+
+  /**
+   * Create a stream with the number of threads and the block size of the
+   * configuration.
+   *
+   * @param out the stream to write the compressed data to.
+   * @param codec the codec compressing the blocks.
+   * @param conf the configuration of the codec.
+   * @param writeBlockSizes whether to precede the compressed blocks with a
+   *                        zstd skippable frame with their sizes.
+   */
+  public ParallelCompressorStream(OutputStream out, CompressionCodec codec,
+      Configuration conf, boolean writeBlockSizes) {
+    this(out, codec, conf, getThreads(conf), conf.getInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY,
+        CommonConfigurationKeys
+            .IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_DEFAULT),
+        writeBlockSizes);
+  }
+
+  /**
+   * @param out the stream to write the compressed data to.
+   * @param codec the codec compressing the blocks.
+   * @param conf the configuration of the codec.
+   * @param threads the maximum number of blocks compressed at a time.
+   * @param blockSize the size of the uncompressed blocks.
+   * @param writeBlockSizes whether to precede the compressed blocks with a
+   *                        zstd skippable frame with their sizes.
+   */
+  public ParallelCompressorStream(OutputStream out, CompressionCodec codec,
+      Configuration conf, int threads, int blockSize,
+      boolean writeBlockSizes) {
+    super(out);
+    if (out == null || codec == null) {
+      throw new NullPointerException();
+    } else if (threads <= 0) {
+      throw new IllegalArgumentException("Illegal threads");
+    } else if (blockSize <= 0) {
+      throw new IllegalArgumentException("Illegal blockSize");
+    }
+    this.codec = codec;
+    this.conf = conf;
+    this.threads = threads;
+    this.blockSize = blockSize;
+    this.writeBlockSizes = writeBlockSizes;
+  }
+
+  /**
+   * @param conf the configuration.
+   * @return the number of threads to compress streams with, where 1 means
+   * that streams are not compressed in parallel.
+   */
+  public static int getThreads(Configuration conf) {
+    return conf == null ? 1 : conf.getInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY,
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_DEFAULT);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    oneByte[0] = (byte) b;
+    write(oneByte, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("write beyond end of stream");
+    }
+    if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    while (len > 0) {
+      if (current == null) {
+        current = newBlock();
+      }
+      int n = Math.min(len, blockSize - current.inputLen);
+      System.arraycopy(b, off, current.input, current.inputLen, n);
+      current.inputLen += n;
+      off += n;
+      len -= n;
+      if (current.inputLen == blockSize) {
+        submitCurrent();
+      }
+    }
+  }
+
+  /**
+   * Compresses the buffered data as a block of its own and writes out all
+   * blocks before flushing the underlying stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (current != null && current.inputLen > 0) {
+      submitCurrent();
+    }
+    while (!pending.isEmpty()) {
+      writeNext();
+    }
+    out.flush();
+  }
+
+  @Override
+  public void finish() throws IOException {
+    // an empty stream still consists of a compressed block, as decompressors
+    // may not accept empty input.
+    if ((current != null && current.inputLen > 0) || !wroteBlock) {
+      if (current == null) {
+        current = newBlock();
+      }
+      submitCurrent();
+    }
+    while (!pending.isEmpty()) {
+      writeNext();
+    }
+  }
+
+  /**
+   * Starts a new stream, as the blocks are independent. Like the compressor
+   * of a {@link CompressorStream}, the stream then finishes with at least
+   * one block, even if no data is written.
+   */
+  @Override
+  public void resetState() throws IOException {
+    wroteBlock = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      try {
+        super.close();
+      } finally {
+        closed = true;
+        for (Block block : pending) {
+          block.task.cancel(false);
+        }
+        pending.clear();
+        free.clear();
+      }
+    }
+  }
+
+  private Block newBlock() {
+    Block block = free.poll();
+    if (block == null) {
+      block = new Block(blockSize);
+    }
+    block.inputLen = 0;
+    block.outputLen = 0;
+    return block;
+  }
+
+  private void submitCurrent() throws IOException {
+    if (pending.size() >= threads) {
+      writeNext();
+    }
+    final Block block = current;
+    current = null;
+    block.task = EXECUTOR.submit(() -> {
+      compress(block);
+      return null;
+    });
+    pending.add(block);
+    wroteBlock = true;
+  }
+
+  private void compress(Block block) throws IOException {
+    Compressor compressor = CodecPool.getCompressor(codec, conf);
+    try {
+      compressor.setInput(block.input, 0, block.inputLen);
+      compressor.finish();
+      while (!compressor.finished()) {
+        if (block.output.length - block.outputLen < Block.MIN_OUTPUT_ROOM) {
+          block.output = Arrays.copyOf(block.output,
+              block.output.length + Math.max(block.output.length >> 1,
+                  Block.MIN_OUTPUT_ROOM));
+        }
+        block.outputLen += compressor.compress(block.output, block.outputLen,
+            block.output.length - block.outputLen);
+      }
+    } finally {
+      CodecPool.returnCompressor(compressor);
+    }
+  }
+
+  /** Waits for the first pending block and writes it out. */
+  private void writeNext() throws IOException {
+    Block block = pending.peek();
+    try {
+      block.task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException(
+          "Interrupted while compressing").initCause(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to compress a block", cause);
+    }
+    pending.poll();
+    if (writeBlockSizes) {
+      byte[] frame = new byte[BLOCK_SIZES_FRAME_LENGTH];
+      putIntLE(frame, 0, BLOCK_SIZES_MAGIC);
+      putIntLE(frame, 4, BLOCK_SIZES_LENGTH);
+      putIntLE(frame, 8, block.outputLen);
+      putIntLE(frame, 12, block.inputLen);
+      out.write(frame);
+    }
+    out.write(block.output, 0, block.outputLen);
+    blockWritten(writeBlockSizes ? BLOCK_SIZES_FRAME_LENGTH + block.outputLen
+        : block.outputLen, block.inputLen);
+    block.task = null;
+    free.add(block);
+  }
+
+  /**
+   * Called after a block is written out.
+   *
+   * @param compressedLength the number of bytes written for the block.
+   * @param length the uncompressed length of the block.
+   * @throws IOException raised on errors performing I/O.
+   */
+  void blockWritten(int compressedLength, int length) throws IOException {
+  }
+
+  static void putIntLE(byte[] b, int off, int value) {
+    b[off] = (byte) value;
+    b[off + 1] = (byte) (value >>> 8);
+    b[off + 2] = (byte) (value >>> 16);
+    b[off + 3] = (byte) (value >>> 24);
+  }
+
+  /** A block of uncompressed data and its compressed form. */
+  private static final class Block {
+    private static final int MIN_OUTPUT_ROOM = 64 * 1024;
+
+    private final byte[] input;
+    private int inputLen;
+    private byte[] output;
+    private int outputLen;
+    private Future<?> task;
+
+    private Block(int blockSize) {
+      input = new byte[blockSize];
+      output = new byte[blockSize + (blockSize >> 4) + MIN_OUTPUT_ROOM];
+    }
+  }
+}
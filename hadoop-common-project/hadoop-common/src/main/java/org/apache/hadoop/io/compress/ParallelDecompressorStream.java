@@ -0,0 +1,308 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.io.compress;
+
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_FILE_BUFFER_SIZE_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_FILE_BUFFER_SIZE_KEY;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * A {@link CompressionInputStream} which decompresses the blocks written by
+ * a {@link ParallelCompressorStream} with block sizes on several threads.
+ * The stream reads ahead as many compressed blocks as it has threads.
+ *
+ * Other zstd skippable frames, such as a seek table, are skipped. Once the
+ * input does not continue with the sizes of a block, the rest of it is
+ * decompressed on the reading thread by a {@link DecompressorStream}, so
+ * that any other input of the codec is read as well.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class ParallelDecompressorStream extends CompressionInputStream {
+
+  /** The largest size of a block, compressed or not. */
+  static final int MAX_BLOCK_SIZE = 1 << 30;
+  /** The magic numbers of zstd skippable frames, up to the last 4 bits. */
+  static final int SKIPPABLE_MAGIC = 0x184D2A50;
+  /** The length of the magic number and size of a skippable frame. */
+  static final int SKIPPABLE_HEADER_LENGTH = 8;
+
+  private final CompressionCodec codec;
+  private final Configuration conf;
+  private final int threads;
+  // the blocks which are being decompressed, in order.
+  private final Deque<Block> pending = new ArrayDeque<>();
+  private final byte[] sizes =
+      new byte[ParallelCompressorStream.BLOCK_SIZES_FRAME_LENGTH];
+  private final byte[] oneByte = new byte[1];
+  private Block current;
+  private int currentPos;
+  // decompresses the input after the last block with sizes.
+  private CompressionInputStream rest;
+  private Decompressor restDecompressor;
+  private boolean eof = false;
+  private boolean closed = false;
+
+  /**
+   * @param in the compressed input.
+   * @param codec the codec decompressing the blocks.
+   * @param conf the configuration of the codec.
+   * @param threads the maximum number of blocks decompressed at a time.
+   * @throws IOException raised on errors performing I/O.
+   */
+  public ParallelDecompressorStream(InputStream in, CompressionCodec codec,
+      Configuration conf, int threads) throws IOException {
+    super(in);
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Illegal threads");
+    }
+    this.codec = codec;
+    this.conf = conf;
+    this.threads = threads;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return read(oneByte, 0, 1) == -1 ? -1 : (oneByte[0] & 0xff);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+      throw new IndexOutOfBoundsException();
+    } else if (len == 0) {
+      return 0;
+    }
+    while (current == null || currentPos == current.outputLen) {
+      current = null;
+      readBlocks();
+      if (pending.isEmpty()) {
+        return rest == null ? -1 : rest.read(b, off, len);
+      }
+      current = takeNext();
+      currentPos = 0;
+    }
+    int n = Math.min(len, current.outputLen - currentPos);
+    System.arraycopy(current.output, currentPos, b, off, n);
+    currentPos += n;
+    return n;
+  }
+
+  /** Reads and submits blocks until as many as threads are pending. */
+  private void readBlocks() throws IOException {
+    while (!eof && rest == null && pending.size() < threads) {
+      int n = readFully(sizes, 0, SKIPPABLE_HEADER_LENGTH);
+      if (n == 0) {
+        eof = true;
+      } else if (n < SKIPPABLE_HEADER_LENGTH
+          || !isSkippableFrame(getIntLE(sizes, 0))) {
+        startRest(n);
+      } else if (getIntLE(sizes, 0) != ParallelCompressorStream
+          .BLOCK_SIZES_MAGIC || getIntLE(sizes, 4)
+          != ParallelCompressorStream.BLOCK_SIZES_LENGTH) {
+        // such as the seek table of a seekable stream.
+        skipFully(getIntLE(sizes, 4) & 0xffffffffL);
+      } else {
+        n += readFully(sizes, n, sizes.length - n);
+        if (n < sizes.length) {
+          throw new EOFException("Unexpected end of input stream");
+        }
+        submit(getIntLE(sizes, 8), getIntLE(sizes, 12));
+      }
+    }
+  }
+
+  private void submit(int inputLen, int outputLen) throws IOException {
+    if (inputLen < 0 || inputLen > MAX_BLOCK_SIZE
+        || outputLen < 0 || outputLen > MAX_BLOCK_SIZE) {
+      throw new IOException("Corrupt block sizes " + inputLen + " and "
+          + outputLen);
+    }
+    final Block block = new Block(inputLen, outputLen);
+    if (readFully(block.input, 0, inputLen) < inputLen) {
+      throw new EOFException("Unexpected end of input stream");
+    }
+    block.task = ParallelCompressorStream.EXECUTOR.submit(() -> {
+      decompress(block);
+      return null;
+    });
+    pending.add(block);
+  }
+
+  private void decompress(Block block) throws IOException {
+    Decompressor decompressor = CodecPool.getDecompressor(codec);
+    try {
+      decompressBlock(decompressor, block.input, block.input.length,
+          block.output, block.outputLen);
+    } finally {
+      CodecPool.returnDecompressor(decompressor);
+    }
+  }
+
+  /**
+   * Decompress a whole block, which must decompress to exactly the given
+   * length.
+   *
+   * @param decompressor a decompressor at the start of a stream.
+   * @param input the compressed block.
+   * @param inputLen the length of the compressed block.
+   * @param output the buffer to decompress to.
+   * @param outputLen the length of the decompressed block.
+   * @throws IOException if the block is corrupt.
+   */
+  static void decompressBlock(Decompressor decompressor, byte[] input,
+      int inputLen, byte[] output, int outputLen) throws IOException {
+    decompressor.setInput(input, 0, inputLen);
+    int n = 0;
+    while (n < outputLen) {
+      int m = decompressor.decompress(output, n, outputLen - n);
+      if (m == 0 && (decompressor.finished() || decompressor.needsInput()
+          || decompressor.needsDictionary())) {
+        throw new IOException("Corrupt block, decompressed " + n
+            + " instead of " + outputLen + " bytes");
+      }
+      n += m;
+    }
+  }
+
+  private Block takeNext() throws IOException {
+    Block block = pending.poll();
+    try {
+      block.task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException(
+          "Interrupted while decompressing").initCause(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to decompress a block", cause);
+    }
+    return block;
+  }
+
+  /** Decompresses the rest of the input, starting with the read bytes. */
+  private void startRest(int n) throws IOException {
+    InputStream restIn = new SequenceInputStream(
+        new ByteArrayInputStream(sizes.clone(), 0, n), in);
+    restDecompressor = CodecPool.getDecompressor(codec);
+    rest = new DecompressorStream(restIn, restDecompressor,
+        conf == null ? IO_FILE_BUFFER_SIZE_DEFAULT :
+            conf.getInt(IO_FILE_BUFFER_SIZE_KEY, IO_FILE_BUFFER_SIZE_DEFAULT));
+  }
+
+  private int readFully(byte[] b, int off, int len) throws IOException {
+    int n = 0;
+    while (n < len) {
+      int m = in.read(b, off + n, len - n);
+      if (m < 0) {
+        break;
+      }
+      n += m;
+    }
+    return n;
+  }
+
+  private void skipFully(long len) throws IOException {
+    while (len > 0) {
+      long n = in.skip(len);
+      if (n <= 0) {
+        if (in.read() < 0) {
+          throw new EOFException("Unexpected end of input stream");
+        }
+        n = 1;
+      }
+      len -= n;
+    }
+  }
+
+  /**
+   * @param magic the magic number of a frame.
+   * @return whether the frame is a zstd skippable frame.
+   */
+  static boolean isSkippableFrame(int magic) {
+    return (magic & 0xfffffff0) == SKIPPABLE_MAGIC;
+  }
+
+  static int getIntLE(byte[] b, int off) {
+    return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8
+        | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+  }
+
+  @Override
+  public void resetState() throws IOException {
+    for (Block block : pending) {
+      block.task.cancel(false);
+    }
+    pending.clear();
+    current = null;
+    if (rest != null) {
+      // the rest is not closed, as that would close the input.
+      rest = null;
+      CodecPool.returnDecompressor(restDecompressor);
+      restDecompressor = null;
+    }
+    eof = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      try {
+        resetState();
+      } finally {
+        super.close();
+      }
+    }
+  }
+
+  /** A compressed block and its decompressed form. */
+  private static final class Block {
+    private final byte[] input;
+    private final byte[] output;
+    private final int outputLen;
+    private Future<?> task;
+
+    private Block(int inputLen, int outputLen) {
+      input = new byte[inputLen];
+      output = new byte[outputLen];
+      this.outputLen = outputLen;
+    }
+  }
+}
@@ -0,0 +1,409 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.io.compress;
+
+import static org.apache.hadoop.io.compress.ParallelCompressorStream.BLOCK_SIZES_FRAME_LENGTH;
+import static org.apache.hadoop.io.compress.ParallelCompressorStream.BLOCK_SIZES_LENGTH;
+import static org.apache.hadoop.io.compress.ParallelCompressorStream.BLOCK_SIZES_MAGIC;
+import static org.apache.hadoop.io.compress.ParallelCompressorStream.putIntLE;
+import static org.apache.hadoop.io.compress.ParallelDecompressorStream.MAX_BLOCK_SIZE;
+import static org.apache.hadoop.io.compress.ParallelDecompressorStream.SKIPPABLE_HEADER_LENGTH;
+import static org.apache.hadoop.io.compress.ParallelDecompressorStream.getIntLE;
+import static org.apache.hadoop.io.compress.ParallelDecompressorStream.isSkippableFrame;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.Seekable;
+
+/**
+ * A {@link ZStandardCodec} which writes splittable zstd streams.
+ *
+ * The data is compressed in independent blocks of
+ * {@code io.compression.codec.parallel.block.size} bytes, on
+ * {@code io.compression.codec.parallel.threads} threads. Each zstd frame is
+ * preceded by a skippable frame with its compressed and uncompressed size,
+ * and the stream ends with a seek table in the zstd seekable format. Every
+ * zstd decompressor reads these streams, as it skips the skippable frames.
+ *
+ * A split of a stream starts at the first block whose size frame starts in
+ * it, which is found by scanning for the size frames, as the length of the
+ * stream is not known to a split. Streams of other zstd writers are not
+ * splittable and can only be read as a whole.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class SeekableZStandardCodec extends ZStandardCodec
+    implements SplittableCompressionCodec {
+
+  /** The magic number of the skippable frame with the seek table. */
+  static final int SEEK_TABLE_MAGIC = 0x184D2A5E;
+  /** The magic number at the end of the seek table. */
+  static final int SEEKABLE_MAGIC = 0x8F92EAB1;
+  /** The length of the footer of the seek table. */
+  static final int SEEK_TABLE_FOOTER_LENGTH = 9;
+
+  /**
+   * Create a {@link CompressionOutputStream} that will write to the given
+   * {@link OutputStream}.
+   *
+   * @param out the location for the final output stream
+   * @return a stream the user can write uncompressed data to have compressed
+   * @throws IOException raised on errors performing I/O.
+   */
+  @Override
+  public CompressionOutputStream createOutputStream(OutputStream out)
+      throws IOException {
+    checkNativeCodeLoaded();
+    return new SeekableCompressorStream(out, this, getConf());
+  }
+
+  /**
+   * Create a {@link CompressionOutputStream} that will write to the given
+   * {@link OutputStream}. The blocks are compressed by pooled compressors of
+   * their own, so that the stream is splittable, and the given compressor
+   * is not used; the caller still owns it.
+   *
+   * @param out        the location for the final output stream
+   * @param compressor compressor to use, which is not used
+   * @return a stream the user can write uncompressed data to have compressed
+   * @throws IOException raised on errors performing I/O.
+   */
+  @Override
+  public CompressionOutputStream createOutputStream(OutputStream out,
+      Compressor compressor) throws IOException {
+    return createOutputStream(out);
+  }
+
+  /**
+   * Create a {@link CompressionInputStream} that will read from the given
+   * input stream.
+   *
+   * @param in the stream to read compressed bytes from
+   * @return a stream to read uncompressed bytes from
+   * @throws IOException raised on errors performing I/O.
+   */
+  @Override
+  public CompressionInputStream createInputStream(InputStream in)
+      throws IOException {
+    checkNativeCodeLoaded();
+    return new ParallelDecompressorStream(in, this, getConf(),
+        Math.max(1, ParallelCompressorStream.getThreads(getConf())));
+  }
+
+  /**
+   * Create a stream reading the blocks which start in the given range of the
+   * compressed stream. The stream returns the data of one block at most with
+   * each read, and reports the position of the current block, as expected
+   * by {@link READ_MODE#BYBLOCK}, in both read modes.
+   *
+   * @param seekableIn the seekable input stream.
+   * @param decompressor decompressor.
+   * @param start the start offset into the compressed stream.
+   * @param end the end offset into the compressed stream.
+   * @param readMode the read mode.
+   * @return a stream to read uncompressed bytes from
+   * @throws IOException raised on errors performing I/O.
+   */
+  @Override
+  public SplitCompressionInputStream createInputStream(InputStream seekableIn,
+      Decompressor decompressor, long start, long end, READ_MODE readMode)
+      throws IOException {
+    checkNativeCodeLoaded();
+    return new SeekableInputStream(seekableIn, decompressor, start, end);
+  }
+
+  /**
+   * Get the default filename extension for this kind of compression.
+   *
+   * @return <code>.szst</code>.
+   */
+  @Override
+  public String getDefaultExtension() {
+    return CodecConstants.SEEKABLE_ZSTANDARD_CODEC_EXTENSION;
+  }
+
+  /**
+   * A {@link ParallelCompressorStream} writing the block sizes, which ends
+   * with a seek table.
+   */
+  static class SeekableCompressorStream extends ParallelCompressorStream {
+    // the compressed and uncompressed sizes of the blocks without a seek
+    // table yet.
+    private int[] entries = new int[64];
+    private int numEntries = 0;
+
+    SeekableCompressorStream(OutputStream out, CompressionCodec codec,
+        Configuration conf) {
+      this(out, codec, conf, Math.max(1, getThreads(conf)),
+          conf.getInt(
+              CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY,
+              CommonConfigurationKeys
+                  .IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_DEFAULT));
+    }
+
+    SeekableCompressorStream(OutputStream out, CompressionCodec codec,
+        Configuration conf, int threads, int blockSize) {
+      super(out, codec, conf, threads, blockSize, true);
+    }
+
+    @Override
+    void blockWritten(int compressedLength, int length) {
+      if (numEntries + 2 > entries.length) {
+        entries = Arrays.copyOf(entries, entries.length * 2);
+      }
+      entries[numEntries++] = compressedLength;
+      entries[numEntries++] = length;
+    }
+
+    @Override
+    public void finish() throws IOException {
+      super.finish();
+      if (numEntries > 0) {
+        writeSeekTable();
+      }
+    }
+
+    private void writeSeekTable() throws IOException {
+      int numFrames = numEntries / 2;
+      byte[] table = new byte[SKIPPABLE_HEADER_LENGTH + numEntries * 4
+          + SEEK_TABLE_FOOTER_LENGTH];
+      putIntLE(table, 0, SEEK_TABLE_MAGIC);
+      putIntLE(table, 4, table.length - SKIPPABLE_HEADER_LENGTH);
+      int off = SKIPPABLE_HEADER_LENGTH;
+      for (int i = 0; i < numEntries; i++, off += 4) {
+        putIntLE(table, off, entries[i]);
+      }
+      putIntLE(table, off, numFrames);
+      // the descriptor, without checksums.
+      table[off + 4] = 0;
+      putIntLE(table, off + 5, SEEKABLE_MAGIC);
+      out.write(table);
+      numEntries = 0;
+    }
+  }
+
+  /**
+   * A {@link SplitCompressionInputStream} which decompresses the blocks of a
+   * stream written by a {@link SeekableCompressorStream} one at a time,
+   * starting with the first block after the start of the split.
+   *
+   * The position reported while the data of a block is read is one more than
+   * the offset of the block, so that it passes the end of the split once the
+   * first block starting after the end is read, and only then.
+   */
+  static class SeekableInputStream extends SplitCompressionInputStream {
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final Decompressor decompressor;
+    private final byte[] header = new byte[BLOCK_SIZES_FRAME_LENGTH];
+    private final byte[] oneByte = new byte[1];
+    private byte[] input = new byte[0];
+    private byte[] output = new byte[0];
+    private int outputLen;
+    private int outputPos;
+    // the offset in the compressed stream of the next frame to read.
+    private long offset;
+    private long pos;
+    private boolean eof = false;
+
+    SeekableInputStream(InputStream in, Decompressor decompressor,
+        long start, long end) throws IOException {
+      super(in, start, end);
+      if (!(in instanceof Seekable)) {
+        throw new IOException("seekableIn must be an instance of "
+            + Seekable.class.getName());
+      }
+      this.decompressor = decompressor;
+      offset = sync(start);
+      pos = offset;
+      setStart(offset);
+      // no block starts in the split.
+      eof = offset >= end;
+    }
+
+    /**
+     * Find the first block starting at or after the given offset.
+     *
+     * @param start the offset to scan from.
+     * @return the offset of the block, or of the end of the stream.
+     */
+    private long sync(long start) throws IOException {
+      Seekable seekable = (Seekable) in;
+      seekable.seek(start);
+      byte[] buf = new byte[SCAN_BUFFER_SIZE];
+      // the offset in the stream of buf[0].
+      long bufOffset = start;
+      int len = 0;
+      while (true) {
+        int n = in.read(buf, len, buf.length - len);
+        if (n > 0) {
+          len += n;
+        }
+        for (int i = 0; i + BLOCK_SIZES_FRAME_LENGTH <= len; i++) {
+          if (isBlockHeader(buf, i)) {
+            long candidate = bufOffset + i;
+            if (isBlockAt(candidate, getIntLE(buf, i + 8))) {
+              seekable.seek(candidate);
+              return candidate;
+            }
+            seekable.seek(bufOffset + len);
+          }
+        }
+        if (n < 0) {
+          if (start == 0 && len > 0) {
+            throw new IOException("Not a seekable zstd stream");
+          }
+          return bufOffset + len;
+        }
+        // keep the bytes which may start a header.
+        int keep = Math.min(len, BLOCK_SIZES_FRAME_LENGTH - 1);
+        System.arraycopy(buf, len - keep, buf, 0, keep);
+        bufOffset += len - keep;
+        len = keep;
+      }
+    }
+
+    private static boolean isBlockHeader(byte[] b, int off) {
+      if (getIntLE(b, off) != BLOCK_SIZES_MAGIC
+          || getIntLE(b, off + 4) != BLOCK_SIZES_LENGTH) {
+        return false;
+      }
+      int inputLen = getIntLE(b, off + 8);
+      int outputLen = getIntLE(b, off + 12);
+      return inputLen > 0 && inputLen <= MAX_BLOCK_SIZE
+          && outputLen >= 0 && outputLen <= MAX_BLOCK_SIZE;
+    }
+
+    /**
+     * Check that a header found by the scan is followed by another frame
+     * header or the end of the stream after its block, to tell it from data
+     * which happens to look like a header.
+     */
+    private boolean isBlockAt(long candidate, int inputLen)
+        throws IOException {
+      ((Seekable) in).seek(candidate + BLOCK_SIZES_FRAME_LENGTH + inputLen);
+      int n = readFully(header, 0, SKIPPABLE_HEADER_LENGTH);
+      return n == 0 || (n == SKIPPABLE_HEADER_LENGTH
+          && isSkippableFrame(getIntLE(header, 0)));
+    }
+
+    @Override
+    public int read() throws IOException {
+      return read(oneByte, 0, 1) == -1 ? -1 : (oneByte[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+        throw new IndexOutOfBoundsException();
+      } else if (len == 0) {
+        return 0;
+      }
+      while (outputPos == outputLen) {
+        if (eof || !readBlock()) {
+          eof = true;
+          return -1;
+        }
+      }
+      // never return the data of two blocks at once.
+      int n = Math.min(len, outputLen - outputPos);
+      System.arraycopy(output, outputPos, b, off, n);
+      outputPos += n;
+      return n;
+    }
+
+    /**
+     * Read and decompress the next block, skipping other skippable frames.
+     *
+     * @return false at the end of the stream.
+     */
+    private boolean readBlock() throws IOException {
+      while (true) {
+        int n = readFully(header, 0, SKIPPABLE_HEADER_LENGTH);
+        if (n == 0) {
+          return false;
+        } else if (n < SKIPPABLE_HEADER_LENGTH
+            || !isSkippableFrame(getIntLE(header, 0))) {
+          throw new IOException("Corrupt seekable zstd stream at " + offset);
+        }
+        long frameOffset = offset;
+        int frameLen = getIntLE(header, 4);
+        if (getIntLE(header, 0) != BLOCK_SIZES_MAGIC
+            || frameLen != BLOCK_SIZES_LENGTH) {
+          offset += SKIPPABLE_HEADER_LENGTH + (frameLen & 0xffffffffL);
+          ((Seekable) in).seek(offset);
+          continue;
+        }
+        if (readFully(header, SKIPPABLE_HEADER_LENGTH, BLOCK_SIZES_LENGTH)
+            < BLOCK_SIZES_LENGTH || !isBlockHeader(header, 0)) {
+          throw new IOException("Corrupt seekable zstd stream at " + offset);
+        }
+        int inputLen = getIntLE(header, 8);
+        int len = getIntLE(header, 12);
+        if (input.length < inputLen) {
+          input = new byte[inputLen];
+        }
+        if (output.length < len) {
+          output = new byte[len];
+        }
+        if (readFully(input, 0, inputLen) < inputLen) {
+          throw new EOFException("Unexpected end of input stream");
+        }
+        decompressor.reset();
+        ParallelDecompressorStream.decompressBlock(decompressor, input,
+            inputLen, output, len);
+        offset += BLOCK_SIZES_FRAME_LENGTH + inputLen;
+        pos = frameOffset + 1;
+        outputLen = len;
+        outputPos = 0;
+        return true;
+      }
+    }
+
+    private int readFully(byte[] b, int off, int len) throws IOException {
+      int n = 0;
+      while (n < len) {
+        int m = in.read(b, off + n, len - n);
+        if (m < 0) {
+          break;
+        }
+        n += m;
+      }
+      return n;
+    }
+
+    @Override
+    public long getPos() {
+      return pos;
+    }
+
+    @Override
+    public void resetState() throws IOException {
+      // the blocks are independent.
+    }
+  }
+}
@@ -59,12 +59,15 @@ public Configuration getConf() {
     return conf;
   }
 
+  /**
+   * Check that zstd is available, from libhadoop or else from zstd-jni.
+   */
   public static void checkNativeCodeLoaded() {
-    if (!NativeCodeLoader.isNativeCodeLoaded() ||
-        !NativeCodeLoader.buildSupportsZstd()) {
+    if (!isNativeCodeLoaded() && (!NativeCodeLoader.isNativeCodeLoaded() ||
+        !NativeCodeLoader.buildSupportsZstd())) {
       throw new RuntimeException("native zStandard library "
           + "not available: this version of libhadoop was built "
-          + "without zstd support.");
+          + "without zstd support, and zstd-jni is not available.");
     }
     if (!ZStandardCompressor.isNativeCodeLoaded()) {
       throw new RuntimeException("native zStandard library not "
@@ -82,7 +85,8 @@ public static boolean isNativeCodeLoaded() {
   }
 
   public static String getLibraryName() {
-    return ZStandardCompressor.getLibraryName();
+    return ZStandardCompressor.isLibhadoopCodeLoaded()
+        ? ZStandardCompressor.getLibraryName() : "zstd-jni";
   }
 
   public static int getCompressionLevel(Configuration conf) {
@@ -121,13 +125,19 @@ private static int getBufferSize(Configuration conf) {
   @Override
   public CompressionOutputStream createOutputStream(OutputStream out)
       throws IOException {
+    if (ParallelCompressorStream.getThreads(conf) > 1) {
+      checkNativeCodeLoaded();
+      return new ParallelCompressorStream(out, this, conf, true);
+    }
     return Util.
         createOutputStreamWithCodecPool(this, conf, out);
   }
 
   /**
    * Create a {@link CompressionOutputStream} that will write to the given
-   * {@link OutputStream} with the given {@link Compressor}.
+   * {@link OutputStream} with the given {@link Compressor}, or with
+   * compressors from the pool on several threads if
+   * io.compression.codec.parallel.threads is above 1.
    *
    * @param out        the location for the final output stream
    * @param compressor compressor to use
@@ -139,6 +149,10 @@ public CompressionOutputStream createOutputStream(OutputStream out,
       Compressor compressor)
       throws IOException {
     checkNativeCodeLoaded();
+    if (ParallelCompressorStream.getThreads(conf) > 1) {
+      // the blocks are compressed by pooled compressors of their own.
+      return new ParallelCompressorStream(out, this, conf, true);
+    }
     return new CompressorStream(out, compressor,
         getCompressionBufferSize(conf));
   }
@@ -178,6 +192,11 @@ public Compressor createCompressor() {
   @Override
   public CompressionInputStream createInputStream(InputStream in)
       throws IOException {
+    int threads = ParallelCompressorStream.getThreads(conf);
+    if (threads > 1) {
+      checkNativeCodeLoaded();
+      return new ParallelDecompressorStream(in, this, conf, threads);
+    }
     return Util.
         createInputStreamWithCodecPool(this, conf, in);
   }
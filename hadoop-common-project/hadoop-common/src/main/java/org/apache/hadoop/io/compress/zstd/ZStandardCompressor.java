@@ -53,7 +53,12 @@ public class ZStandardCompressor implements Compressor {
   private long bytesRead = 0;
   private long bytesWritten = 0;
 
+  // the zstd-jni stream, used instead of the native stream without
+  // libhadoop.
+  private ZStandardJni.CompressionStream jniStream;
+
   private static boolean nativeZStandardLoaded = false;
+  private static boolean jniZStandardLoaded = false;
 
   static {
     if (NativeCodeLoader.isNativeCodeLoaded()) {
@@ -65,14 +70,33 @@ public class ZStandardCompressor implements Compressor {
         LOG.warn("Error loading zstandard native libraries: " + t);
       }
     }
+    if (!nativeZStandardLoaded) {
+      try {
+        jniZStandardLoaded = ZStandardJni.isLoaded();
+      } catch (Throwable t) {
+        LOG.debug("zstd-jni is not available: " + t);
+      }
+    }
   }
 
+  /**
+   * @return whether zstd is available, from libhadoop or else from
+   * zstd-jni.
+   */
   public static boolean isNativeCodeLoaded() {
+    return nativeZStandardLoaded || jniZStandardLoaded;
+  }
+
+  /**
+   * @return whether zstd is available from libhadoop.
+   */
+  public static boolean isLibhadoopCodeLoaded() {
     return nativeZStandardLoaded;
   }
 
   public static int getRecommendedBufferSize() {
-    return getStreamSize();
+    return nativeZStandardLoaded ? getStreamSize()
+        : ZStandardJni.getCompressionBufferSize();
   }
 
   @VisibleForTesting
@@ -93,8 +117,22 @@ public ZStandardCompressor(int level, int bufferSize) {
 
   @VisibleForTesting
   ZStandardCompressor(int level, int inputBufferSize, int outputBufferSize) {
+    this(level, inputBufferSize, outputBufferSize, !nativeZStandardLoaded);
+  }
+
+  /**
+   * Creates a new compressor, with zstd-jni rather than libhadoop if
+   * useJni is set, so that tests can use zstd-jni either way.
+   */
+  @VisibleForTesting
+  ZStandardCompressor(int level, int inputBufferSize, int outputBufferSize,
+      boolean useJni) {
     this.level = level;
-    stream = create();
+    if (useJni) {
+      jniStream = new ZStandardJni.CompressionStream();
+    } else {
+      stream = create();
+    }
     this.directBufferSize = outputBufferSize;
     uncompressedDirectBuf = ByteBuffer.allocateDirect(inputBufferSize);
     compressedDirectBuf = ByteBuffer.allocateDirect(outputBufferSize);
@@ -215,7 +253,7 @@ public int compress(byte[] b, int off, int len) throws IOException {
     compressedDirectBuf.limit(directBufferSize);
 
     // Compress data
-    n = deflateBytesDirect(
+    n = deflate(
         uncompressedDirectBuf,
         uncompressedDirectBufOff,
         uncompressedDirectBufLen,
@@ -267,7 +305,11 @@ public long getBytesRead() {
   @Override
   public void reset() {
     checkStream();
-    init(level, stream);
+    if (jniStream != null) {
+      jniStream.init(level);
+    } else {
+      init(level, stream);
+    }
     finish = false;
     finished = false;
     bytesRead = 0;
@@ -288,14 +330,42 @@ public void end() {
       end(stream);
       stream = 0;
     }
+    if (jniStream != null) {
+      jniStream.end();
+      jniStream = null;
+    }
   }
 
   private void checkStream() {
-    if (stream == 0) {
+    if (stream == 0 && jniStream == null) {
       throw new NullPointerException();
     }
   }
 
+  private int deflate(ByteBuffer src, int srcOffset, int srcLen,
+      ByteBuffer dst, int dstLen) throws IOException {
+    if (jniStream == null) {
+      return deflateBytesDirect(src, srcOffset, srcLen, dst, dstLen);
+    }
+    // the same as the native deflateBytesDirect, with zstd-jni.
+    ByteBuffer input = src.duplicate();
+    input.limit(srcLen);
+    input.position(srcOffset);
+    ByteBuffer output = dst.duplicate();
+    output.limit(dstLen);
+    output.position(0);
+    // end the frame once all input is consumed.
+    boolean done = jniStream.compress(input, output, finish);
+    if (finish && done) {
+      finished = true;
+    }
+    bytesRead += input.position() - srcOffset;
+    bytesWritten += output.position();
+    uncompressedDirectBufOff = input.position();
+    uncompressedDirectBufLen = srcLen;
+    return output.position();
+  }
+
   private native static long create();
   private native static void init(int level, long stream);
   private native int deflateBytesDirect(ByteBuffer src, int srcOffset,
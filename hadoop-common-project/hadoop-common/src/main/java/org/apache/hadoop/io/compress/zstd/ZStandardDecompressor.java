@@ -18,6 +18,7 @@
 
 package org.apache.hadoop.io.compress.zstd;
 
+import org.apache.hadoop.classification.VisibleForTesting;
 import org.apache.hadoop.io.compress.Decompressor;
 import org.apache.hadoop.io.compress.DirectDecompressor;
 import org.apache.hadoop.util.NativeCodeLoader;
@@ -45,6 +46,10 @@ public class ZStandardDecompressor implements Decompressor {
   private boolean finished;
   private int remaining = 0;
 
+  // the zstd-jni stream, used instead of the native stream without
+  // libhadoop.
+  private ZStandardJni.DecompressionStream jniStream;
+
   private static boolean nativeZStandardLoaded = false;
 
   static {
@@ -59,16 +64,22 @@ public class ZStandardDecompressor implements Decompressor {
     }
   }
 
+  /**
+   * @return whether zstd is available, from libhadoop or else from
+   * zstd-jni.
+   */
   public static boolean isNativeCodeLoaded() {
-    return nativeZStandardLoaded;
+    // the compressor loads zstd-jni.
+    return nativeZStandardLoaded || ZStandardCompressor.isNativeCodeLoaded();
   }
 
   public static int getRecommendedBufferSize() {
-    return getStreamSize();
+    return nativeZStandardLoaded ? getStreamSize()
+        : ZStandardJni.getDecompressionBufferSize();
   }
 
   public ZStandardDecompressor() {
-    this(getStreamSize());
+    this(getRecommendedBufferSize());
   }
 
   /**
@@ -76,11 +87,24 @@ public ZStandardDecompressor() {
    * @param bufferSize bufferSize.
    */
   public ZStandardDecompressor(int bufferSize) {
+    this(bufferSize, !nativeZStandardLoaded);
+  }
+
+  /**
+   * Creates a new decompressor, with zstd-jni rather than libhadoop if
+   * useJni is set, so that tests can use zstd-jni either way.
+   */
+  @VisibleForTesting
+  ZStandardDecompressor(int bufferSize, boolean useJni) {
     this.directBufferSize = bufferSize;
     compressedDirectBuf = ByteBuffer.allocateDirect(directBufferSize);
     uncompressedDirectBuf = ByteBuffer.allocateDirect(directBufferSize);
     uncompressedDirectBuf.position(directBufferSize);
-    stream = create();
+    if (useJni) {
+      jniStream = new ZStandardJni.DecompressionStream();
+    } else {
+      stream = create();
+    }
     reset();
   }
 
@@ -185,7 +209,7 @@ public int decompress(byte[] b, int off, int len)
     uncompressedDirectBuf.limit(directBufferSize);
 
     // Decompress data
-    n = inflateBytesDirect(
+    n = inflate(
         compressedDirectBuf,
         compressedDirectBufOff,
         bytesInCompressedBuffer,
@@ -226,7 +250,11 @@ public int getRemaining() {
   @Override
   public void reset() {
     checkStream();
-    init(stream);
+    if (jniStream != null) {
+      jniStream.init();
+    } else {
+      init(stream);
+    }
     remaining = 0;
     finished = false;
     compressedDirectBufOff = 0;
@@ -243,6 +271,10 @@ public void end() {
       free(stream);
       stream = 0;
     }
+    if (jniStream != null) {
+      jniStream.end();
+      jniStream = null;
+    }
   }
 
   @Override
@@ -251,7 +283,7 @@ protected void finalize() {
   }
 
   private void checkStream() {
-    if (stream == 0) {
+    if (stream == 0 && jniStream == null) {
       throw new NullPointerException("Stream not initialized");
     }
   }
@@ -270,12 +302,36 @@ private native int inflateBytesDirect(ByteBuffer src, int srcOffset,
   private native static void free(long strm);
   private native static int getStreamSize();
 
+  private int inflate(ByteBuffer src, int srcOffset, int srcLen,
+      ByteBuffer dst, int dstOffset, int dstLen) throws IOException {
+    if (jniStream == null) {
+      return inflateBytesDirect(src, srcOffset, srcLen, dst, dstOffset,
+          dstLen);
+    }
+    // the same as the native inflateBytesDirect, with zstd-jni.
+    ByteBuffer input = src.duplicate();
+    input.limit(srcLen);
+    input.position(srcOffset);
+    ByteBuffer output = dst.duplicate();
+    output.limit(dstLen);
+    output.position(dstOffset);
+    if (jniStream.decompress(input, output)) {
+      // the entire frame has been decoded
+      finished = true;
+      jniStream.init();
+    }
+    remaining = input.remaining();
+    compressedDirectBufOff = input.position();
+    bytesInCompressedBuffer = srcLen;
+    return output.position() - dstOffset;
+  }
+
   int inflateDirect(ByteBuffer src, ByteBuffer dst) throws IOException {
     assert
         (this instanceof ZStandardDecompressor.ZStandardDirectDecompressor);
 
     int originalPosition = dst.position();
-    int n = inflateBytesDirect(
+    int n = inflate(
         src, src.position(), src.limit(), dst, dst.position(),
         dst.limit()
     );
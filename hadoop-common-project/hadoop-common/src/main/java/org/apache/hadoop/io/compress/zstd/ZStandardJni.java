@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.io.compress.zstd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.github.luben.zstd.EndDirective;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import com.github.luben.zstd.util.Native;
+
+/**
+ * The zstd streams of zstd-jni, which bundles the zstd library for common
+ * platforms. {@link ZStandardCompressor} and {@link ZStandardDecompressor}
+ * use them when libhadoop is not built with zstd or not loaded.
+ *
+ * This is the only class referring to zstd-jni, which is an optional
+ * dependency, so it must only be used once {@link #isLoaded()} succeeds.
+ */
+final class ZStandardJni {
+
+  private ZStandardJni() {
+  }
+
+  /**
+   * @return whether the zstd-jni library is loaded.
+   */
+  static boolean isLoaded() {
+    Native.load();
+    return Native.isLoaded();
+  }
+
+  static int getCompressionBufferSize() {
+    return (int) ZstdOutputStreamNoFinalizer.recommendedCOutSize();
+  }
+
+  static int getDecompressionBufferSize() {
+    return (int) ZstdInputStreamNoFinalizer.recommendedDOutSize();
+  }
+
+  /**
+   * A zstd compression stream, which compresses from and to the positions
+   * of direct buffers.
+   */
+  static final class CompressionStream {
+    private final ZstdCompressCtx ctx = new ZstdCompressCtx();
+
+    void init(int level) {
+      ctx.reset();
+      ctx.setLevel(level);
+    }
+
+    /**
+     * Compress as much of the source as fits into the destination, and
+     * flush or end the frame.
+     *
+     * @param src the data to compress.
+     * @param dst the buffer to compress to.
+     * @param end whether to end the frame rather than flush it.
+     * @return whether everything was flushed, or the frame ended.
+     * @throws IOException if zstd fails.
+     */
+    boolean compress(ByteBuffer src, ByteBuffer dst, boolean end)
+        throws IOException {
+      try {
+        return ctx.compressDirectByteBufferStream(dst, src,
+            end ? EndDirective.END : EndDirective.FLUSH);
+      } catch (RuntimeException e) {
+        throw new IOException("zstd compression failed", e);
+      }
+    }
+
+    void end() {
+      ctx.close();
+    }
+  }
+
+  /**
+   * A zstd decompression stream, which decompresses from and to the
+   * positions of direct buffers.
+   */
+  static final class DecompressionStream {
+    private final ZstdDecompressCtx ctx = new ZstdDecompressCtx();
+
+    void init() {
+      ctx.reset();
+    }
+
+    /**
+     * Decompress as much of the source as fits into the destination.
+     *
+     * @param src the compressed data.
+     * @param dst the buffer to decompress to.
+     * @return whether a frame ended.
+     * @throws IOException if the data is corrupt.
+     */
+    boolean decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
+      try {
+        return ctx.decompressDirectByteBufferStream(dst, src);
+      } catch (RuntimeException e) {
+        throw new IOException("zstd decompression failed", e);
+      }
+    }
+
+    void end() {
+      ctx.close();
+    }
+  }
+}
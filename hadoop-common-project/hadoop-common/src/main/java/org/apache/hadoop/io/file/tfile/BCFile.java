@@ -17,11 +17,13 @@
 
 package org.apache.hadoop.io.file.tfile;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -33,6 +35,7 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.compress.Compressor;
 import org.apache.hadoop.io.compress.Decompressor;
@@ -478,11 +481,77 @@ public void register(long raw, long begin, long end) {
   static public class Reader implements Closeable {
     private final FSDataInputStream in;
     private final Configuration conf;
-    final DataIndex dataIndex;
+    // the indexes, which may be shared with other readers of the file
+    private final Indexes indexes;
     // Index for meta blocks
     final MetaIndex metaIndex;
     final Version version;
 
+    /**
+     * The decoded indexes of a BCFile. The meta block index is read on open
+     * with positional reads of the tail of the file, and the data block
+     * index on first use. They may be shared by the readers of a file
+     * through the {@link IndexCache}.
+     */
+    static final class Indexes {
+      final Version version;
+      final MetaIndex metaIndex;
+      private DataIndex dataIndex;
+
+      Indexes(FSDataInputStream fin, long fileLength) throws IOException {
+        // read the tail, containing: offset to the meta block index, version
+        // and magic
+        int tailLength = Long.SIZE / Byte.SIZE + Version.size() + Magic.size();
+        long tailOffset = fileLength - tailLength;
+        if (tailOffset < 0) {
+          throw new EOFException("BCFile of length " + fileLength
+              + " is too short");
+        }
+        DataInputStream tail = readFully(fin, tailOffset, tailLength);
+        long offsetIndexMeta = tail.readLong();
+        version = new Version(tail);
+        Magic.readAndVerify(tail);
+
+        if (!version.compatibleWith(BCFile.API_VERSION)) {
+          throw new RuntimeException("Incompatible BCFile fileBCFileVersion.");
+        }
+
+        // read meta index, which is followed by the tail
+        long metaIndexLength = tailOffset - offsetIndexMeta;
+        if (offsetIndexMeta < 0 || metaIndexLength < 0
+            || metaIndexLength > Integer.MAX_VALUE) {
+          throw new IOException("Invalid offset of the meta block index: "
+              + offsetIndexMeta);
+        }
+        metaIndex = new MetaIndex(
+            readFully(fin, offsetIndexMeta, (int) metaIndexLength));
+      }
+
+      private static DataInputStream readFully(FSDataInputStream fin,
+          long position, int length) throws IOException {
+        byte[] buf = new byte[length];
+        fin.readFully(position, buf);
+        return new DataInputStream(new ByteArrayInputStream(buf));
+      }
+
+      /**
+       * Get the data block index, reading it with the given reader on first
+       * use.
+       */
+      synchronized DataIndex getDataIndex(Reader reader) throws IOException {
+        if (dataIndex == null) {
+          // read data:BCFile.index, the data block index
+          BlockReader blockR = reader.getMetaBlock(DataIndex.BLOCK_NAME);
+          try {
+            dataIndex = new DataIndex(blockR);
+          } finally {
+            blockR.close();
+          }
+        }
+        return dataIndex;
+      }
+    }
+
     /**
      * Intermediate class that maintain the state of a Readable Compression
      * Block.
@@ -616,41 +685,52 @@ public long getStartPos() {
      */
     public Reader(FSDataInputStream fin, long fileLength, Configuration conf)
         throws IOException {
-      this.in = fin;
-      this.conf = conf;
-
-      // move the cursor to the beginning of the tail, containing: offset to the
-      // meta block index, version and magic
-      fin.seek(fileLength - Magic.size() - Version.size() - Long.SIZE
-          / Byte.SIZE);
-      long offsetIndexMeta = fin.readLong();
-      version = new Version(fin);
-      Magic.readAndVerify(fin);
+      this(fin, conf, new Indexes(fin, fileLength));
+    }
 
-      if (!version.compatibleWith(BCFile.API_VERSION)) {
-        throw new RuntimeException("Incompatible BCFile fileBCFileVersion.");
-      }
+    /**
+     * Constructor, which shares the indexes of the file with the other
+     * readers opened with its status when the {@link IndexCache} is
+     * enabled.
+     * 
+     * @param fin
+     *          FS input stream.
+     * @param status
+     *          The status of the file, with its path and length.
+     * @param conf
+     *          The configuration.
+     * @throws IOException
+     */
+    public Reader(FSDataInputStream fin, FileStatus status, Configuration conf)
+        throws IOException {
+      this(fin, conf, IndexCache.get(status, conf,
+          () -> new Indexes(fin, status.getLen())));
+    }
 
-      // read meta index
-      fin.seek(offsetIndexMeta);
-      metaIndex = new MetaIndex(fin);
+    private Reader(FSDataInputStream fin, Configuration conf, Indexes indexes)
+        throws IOException {
+      this.in = fin;
+      this.conf = conf;
+      this.indexes = indexes;
+      this.version = indexes.version;
+      this.metaIndex = indexes.metaIndex;
+    }
 
-      // read data:BCFile.index, the data block index
-      BlockReader blockR = getMetaBlock(DataIndex.BLOCK_NAME);
-      try {
-        dataIndex = new DataIndex(blockR);
-      } finally {
-        blockR.close();
-      }
+    /**
+     * Get the data block index, which is read on first use.
+     */
+    DataIndex getDataIndex() throws IOException {
+      return indexes.getDataIndex(this);
     }
 
     /**
      * Get the name of the default compression algorithm.
      * 
      * @return the name of the default compression algorithm.
+     * @throws IOException
      */
-    public String getDefaultCompressionName() {
-      return dataIndex.getDefaultCompressionAlgorithm().getName();
+    public String getDefaultCompressionName() throws IOException {
+      return getDataIndex().getDefaultCompressionAlgorithm().getName();
     }
 
     /**
@@ -683,9 +763,10 @@ public void close() {
      * Get the number of data blocks.
      * 
      * @return the number of data blocks.
+     * @throws IOException
      */
-    public int getBlockCount() {
-      return dataIndex.getBlockRegionList().size();
+    public int getBlockCount() throws IOException {
+      return getDataIndex().getBlockRegionList().size();
     }
 
     /**
@@ -723,6 +804,7 @@ public BlockReader getDataBlock(int blockIndex) throws IOException {
             "blockIndex=%d, numBlocks=%d", blockIndex, getBlockCount()));
       }
 
+      DataIndex dataIndex = getDataIndex();
       BlockRegion region = dataIndex.getBlockRegionList().get(blockIndex);
       return createReader(dataIndex.getDefaultCompressionAlgorithm(), region);
     }
@@ -741,9 +823,10 @@ private BlockReader createReader(Algorithm compressAlgo, BlockRegion region)
      *          User-specific offset.
      * @return the index to the data Block if such block exists; or -1
      *         otherwise.
+     * @throws IOException
      */
-    public int getBlockIndexNear(long offset) {
-      ArrayList<BlockRegion> list = dataIndex.getBlockRegionList();
+    public int getBlockIndexNear(long offset) throws IOException {
+      ArrayList<BlockRegion> list = getDataIndex().getBlockRegionList();
       int idx =
           Utils
               .lowerBound(list, new ScalarLong(offset), new ScalarComparator());
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.hadoop.io.file.tfile;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.file.tfile.BCFile.Reader.Indexes;
+
+import org.apache.hadoop.thirdparty.com.google.common.cache.Cache;
+import org.apache.hadoop.thirdparty.com.google.common.cache.CacheBuilder;
+
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.TFILE_INDEX_CACHE_SIZE_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.TFILE_INDEX_CACHE_SIZE_KEY;
+
+/**
+ * An LRU cache of the decoded indexes of BCFiles, shared by all the readers
+ * which open files with their {@link FileStatus}. A file is identified by its
+ * path, length and modification time, so a rewritten file is read again.
+ * The size of the cache is the number of files, set by
+ * <b>tfile.index.cache.size</b>; it is disabled by default. The cache is
+ * sized by the first reader which enables it, and readers with another
+ * positive size share it rather than replacing it.
+ */
+final class IndexCache {
+  private static volatile Cache<Key, Indexes> cache;
+
+  private IndexCache() {
+    // nothing
+  }
+
+  /**
+   * The identity of a file.
+   */
+  static final class Key {
+    private final Path path;
+    private final long length;
+    private final long modificationTime;
+
+    Key(FileStatus status) {
+      this.path = status.getPath();
+      this.length = status.getLen();
+      this.modificationTime = status.getModificationTime();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return length == other.length
+          && modificationTime == other.modificationTime
+          && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, length, modificationTime);
+    }
+  }
+
+  /**
+   * Get the cache, creating it with the configured size if it does not
+   * exist yet.
+   *
+   * @return the cache, or null if it is disabled by the configuration.
+   */
+  private static Cache<Key, Indexes> getCache(Configuration conf) {
+    int size = conf.getInt(TFILE_INDEX_CACHE_SIZE_KEY,
+        TFILE_INDEX_CACHE_SIZE_DEFAULT);
+    if (size <= 0) {
+      return null;
+    }
+    Cache<Key, Indexes> c = cache;
+    if (c == null) {
+      synchronized (IndexCache.class) {
+        c = cache;
+        if (c == null) {
+          c = CacheBuilder.newBuilder().maximumSize(size).build();
+          cache = c;
+        }
+      }
+    }
+    return c;
+  }
+
+  /**
+   * Get the indexes of a file from the cache, loading them on a miss.
+   *
+   * @param status the status of the file.
+   * @param conf the configuration, with the size of the cache.
+   * @param loader reads the indexes from the file.
+   * @return the indexes of the file.
+   * @throws IOException if the indexes cannot be read.
+   */
+  static Indexes get(FileStatus status, Configuration conf,
+      Callable<Indexes> loader) throws IOException {
+    Cache<Key, Indexes> c = getCache(conf);
+    if (c == null) {
+      try {
+        return loader.call();
+      } catch (IOException | RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IOException(e);
+      }
+    }
+    try {
+      return c.get(new Key(status), loader);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Remove all the cached indexes, and the cache itself, so that the next
+   * reader which enables the cache sizes it again.
+   */
+  static synchronized void clear() {
+    if (cache != null) {
+      cache.invalidateAll();
+      cache = null;
+    }
+  }
+}
@@ -34,6 +34,7 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.io.BoundedByteArrayOutputStream;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.DataInputBuffer;
@@ -94,6 +95,10 @@
  * FSDataOutputStream. Integer (in bytes). Default to 256KB.
  * <li><b>tfile.fs.input.buffer.size</b>: Buffer size used for
  * FSDataInputStream. Integer (in bytes). Default to 256KB.
+ * <li><b>tfile.index.cache.size</b>: The number of TFiles whose decoded
+ * block indexes are cached and shared by the Readers created with the
+ * {@link FileStatus} of the file. Integer. Default to 0, which disables the
+ * cache.
  * </ul>
  * <p>
  * Suggestions on performance optimization.
@@ -692,7 +697,8 @@ public static class Reader implements Closeable {
 
     // global begin and end locations.
     private final Location begin;
-    private final Location end;
+    // set on first use, as it needs the data block index.
+    private Location end;
 
     /**
      * Location representing a virtual position in the TFile.
@@ -801,7 +807,27 @@ public boolean equals(Object obj) {
      */
     public Reader(FSDataInputStream fsdis, long fileLength, Configuration conf)
         throws IOException {
-      readerBCF = new BCFile.Reader(fsdis, fileLength, conf);
+      this(new BCFile.Reader(fsdis, fileLength, conf));
+    }
+
+    /**
+     * Constructor, which shares the block indexes of the TFile with other
+     * readers when <b>tfile.index.cache.size</b> is positive.
+     * 
+     * @param fsdis
+     *          FS input stream of the TFile.
+     * @param status
+     *          The status of the TFile, which identifies it in the cache.
+     * @param conf configuration.
+     * @throws IOException raised on errors performing I/O.
+     */
+    public Reader(FSDataInputStream fsdis, FileStatus status,
+        Configuration conf) throws IOException {
+      this(new BCFile.Reader(fsdis, status, conf));
+    }
+
+    private Reader(BCFile.Reader readerBCF) throws IOException {
+      this.readerBCF = readerBCF;
 
       // first, read TFile meta
       BlockReader brMeta = readerBCF.getMetaBlock(TFileMeta.BLOCK_NAME);
@@ -812,9 +838,8 @@ public Reader(FSDataInputStream fsdis, long fileLength, Configuration conf)
       }
 
       comparator = tfileMeta.getComparator();
-      // Set begin and end locations.
+      // Set begin location.
       begin = new Location(0, 0);
-      end = new Location(readerBCF.getBlockCount(), 0);
     }
 
     /**
@@ -841,7 +866,10 @@ Location begin() {
      * 
      * @return The location right after the last key-value pair in TFile.
      */
-    Location end() {
+    synchronized Location end() throws IOException {
+      if (end == null) {
+        end = new Location(readerBCF.getBlockCount(), 0);
+      }
       return end;
     }
 
@@ -990,7 +1018,7 @@ Location getBlockContainsKey(RawComparable key, boolean greater)
       checkTFileDataIndex();
       int blkIndex =
           (greater) ? tfileIndex.upperBound(key) : tfileIndex.lowerBound(key);
-      if (blkIndex < 0) return end;
+      if (blkIndex < 0) return end();
       return new Location(blkIndex, 0);
     }
 
@@ -1028,9 +1056,9 @@ int compareKeys(RawComparable a, RawComparable b) {
      * @return the location to the corresponding entry; or end() if no such
      *         entry exists.
      */
-    Location getLocationNear(long offset) {
+    Location getLocationNear(long offset) throws IOException {
       int blockIndex = readerBCF.getBlockIndexNear(offset);
-      if (blockIndex == -1) return end;
+      if (blockIndex == -1) return end();
       return new Location(blockIndex, 0);
     }
 
@@ -1075,7 +1103,7 @@ public RawComparable getKeyNear(long offset) throws IOException {
      * @throws IOException raised on errors performing I/O.
      */
     public Scanner createScanner() throws IOException {
-      return new Scanner(this, begin, end);
+      return new Scanner(this, begin, end());
     }
 
     /**
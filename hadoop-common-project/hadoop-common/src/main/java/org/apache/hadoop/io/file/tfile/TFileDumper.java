@@ -121,7 +121,7 @@ static public void dumpInfo(String file, PrintStream out, Configuration conf)
       if (blockCnt > 0) {
         for (int i = 0; i < blockCnt; ++i) {
           BlockRegion region =
-              reader.readerBCF.dataIndex.getBlockRegionList().get(i);
+              reader.readerBCF.getDataIndex().getBlockRegionList().get(i);
           dataSize += region.getCompressedSize();
           dataSizeUncompressed += region.getRawSize();
         }
@@ -210,7 +210,7 @@ static public void dumpInfo(String file, PrintStream out, Configuration conf)
 
         for (int i = 0; i < blockCnt; ++i) {
           BlockRegion region =
-              reader.readerBCF.dataIndex.getBlockRegionList().get(i);
+              reader.readerBCF.getDataIndex().getBlockRegionList().get(i);
           TFileIndexEntry indexEntry = reader.tfileIndex.getEntry(i);
           out.printf("%s %s %s %s %s ", Align.format(Align.format(i,
               blkIDWidth2, Align.ZERO_PADDED), blkIDWidth, Align.LEFT), Align
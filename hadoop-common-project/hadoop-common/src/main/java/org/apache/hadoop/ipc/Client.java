@@ -105,6 +105,10 @@ protected Boolean initialValue() {
           return false;
         }
       };
+  private static final ThreadLocal<CompletableFuture<? extends Writable>>
+      ASYNC_RPC_RESPONSE_FUTURE = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> asyncFutureMode =
+      ThreadLocal.withInitial(() -> false);
 
   @SuppressWarnings("unchecked")
   @Unstable
@@ -165,6 +169,8 @@ public static Object getExternalHandler() {
   private final byte[] clientId;
   private final int maxAsyncCalls;
   private final AtomicInteger asyncCallCounter = new AtomicInteger(0);
+  // number of callers waiting for an asynchronous call to complete
+  private volatile int asyncCallWaiters = 0;
 
   /**
    * set the ping interval value in configuration
@@ -283,6 +289,7 @@ static class Call {
     boolean done;               // true when call is done
     private final Object externalHandler;
     private AlignmentContext alignmentContext;
+    private Runnable completionAction;
 
     private Call(RPC.RpcKind rpcKind, Writable param) {
       this.rpcKind = rpcKind;
@@ -333,14 +340,38 @@ public synchronized void setAlignmentContext(AlignmentContext ac) {
       this.alignmentContext = ac;
     }
 
+    /**
+     * Run an action once the call is done, on the thread which completes
+     * the call, or right away if the call is already done.
+     *
+     * @param action the action to run.
+     */
+    void onComplete(Runnable action) {
+      synchronized (this) {
+        if (!done) {
+          completionAction = action;
+          return;
+        }
+      }
+      action.run();
+    }
+
     /** Set the exception when there is an error.
      * Notify the caller the call is done.
      * 
      * @param error exception thrown by the call; either local or remote
      */
-    public synchronized void setException(IOException error) {
-      this.error = error;
-      callComplete();
+    public void setException(IOException error) {
+      final Runnable action;
+      synchronized (this) {
+        this.error = error;
+        callComplete();
+        action = completionAction;
+      }
+      // run outside of the lock, since it may complete a future
+      if (action != null) {
+        action.run();
+      }
     }
     
     /** Set the return value when there is no error. 
@@ -348,9 +379,16 @@ public synchronized void setException(IOException error) {
      * 
      * @param rpcResponse return value of the rpc call.
      */
-    public synchronized void setRpcResponse(Writable rpcResponse) {
-      this.rpcResponse = rpcResponse;
-      callComplete();
+    public void setRpcResponse(Writable rpcResponse) {
+      final Runnable action;
+      synchronized (this) {
+        this.rpcResponse = rpcResponse;
+        callComplete();
+        action = completionAction;
+      }
+      if (action != null) {
+        action.run();
+      }
     }
     
     public synchronized Writable getRpcResponse() {
@@ -1473,6 +1511,10 @@ Writable call(RPC.RpcKind rpcKind, Writable rpcRequest,
     final Connection connection = getConnection(remoteId, call, serviceClass,
         fallbackToSimpleAuth);
 
+    final boolean futureMode = isAsyncFutureMode();
+    if (futureMode) {
+      acquireAsyncCall();
+    }
     try {
       checkAsyncCall();
       try {
@@ -1487,13 +1529,25 @@ Writable call(RPC.RpcKind rpcKind, Writable rpcRequest,
         throw ioe;
       }
     } catch(Exception e) {
-      if (isAsynchronousMode()) {
+      if (isAsynchronousMode() || futureMode) {
         releaseAsyncCall();
       }
       throw e;
     }
 
-    if (isAsynchronousMode()) {
+    if (futureMode) {
+      final CompletableFuture<Writable> future = new CompletableFuture<>();
+      call.onComplete(() -> {
+        releaseAsyncCall();
+        try {
+          future.complete(getRpcResponse(call, connection, -1, null));
+        } catch (IOException e) {
+          future.completeExceptionally(e);
+        }
+      });
+      ASYNC_RPC_RESPONSE_FUTURE.set(future);
+      return null;
+    } else if (isAsynchronousMode()) {
       final AsyncGet<Writable, IOException> asyncGet
           = new AsyncGet<Writable, IOException>() {
         @Override
@@ -1553,8 +1607,80 @@ public static void setAsynchronousMode(boolean async) {
     asynchronousMode.set(async);
   }
 
+  /**
+   * Check if the calls of the current thread complete futures instead of
+   * waiting for the response.
+   *
+   * @return true if the calls complete futures.
+   */
+  static boolean isAsyncFutureMode() {
+    return asyncFutureMode.get();
+  }
+
+  /**
+   * Make the calls of the current thread return right away and complete a
+   * future with the response instead, which is then available from
+   * {@link #getAsyncRpcResponseFuture()}. A call waits to be sent while
+   * {@link CommonConfigurationKeys#IPC_CLIENT_ASYNC_CALLS_MAX_KEY} calls are
+   * outstanding, rather than failing.
+   *
+   * @param enabled true to complete futures, false to wait for the response.
+   */
+  static void setAsyncFutureMode(boolean enabled) {
+    asyncFutureMode.set(enabled);
+  }
+
+  /**
+   * @param <T> the type of the response.
+   * @return the future of the last call of the current thread made with
+   * {@link #setAsyncFutureMode(boolean)}, which is completed on the thread
+   * reading the responses of the connection.
+   */
+  @SuppressWarnings("unchecked")
+  static <T extends Writable> CompletableFuture<T> getAsyncRpcResponseFuture() {
+    CompletableFuture<? extends Writable> future =
+        ASYNC_RPC_RESPONSE_FUTURE.get();
+    ASYNC_RPC_RESPONSE_FUTURE.remove();
+    return (CompletableFuture<T>) future;
+  }
+
+  /**
+   * Wait until fewer than the maximum number of asynchronous calls are
+   * outstanding, then count one more.
+   */
+  private void acquireAsyncCall() throws InterruptedIOException {
+    while (true) {
+      final int count = asyncCallCounter.get();
+      if (count < maxAsyncCalls) {
+        if (asyncCallCounter.compareAndSet(count, count + 1)) {
+          return;
+        }
+        continue;
+      }
+      synchronized (asyncCallCounter) {
+        asyncCallWaiters++;
+        try {
+          if (asyncCallCounter.get() >= maxAsyncCalls) {
+            asyncCallCounter.wait();
+          }
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException(
+              "Interrupted waiting for an asynchronous call to complete");
+        } finally {
+          asyncCallWaiters--;
+        }
+      }
+    }
+  }
+
   private void releaseAsyncCall() {
     asyncCallCounter.decrementAndGet();
+    if (asyncCallWaiters > 0) {
+      synchronized (asyncCallCounter) {
+        asyncCallCounter.notify();
+      }
+    }
   }
 
   @VisibleForTesting
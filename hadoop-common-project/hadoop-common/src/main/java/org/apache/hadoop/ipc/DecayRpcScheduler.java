@@ -120,6 +120,16 @@ public class DecayRpcScheduler implements RpcScheduler,
   public static final String IPC_DECAYSCHEDULER_SERVICE_USERS_KEY =
       "decay-scheduler.service-users";
 
+  /**
+   * Identities whose decayed cost exceeds the budget are scheduled into the
+   * lowest-priority queue regardless of their share of the total cost, and
+   * their calls are backed off if backoff is enabled. The budget is in the
+   * unit of the cost provider. A budget of 0 disables it.
+   */
+  public static final String IPC_DECAYSCHEDULER_COST_BUDGET_KEY =
+      "decay-scheduler.cost-budget";
+  public static final long IPC_DECAYSCHEDULER_COST_BUDGET_DEFAULT = 0;
+
   // Specifies the identity to use when the IdentityProvider cannot handle
   // a schedulable.
   public static final String DECAYSCHEDULER_UNKNOWN_IDENTITY =
@@ -190,6 +200,7 @@ public class DecayRpcScheduler implements RpcScheduler,
   private final IdentityProvider identityProvider;
   private final boolean backOffByResponseTimeEnabled;
   private final long[] backOffResponseTimeThresholds;
+  private final long costBudget;
   private final String namespace;
   private final int topUsersCount; // e.g., report top 10 users' metrics
   private static final double PRECISION = 0.0001;
@@ -250,6 +261,7 @@ public DecayRpcScheduler(int numLevels, String ns, Configuration conf) {
     this.backOffResponseTimeThresholds =
         parseBackOffResponseTimeThreshold(ns, conf, numLevels);
     this.serviceUserNames = this.parseServiceUserNames(ns, conf);
+    this.costBudget = parseCostBudget(ns, conf);
 
     // Setup response time metrics
     responseTimeTotalInCurrWindow = new AtomicLongArray(numLevels);
@@ -412,6 +424,15 @@ private Set<String> parseServiceUserNames(String ns, Configuration conf) {
     return new HashSet<>(collection);
   }
 
+  private static long parseCostBudget(String ns, Configuration conf) {
+    long budget = conf.getLong(ns + "." + IPC_DECAYSCHEDULER_COST_BUDGET_KEY,
+        IPC_DECAYSCHEDULER_COST_BUDGET_DEFAULT);
+    if (budget < 0) {
+      throw new IllegalArgumentException("Cost budget must be >= 0");
+    }
+    return budget;
+  }
+
   /**
    * Generate default thresholds if user did not specify. Strategy is
    * to halve each time, since queue usage tends to be exponential.
@@ -615,6 +636,9 @@ private int computePriorityLevel(long cost, Object identity) {
     if (staticPriority != null) {
       return staticPriority.intValue();
     }
+    if (costBudget > 0 && cost > costBudget) {
+      return numLevels - 1;
+    }
     long totalCallSnapshot = totalDecayedCallCost.get();
 
     double proportion = 0;
@@ -717,8 +741,25 @@ private boolean isServiceUser(String userName) {
     return this.serviceUserNames.contains(userName);
   }
 
+  /**
+   * @return whether the decayed cost of the identity exceeds the configured
+   * cost budget. Service users never exceed it.
+   */
+  private boolean isOverCostBudget(String identity) {
+    if (costBudget <= 0 || isServiceUser(identity)) {
+      return false;
+    }
+    List<AtomicLong> costList = callCosts.get(identity);
+    return costList != null && costList.get(0).get() > costBudget;
+  }
+
   @Override
   public boolean shouldBackOff(Schedulable obj) {
+    if (isOverCostBudget(getIdentity(obj))) {
+      LOG.debug("Backing off caller {} over the cost budget of {}",
+          obj.getUserGroupInformation().getUserName(), costBudget);
+      return true;
+    }
     Boolean backOff = false;
     if (backOffByResponseTimeEnabled) {
       int priorityLevel = obj.getPriorityLevel();
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.ipc;
+
+import static org.apache.hadoop.ipc.ProcessingDetails.Timing;
+
+/**
+ * A {@link WeightedTimeCostProvider} that only bills an operation for the
+ * time it held a lock, which is the resource that operations of a server
+ * like the NameNode compete for. By default,
+ * {@link ProcessingDetails.Timing#LOCKSHARED} has a weight of
+ * {@value #DEFAULT_LOCK_SHARED_WEIGHT},
+ * {@link ProcessingDetails.Timing#LOCKEXCLUSIVE} has a weight of
+ * {@value #DEFAULT_LOCK_EXCLUSIVE_WEIGHT}, and others are ignored. The
+ * weights can be configured in the same way as for
+ * {@link WeightedTimeCostProvider}, e.g. to also bill for lock wait time:
+ * <pre>
+ *   ipc.8020.cost-provider.impl=org.apache.hadoop.ipc.LockTimeCostProvider
+ *   ipc.8020.weighted-cost.lockwait=1
+ * </pre>
+ * The lock times are recorded in nanoseconds, so the cost is the weighted
+ * number of nanoseconds the lock was held for.
+ */
+public class LockTimeCostProvider extends WeightedTimeCostProvider {
+  static final int DEFAULT_LOCK_SHARED_WEIGHT = 1;
+  static final int DEFAULT_LOCK_EXCLUSIVE_WEIGHT = 10;
+
+  @Override
+  protected int getDefaultWeight(Timing timing) {
+    switch (timing) {
+    case LOCKSHARED:
+      return DEFAULT_LOCK_SHARED_WEIGHT;
+    case LOCKEXCLUSIVE:
+      return DEFAULT_LOCK_EXCLUSIVE_WEIGHT;
+    default:
+      return 0;
+    }
+  }
+}
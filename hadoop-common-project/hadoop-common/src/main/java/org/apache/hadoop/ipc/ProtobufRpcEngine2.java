@@ -36,6 +36,7 @@
 import org.apache.hadoop.thirdparty.protobuf.Message;
 import org.apache.hadoop.thirdparty.protobuf.ServiceException;
 import org.apache.hadoop.thirdparty.protobuf.TextFormat;
+import org.apache.hadoop.util.Preconditions;
 import org.apache.hadoop.util.Time;
 import org.apache.hadoop.util.concurrent.AsyncGet;
 import org.apache.hadoop.tracing.Tracer;
@@ -49,6 +50,7 @@
 import java.lang.reflect.Proxy;
 import java.net.InetSocketAddress;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -62,6 +64,8 @@ public class ProtobufRpcEngine2 implements RpcEngine {
       LoggerFactory.getLogger(ProtobufRpcEngine2.class);
   private static final ThreadLocal<AsyncGet<Message, Exception>>
       ASYNC_RETURN_MESSAGE = new ThreadLocal<>();
+  private static final ThreadLocal<CompletableFuture<Message>>
+      ASYNC_RETURN_FUTURE = new ThreadLocal<>();
 
   static { // Register the rpcRequest deserializer for ProtobufRpcEngine
     registerProtocolEngine();
@@ -83,6 +87,61 @@ public static AsyncGet<Message, Exception> getAsyncReturnMessage() {
     return ASYNC_RETURN_MESSAGE.get();
   }
 
+  /**
+   * A call of a method of a proxy of a protobuf service.
+   * @param <T> the type of the response.
+   */
+  @FunctionalInterface
+  public interface ProxyCall<T extends Message> {
+    T call() throws ServiceException;
+  }
+
+  /**
+   * Make a call of a proxy created by this engine without waiting for the
+   * response. Any number of calls can be outstanding on a connection, and no
+   * thread waits for them: the requests are sent and the responses read by
+   * the threads of the connection. When
+   * {@link org.apache.hadoop.fs.CommonConfigurationKeys#IPC_CLIENT_ASYNC_CALLS_MAX_KEY}
+   * calls of the same client are outstanding, the call waits until one of
+   * them completes.
+   *
+   * The future is completed on the thread reading the responses of the
+   * connection, so dependent stages which do more than a little work should
+   * run on an executor. It fails with the IOException of the call, which is a
+   * {@link RemoteException} for exceptions of the server. The call is not
+   * retried by retry proxies.
+   *
+   * @param call the call of a proxy method,
+   *             e.g. {@code () -> proxy.echo(null, request)}.
+   * @param <T> the type of the response.
+   * @return the future response.
+   * @throws IOException if the call could not be sent.
+   */
+  @Unstable
+  @SuppressWarnings("unchecked")
+  public static <T extends Message> CompletableFuture<T> asyncCall(
+      ProxyCall<T> call) throws IOException {
+    Preconditions.checkState(!Client.isAsynchronousMode(),
+        "Cannot make a future call in asynchronous mode");
+    Client.setAsyncFutureMode(true);
+    try {
+      call.call();
+    } catch (ServiceException e) {
+      throw ProtobufHelper.getRemoteException(e);
+    } finally {
+      Client.setAsyncFutureMode(false);
+    }
+    final CompletableFuture<Message> future = ASYNC_RETURN_FUTURE.get();
+    ASYNC_RETURN_FUTURE.remove();
+    if (future == null) {
+      // the response of another engine, if any, is not for us to wait for.
+      Client.getAsyncRpcResponseFuture();
+      throw new IOException("Not a call of a " +
+          ProtobufRpcEngine2.class.getSimpleName() + " proxy");
+    }
+    return (CompletableFuture<T>) future;
+  }
+
   public <T> ProtocolProxy<T> getProxy(Class<T> protocol, long clientVersion,
       InetSocketAddress addr, UserGroupInformation ticket, Configuration conf,
       SocketFactory factory, int rpcTimeout) throws IOException {
@@ -281,7 +340,25 @@ public Message invoke(Object proxy, final Method method, Object[] args)
         LOG.debug("Call: " + method.getName() + " took " + callTime + "ms");
       }
 
-      if (Client.isAsynchronousMode()) {
+      if (Client.isAsyncFutureMode()) {
+        final CompletableFuture<RpcWritable.Buffer> response =
+            Client.getAsyncRpcResponseFuture();
+        final CompletableFuture<Message> future = new CompletableFuture<>();
+        response.whenComplete((buf, e) -> {
+          if (e != null) {
+            future.completeExceptionally(e);
+            return;
+          }
+          try {
+            future.complete(getReturnMessage(method, buf));
+          } catch (ServiceException se) {
+            future.completeExceptionally(
+                ProtobufHelper.getRemoteException(se));
+          }
+        });
+        ASYNC_RETURN_FUTURE.set(future);
+        return null;
+      } else if (Client.isAsynchronousMode()) {
         final AsyncGet<RpcWritable.Buffer, IOException> arr
             = Client.getAsyncRpcResponse();
         final AsyncGet<Message, Exception> asyncGet =
@@ -32,6 +32,7 @@
 import org.apache.hadoop.thirdparty.protobuf.CodedInputStream;
 import org.apache.hadoop.thirdparty.protobuf.CodedOutputStream;
 import org.apache.hadoop.thirdparty.protobuf.Message;
+import org.apache.hadoop.thirdparty.protobuf.UnsafeByteOperations;
 
 // note anything marked public is solely for access by SaslRpcClient
 @InterfaceAudience.Private
@@ -120,8 +121,13 @@ <T> T readFrom(ByteBuffer bb) throws IOException {
       // most efficient way to deserialize a protobuf.  it has a direct
       // path to the PB ctor that doesn't create multi-layered streams
       // that internally buffer.
-      CodedInputStream cis = CodedInputStream.newInstance(
-          bb.array(), bb.position() + bb.arrayOffset(), bb.remaining());
+      // every rpc request and response is read into its own buffer, which is
+      // never modified afterwards, so bytes and string fields may alias the
+      // buffer instead of being copied out of it.
+      CodedInputStream cis = UnsafeByteOperations.unsafeWrap(
+          bb.array(), bb.position() + bb.arrayOffset(), bb.remaining())
+          .newCodedInput();
+      cis.enableAliasing(true);
       try {
         cis.pushLimit(cis.readRawVarint32());
         message = message.getParserForType().parseFrom(cis);
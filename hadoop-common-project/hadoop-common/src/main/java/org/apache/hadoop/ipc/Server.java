@@ -64,9 +64,14 @@
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -130,6 +135,23 @@
 import org.apache.hadoop.tracing.Tracer;
 import org.apache.hadoop.tracing.TraceUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.apache.hadoop.classification.VisibleForTesting;
 
 import org.apache.hadoop.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -502,13 +524,17 @@ protected ResponseBuffer initialValue() {
 
   // maintains the set of client connections and handles idle timeouts
   private ConnectionManager connectionManager;
-  private Listener listener = null;
+  private ConnectionListener listener = null;
   // Auxiliary listeners maintained as in a map, to allow
   // arbitrary number of of auxiliary listeners. A map from
   // the port to the listener binding to it.
-  private Map<Integer, Listener> auxiliaryListenerMap;
+  private Map<Integer, ConnectionListener> auxiliaryListenerMap;
+  // whether connections are served by Netty instead of the NIO listener
+  private final boolean nettyEnabled;
   private Responder responder = null;
   private Handler[] handlers = null;
+  // runs every call on its own thread, null if the handlers run the calls
+  private final CallExecutor callExecutor;
   private final AtomicInteger numInProcessHandler = new AtomicInteger();
   private final LongAdder totalRequests = new LongAdder();
   private long lastSeenTotalRequests = 0;
@@ -812,6 +838,17 @@ static Class<? extends BlockingQueue<Call>> getQueueClass(
     return CallQueueManager.convertQueueClass(queueClass, Call.class);
   }
 
+  /**
+   * Whether the call queue class spreads calls over the priority levels of a
+   * scheduler, and so needs {@link DecayRpcScheduler} when no scheduler is
+   * configured explicitly.
+   */
+  private static boolean isPrioritizedCallQueue(Class<?> queueClass) {
+    String name = queueClass.getCanonicalName();
+    return FairCallQueue.class.getCanonicalName().equals(name)
+        || ShardedCallQueue.class.getCanonicalName().equals(name);
+  }
+
   @Deprecated
   static Class<? extends RpcScheduler> getSchedulerClass(
       String prefix, Configuration conf) {
@@ -825,8 +862,7 @@ static Class<? extends RpcScheduler> getSchedulerClass(
           .IPC_CALLQUEUE_IMPL_KEY;
       Class<?> queueClass = conf.getClass(queueKeyName, null);
       if (queueClass != null) {
-        if (queueClass.getCanonicalName().equals(
-            FairCallQueue.class.getCanonicalName())) {
+        if (isPrioritizedCallQueue(queueClass)) {
           conf.setClass(schedulerKeyname, DecayRpcScheduler.class,
               RpcScheduler.class);
         }
@@ -841,10 +877,10 @@ static Class<? extends RpcScheduler> getSchedulerClass(
   /**
    * Return class configured by property 'ipc.<port>.scheduler.impl' if it is
    * present. If the config is not present, and if property
-   * 'ipc.<port>.callqueue.impl' represents FairCallQueue class,
-   * return DecayRpcScheduler. If config 'ipc.<port>.callqueue.impl'
-   * does not have value FairCallQueue, default config (without port) is used
-   * to derive class i.e 'ipc.scheduler.impl'. If default config is also not
+   * 'ipc.<port>.callqueue.impl' represents FairCallQueue or ShardedCallQueue
+   * class, return DecayRpcScheduler. If config 'ipc.<port>.callqueue.impl'
+   * does not have value FairCallQueue or ShardedCallQueue, default config
+   * (without port) is used to derive class i.e 'ipc.scheduler.impl'. If default config is also not
    * present, default class {@link DefaultRpcScheduler} is returned.
    *
    * @param namespace Namespace "ipc".
@@ -867,8 +903,7 @@ static Class<? extends RpcScheduler> getSchedulerClass(
           + CommonConfigurationKeys.IPC_CALLQUEUE_IMPL_KEY;
       Class<?> queueClass = conf.getClass(queueKeyNameWithPort, null);
       if (queueClass != null) {
-        if (queueClass.getCanonicalName().equals(
-            FairCallQueue.class.getCanonicalName())) {
+        if (isPrioritizedCallQueue(queueClass)) {
           conf.setClass(schedulerKeyNameWithPort, DecayRpcScheduler.class,
               RpcScheduler.class);
         }
@@ -1188,7 +1223,7 @@ private class RpcCall extends Call {
 
     @Override
     boolean isOpen() {
-      return connection.channel.isOpen();
+      return connection.isOpen();
     }
 
     void setResponseFields(Writable returnValue,
@@ -1219,7 +1254,7 @@ public int getRemotePort() {
 
     @Override
     public Void run() throws Exception {
-      if (!connection.channel.isOpen()) {
+      if (!connection.isOpen()) {
         Server.LOG.info(Thread.currentThread().getName() + ": skipped " + this);
         return null;
       }
@@ -1393,8 +1428,19 @@ public String toString() {
     }
   }
 
+  /** Accepts connections on a port and reads calls from them. */
+  private interface ConnectionListener {
+    InetSocketAddress getAddress();
+
+    void setIsAuxiliary();
+
+    void start();
+
+    void doStop();
+  }
+
   /** Listens on the socket. Creates jobs for the handler threads*/
-  private class Listener extends Thread {
+  private class Listener extends Thread implements ConnectionListener {
     
     private ServerSocketChannel acceptChannel = null; //the accept channel
     private Selector selector = null; //the selector that we use for the server
@@ -1439,7 +1485,8 @@ private class Listener extends Thread {
       this.isOnAuxiliaryPort = false;
     }
 
-    void setIsAuxiliary() {
+    @Override
+    public void setIsAuxiliary() {
       this.isOnAuxiliaryPort = true;
     }
     
@@ -1595,7 +1642,8 @@ private void closeCurrentConnection(SelectionKey key, Throwable e) {
       }
     }
 
-    InetSocketAddress getAddress() {
+    @Override
+    public InetSocketAddress getAddress() {
       return (InetSocketAddress)acceptChannel.socket().getLocalSocketAddress();
     }
     
@@ -1656,7 +1704,9 @@ void doRead(SelectionKey key) throws InterruptedException {
       }
     }   
 
-    synchronized void doStop() {
+    @Override
+    public synchronized void doStop() {
+      interrupt();
       if (selector != null) {
         selector.wakeup();
         Thread.yield();
@@ -1682,6 +1732,247 @@ Reader getReader() {
     }
   }
 
+  /**
+   * Accepts connections and reads calls with Netty, using native epoll when it
+   * is available. The event loops also write the responses, so connections
+   * accepted by this listener are not served by the {@link Responder}.
+   */
+  private class NettyListener implements ConnectionListener {
+    private final EventLoopGroup acceptGroup;
+    private final EventLoopGroup readGroup;
+    private final io.netty.channel.Channel acceptChannel;
+    private final int listenPort;
+    private volatile boolean isOnAuxiliaryPort = false;
+
+    NettyListener(int port) throws IOException {
+      final boolean useEpoll = Epoll.isAvailable();
+      acceptGroup = newEventLoopGroup(useEpoll, 1,
+          "IPC Server listener on " + port);
+      readGroup = newEventLoopGroup(useEpoll, readThreads,
+          "Socket Reader for port " + port);
+      ServerBootstrap bootstrap = new ServerBootstrap()
+          .group(acceptGroup, readGroup)
+          .channel(useEpoll ? EpollServerSocketChannel.class
+              : NioServerSocketChannel.class)
+          // connections are accepted once the server is started
+          .option(ChannelOption.AUTO_READ, false)
+          .option(ChannelOption.SO_BACKLOG, conf.getInt(
+              CommonConfigurationKeysPublic.IPC_SERVER_LISTEN_QUEUE_SIZE_KEY,
+              CommonConfigurationKeysPublic
+                  .IPC_SERVER_LISTEN_QUEUE_SIZE_DEFAULT))
+          .option(ChannelOption.SO_REUSEADDR, conf.getBoolean(
+              CommonConfigurationKeysPublic.IPC_SERVER_REUSEADDR_KEY,
+              CommonConfigurationKeysPublic.IPC_SERVER_REUSEADDR_DEFAULT))
+          .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+          .childOption(ChannelOption.SO_KEEPALIVE, true)
+          .childHandler(new ChannelInitializer<io.netty.channel.Channel>() {
+            @Override
+            protected void initChannel(io.netty.channel.Channel ch) {
+              ch.config().setOption(ChannelOption.TCP_NODELAY, tcpNoDelay);
+              if (socketSendBufferSize != 0) {
+                ch.config().setOption(ChannelOption.SO_SNDBUF,
+                    socketSendBufferSize);
+              }
+              ch.pipeline().addLast(new NettyConnectionHandler(
+                  listenPort, isOnAuxiliaryPort));
+            }
+          });
+      try {
+        acceptChannel = bind(bootstrap, new InetSocketAddress(bindAddress,
+            port));
+      } catch (IOException e) {
+        acceptGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        readGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        throw e;
+      }
+      //Could be an ephemeral port
+      this.listenPort = getAddress().getPort();
+      LOG.info("Netty listener at {}:{} using {}", bindAddress,
+          this.listenPort, useEpoll ? "epoll" : "nio");
+    }
+
+    private EventLoopGroup newEventLoopGroup(boolean useEpoll, int nThreads,
+        String name) {
+      DefaultThreadFactory threadFactory = new DefaultThreadFactory(name, true);
+      return useEpoll ? new EpollEventLoopGroup(nThreads, threadFactory)
+          : new NioEventLoopGroup(nThreads, threadFactory);
+    }
+
+    /**
+     * Binds to the given address, or to the first free port of the
+     * configured port range if the address has no port.
+     */
+    private io.netty.channel.Channel bind(ServerBootstrap bootstrap,
+        InetSocketAddress address) throws IOException {
+      IntegerRanges range = null;
+      if (portRangeConfig != null) {
+        range = conf.getRange(portRangeConfig, "");
+      }
+      if (range == null || range.isEmpty() || (address.getPort() != 0)) {
+        return bind(bootstrap, address, address.getPort());
+      }
+      for (Integer port : range) {
+        try {
+          return bind(bootstrap, address, port);
+        } catch (IOException e) {
+          //Ignored
+        }
+      }
+      throw new BindException("Could not find a free port in " + range);
+    }
+
+    private io.netty.channel.Channel bind(ServerBootstrap bootstrap,
+        InetSocketAddress address, int port) throws IOException {
+      ChannelFuture future = bootstrap.bind(
+          new InetSocketAddress(address.getAddress(), port))
+          .awaitUninterruptibly();
+      if (!future.isSuccess()) {
+        Throwable cause = future.cause();
+        IOException ioe = cause instanceof IOException ?
+            (IOException) cause : new IOException(cause);
+        throw NetUtils.wrapException(null, 0, address.getHostName(), port,
+            ioe);
+      }
+      return future.channel();
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+      return (InetSocketAddress) acceptChannel.localAddress();
+    }
+
+    @Override
+    public void setIsAuxiliary() {
+      this.isOnAuxiliaryPort = true;
+    }
+
+    @Override
+    public void start() {
+      LOG.info("Starting Netty listener on port {}", listenPort);
+      connectionManager.startIdleScan();
+      acceptChannel.config().setAutoRead(true);
+    }
+
+    @Override
+    public synchronized void doStop() {
+      acceptChannel.close().awaitUninterruptibly();
+      // close all connections
+      connectionManager.stopIdleScan();
+      connectionManager.closeAll();
+      acceptGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+      readGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS)
+          .awaitUninterruptibly(10, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Reads the calls of a connection accepted by the {@link NettyListener}.
+   * The received bytes are fed to {@link Connection#readAndProcess}, which
+   * frames and processes the calls exactly as for the NIO listener.
+   */
+  private class NettyConnectionHandler extends ChannelInboundHandlerAdapter {
+    private final int ingressPort;
+    private final boolean isOnAuxiliaryPort;
+    private Connection connection;
+
+    NettyConnectionHandler(int ingressPort, boolean isOnAuxiliaryPort) {
+      this.ingressPort = ingressPort;
+      this.isOnAuxiliaryPort = isOnAuxiliaryPort;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+      connection = connectionManager.register(ctx.channel(), ingressPort,
+          isOnAuxiliaryPort);
+      // If the connectionManager can't take it, close the connection.
+      if (connection == null) {
+        ctx.close();
+        connectionManager.droppedConnections.getAndIncrement();
+      }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      ByteBuf buf = (ByteBuf) msg;
+      try {
+        if (connection == null) {
+          return;
+        }
+        connection.setLastContact(Time.now());
+        ReadableByteChannel channel = new ByteBufChannel(buf);
+        while (buf.isReadable()) {
+          int count;
+          try {
+            count = connection.readAndProcess(channel);
+          } catch (InterruptedException ie) {
+            LOG.info(Thread.currentThread().getName() +
+                ": readAndProcess caught InterruptedException", ie);
+            Thread.currentThread().interrupt();
+            count = -1;
+          } catch (Exception e) {
+            // Any exceptions that reach here are fatal unexpected internal
+            // errors that could not be sent to the client.
+            LOG.info(Thread.currentThread().getName() +
+                ": readAndProcess from client " + connection +
+                " threw exception [" + e + "]", e);
+            count = -1;
+          }
+          // setupResponse will signal the connection should be closed when a
+          // fatal response is sent.
+          if (count < 0 || connection.shouldClose()) {
+            closeConnection(connection);
+            return;
+          }
+        }
+        connection.setLastContact(Time.now());
+      } finally {
+        buf.release();
+      }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+      if (connection != null) {
+        closeConnection(connection);
+      }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+      LOG.info(Thread.currentThread().getName() + ": exception from client " +
+          connection, cause);
+      ctx.close();
+    }
+  }
+
+  /** Exposes the readable bytes of a Netty buffer as a channel. */
+  private static final class ByteBufChannel implements ReadableByteChannel {
+    private final ByteBuf buf;
+
+    ByteBufChannel(ByteBuf buf) {
+      this.buf = buf;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+      int count = Math.min(dst.remaining(), buf.readableBytes());
+      int limit = dst.limit();
+      dst.limit(dst.position() + count);
+      buf.readBytes(dst);
+      dst.limit(limit);
+      return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
   // Sends responses of RPC back to clients.
   private class Responder extends Thread {
     private final Selector writeSelector;
@@ -1917,6 +2208,10 @@ void doRespond(RpcCall call) throws IOException {
         if (call.connection.useWrap) {
           wrapWithSasl(call);
         }
+        if (call.connection.nettyChannel != null) {
+          call.connection.writeNettyResponse(call);
+          return;
+        }
         call.connection.responseQueue.addLast(call);
         if (call.connection.responseQueue.size() == 1) {
           processResponse(call.connection.responseQueue, true);
@@ -1997,6 +2292,8 @@ public class Connection {
                                             //follows connection header is read
 
     private SocketChannel channel;
+    // set instead of channel when the connection is served by Netty
+    private final io.netty.channel.Channel nettyChannel;
     private ByteBuffer data;
     private final ByteBuffer dataLengthBuffer;
     private LinkedList<RpcCall> responseQueue;
@@ -2053,7 +2350,34 @@ public class Connection {
     
     public Connection(SocketChannel channel, long lastContact,
         int ingressPort, boolean isOnAuxiliaryPort) {
+      this(channel, null, channel.socket().getInetAddress(),
+          channel.socket().getPort(), lastContact, ingressPort,
+          isOnAuxiliaryPort);
+      this.socket = channel.socket();
+      if (socketSendBufferSize != 0) {
+        try {
+          socket.setSendBufferSize(socketSendBufferSize);
+        } catch (IOException e) {
+          LOG.warn("Connection: unable to set socket send buffer size to " +
+                   socketSendBufferSize);
+        }
+      }
+    }
+
+    Connection(io.netty.channel.Channel channel, long lastContact,
+        int ingressPort, boolean isOnAuxiliaryPort) {
+      this(null, channel,
+          ((InetSocketAddress) channel.remoteAddress()).getAddress(),
+          ((InetSocketAddress) channel.remoteAddress()).getPort(),
+          lastContact, ingressPort, isOnAuxiliaryPort);
+    }
+
+    private Connection(SocketChannel channel,
+        io.netty.channel.Channel nettyChannel, InetAddress addr,
+        int remotePort, long lastContact, int ingressPort,
+        boolean isOnAuxiliaryPort) {
       this.channel = channel;
+      this.nettyChannel = nettyChannel;
       this.lastContact = lastContact;
       this.data = null;
       
@@ -2062,8 +2386,7 @@ public Connection(SocketChannel channel, long lastContact,
       this.dataLengthBuffer = ByteBuffer.allocate(4);
       this.unwrappedData = null;
       this.unwrappedDataLengthBuffer = ByteBuffer.allocate(4);
-      this.socket = channel.socket();
-      this.addr = socket.getInetAddress();
+      this.addr = addr;
       this.ingressPort = ingressPort;
       this.isOnAuxiliaryPort = isOnAuxiliaryPort;
       if (addr == null) {
@@ -2075,17 +2398,13 @@ public Connection(SocketChannel channel, long lastContact,
         // host name for the IP address
         this.hostName = addr.getHostName();
       }
-      this.remotePort = socket.getPort();
+      this.remotePort = remotePort;
       this.responseQueue = new LinkedList<RpcCall>();
-      if (socketSendBufferSize != 0) {
-        try {
-          socket.setSendBufferSize(socketSendBufferSize);
-        } catch (IOException e) {
-          LOG.warn("Connection: unable to set socket send buffer size to " +
-                   socketSendBufferSize);
-        }
-      }
-    }   
+    }
+
+    boolean isOpen() {
+      return nettyChannel != null ? nettyChannel.isOpen() : channel.isOpen();
+    }
 
     @Override
     public String toString() {
@@ -2469,6 +2788,11 @@ private void checkDataLength(int dataLength) throws IOException {
      * @throws InterruptedException - if the thread is interrupted.
      */
     public int readAndProcess() throws IOException, InterruptedException {
+      return readAndProcess(channel);
+    }
+
+    private int readAndProcess(ReadableByteChannel channel)
+        throws IOException, InterruptedException {
       while (!shouldClose()) { // stop if a fatal response has been sent.
         // dataLengthBuffer is used to read "hrpc" or the rpc-packet length
         int count = -1;
@@ -3054,6 +3378,26 @@ private void sendResponse(RpcCall call) throws IOException {
       responder.doRespond(call);
     }
 
+    /**
+     * Writes the response of a call to a connection served by Netty. Writes
+     * are issued in the order of the responses and flushed by the event loop
+     * of the connection.
+     */
+    private void writeNettyResponse(RpcCall call) {
+      final ByteBuffer response = call.rpcResponse;
+      //Clear out the response buffer so it can be collected
+      call.rpcResponse = null;
+      rpcMetrics.incrSentBytes(response.remaining());
+      nettyChannel.writeAndFlush(Unpooled.wrappedBuffer(response))
+          .addListener((ChannelFutureListener) future -> {
+            decRpcCount();
+            if (!future.isSuccess()) {
+              LOG.warn("call " + call + ": output error", future.cause());
+              closeConnection(this);
+            }
+          });
+    }
+
     /**
      * Get service class for connection
      * @return the serviceClass
@@ -3073,6 +3417,10 @@ public void setServiceClass(int serviceClass) {
     private synchronized void close() {
       disposeSasl();
       data = null;
+      if (nettyChannel != null) {
+        nettyChannel.close();
+        return;
+      }
       if (!channel.isOpen())
         return;
       try {socket.shutdownOutput();} catch(Exception e) {
@@ -3137,92 +3485,221 @@ public void run() {
       LOG.debug("{}: starting", Thread.currentThread().getName());
       SERVER.set(Server.this);
       while (running) {
-        TraceScope traceScope = null;
+        if (callExecutor == null) {
+          handleCall(null);
+          continue;
+        }
         Call call = null;
-        long startTimeNanos = 0;
-        // True iff the connection for this call has been dropped.
-        // Set to true by default and update to false later if the connection
-        // can be succesfully read.
-        boolean connDropped = true;
-
         try {
-          call = callQueue.take(); // pop the queue; maybe blocked here
-          numInProcessHandler.incrementAndGet();
-          startTimeNanos = Time.monotonicNowNanos();
-          if (alignmentContext != null && call.isCallCoordinated() &&
-              call.getClientStateId() > alignmentContext.getLastSeenStateId()) {
-            /*
-             * The call processing should be postponed until the client call's
-             * state id is aligned (<=) with the server state id.
-
-             * NOTE:
-             * Inserting the call back to the queue can change the order of call
-             * execution comparing to their original placement into the queue.
-             * This is not a problem, because Hadoop RPC does not have any
-             * constraints on ordering the incoming rpc requests.
-             * In case of Observer, it handles only reads, which are
-             * commutative.
-             */
-            // Re-queue the call and continue
-            requeueCall(call);
-            call = null;
-            continue;
-          }
-          LOG.debug("{}: {} for RpcKind {}.", Thread.currentThread().getName(), call, call.rpcKind);
-          CurCall.set(call);
-          if (call.span != null) {
-            traceScope = tracer.activateSpan(call.span);
-            call.span.addTimelineAnnotation("called");
-          }
-          // always update the current call context
-          CallerContext.setCurrent(call.callerContext);
-          UserGroupInformation remoteUser = call.getRemoteUser();
-          connDropped = !call.isOpen();
-          if (remoteUser != null) {
-            remoteUser.doAs(call);
-          } else {
-            call.run();
+          // wait for a free slot first, so that the calls beyond the limit
+          // stay in the call queue and are subject to its scheduling.
+          callExecutor.acquire();
+          try {
+            call = callQueue.take(); // pop the queue; maybe blocked here
+          } finally {
+            if (call == null) {
+              callExecutor.release();
+            }
           }
+          callExecutor.execute(call);
         } catch (InterruptedException e) {
           if (running) {                          // unexpected -- log it
             LOG.info(Thread.currentThread().getName() + " unexpectedly interrupted", e);
-            if (traceScope != null) {
-              traceScope.addTimelineAnnotation("unexpectedly interrupted: " +
-                  StringUtils.stringifyException(e));
-            }
-          }
-        } catch (Exception e) {
-          LOG.info(Thread.currentThread().getName() + " caught an exception", e);
-          if (traceScope != null) {
-            traceScope.addTimelineAnnotation("Exception: " +
-                StringUtils.stringifyException(e));
-          }
-        } finally {
-          CurCall.set(null);
-          numInProcessHandler.decrementAndGet();
-          IOUtils.cleanupWithLogger(LOG, traceScope);
-          if (call != null) {
-            updateMetrics(call, startTimeNanos, connDropped);
-            ProcessingDetails.LOG.debug("Served: [{}]{} name={} user={} details={}",
-                call, (call.isResponseDeferred() ? ", deferred" : ""),
-                call.getDetailedMetricsName(), call.getRemoteUser(),
-                call.getProcessingDetails());
           }
         }
       }
       LOG.debug("{}: exiting", Thread.currentThread().getName());
     }
+  }
 
-    private void requeueCall(Call call)
-        throws IOException, InterruptedException {
+  /**
+   * Process a call on the current thread.
+   * @param taken the call to process, or null to take it from the call queue.
+   */
+  private void handleCall(Call taken) {
+    TraceScope traceScope = null;
+    Call call = null;
+    long startTimeNanos = 0;
+    // True iff the connection for this call has been dropped.
+    // Set to true by default and update to false later if the connection
+    // can be succesfully read.
+    boolean connDropped = true;
+
+    try {
+      call = taken != null ? taken : callQueue.take(); // maybe blocked here
+      numInProcessHandler.incrementAndGet();
+      startTimeNanos = Time.monotonicNowNanos();
+      if (alignmentContext != null && call.isCallCoordinated() &&
+          call.getClientStateId() > alignmentContext.getLastSeenStateId()) {
+        /*
+         * The call processing should be postponed until the client call's
+         * state id is aligned (<=) with the server state id.
+
+         * NOTE:
+         * Inserting the call back to the queue can change the order of call
+         * execution comparing to their original placement into the queue.
+         * This is not a problem, because Hadoop RPC does not have any
+         * constraints on ordering the incoming rpc requests.
+         * In case of Observer, it handles only reads, which are
+         * commutative.
+         */
+        // Re-queue the call and continue
+        requeueCall(call);
+        call = null;
+        return;
+      }
+      LOG.debug("{}: {} for RpcKind {}.", Thread.currentThread().getName(), call, call.rpcKind);
+      CurCall.set(call);
+      if (call.span != null) {
+        traceScope = tracer.activateSpan(call.span);
+        call.span.addTimelineAnnotation("called");
+      }
+      // always update the current call context
+      CallerContext.setCurrent(call.callerContext);
+      UserGroupInformation remoteUser = call.getRemoteUser();
+      connDropped = !call.isOpen();
+      if (remoteUser != null) {
+        remoteUser.doAs(call);
+      } else {
+        call.run();
+      }
+    } catch (InterruptedException e) {
+      if (running) {                          // unexpected -- log it
+        LOG.info(Thread.currentThread().getName() + " unexpectedly interrupted", e);
+        if (traceScope != null) {
+          traceScope.addTimelineAnnotation("unexpectedly interrupted: " +
+              StringUtils.stringifyException(e));
+        }
+      }
+    } catch (Exception e) {
+      LOG.info(Thread.currentThread().getName() + " caught an exception", e);
+      if (traceScope != null) {
+        traceScope.addTimelineAnnotation("Exception: " +
+            StringUtils.stringifyException(e));
+      }
+    } finally {
+      CurCall.set(null);
+      numInProcessHandler.decrementAndGet();
+      IOUtils.cleanupWithLogger(LOG, traceScope);
+      if (call != null) {
+        updateMetrics(call, startTimeNanos, connDropped);
+        ProcessingDetails.LOG.debug("Served: [{}]{} name={} user={} details={}",
+            call, (call.isResponseDeferred() ? ", deferred" : ""),
+            call.getDetailedMetricsName(), call.getRemoteUser(),
+            call.getProcessingDetails());
+      }
+    }
+  }
+
+  private void requeueCall(Call call)
+      throws IOException, InterruptedException {
+    try {
+      internalQueueCall(call, false);
+      rpcMetrics.incrRequeueCalls();
+    } catch (RpcServerException rse) {
+      call.doResponse(rse.getCause(), rse.getRpcStatusProto());
+    }
+  }
+
+  /**
+   * Runs every call on its own thread, with at most a given number of calls
+   * running at the same time. The threads are virtual threads when the JVM
+   * supports them; otherwise they come from a pool of daemon threads.
+   */
+  private class CallExecutor {
+    private final Semaphore permits;
+    private final ThreadFactory virtualThreadFactory;
+    private final ExecutorService pool;
+
+    CallExecutor(int maxConcurrency) {
+      this.permits = new Semaphore(maxConcurrency);
+      String name = "IPC Server call on default port " + port;
+      this.virtualThreadFactory = newVirtualThreadFactory(name + " #");
+      if (virtualThreadFactory == null) {
+        LOG.warn("Virtual threads are not supported by this JVM, calls of "
+            + "the server on port {} run on pooled threads instead", port);
+        this.pool = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setDaemon(true).setNameFormat(name + " #%d").build());
+      } else {
+        this.pool = null;
+      }
+    }
+
+    boolean isVirtual() {
+      return virtualThreadFactory != null;
+    }
+
+    void acquire() throws InterruptedException {
+      permits.acquire();
+    }
+
+    void release() {
+      permits.release();
+    }
+
+    /** Run the call on a new thread, releasing its permit when done. */
+    void execute(final Call call) {
+      final long dispatchTimeNanos = Time.monotonicNowNanos();
+      Runnable task = () -> {
+        try {
+          rpcMetrics.addRpcDispatchTime(rpcMetrics.getMetricsTimeUnit()
+              .convert(Time.monotonicNowNanos() - dispatchTimeNanos,
+                  TimeUnit.NANOSECONDS));
+          SERVER.set(Server.this);
+          handleCall(call);
+        } finally {
+          SERVER.remove();
+          CallerContext.setCurrent(null);
+          permits.release();
+        }
+      };
       try {
-        internalQueueCall(call, false);
-        rpcMetrics.incrRequeueCalls();
-      } catch (RpcServerException rse) {
-        call.doResponse(rse.getCause(), rse.getRpcStatusProto());
+        if (pool != null) {
+          pool.execute(task);
+        } else {
+          virtualThreadFactory.newThread(task).start();
+        }
+      } catch (RejectedExecutionException e) {
+        // the pool is only shut down when the server stops.
+        permits.release();
+        LOG.debug("Dropped {} of the stopped server", call);
       }
     }
 
+    void shutdown() {
+      if (pool != null) {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Reflectively create a factory of virtual threads, which are not part of
+   * the Java version Hadoop is compiled for.
+   * @param prefix prefix of the names of the threads.
+   * @return the factory, or null if the JVM does not support virtual threads.
+   */
+  @VisibleForTesting
+  static ThreadFactory newVirtualThreadFactory(String prefix) {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, prefix, 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // not available, or still a preview feature of this JVM.
+      return null;
+    }
+  }
+
+  /**
+   * @return whether calls run on virtual threads, null if they run on the
+   * handler threads.
+   */
+  @VisibleForTesting
+  Boolean isCallExecutorVirtual() {
+    return callExecutor == null ? null : callExecutor.isVirtual();
   }
 
   @VisibleForTesting
@@ -3344,8 +3821,26 @@ protected Server(String bindAddress, int port,
     this.enabledAuthMethods = getAuthMethods(secretManager, conf);
     this.negotiateResponse = buildNegotiateResponse(enabledAuthMethods);
     
+    this.nettyEnabled = conf.getBoolean(
+        CommonConfigurationKeys.IPC_SERVER_NETTY_ENABLED_KEY,
+        CommonConfigurationKeys.IPC_SERVER_NETTY_ENABLED_DEFAULT);
+    if (conf.getBoolean(
+        CommonConfigurationKeys.IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_KEY,
+        CommonConfigurationKeys
+            .IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_DEFAULT)) {
+      int maxConcurrency = conf.getInt(CommonConfigurationKeys
+              .IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_CONCURRENCY_KEY,
+          CommonConfigurationKeys
+              .IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_CONCURRENCY_DEFAULT);
+      if (maxConcurrency <= 0) {
+        maxConcurrency = handlerCount;
+      }
+      this.callExecutor = new CallExecutor(maxConcurrency);
+    } else {
+      this.callExecutor = null;
+    }
     // Start the listener here and let it bind to the port
-    listener = new Listener(port);
+    listener = newListener(port);
     // set the server port to the default listener port.
     this.port = listener.getAddress().getPort();
     connectionManager = new ConnectionManager();
@@ -3413,7 +3908,7 @@ public synchronized void addAuxiliaryListener(int auxiliaryPort)
       throw new IOException(
           "There is already a listener binding to: " + auxiliaryPort);
     }
-    Listener newListener = new Listener(auxiliaryPort);
+    ConnectionListener newListener = newListener(auxiliaryPort);
     newListener.setIsAuxiliary();
 
     // in the case of port = 0, the listener would be on a != 0 port.
@@ -3422,6 +3917,12 @@ public synchronized void addAuxiliaryListener(int auxiliaryPort)
     auxiliaryListenerMap.put(newListener.getAddress().getPort(), newListener);
   }
 
+  private ConnectionListener newListener(int listenerPort)
+      throws IOException {
+    return nettyEnabled ?
+        new NettyListener(listenerPort) : new Listener(listenerPort);
+  }
+
   private RpcSaslProto buildNegotiateResponse(List<AuthMethod> authMethods)
       throws IOException {
     RpcSaslProto.Builder negotiateBuilder = RpcSaslProto.newBuilder();
@@ -3659,14 +4160,15 @@ public synchronized void start() {
     responder.start();
     listener.start();
     if (auxiliaryListenerMap != null && auxiliaryListenerMap.size() > 0) {
-      for (Listener newListener : auxiliaryListenerMap.values()) {
+      for (ConnectionListener newListener : auxiliaryListenerMap.values()) {
         newListener.start();
       }
     }
 
-    handlers = new Handler[handlerCount];
-    
-    for (int i = 0; i < handlerCount; i++) {
+    // with a call executor, a single handler hands the calls to their threads.
+    handlers = new Handler[callExecutor == null ? handlerCount : 1];
+
+    for (int i = 0; i < handlers.length; i++) {
       handlers[i] = new Handler(i);
       handlers[i].start();
     }
@@ -3677,17 +4179,18 @@ public synchronized void stop() {
     LOG.info("Stopping server on " + port);
     running = false;
     if (handlers != null) {
-      for (int i = 0; i < handlerCount; i++) {
+      for (int i = 0; i < handlers.length; i++) {
         if (handlers[i] != null) {
           handlers[i].interrupt();
         }
       }
     }
-    listener.interrupt();
+    if (callExecutor != null) {
+      callExecutor.shutdown();
+    }
     listener.doStop();
     if (auxiliaryListenerMap != null && auxiliaryListenerMap.size() > 0) {
-      for (Listener newListener : auxiliaryListenerMap.values()) {
-        newListener.interrupt();
+      for (ConnectionListener newListener : auxiliaryListenerMap.values()) {
         newListener.doStop();
       }
     }
@@ -3742,7 +4245,7 @@ public synchronized InetSocketAddress getListenerAddress() {
   public synchronized Set<InetSocketAddress> getAuxiliaryListenerAddresses() {
     Set<InetSocketAddress> allAddrs = new HashSet<>();
     if (auxiliaryListenerMap != null && auxiliaryListenerMap.size() > 0) {
-      for (Listener auxListener : auxiliaryListenerMap.values()) {
+      for (ConnectionListener auxListener : auxiliaryListenerMap.values()) {
         allAddrs.add(auxListener.getAddress());
       }
     }
@@ -4069,8 +4572,20 @@ Connection register(SocketChannel channel, int ingressPort,
       if (isFull()) {
         return null;
       }
-      Connection connection = new Connection(channel, Time.now(),
-          ingressPort, isOnAuxiliaryPort);
+      return register(new Connection(channel, Time.now(),
+          ingressPort, isOnAuxiliaryPort));
+    }
+
+    Connection register(io.netty.channel.Channel channel, int ingressPort,
+        boolean isOnAuxiliaryPort) {
+      if (isFull()) {
+        return null;
+      }
+      return register(new Connection(channel, Time.now(),
+          ingressPort, isOnAuxiliaryPort));
+    }
+
+    private Connection register(Connection connection) {
       add(connection);
       LOG.debug("Server connection from {}; # active connections: {}; # queued calls: {}.",
           connection, size(), callQueue.size());
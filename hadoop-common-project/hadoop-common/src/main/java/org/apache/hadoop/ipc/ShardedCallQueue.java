@@ -0,0 +1,779 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.ipc;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang3.NotImplementedException;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.VisibleForTesting;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.ipc.CallQueueManager.CallQueueOverflowException;
+import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.metrics2.MetricsSource;
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
+import org.apache.hadoop.metrics2.lib.Interns;
+import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableQuantiles;
+import org.apache.hadoop.metrics2.lib.MutableRate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A call queue with multiple levels for each priority, like
+ * {@link FairCallQueue}, in which every level is split into stripes of
+ * bounded lock-free ring buffers.
+ *
+ * Producers spread calls across the stripes of the level chosen by the
+ * scheduler. Every handler has a home stripe which it polls first, and keeps
+ * its own weighted round-robin position across the priority levels using the
+ * weights of the {@link WeightedRoundRobinMultiplexer}, so handlers neither
+ * share a semaphore nor a multiplexer. Locks are only taken by handlers that
+ * found the queue empty and by producers that found the last level full,
+ * in order to park them.
+ */
+@InterfaceAudience.Private
+public class ShardedCallQueue<E extends Schedulable> extends AbstractQueue<E>
+    implements BlockingQueue<E> {
+  /** Number of stripes of each priority level. */
+  public static final String IPC_CALLQUEUE_SHARDED_STRIPES_KEY =
+      "callqueue.sharded.stripes";
+  /** Defaults to the number of available processors. */
+  public static final int IPC_CALLQUEUE_SHARDED_STRIPES_DEFAULT = 0;
+
+  public static final Logger LOG =
+      LoggerFactory.getLogger(ShardedCallQueue.class);
+
+  /* The stripes of each priority level, indexed by [level][stripe]. */
+  private final RingBuffer[][] levels;
+  private final int numStripes;
+  private final int[] weights;
+
+  /* Approximate number of queued calls. */
+  private final LongAdder count = new LongAdder();
+
+  /* Stripe assignment of producers and round-robin state of handlers. */
+  private final AtomicInteger nextHomeStripe = new AtomicInteger();
+  private final ThreadLocal<ProducerState> producerState;
+  private final ThreadLocal<ConsumerState> consumerState;
+
+  /* Parking of handlers on an empty queue and producers on a full queue.
+   * The waiter counts are checked without the lock, so the lock is only
+   * taken when a thread is known to be parked.
+   */
+  private final ReentrantLock parkLock = new ReentrantLock();
+  private final Condition notEmpty = parkLock.newCondition();
+  private final Condition notFull = parkLock.newCondition();
+  private final AtomicInteger waitingConsumers = new AtomicInteger();
+  private final AtomicInteger waitingProducers = new AtomicInteger();
+
+  /* Statistic tracking */
+  private final AtomicLong[] overflowedCalls;
+  private final MetricsRegistry registry;
+  private final MutableRate[] queueTime;
+  private final MutableQuantiles[][] queueTimeQuantiles;
+  // the queue times are counted without locks, and added to queueTime when
+  // the metrics are read.
+  private final LongAdder[] queueTimeCount;
+  private final LongAdder[] queueTimeSum;
+  private final long[] addedQueueTimeCount;
+  private final long[] addedQueueTimeSum;
+
+  /* Failover if queue is filled up */
+  private final boolean serverFailOverEnabled;
+
+  @VisibleForTesting
+  public ShardedCallQueue(int priorityLevels, int capacity, String ns,
+      Configuration conf) {
+    this(priorityLevels, capacity, ns,
+        CallQueueManager.getDefaultQueueCapacityWeights(priorityLevels), conf);
+  }
+
+  /**
+   * Create a ShardedCallQueue.
+   * @param priorityLevels the number of priority levels
+   * @param capacity the total size of all sub-queues
+   * @param ns the prefix to use for configuration
+   * @param capacityWeights the weights array for capacity allocation
+   *                        among priority levels
+   * @param conf the configuration to read from
+   * Notes: The capacity of a level is split evenly among its stripes, and
+   * the first or the highest priority level gets the excess capacity, as in
+   * {@link FairCallQueue}.
+   */
+  public ShardedCallQueue(int priorityLevels, int capacity, String ns,
+      int[] capacityWeights, Configuration conf) {
+    if (priorityLevels < 1) {
+      throw new IllegalArgumentException("Number of Priority Levels must be " +
+          "at least 1");
+    }
+    int stripes = conf.getInt(ns + "." + IPC_CALLQUEUE_SHARDED_STRIPES_KEY,
+        IPC_CALLQUEUE_SHARDED_STRIPES_DEFAULT);
+    if (stripes <= 0) {
+      stripes = Runtime.getRuntime().availableProcessors();
+    }
+    this.numStripes = stripes;
+    LOG.info("ShardedCallQueue is in use with " + priorityLevels +
+        " levels of " + stripes + " stripes with total capacity of " +
+        capacity);
+
+    int totalWeights = 0;
+    for (int i = 0; i < capacityWeights.length; i++) {
+      totalWeights += capacityWeights[i];
+    }
+    int residueCapacity = capacity % totalWeights;
+    int unitCapacity = capacity / totalWeights;
+    this.levels = new RingBuffer[priorityLevels][];
+    this.overflowedCalls = new AtomicLong[priorityLevels];
+    for (int i = 0; i < priorityLevels; i++) {
+      int levelCapacity = unitCapacity * capacityWeights[i];
+      if (i == 0) {
+        levelCapacity += residueCapacity;
+      }
+      levels[i] = new RingBuffer[stripes];
+      for (int j = 0; j < stripes; j++) {
+        // each stripe holds at least one call, so a level may slightly exceed
+        // its share when it has fewer calls than stripes.
+        int stripeCapacity = levelCapacity / stripes +
+            (j < levelCapacity % stripes ? 1 : 0);
+        levels[i][j] = new RingBuffer(this, i, Math.max(1, stripeCapacity));
+      }
+      overflowedCalls[i] = new AtomicLong(0);
+    }
+
+    this.weights = getMultiplexerWeights(priorityLevels, ns, conf);
+    this.producerState = ThreadLocal.withInitial(ProducerState::new);
+    this.consumerState = ThreadLocal.withInitial(ConsumerState::new);
+    this.serverFailOverEnabled = conf.getBoolean(
+        ns + "." +
+        CommonConfigurationKeys.IPC_CALLQUEUE_SERVER_FAILOVER_ENABLE,
+        CommonConfigurationKeys.IPC_CALLQUEUE_SERVER_FAILOVER_ENABLE_DEFAULT);
+
+    this.registry = new MetricsRegistry("ShardedCallQueue");
+    this.queueTime = new MutableRate[priorityLevels];
+    int[] intervals = conf.getInts(
+        CommonConfigurationKeys.RPC_METRICS_PERCENTILES_INTERVALS_KEY);
+    boolean quantileEnable = (intervals.length > 0) && conf.getBoolean(
+        CommonConfigurationKeys.RPC_METRICS_QUANTILE_ENABLE,
+        CommonConfigurationKeys.RPC_METRICS_QUANTILE_ENABLE_DEFAULT);
+    this.queueTimeQuantiles = new MutableQuantiles[priorityLevels][];
+    this.queueTimeCount = new LongAdder[priorityLevels];
+    this.queueTimeSum = new LongAdder[priorityLevels];
+    this.addedQueueTimeCount = new long[priorityLevels];
+    this.addedQueueTimeSum = new long[priorityLevels];
+    for (int i = 0; i < priorityLevels; i++) {
+      queueTime[i] = registry.newRate("ShardedCallQueueTimeUs_p" + i,
+          "Time spent in priority queue in microseconds", false);
+      queueTimeCount[i] = new LongAdder();
+      queueTimeSum[i] = new LongAdder();
+      queueTimeQuantiles[i] =
+          new MutableQuantiles[quantileEnable ? intervals.length : 0];
+      for (int j = 0; j < queueTimeQuantiles[i].length; j++) {
+        queueTimeQuantiles[i][j] = registry.newHistogram(
+            "ShardedCallQueueTimeUs_p" + i + "_" + intervals[j] + "s",
+            "Time spent in priority queue in microseconds", "ops", "latency",
+            intervals[j], false);
+      }
+    }
+    // Make this the active source of metrics
+    MetricsProxy mp = MetricsProxy.getInstance(ns);
+    mp.setDelegate(this);
+  }
+
+  private static int[] getMultiplexerWeights(int priorityLevels, String ns,
+      Configuration conf) {
+    int[] weights = conf.getInts(ns + "." +
+        WeightedRoundRobinMultiplexer.IPC_CALLQUEUE_WRRMUX_WEIGHTS_KEY);
+    if (weights.length == 0) {
+      return WeightedRoundRobinMultiplexer.getDefaultQueueWeights(
+          priorityLevels);
+    } else if (weights.length != priorityLevels) {
+      throw new IllegalArgumentException(ns + "." +
+          WeightedRoundRobinMultiplexer.IPC_CALLQUEUE_WRRMUX_WEIGHTS_KEY +
+          " must specify exactly " + priorityLevels +
+          " weights: one for each priority level.");
+    }
+    return weights;
+  }
+
+  /** The stripe a producer offers its next call to first. */
+  private final class ProducerState {
+    private int nextStripe =
+        Math.floorMod(nextHomeStripe.getAndIncrement(), numStripes);
+
+    int next() {
+      int stripe = nextStripe;
+      nextStripe = (stripe + 1) % numStripes;
+      return stripe;
+    }
+  }
+
+  /** Home stripe and weighted round-robin position of a handler. */
+  private final class ConsumerState {
+    private final int homeStripe =
+        Math.floorMod(nextHomeStripe.getAndIncrement(), numStripes);
+    private int level = 0;
+    private int requestsLeft = weights[0];
+
+    int getAndAdvanceLevel() {
+      int current = level;
+      if (--requestsLeft <= 0) {
+        level = (current + 1) % weights.length;
+        requestsLeft = weights[level];
+      }
+      return current;
+    }
+  }
+
+  /* Offer helpers */
+
+  /**
+   * Offer the element to the stripes of a priority level, starting at the
+   * next stripe of the calling producer.
+   * @param priority - queue priority
+   * @param e - element to add
+   * @return boolean if added to the given level
+   */
+  @VisibleForTesting
+  boolean offerQueue(int priority, E e) {
+    RingBuffer[] stripes = levels[priority];
+    int start = producerState.get().next();
+    for (int i = 0; i < stripes.length; i++) {
+      if (stripes[(start + i) % stripes.length].offer(e)) {
+        count.increment();
+        signalNotEmpty();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Offer the element to queue of the given or lower priority.
+   * @param priority - starting queue priority
+   * @param e - element to add
+   * @param includeLast - whether to attempt last queue
+   * @return boolean if added to a queue
+   */
+  private boolean offerQueues(int priority, E e, boolean includeLast) {
+    int lastPriority = levels.length - (includeLast ? 1 : 2);
+    for (int i = priority; i <= lastPriority; i++) {
+      if (offerQueue(i, e)) {
+        return true;
+      }
+      // Update stats
+      overflowedCalls[i].getAndIncrement();
+    }
+    return false;
+  }
+
+  private void signalNotEmpty() {
+    if (waitingConsumers.get() > 0) {
+      parkLock.lock();
+      try {
+        notEmpty.signal();
+      } finally {
+        parkLock.unlock();
+      }
+    }
+  }
+
+  private void signalNotFull() {
+    if (waitingProducers.get() > 0) {
+      parkLock.lock();
+      try {
+        // producers may wait for different levels.
+        notFull.signalAll();
+      } finally {
+        parkLock.unlock();
+      }
+    }
+  }
+
+  /* Poll helpers */
+
+  /**
+   * Returns an element of the priority level returned by the weighted
+   * round-robin position of the calling handler, or scans from highest to
+   * lowest priority level.
+   *
+   * @return the polled element, or null if every stripe was empty
+   */
+  private E removeNextElement() {
+    ConsumerState state = consumerState.get();
+    E e = pollLevel(state.getAndAdvanceLevel(), state.homeStripe);
+    for (int i = 0; e == null && i < levels.length; i++) {
+      e = pollLevel(i, state.homeStripe);
+    }
+    if (e != null) {
+      count.decrement();
+      signalNotFull();
+    }
+    return e;
+  }
+
+  @SuppressWarnings("unchecked")
+  private E pollLevel(int priority, int homeStripe) {
+    RingBuffer[] stripes = levels[priority];
+    for (int i = 0; i < stripes.length; i++) {
+      Object e = stripes[(homeStripe + i) % stripes.length].poll();
+      if (e != null) {
+        return (E) e;
+      }
+    }
+    return null;
+  }
+
+  /* AbstractQueue and BlockingQueue methods */
+
+  /**
+   * Add, put, and offer follow the same pattern as {@link FairCallQueue}:
+   * - Add will move on to the next level, throw on last level overflow
+   * - Put will move on to the next level, block on last level overflow
+   * - Offer does not attempt other levels on overflow
+   */
+  @Override
+  public boolean add(E e) {
+    final int priorityLevel = e.getPriorityLevel();
+    // try offering to all levels.
+    if (!offerQueues(priorityLevel, e, true)) {
+      CallQueueOverflowException ex;
+      if (serverFailOverEnabled) {
+        // Signal clients to failover and try a separate server.
+        ex = CallQueueOverflowException.FAILOVER;
+      } else if (priorityLevel == levels.length - 1) {
+        // only disconnect the lowest priority users that overflow the queue.
+        ex = CallQueueOverflowException.DISCONNECT;
+      } else {
+        ex = CallQueueOverflowException.KEEPALIVE;
+      }
+      throw ex;
+    }
+    return true;
+  }
+
+  @Override
+  public void put(E e) throws InterruptedException {
+    final int priorityLevel = e.getPriorityLevel();
+    // try offering to all but last level, put on last.
+    if (!offerQueues(priorityLevel, e, false)) {
+      putQueue(levels.length - 1, e);
+    }
+  }
+
+  /**
+   * Put the element in a queue of a specific priority, waiting for space
+   * if all stripes of the level are full.
+   * @param priority - queue priority
+   * @param e - element to add
+   */
+  @VisibleForTesting
+  void putQueue(int priority, E e) throws InterruptedException {
+    if (offerQueue(priority, e)) {
+      return;
+    }
+    parkLock.lockInterruptibly();
+    try {
+      while (true) {
+        waitingProducers.incrementAndGet();
+        try {
+          if (offerQueue(priority, e)) {
+            return;
+          }
+          notFull.await();
+        } finally {
+          waitingProducers.decrementAndGet();
+        }
+      }
+    } finally {
+      parkLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean offer(E e, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    final int priorityLevel = e.getPriorityLevel();
+    if (offerQueue(priorityLevel, e)) {
+      return true;
+    }
+    long nanos = unit.toNanos(timeout);
+    parkLock.lockInterruptibly();
+    try {
+      while (true) {
+        waitingProducers.incrementAndGet();
+        try {
+          if (offerQueue(priorityLevel, e)) {
+            return true;
+          }
+          if (nanos <= 0) {
+            return false;
+          }
+          nanos = notFull.awaitNanos(nanos);
+        } finally {
+          waitingProducers.decrementAndGet();
+        }
+      }
+    } finally {
+      parkLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean offer(E e) {
+    return offerQueue(e.getPriorityLevel(), e);
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    E e = removeNextElement();
+    if (e != null) {
+      return e;
+    }
+    parkLock.lockInterruptibly();
+    try {
+      while (true) {
+        // register as waiting before polling again, so that a producer
+        // either sees the waiter or the waiter sees the produced element.
+        waitingConsumers.incrementAndGet();
+        try {
+          e = removeNextElement();
+          if (e != null) {
+            return e;
+          }
+          notEmpty.await();
+        } finally {
+          waitingConsumers.decrementAndGet();
+        }
+      }
+    } finally {
+      parkLock.unlock();
+    }
+  }
+
+  @Override
+  public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    E e = removeNextElement();
+    if (e != null) {
+      return e;
+    }
+    long nanos = unit.toNanos(timeout);
+    parkLock.lockInterruptibly();
+    try {
+      while (true) {
+        waitingConsumers.incrementAndGet();
+        try {
+          e = removeNextElement();
+          if (e != null || nanos <= 0) {
+            return e;
+          }
+          nanos = notEmpty.awaitNanos(nanos);
+        } finally {
+          waitingConsumers.decrementAndGet();
+        }
+      }
+    } finally {
+      parkLock.unlock();
+    }
+  }
+
+  /**
+   * poll() provides no strict consistency: it is possible for poll to return
+   * null even though an element is in the queue.
+   */
+  @Override
+  public E poll() {
+    return removeNextElement();
+  }
+
+  /**
+   * Peek, like poll, provides no strict consistency.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public E peek() {
+    for (RingBuffer[] stripes : levels) {
+      for (RingBuffer stripe : stripes) {
+        Object e = stripe.peek();
+        if (e != null) {
+          return (E) e;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Size provides no strict consistency, and should not be used to control
+   * queue IO.
+   */
+  @Override
+  public int size() {
+    return (int) Math.max(0, count.sum());
+  }
+
+  /**
+   * Iterator is not implemented, as it is not needed.
+   */
+  @Override
+  public Iterator<E> iterator() {
+    throw new NotImplementedException("Code is not implemented");
+  }
+
+  /**
+   * drainTo polls the queue like a handler would. Note that draining from a
+   * ShardedCallQueue to another call queue may reorder the calls, since
+   * they are scheduled again by the new queue.
+   */
+  @Override
+  public int drainTo(Collection<? super E> c, int maxElements) {
+    int drained = 0;
+    E e;
+    while (drained < maxElements && (e = removeNextElement()) != null) {
+      c.add(e);
+      drained++;
+    }
+    return drained;
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns maximum remaining capacity. This does not reflect how much you can
+   * ideally fit in this ShardedCallQueue, as that would depend on the
+   * scheduler's decisions.
+   */
+  @Override
+  public int remainingCapacity() {
+    int sum = 0;
+    for (RingBuffer[] stripes : levels) {
+      for (RingBuffer stripe : stripes) {
+        sum += stripe.capacity - stripe.size();
+      }
+    }
+    return sum;
+  }
+
+  // called on every poll, so it must not lock: the quantiles are
+  // histograms, and the rate is updated from the adders by addQueueTimes.
+  private void addQueueTime(int priority, long nanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    queueTimeCount[priority].increment();
+    queueTimeSum[priority].add(micros);
+    for (MutableQuantiles q : queueTimeQuantiles[priority]) {
+      q.add(micros);
+    }
+  }
+
+  /**
+   * Add the queue times counted since the last call to the rates of the
+   * levels.
+   */
+  private synchronized void addQueueTimes() {
+    for (int i = 0; i < queueTime.length; i++) {
+      long count = queueTimeCount[i].sum();
+      long sum = queueTimeSum[i].sum();
+      if (count != addedQueueTimeCount[i]) {
+        queueTime[i].add(count - addedQueueTimeCount[i],
+            sum - addedQueueTimeSum[i]);
+        addedQueueTimeCount[i] = count;
+        addedQueueTimeSum[i] = sum;
+      }
+    }
+  }
+
+  /**
+   * A bounded multi-producer multi-consumer ring buffer. Every slot carries a
+   * sequence number which tells producers and consumers whether the slot is
+   * free for the current lap, so offer and poll only contend on a CAS of the
+   * tail or head respectively.
+   */
+  private static final class RingBuffer {
+    private final ShardedCallQueue<?> queue;
+    private final int level;
+    private final int capacity;
+    private final Object[] elements;
+    private final long[] enqueueNanos;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    RingBuffer(ShardedCallQueue<?> queue, int level, int capacity) {
+      this.queue = queue;
+      this.level = level;
+      this.capacity = capacity;
+      this.elements = new Object[capacity];
+      this.enqueueNanos = new long[capacity];
+      this.sequences = new AtomicLongArray(capacity);
+      for (int i = 0; i < capacity; i++) {
+        sequences.set(i, i);
+      }
+    }
+
+    boolean offer(Object e) {
+      while (true) {
+        long pos = tail.get();
+        int idx = (int) (pos % capacity);
+        long diff = sequences.get(idx) - pos;
+        if (diff == 0) {
+          if (tail.compareAndSet(pos, pos + 1)) {
+            // the slot is published by the volatile write of the sequence.
+            elements[idx] = e;
+            enqueueNanos[idx] = System.nanoTime();
+            sequences.set(idx, pos + 1);
+            return true;
+          }
+        } else if (diff < 0) {
+          return false; // full
+        }
+      }
+    }
+
+    Object poll() {
+      while (true) {
+        long pos = head.get();
+        int idx = (int) (pos % capacity);
+        long diff = sequences.get(idx) - (pos + 1);
+        if (diff == 0) {
+          if (head.compareAndSet(pos, pos + 1)) {
+            Object e = elements[idx];
+            long nanos = System.nanoTime() - enqueueNanos[idx];
+            elements[idx] = null;
+            sequences.set(idx, pos + capacity);
+            queue.addQueueTime(level, nanos);
+            return e;
+          }
+        } else if (diff < 0) {
+          return null; // empty
+        }
+      }
+    }
+
+    Object peek() {
+      long pos = head.get();
+      int idx = (int) (pos % capacity);
+      return sequences.get(idx) == pos + 1 ? elements[idx] : null;
+    }
+
+    int size() {
+      return (int) Math.max(0, Math.min(capacity, tail.get() - head.get()));
+    }
+  }
+
+  /**
+   * MetricsProxy is a singleton because we may init multiple
+   * ShardedCallQueues, but the metrics system cannot unregister beans cleanly.
+   */
+  private static final class MetricsProxy implements MetricsSource {
+    // One singleton per namespace
+    private static final HashMap<String, MetricsProxy> INSTANCES =
+        new HashMap<String, MetricsProxy>();
+
+    // Weakref for delegate, so we don't retain it forever if it can be GC'd
+    private WeakReference<ShardedCallQueue<? extends Schedulable>> delegate;
+
+    private String namespace;
+
+    private MetricsProxy(String namespace) {
+      this.namespace = namespace;
+      final String name = namespace + ".ShardedCallQueue";
+      DefaultMetricsSystem.instance().register(name, name, this);
+    }
+
+    public static synchronized MetricsProxy getInstance(String namespace) {
+      MetricsProxy mp = INSTANCES.get(namespace);
+      if (mp == null) {
+        // We must create one
+        mp = new MetricsProxy(namespace);
+        INSTANCES.put(namespace, mp);
+      }
+      return mp;
+    }
+
+    public void setDelegate(ShardedCallQueue<? extends Schedulable> obj) {
+      this.delegate =
+          new WeakReference<ShardedCallQueue<? extends Schedulable>>(obj);
+    }
+
+    @Override
+    public void getMetrics(MetricsCollector collector, boolean all) {
+      WeakReference<ShardedCallQueue<? extends Schedulable>> ref =
+          this.delegate;
+      ShardedCallQueue<? extends Schedulable> obj =
+          ref == null ? null : ref.get();
+      if (obj == null) {
+        return;
+      }
+      MetricsRecordBuilder rb = collector.addRecord("ShardedCallQueue")
+          .setContext("rpc")
+          .tag(Interns.info("namespace", "Namespace"), namespace);
+
+      final int[] currentQueueSizes = obj.getQueueSizes();
+      final long[] currentOverflowedCalls = obj.getOverflowedCalls();
+      for (int i = 0; i < currentQueueSizes.length; i++) {
+        rb.addGauge(Interns.info("ShardedCallQueueSize_p" + i,
+            "Queue Size"), currentQueueSizes[i]);
+        rb.addCounter(Interns.info("ShardedCallQueueOverflowedCalls_p" + i,
+            "Overflowed Calls"), currentOverflowedCalls[i]);
+      }
+      obj.addQueueTimes();
+      obj.registry.snapshot(rb, all);
+    }
+  }
+
+  public int[] getQueueSizes() {
+    int[] sizes = new int[levels.length];
+    for (int i = 0; i < levels.length; i++) {
+      for (RingBuffer stripe : levels[i]) {
+        sizes[i] += stripe.size();
+      }
+    }
+    return sizes;
+  }
+
+  public long[] getOverflowedCalls() {
+    long[] calls = new long[levels.length];
+    for (int i = 0; i < levels.length; i++) {
+      calls[i] = overflowedCalls[i].get();
+    }
+    return calls;
+  }
+
+  @VisibleForTesting
+  int getNumStripes() {
+    return numStripes;
+  }
+}
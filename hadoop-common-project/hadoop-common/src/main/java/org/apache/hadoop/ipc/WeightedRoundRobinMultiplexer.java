@@ -81,7 +81,7 @@ public WeightedRoundRobinMultiplexer(int aNumQueues, String ns,
   /**
    * Creates default weights for each queue. The weights are 2^N.
    */
-  private int[] getDefaultQueueWeights(int aNumQueues) {
+  static int[] getDefaultQueueWeights(int aNumQueues) {
     int[] weights = new int[aNumQueues];
 
     int weight = 1; // Start low
@@ -66,26 +66,29 @@ public class WeightedTimeCostProvider implements CostProvider {
   public void init(String namespace, Configuration conf) {
     weights = new long[Timing.values().length];
     for (Timing timing : ProcessingDetails.Timing.values()) {
-      final int defaultValue;
-      switch (timing) {
-      case LOCKFREE:
-      case RESPONSE:
-      case HANDLER:
-        defaultValue = DEFAULT_LOCKFREE_WEIGHT;
-        break;
-      case LOCKSHARED:
-        defaultValue = DEFAULT_LOCKSHARED_WEIGHT;
-        break;
-      case LOCKEXCLUSIVE:
-        defaultValue = DEFAULT_LOCKEXCLUSIVE_WEIGHT;
-        break;
-      default:
-        // by default don't bill for queueing or lock wait time
-        defaultValue = 0;
-      }
       String key = namespace + WEIGHT_CONFIG_PREFIX
           + timing.name().toLowerCase(Locale.ENGLISH);
-      weights[timing.ordinal()] = conf.getInt(key, defaultValue);
+      weights[timing.ordinal()] = conf.getInt(key, getDefaultWeight(timing));
+    }
+  }
+
+  /**
+   * @param timing the timing measurement
+   * @return the weight of the measurement if it is not configured.
+   */
+  protected int getDefaultWeight(Timing timing) {
+    switch (timing) {
+    case LOCKFREE:
+    case RESPONSE:
+    case HANDLER:
+      return DEFAULT_LOCKFREE_WEIGHT;
+    case LOCKSHARED:
+      return DEFAULT_LOCKSHARED_WEIGHT;
+    case LOCKEXCLUSIVE:
+      return DEFAULT_LOCKEXCLUSIVE_WEIGHT;
+    default:
+      // by default don't bill for queueing or lock wait time
+      return 0;
     }
   }
 
@@ -49,6 +49,7 @@ public class RpcMetrics {
   final MetricsRegistry registry;
   final String name;
   final boolean rpcQuantileEnable;
+  private final boolean rpcHistogramEnable;
 
   public static final TimeUnit DEFAULT_METRIC_TIME_UNIT =
       TimeUnit.MILLISECONDS;
@@ -67,6 +68,9 @@ public class RpcMetrics {
     rpcQuantileEnable = (intervals.length > 0) && conf.getBoolean(
         CommonConfigurationKeys.RPC_METRICS_QUANTILE_ENABLE,
         CommonConfigurationKeys.RPC_METRICS_QUANTILE_ENABLE_DEFAULT);
+    rpcHistogramEnable = conf.getBoolean(
+        CommonConfigurationKeys.RPC_METRICS_QUANTILE_HISTOGRAM,
+        CommonConfigurationKeys.RPC_METRICS_QUANTILE_HISTOGRAM_DEFAULT);
     metricsTimeUnit = getMetricsTimeUnit(conf);
     if (rpcQuantileEnable) {
       rpcEnQueueTimeQuantiles =
@@ -83,28 +87,29 @@ public class RpcMetrics {
           new MutableQuantiles[intervals.length];
       for (int i = 0; i < intervals.length; i++) {
         int interval = intervals[i];
-        rpcEnQueueTimeQuantiles[i] = registry.newQuantiles("rpcEnQueueTime"
-            + interval + "s", "rpc enqueue time in " + metricsTimeUnit, "ops",
-            "latency", interval);
-        rpcQueueTimeQuantiles[i] = registry.newQuantiles("rpcQueueTime"
-            + interval + "s", "rpc queue time in " + metricsTimeUnit, "ops",
-            "latency", interval);
-        rpcLockWaitTimeQuantiles[i] = registry.newQuantiles(
+        rpcEnQueueTimeQuantiles[i] = registry.newLatencyQuantiles(
+            "rpcEnQueueTime" + interval + "s",
+            "rpc enqueue time in " + metricsTimeUnit,
+            interval, rpcHistogramEnable, i == 0);
+        rpcQueueTimeQuantiles[i] = registry.newLatencyQuantiles("rpcQueueTime"
+            + interval + "s", "rpc queue time in " + metricsTimeUnit,
+            interval, rpcHistogramEnable, i == 0);
+        rpcLockWaitTimeQuantiles[i] = registry.newLatencyQuantiles(
             "rpcLockWaitTime" + interval + "s",
-            "rpc lock wait time in " + metricsTimeUnit, "ops",
-            "latency", interval);
-        rpcProcessingTimeQuantiles[i] = registry.newQuantiles(
+            "rpc lock wait time in " + metricsTimeUnit,
+            interval, rpcHistogramEnable, i == 0);
+        rpcProcessingTimeQuantiles[i] = registry.newLatencyQuantiles(
             "rpcProcessingTime" + interval + "s",
-            "rpc processing time in " + metricsTimeUnit, "ops",
-            "latency", interval);
-        rpcResponseTimeQuantiles[i] = registry.newQuantiles(
+            "rpc processing time in " + metricsTimeUnit,
+            interval, rpcHistogramEnable, i == 0);
+        rpcResponseTimeQuantiles[i] = registry.newLatencyQuantiles(
             "rpcResponseTime" + interval + "s",
-            "rpc response time in " + metricsTimeUnit, "ops",
-            "latency", interval);
-        deferredRpcProcessingTimeQuantiles[i] = registry.newQuantiles(
+            "rpc response time in " + metricsTimeUnit,
+            interval, rpcHistogramEnable, i == 0);
+        deferredRpcProcessingTimeQuantiles[i] = registry.newLatencyQuantiles(
             "deferredRpcProcessingTime" + interval + "s",
-            "deferred rpc processing time in " + metricsTimeUnit, "ops",
-            "latency", interval);
+            "deferred rpc processing time in " + metricsTimeUnit,
+            interval, rpcHistogramEnable, i == 0);
       }
     }
     LOG.debug("Initialized " + registry);
@@ -129,6 +134,8 @@ public static RpcMetrics create(Server server, Configuration conf) {
   MutableQuantiles[] rpcProcessingTimeQuantiles;
   @Metric("Response time") MutableRate rpcResponseTime;
   MutableQuantiles[] rpcResponseTimeQuantiles;
+  @Metric("Time for a call to start on its thread")
+  MutableRate rpcDispatchTime;
   @Metric("Deferred Processing time") MutableRate deferredRpcProcessingTime;
   MutableQuantiles[] deferredRpcProcessingTimeQuantiles;
   @Metric("Number of authentication failures")
@@ -294,6 +301,15 @@ public void addRpcQueueTime(long qTime) {
     }
   }
 
+  /**
+   * Add the time from handing a call to its own thread until the call
+   * starts running, when calls do not run on the handler threads.
+   * @param dispatchTime the dispatch time.
+   */
+  public void addRpcDispatchTime(long dispatchTime) {
+    rpcDispatchTime.add(dispatchTime);
+  }
+
   public void addRpcLockWaitTime(long waitTime) {
     rpcLockWaitTime.add(waitTime);
     if (rpcQuantileEnable) {
@@ -19,6 +19,7 @@
 package org.apache.hadoop.metrics2.impl;
 
 import java.util.HashMap;
+import java.util.List;
 import javax.management.Attribute;
 import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
@@ -62,6 +63,11 @@ class MetricsSourceAdapter implements DynamicMBean {
   private final Iterable<MetricsTag> injectedTags;
 
   private boolean lastRecsCleared;
+  // the records of the last complete snapshot, and when it was taken. These
+  // are not guarded by the lock, as the metrics system snapshots the source
+  // while holding its own lock.
+  private volatile Iterable<MetricsRecordImpl> snapshotRecs;
+  private volatile long snapshotTS;
   private long jmxCacheTS = 0;
   private long jmxCacheTTL;
   private MBeanInfo infoCache;
@@ -159,6 +165,7 @@ public MBeanInfo getMBeanInfo() {
 
   private void updateJmxCache() {
     boolean getAllMetrics = false;
+    Iterable<MetricsRecordImpl> lastRecs = null;
     synchronized(this) {
       if (Time.now() - jmxCacheTS >= jmxCacheTTL) {
         // temporarilly advance the expiry while updating the cache
@@ -169,6 +176,14 @@ private void updateJmxCache() {
         if (lastRecsCleared) {
           getAllMetrics = true;
           lastRecsCleared = false;
+          // the records of a snapshot for the sinks are as recent as the
+          // cache must be, and getting the metrics again would reset the
+          // interval stats of the source.
+          if (snapshotRecs != null
+              && Time.now() - snapshotTS < jmxCacheTTL) {
+            lastRecs = snapshotRecs;
+            getAllMetrics = false;
+          }
         }
       }
       else {
@@ -178,7 +193,6 @@ private void updateJmxCache() {
 
     // HADOOP-11361: Release lock here for avoid deadlock between
     // MetricsSystemImpl's lock and MetricsSourceAdapter's lock.
-    Iterable<MetricsRecordImpl> lastRecs = null;
     if (getAllMetrics) {
       lastRecs = getMetrics(new MetricsCollectorImpl(), true);
     }
@@ -206,7 +220,12 @@ Iterable<MetricsRecordImpl> getMetrics(MetricsCollectorImpl builder,
         rb.add(t);
       }
     }
-    return builder.getRecords();
+    List<MetricsRecordImpl> recs = builder.getRecords();
+    if (all) {
+      snapshotRecs = recs;
+      snapshotTS = Time.now();
+    }
+    return recs;
   }
 
   synchronized void stop() {
@@ -227,6 +227,55 @@ public synchronized MutableQuantiles newQuantiles(String name, String desc,
     return ret;
   }
 
+  /**
+   * Create a mutable metric that estimates quantiles of a stream of values
+   * with a lock-free histogram
+   * @param name of the metric
+   * @param desc metric description
+   * @param sampleName of the metric (e.g., "Ops")
+   * @param valueName of the metric (e.g., "Time" or "Latency")
+   * @param interval rollover interval of estimator in seconds
+   * @param exportBuckets whether to export the cumulative bucket counters
+   * @return a new histogram object
+   * @throws MetricsException if interval is not a positive integer
+   */
+  public synchronized MutableHistogram newHistogram(String name, String desc,
+      String sampleName, String valueName, int interval,
+      boolean exportBuckets) {
+    checkMetricName(name);
+    if (interval <= 0) {
+      throw new MetricsException("Interval should be positive.  Value passed" +
+          " is: " + interval);
+    }
+    MutableHistogram ret = new MutableHistogram(name, desc, sampleName,
+        valueName, interval, exportBuckets);
+    metricsMap.put(name, ret);
+    return ret;
+  }
+
+  /**
+   * Create a mutable metric that estimates the quantiles of the latency of
+   * operations, with a lock-free histogram if enabled. The cumulative
+   * buckets of a histogram do not depend on its interval, so callers which
+   * create one for each of several intervals export them only once.
+   * @param name of the metric
+   * @param desc metric description
+   * @param interval rollover interval of estimator in seconds
+   * @param histogram whether to estimate the quantiles with a histogram
+   * @param exportBuckets whether to export the cumulative bucket counters
+   *                      of a histogram
+   * @return a new quantile estimator object
+   * @throws MetricsException if interval is not a positive integer
+   */
+  public MutableQuantiles newLatencyQuantiles(String name, String desc,
+      int interval, boolean histogram, boolean exportBuckets) {
+    if (histogram) {
+      return newHistogram(name, desc, "ops", "latency", interval,
+          exportBuckets);
+    }
+    return newQuantiles(name, desc, "ops", "latency", interval);
+  }
+
   /**
    * Create a mutable inverse metric that estimates inverse quantiles of a stream of values
    * @param name of the metric
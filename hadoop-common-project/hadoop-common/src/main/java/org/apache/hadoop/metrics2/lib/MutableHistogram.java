@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.metrics2.lib;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.metrics2.MetricsInfo;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.metrics2.util.HistogramQuantiles;
+
+/**
+ * A {@link MutableQuantiles} which counts the values in the log-linear
+ * buckets of a {@link HistogramQuantiles} instead of sampling them. Adding a
+ * value neither locks nor allocates, which suits metrics updated by many
+ * threads, such as RPC and IO latencies. The quantiles are reported with the
+ * same names as by {@link MutableQuantiles}, with a relative error of at most
+ * about 3%.
+ *
+ * Optionally, the whole distribution is exported as well, as counters
+ * {@code <Name>Bucket_le_<bound>} with the number of values at most
+ * {@code bound} since the metric was created, for the powers of two minus
+ * one up to the largest value, and {@code <Name>Bucket_le_Inf} with the
+ * number of all values.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class MutableHistogram extends MutableQuantiles {
+
+  static final String BUCKET_INFIX = "Bucket_le_";
+  static final String BUCKET_INF = "Inf";
+
+  private final HistogramQuantiles histogram;
+  private final boolean exportBuckets;
+  private final String bucketName;
+  private final String bucketDesc;
+  // the infos of the bucket counters, created on first use.
+  private final MetricsInfo[] bucketInfos = new MetricsInfo[Long.SIZE];
+  private MetricsInfo infBucketInfo;
+
+  /**
+   * Instantiates a new {@link MutableHistogram} for a metric that rolls
+   * itself over on the specified time interval.
+   *
+   * @param name of the metric
+   * @param description long-form textual description of the metric
+   * @param sampleName type of items in the stream (e.g., "Ops")
+   * @param valueName type of the values
+   * @param interval rollover interval (in seconds) of the estimator
+   * @param exportBuckets whether to export the bucket counters
+   */
+  public MutableHistogram(String name, String description, String sampleName,
+      String valueName, int interval, boolean exportBuckets) {
+    super(name, description, sampleName, valueName, interval);
+    histogram = new HistogramQuantiles(getQuantiles());
+    setEstimator(histogram);
+    this.exportBuckets = exportBuckets;
+    bucketName = StringUtils.capitalize(name) + BUCKET_INFIX;
+    bucketDesc = "Number of " + StringUtils.uncapitalize(sampleName)
+        + " for " + StringUtils.uncapitalize(description) + " with "
+        + StringUtils.uncapitalize(valueName) + " at most ";
+  }
+
+  @Override
+  public void add(long value) {
+    histogram.insert(value);
+  }
+
+  @Override
+  public void snapshot(MetricsRecordBuilder builder, boolean all) {
+    boolean snapshotBuckets = exportBuckets && (all || changed());
+    super.snapshot(builder, all);
+    if (snapshotBuckets) {
+      snapshotBuckets(builder);
+    }
+  }
+
+  private synchronized void snapshotBuckets(MetricsRecordBuilder builder) {
+    int numBuckets = histogram.getNumBuckets();
+    int last = numBuckets - 1;
+    while (last >= 0 && histogram.getBucketCount(last) == 0) {
+      last--;
+    }
+    // the last power of two minus one to export, which is at least as large
+    // as the largest value.
+    int maxPower = last < 0 ? -1 : Long.SIZE - Long.numberOfLeadingZeros(
+        HistogramQuantiles.getBucketUpperBound(last));
+    long count = 0;
+    int power = 0;
+    for (int i = 0; i < numBuckets; i++) {
+      count += histogram.getBucketCount(i);
+      // the powers of two minus one are always upper bounds of buckets.
+      if (power <= maxPower
+          && HistogramQuantiles.getBucketUpperBound(i) == (1L << power) - 1) {
+        builder.addCounter(getBucketInfo(power), count);
+        power++;
+      }
+    }
+    if (infBucketInfo == null) {
+      infBucketInfo = new MetricsInfoImpl(bucketName + BUCKET_INF,
+          bucketDesc + "infinity");
+    }
+    builder.addCounter(infBucketInfo, count);
+  }
+
+  private MetricsInfo getBucketInfo(int power) {
+    MetricsInfo info = bucketInfos[power];
+    if (info == null) {
+      long bound = (1L << power) - 1;
+      info = new MetricsInfoImpl(bucketName + bound, bucketDesc + bound);
+      bucketInfos[power] = info;
+    }
+    return info;
+  }
+}
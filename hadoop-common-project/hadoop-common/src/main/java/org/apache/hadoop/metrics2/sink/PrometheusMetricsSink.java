@@ -23,6 +23,7 @@
 import org.apache.commons.configuration2.SubsetConfiguration;
 import org.apache.hadoop.metrics2.AbstractMetric;
 import org.apache.hadoop.metrics2.MetricType;
+import org.apache.hadoop.metrics2.MetricsInfo;
 import org.apache.hadoop.metrics2.MetricsRecord;
 import org.apache.hadoop.metrics2.MetricsSink;
 import org.apache.hadoop.metrics2.MetricsTag;
@@ -35,6 +36,7 @@
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.metrics2.lib.Interns;
 
 /**
  * Metrics sink for prometheus exporter.
@@ -62,6 +64,12 @@ public class PrometheusMetricsSink implements MetricsSink {
       Pattern
           .compile("^op=(?<op>\\w+)(.user=(?<user>.*)|)\\.(TotalCount|count)$");
 
+  /** The bucket counters of histograms, see MutableHistogram. */
+  private static final Pattern HISTOGRAM_BUCKET_PATTERN =
+      Pattern.compile("^(.*_bucket)_le_(\\d+|inf)$");
+  private static final MetricsInfo HISTOGRAM_BUCKET_TAG =
+      Interns.info("le", "Upper bound of the histogram bucket");
+
   public PrometheusMetricsSink() {
   }
 
@@ -73,10 +81,22 @@ public void putMetrics(MetricsRecord metricsRecord) {
 
         String key = prometheusName(
             metricsRecord.name(), metric.name());
+        Collection<MetricsTag> tags = metricsRecord.tags();
+
+        // the buckets of a histogram are exported as a single metric, with
+        // their upper bound as tag.
+        Matcher matcher = HISTOGRAM_BUCKET_PATTERN.matcher(key);
+        if (matcher.matches()) {
+          key = matcher.group(1);
+          String bound = matcher.group(2);
+          tags = new ArrayList<>(tags);
+          tags.add(Interns.tag(HISTOGRAM_BUCKET_TAG,
+              bound.equals("inf") ? "+Inf" : bound));
+        }
 
         nextPromMetrics.computeIfAbsent(key,
             any -> new ConcurrentHashMap<>())
-            .put(metricsRecord.tags(), metric);
+            .put(tags, metric);
       }
     }
   }
@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.metrics2.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+
+/**
+ * Estimates quantiles by counting the values in log-linear buckets, similar
+ * to an HDR histogram. Inserting a value increments a single bucket without
+ * locking or allocating, so the estimator can be shared by many threads.
+ *
+ * Values below {@value #LINEAR_LIMIT} are counted exactly. Larger values are
+ * counted in {@value #SUB_BUCKETS} buckets per power of two, so that the
+ * reported quantiles are at most about 3% larger than the actual values.
+ * Values above {@link #MAX_VALUE} are counted in the last bucket. Negative
+ * values are counted as 0.
+ *
+ * The bucket counts are cumulative since the estimator was created.
+ * {@link #clear()} only resets the counts which were seen by the last
+ * {@link #snapshot()}, so values which are inserted concurrently with a
+ * rollover are reported in the next interval instead of being lost.
+ */
+@InterfaceAudience.Private
+public class HistogramQuantiles implements QuantileEstimator {
+
+  private static final int SUB_BITS = 5;
+  /** Number of buckets per power of two. */
+  public static final int SUB_BUCKETS = 1 << SUB_BITS;
+  /** Values below this limit have a bucket of their own. */
+  public static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+  private static final int MAX_BIT = 40;
+  /** Values above this are counted in the last bucket. */
+  public static final long MAX_VALUE = (1L << (MAX_BIT + 1)) - 1;
+
+  private final Quantile[] quantiles;
+  private final AtomicLongArray counts;
+  /** The counts as of the last clear, guarded by this. */
+  private final long[] cleared;
+  /** The counts seen by the last snapshot, guarded by this. */
+  private final long[] snapshotted;
+
+  public HistogramQuantiles(Quantile[] quantiles) {
+    this.quantiles = quantiles;
+    int numBuckets = getBucket(MAX_VALUE) + 1;
+    counts = new AtomicLongArray(numBuckets);
+    cleared = new long[numBuckets];
+    snapshotted = new long[numBuckets];
+  }
+
+  /**
+   * @param value the value.
+   * @return the index of the bucket counting the value.
+   */
+  static int getBucket(long value) {
+    if (value < LINEAR_LIMIT) {
+      return value < 0 ? 0 : (int) value;
+    }
+    if (value > MAX_VALUE) {
+      value = MAX_VALUE;
+    }
+    // the SUB_BITS bits below the highest one bit select the sub bucket.
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return shift * SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  /**
+   * @param bucket the index of a bucket.
+   * @return the largest value counted in the bucket.
+   */
+  public static long getBucketUpperBound(int bucket) {
+    if (bucket < LINEAR_LIMIT) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long subBucket = bucket - shift * SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * @return the number of buckets.
+   */
+  public int getNumBuckets() {
+    return counts.length();
+  }
+
+  /**
+   * @param bucket the index of a bucket.
+   * @return the number of values counted in the bucket since the estimator
+   * was created, regardless of {@link #clear()}.
+   */
+  public long getBucketCount(int bucket) {
+    return counts.get(bucket);
+  }
+
+  @Override
+  public void insert(long value) {
+    counts.incrementAndGet(getBucket(value));
+  }
+
+  @Override
+  public synchronized Map<Quantile, Long> snapshot() {
+    long count = 0;
+    int last = -1;
+    for (int i = 0; i < snapshotted.length; i++) {
+      snapshotted[i] = counts.get(i);
+      if (snapshotted[i] != cleared[i]) {
+        count += snapshotted[i] - cleared[i];
+        last = i;
+      }
+    }
+    if (count == 0) {
+      return null;
+    }
+
+    Map<Quantile, Long> values = new TreeMap<Quantile, Long>();
+    for (Quantile q : quantiles) {
+      // the rank of the quantile, at least the first value.
+      long rank = Math.max(1, (long) Math.ceil(q.quantile * count));
+      long seen = 0;
+      int bucket = 0;
+      while (bucket < last) {
+        seen += snapshotted[bucket] - cleared[bucket];
+        if (seen >= rank) {
+          break;
+        }
+        bucket++;
+      }
+      values.put(q, getBucketUpperBound(bucket));
+    }
+    return values;
+  }
+
+  @Override
+  public synchronized long getCount() {
+    long count = 0;
+    for (int i = 0; i < cleared.length; i++) {
+      count += counts.get(i) - cleared[i];
+    }
+    return count;
+  }
+
+  @Override
+  public synchronized void clear() {
+    System.arraycopy(snapshotted, 0, cleared, 0, cleared.length);
+  }
+}
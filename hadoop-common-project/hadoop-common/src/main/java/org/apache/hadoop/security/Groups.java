@@ -17,15 +17,28 @@
  */
 package org.apache.hadoop.security;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
@@ -33,6 +46,7 @@
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.hadoop.tracing.TraceScope;
 import org.apache.hadoop.tracing.Tracer;
@@ -56,7 +70,9 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.util.ShutdownHookManager;
 import org.apache.hadoop.util.StringUtils;
+import org.apache.hadoop.util.Time;
 import org.apache.hadoop.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,7 +90,10 @@
 public class Groups {
   @VisibleForTesting
   static final Logger LOG = LoggerFactory.getLogger(Groups.class);
-  
+
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final int SHUTDOWN_HOOK_PRIORITY = 10;
+
   private final GroupMappingServiceProvider impl;
 
   private final LoadingCache<String, Set<String>> cache;
@@ -87,6 +106,9 @@ public class Groups {
   private Set<String> negativeCache;
   private final boolean reloadGroupsInBackground;
   private final int reloadGroupsThreadCount;
+  private final GroupCacheLoader cacheLoader;
+  private final File snapshotFile;
+  private Runnable snapshotHook;
 
   private final AtomicLong backgroundRefreshSuccess =
       new AtomicLong(0);
@@ -96,6 +118,8 @@ public class Groups {
       new AtomicLong(0);
   private final AtomicLong backgroundRefreshRunning =
       new AtomicLong(0);
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder lookupTimeNanos = new LongAdder();
 
   public Groups(Configuration conf) {
     this(conf, new Timer());
@@ -129,14 +153,20 @@ public Groups(Configuration conf, final Timer timer) {
               HADOOP_SECURITY_GROUPS_CACHE_BACKGROUND_RELOAD_THREADS,
           CommonConfigurationKeys.
               HADOOP_SECURITY_GROUPS_CACHE_BACKGROUND_RELOAD_THREADS_DEFAULT);
+    String snapshot = conf.getTrimmed(
+        CommonConfigurationKeys.HADOOP_SECURITY_GROUPS_CACHE_SNAPSHOT_FILE,
+        CommonConfigurationKeys.
+            HADOOP_SECURITY_GROUPS_CACHE_SNAPSHOT_FILE_DEFAULT);
+    snapshotFile = snapshot.isEmpty() ? null : new File(snapshot);
     parseStaticMapping(conf);
 
     this.timer = timer;
+    this.cacheLoader = new GroupCacheLoader();
     this.cache = CacheBuilder.newBuilder()
       .refreshAfterWrite(cacheTimeout, TimeUnit.MILLISECONDS)
       .ticker(new TimerToTickerAdapter(timer))
       .expireAfterWrite(10 * cacheTimeout, TimeUnit.MILLISECONDS)
-      .build(new GroupCacheLoader());
+      .build(cacheLoader);
 
     if(negativeCacheTimeout > 0) {
       Cache<String, Boolean> tempMap = CacheBuilder.newBuilder()
@@ -146,6 +176,19 @@ public Groups(Configuration conf, final Timer timer) {
       negativeCache = Collections.newSetFromMap(tempMap.asMap());
     }
 
+    if (snapshotFile != null) {
+      loadSnapshot();
+      snapshotHook = () -> {
+        try {
+          saveSnapshot();
+        } catch (IOException e) {
+          LOG.warn("Failed to save the groups cache to " + snapshotFile, e);
+        }
+      };
+      ShutdownHookManager.get().addShutdownHook(snapshotHook,
+          SHUTDOWN_HOOK_PRIORITY);
+    }
+
     if(LOG.isDebugEnabled())
       LOG.debug("Group mapping impl=" + impl.getClass().getName() + 
           "; cacheTimeout=" + cacheTimeout + "; warningDeltaMs=" +
@@ -256,13 +299,64 @@ private Set<String> getGroupInternal(final String user) throws IOException {
       }
     }
 
+    long startNanos = timer.monotonicNowNanos();
     try {
       return cache.get(user);
     } catch (ExecutionException e) {
       throw (IOException)e.getCause();
+    } finally {
+      lookups.increment();
+      lookupTimeNanos.add(timer.monotonicNowNanos() - startNanos);
+    }
+  }
+
+  /**
+   * Look up the groups of the users which are not cached yet, such as the
+   * active users of a service which just started, so that their first
+   * requests do not wait for the lookup. If reloading in the background is
+   * enabled, the lookups are queued for the reload threads, otherwise they
+   * run in the calling thread. Users without groups go to the negative
+   * cache, as they would on a lookup.
+   *
+   * @param users the users to look up.
+   */
+  public void prefetch(Collection<String> users) {
+    Map<String, Set<String>> staticUserToGroupsMap = staticMapRef.get();
+    for (String user : users) {
+      if ((staticUserToGroupsMap != null
+          && staticUserToGroupsMap.containsKey(user))
+          || (isNegativeCacheEnabled() && negativeCache.contains(user))
+          || cache.getIfPresent(user) != null) {
+        continue;
+      }
+      if (reloadGroupsInBackground) {
+        cacheLoader.submit(() -> cache.get(user));
+      } else {
+        try {
+          cache.get(user);
+        } catch (ExecutionException e) {
+          LOG.debug("Failed to prefetch the groups of {}", user, e);
+        }
+      }
     }
   }
 
+  /**
+   * @return the number of lookups of groups which were not statically
+   * mapped or negatively cached, including the cache hits.
+   */
+  public long getLookups() {
+    return lookups.sum();
+  }
+
+  /**
+   * @return the total time of the lookups counted by {@link #getLookups()},
+   * in nanoseconds, including the time waiting for groups to load.
+   */
+  public long getLookupTimeNanos() {
+    return lookupTimeNanos.sum();
+  }
+
   public long getBackgroundRefreshSuccess() {
     return backgroundRefreshSuccess.get();
   }
@@ -271,6 +365,10 @@ public long getBackgroundRefreshException() {
     return backgroundRefreshException.get();
   }
 
+  /**
+   * @return the number of background refreshes and prefetches waiting for a
+   * reload thread.
+   */
   public long getBackgroundRefreshQueued() {
     return backgroundRefreshQueued.get();
   }
@@ -383,13 +481,20 @@ public ListenableFuture<Set<String>> reload(final String key,
         return super.reload(key, oldValue);
       }
 
+      return submit(() -> load(key));
+    }
+
+    /**
+     * Run a lookup on the reload threads, counting it as a background
+     * refresh.
+     */
+    ListenableFuture<Set<String>> submit(Callable<Set<String>> lookup) {
       backgroundRefreshQueued.incrementAndGet();
       ListenableFuture<Set<String>> listenableFuture =
           executorService.submit(() -> {
             backgroundRefreshQueued.decrementAndGet();
             backgroundRefreshRunning.incrementAndGet();
-            Set<String> results = load(key);
-            return results;
+            return lookup.call();
           });
       Futures.addCallback(listenableFuture, new FutureCallback<Set<String>>() {
         @Override
@@ -440,6 +545,127 @@ public void refresh() {
     }
   }
 
+  /**
+   * Load the cache from the snapshot file. The loaded entries are served as
+   * if they had just been looked up, so with background reload they are
+   * refreshed right away. The groups of a snapshot older than the cache
+   * timeout are ignored, but with background reload its users are still
+   * prefetched, as they are likely the active users of the service.
+   */
+  private void loadSnapshot() {
+    if (!snapshotFile.isFile()) {
+      return;
+    }
+    long age = Time.now() - snapshotFile.lastModified();
+    Map<String, Set<String>> entries = new HashMap<>();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(snapshotFile)))) {
+      int version = in.readInt();
+      if (version != SNAPSHOT_VERSION) {
+        throw new IOException("Unknown snapshot version " + version);
+      }
+      int users = in.readInt();
+      for (int i = 0; i < users; i++) {
+        String user = in.readUTF();
+        int n = in.readInt();
+        Set<String> groups = new LinkedHashSet<>();
+        for (int j = 0; j < n; j++) {
+          groups.add(in.readUTF());
+        }
+        entries.put(user, groups);
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to load the groups cache from " + snapshotFile, e);
+      return;
+    }
+    if (age > cacheTimeout) {
+      LOG.info("Ignoring the groups cache snapshot {}, saved {} ms ago",
+          snapshotFile, age);
+      if (reloadGroupsInBackground) {
+        LOG.info("Prefetching the groups of {} users from {}",
+            entries.size(), snapshotFile);
+        prefetch(entries.keySet());
+      }
+      return;
+    }
+    cache.putAll(entries);
+    LOG.info("Loaded the groups of {} users from {}", entries.size(),
+        snapshotFile);
+    if (reloadGroupsInBackground) {
+      for (String user : entries.keySet()) {
+        cache.refresh(user);
+      }
+    }
+  }
+
+  /**
+   * Save the cache to the snapshot file set by
+   * hadoop.security.groups.cache.snapshot.file, which is also done when the
+   * process exits. Nothing is saved if the file is not set. The file is only
+   * readable by its owner.
+   *
+   * @throws IOException if the snapshot cannot be written.
+   */
+  public void saveSnapshot() throws IOException {
+    if (snapshotFile == null) {
+      return;
+    }
+    File dir = snapshotFile.getAbsoluteFile().getParentFile();
+    if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Cannot create directory " + dir);
+    }
+    Map<String, Set<String>> entries = new HashMap<>(cache.asMap());
+    File tmp = new File(snapshotFile.getPath() + ".tmp");
+    createOwnerOnlyFile(tmp);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(tmp)))) {
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeInt(entries.size());
+      for (Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeInt(entry.getValue().size());
+        for (String group : entry.getValue()) {
+          out.writeUTF(group);
+        }
+      }
+    }
+    Files.move(tmp.toPath(), snapshotFile.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    LOG.debug("Saved the groups of {} users to {}", entries.size(),
+        snapshotFile);
+  }
+
+  /**
+   * Create an empty file which only its owner can read and write.
+   */
+  private static void createOwnerOnlyFile(File file) throws IOException {
+    Files.deleteIfExists(file.toPath());
+    if (file.toPath().getFileSystem().supportedFileAttributeViews()
+        .contains("posix")) {
+      Files.createFile(file.toPath(), PosixFilePermissions.asFileAttribute(
+          EnumSet.of(PosixFilePermission.OWNER_READ,
+              PosixFilePermission.OWNER_WRITE)));
+    } else {
+      Files.createFile(file.toPath());
+      if (!file.setReadable(false, false) || !file.setReadable(true, true)
+          || !file.setWritable(false, false)
+          || !file.setWritable(true, true)) {
+        LOG.warn("Cannot restrict the permissions of {}", file);
+      }
+    }
+  }
+
+  /**
+   * Stop saving the cache on exit, once this service is replaced.
+   */
+  @VisibleForTesting
+  void removeSnapshotHook() {
+    if (snapshotHook != null) {
+      ShutdownHookManager.get().removeShutdownHook(snapshotHook);
+      snapshotHook = null;
+    }
+  }
+
   /**
    * Add groups to cache
    *
@@ -490,12 +716,18 @@ public static synchronized Groups getUserToGroupsMappingService(
       getUserToGroupsMappingServiceWithLoadedConfiguration(
           Configuration conf) {
 
+    if (GROUPS != null) {
+      GROUPS.removeSnapshotHook();
+    }
     GROUPS = new Groups(conf);
     return GROUPS;
   }
 
   @VisibleForTesting
-  public static void reset() {
+  public static synchronized void reset() {
+    if (GROUPS != null) {
+      GROUPS.removeSnapshotHook();
+    }
     GROUPS = null;
   }
 }
@@ -164,6 +164,30 @@ void addGetGroups(long latency) {
     MutableGaugeInt getRenewalFailures() {
       return renewalFailures;
     }
+
+    @Metric(value = {"GetGroupsLookups",
+        "Group lookups, including cache hits"}, type = Metric.Type.COUNTER)
+    long getGroupsLookups() {
+      Groups g = groups;
+      return g == null ? 0 : g.getLookups();
+    }
+
+    @Metric(value = {"GetGroupsLookupTimeMicros",
+        "Total time of group lookups (microseconds), including cache hits"},
+        type = Metric.Type.COUNTER)
+    long getGroupsLookupTimeMicros() {
+      Groups g = groups;
+      return g == null ? 0 : TimeUnit.NANOSECONDS.toMicros(
+          g.getLookupTimeNanos());
+    }
+
+    @Metric(value = {"GetGroupsRefreshQueued",
+        "Background group refreshes waiting for a thread"},
+        type = Metric.Type.GAUGE)
+    long getGroupsRefreshQueued() {
+      Groups g = groups;
+      return g == null ? 0 : g.getBackgroundRefreshQueued();
+    }
   }
   
   /**
@@ -757,16 +757,27 @@ public void readFields(DataInput in) throws IOException {
   private void removeExpiredToken() throws IOException {
     long now = Time.now();
     Set<TokenIdent> expiredTokens = new HashSet<>();
+    // don't hold lock on 'this' to avoid store scans blocking token ops
+    Map<TokenIdent, DelegationTokenInformation> storedTokens =
+        getStoredTokensForCleanup();
     synchronized (this) {
+      Map<TokenIdent, DelegationTokenInformation> candidates =
+          storedTokens != null ? storedTokens : getCandidateTokensForCleanup();
       Iterator<Map.Entry<TokenIdent, DelegationTokenInformation>> i =
-          getCandidateTokensForCleanup().entrySet().iterator();
+          candidates.entrySet().iterator();
       while (i.hasNext()) {
         Map.Entry<TokenIdent, DelegationTokenInformation> entry = i.next();
         long renewDate = entry.getValue().getRenewDate();
         if (renewDate < now) {
           expiredTokens.add(entry.getKey());
-          removeTokenForOwnerStats(entry.getKey());
           i.remove();
+          if (storedTokens == null) {
+            removeTokenForOwnerStats(entry.getKey());
+          } else {
+            // the store also has the tokens of other instances, which this
+            // one did not count in its owner stats.
+            currentTokens.remove(entry.getKey());
+          }
         }
       }
     }
@@ -778,6 +789,21 @@ protected Map<TokenIdent, DelegationTokenInformation> getCandidateTokensForClean
     return this.currentTokens;
   }
 
+  /**
+   * Read the tokens to be considered for cleanup from the backing store. This
+   * is called without holding the lock on the secret manager, so a slow scan
+   * of the store does not block token operations. Expired tokens it returns
+   * are also removed from {@link #currentTokens}, but not from the owner
+   * stats, as they may have been created by other instances.
+   * @return tokens to be considered for cleanup, or null to use
+   *         {@link #getCandidateTokensForCleanup()} under the lock instead.
+   * @throws IOException raised on errors performing I/O.
+   */
+  protected Map<TokenIdent, DelegationTokenInformation>
+      getStoredTokensForCleanup() throws IOException {
+    return null;
+  }
+
   protected void logExpireTokens(
       Collection<TokenIdent> expiredTokens) throws IOException {
     for (TokenIdent ident : expiredTokens) {
@@ -25,7 +25,10 @@
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
@@ -103,6 +106,18 @@
   public static final String ZK_DTSM_TOKEN_WATCHER_ENABLED = ZK_CONF_PREFIX
       + "token.watcher.enabled";
   public static final boolean ZK_DTSM_TOKEN_WATCHER_ENABLED_DEFAULT = true;
+  public static final String ZK_DTSM_TOKEN_LOADING_CACHE_ENABLED =
+      ZK_CONF_PREFIX + "token.loading.cache.enabled";
+  public static final boolean ZK_DTSM_TOKEN_LOADING_CACHE_ENABLED_DEFAULT =
+      false;
+  public static final String ZK_DTSM_TOKEN_LOADING_CACHE_EXPIRATION =
+      ZK_CONF_PREFIX + "token.loading.cache.expiration";
+  public static final long ZK_DTSM_TOKEN_LOADING_CACHE_EXPIRATION_DEFAULT =
+      TimeUnit.SECONDS.toMillis(10);
+  public static final String ZK_DTSM_TOKEN_LOADING_CACHE_MAX_SIZE =
+      ZK_CONF_PREFIX + "token.loading.cache.max.size";
+  public static final long ZK_DTSM_TOKEN_LOADING_CACHE_MAX_SIZE_DEFAULT =
+      100000;
 
   public static final int ZK_DTSM_ZK_NUM_RETRIES_DEFAULT = 3;
   public static final int ZK_DTSM_ZK_SESSION_TIMEOUT_DEFAULT = 10000;
@@ -151,6 +166,8 @@ protected static CuratorFramework getCurator() {
 
   private final boolean isTokenWatcherEnabled;
 
+  private final boolean isTokenLoadingCacheEnabled;
+
   public ZKDelegationTokenSecretManager(Configuration conf) {
     super(conf.getLong(DelegationTokenManager.UPDATE_INTERVAL,
         DelegationTokenManager.UPDATE_INTERVAL_DEFAULT) * 1000,
@@ -164,6 +181,27 @@ public ZKDelegationTokenSecretManager(Configuration conf) {
         ZK_DTSM_TOKEN_SEQNUM_BATCH_SIZE_DEFAULT);
     isTokenWatcherEnabled = conf.getBoolean(ZK_DTSM_TOKEN_WATCHER_ENABLED,
         ZK_DTSM_TOKEN_WATCHER_ENABLED_DEFAULT);
+    isTokenLoadingCacheEnabled = conf.getBoolean(
+        ZK_DTSM_TOKEN_LOADING_CACHE_ENABLED,
+        ZK_DTSM_TOKEN_LOADING_CACHE_ENABLED_DEFAULT);
+    if (isTokenLoadingCacheEnabled) {
+      // Only the recently used tokens are kept in memory, and the others are
+      // read from ZK when they are used again.
+      if (isTokenWatcherEnabled) {
+        LOG.warn("The token watcher keeps all tokens in memory; set {} to "
+            + "false to bound the memory used by tokens",
+            ZK_DTSM_TOKEN_WATCHER_ENABLED);
+      }
+      long cacheExpirationMs = conf.getTimeDuration(
+          ZK_DTSM_TOKEN_LOADING_CACHE_EXPIRATION,
+          ZK_DTSM_TOKEN_LOADING_CACHE_EXPIRATION_DEFAULT,
+          TimeUnit.MILLISECONDS);
+      long maximumCacheSize = conf.getLong(
+          ZK_DTSM_TOKEN_LOADING_CACHE_MAX_SIZE,
+          ZK_DTSM_TOKEN_LOADING_CACHE_MAX_SIZE_DEFAULT);
+      this.currentTokens = new DelegationTokenLoadingCache<>(
+          cacheExpirationMs, maximumCacheSize, this::loadTokenInfoFromZK);
+    }
     if (CURATOR_TL.get() != null) {
       zkClient =
           CURATOR_TL.get().usingNamespace(
@@ -611,8 +649,8 @@ private DelegationKey getKeyFromZK(int keyId) throws IOException {
   protected DelegationTokenInformation getTokenInfo(TokenIdent ident) {
     // First check if I have this..
     DelegationTokenInformation tokenInfo = currentTokens.get(ident);
-    // Then query ZK
-    if (tokenInfo == null) {
+    // Then query ZK, unless the cache has just done so
+    if (tokenInfo == null && !isTokenLoadingCacheEnabled) {
       try {
         tokenInfo = getTokenInfoFromZK(ident);
         if (tokenInfo != null) {
@@ -626,6 +664,74 @@ protected DelegationTokenInformation getTokenInfo(TokenIdent ident) {
     return tokenInfo;
   }
 
+  /**
+   * Loads a token into the loading cache.
+   *
+   * @param ident Identifier of the token
+   * @return the token, or null if it is not in ZK, so it is not cached.
+   */
+  private DelegationTokenInformation loadTokenInfoFromZK(TokenIdent ident) {
+    try {
+      return getTokenInfoFromZK(ident, true);
+    } catch (IOException e) {
+      LOG.error("Error retrieving tokenInfo [" + ident.getSequenceNumber()
+          + "] from ZK", e);
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * With the loading cache, the tokens in memory are only the recently used
+   * ones, so the expired tokens are looked up in ZK.
+   */
+  @Override
+  protected Map<TokenIdent, DelegationTokenInformation>
+      getStoredTokensForCleanup() {
+    if (!isTokenLoadingCacheEnabled) {
+      return super.getStoredTokensForCleanup();
+    }
+    Map<TokenIdent, DelegationTokenInformation> tokens = new HashMap<>();
+    try {
+      long now = now();
+      for (String child : zkClient.getChildren().forPath(ZK_DTSM_TOKENS_ROOT)) {
+        byte[] data;
+        try {
+          data = zkClient.getData().forPath(
+              getNodePath(ZK_DTSM_TOKENS_ROOT, child));
+        } catch (NoNodeException e) {
+          // removed by a peer.
+          continue;
+        }
+        DataInputStream din =
+            new DataInputStream(new ByteArrayInputStream(data));
+        TokenIdent ident = createIdentifier();
+        ident.readFields(din);
+        long renewDate = din.readLong();
+        if (renewDate < now) {
+          byte[] password = new byte[din.readInt()];
+          din.readFully(password);
+          tokens.put(ident,
+              new DelegationTokenInformation(renewDate, password));
+        }
+      }
+      LOG.info("Found {} tokens for cleanup", tokens.size());
+    } catch (Exception e) {
+      LOG.error("Failed to get candidate tokens for cleanup from ZK", e);
+    }
+    return tokens;
+  }
+
+  @Override
+  protected void removeExpiredStoredToken(TokenIdent ident)
+      throws IOException {
+    if (!isTokenLoadingCacheEnabled) {
+      super.removeExpiredStoredToken(ident);
+      return;
+    }
+    // the token may have been renewed by a peer since it was read from ZK.
+    removeStoredToken(ident, true);
+  }
+
   /**
    * This method synchronizes the state of a delegation token information in
    * local cache with its actual value in Zookeeper.
@@ -883,6 +989,10 @@ public boolean isTokenWatcherEnabled() {
     return isTokenWatcherEnabled;
   }
 
+  public boolean isTokenLoadingCacheEnabled() {
+    return isTokenLoadingCacheEnabled;
+  }
+
   /**
    * Simple implementation of an {@link ACLProvider} that simply returns an ACL
    * that gives all permissions only to a single principal.
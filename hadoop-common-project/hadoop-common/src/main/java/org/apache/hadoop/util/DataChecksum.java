@@ -21,6 +21,7 @@
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.util.zip.CRC32;
 import java.util.zip.Checksum;
@@ -51,6 +52,11 @@ public class DataChecksum implements Checksum {
   public static final int CHECKSUM_MIXED   = 4;
 
   private static final Logger LOG = LoggerFactory.getLogger(DataChecksum.class);
+  /**
+   * The number of bytes which are verified before they are copied by
+   * {@link #verifyChunkedSumsAndCopy}; small enough for the L1 or L2 caches.
+   */
+  static final int VERIFY_COPY_BLOCK_SIZE = 16 * 1024;
   private static volatile boolean useJava9Crc32C = Shell.isJavaVersionAtLeast(9);
  
   /** The checksum types */
@@ -429,45 +435,98 @@ public void verifyChunkedSums(ByteBuffer data, ByteBuffer checksums,
   static void verifyChunked(final Type type, final Checksum algorithm,
       final ByteBuffer data, final int bytesPerCrc, final ByteBuffer crcs,
       final String filename, final long basePos) throws ChecksumException {
-    final byte[] bytes = new byte[bytesPerCrc];
+    final ByteBuffer chunk = data.duplicate();
     final int dataOffset = data.position();
-    final int dataLength = data.remaining();
-    data.mark();
+    final int dataEnd = data.limit();
     crcs.mark();
 
     try {
-      int i = 0;
-      for(final int n = dataLength - bytesPerCrc + 1; i < n; i += bytesPerCrc) {
-        data.get(bytes);
+      for (int i = dataOffset; i < dataEnd; i += bytesPerCrc) {
+        chunk.limit(Math.min(i + bytesPerCrc, dataEnd));
         algorithm.reset();
-        algorithm.update(bytes, 0, bytesPerCrc);
+        update(algorithm, chunk);
         final int computed = (int)algorithm.getValue();
         final int expected = crcs.getInt();
 
         if (computed != expected) {
-          long errPos = basePos + data.position() - dataOffset - bytesPerCrc;
+          long errPos = basePos + i - dataOffset;
           throwChecksumException(type, algorithm, filename, errPos, expected,
               computed);
         }
       }
+    } finally {
+      crcs.reset();
+    }
+  }
 
-      final int remainder = dataLength - i;
-      if (remainder > 0) {
-        data.get(bytes, 0, remainder);
-        algorithm.reset();
-        algorithm.update(bytes, 0, remainder);
-        final int computed = (int)algorithm.getValue();
-        final int expected = crcs.getInt();
-
-        if (computed != expected) {
-          long errPos = basePos + data.position() - dataOffset - remainder;
-          throwChecksumException(type, algorithm, filename, errPos, expected,
-              computed);
+  /**
+   * Verify that the given checksums match the given data, and copy the data
+   * to the given destination. The data is verified and copied in blocks of
+   * {@link #VERIFY_COPY_BLOCK_SIZE} bytes, so that every block is copied
+   * right after it has been checksummed, while it is still in the CPU caches,
+   * instead of making a second pass over all of the data.
+   *
+   * The positions of the data and checksums are maintained. The position of
+   * the destination is advanced by the length of the data, and is unchanged
+   * if a checksum does not match.
+   *
+   * @param data the buffer pointing to the data to verify.
+   * @param checksums the buffer pointing to a series of stored checksums
+   * @param dest the buffer to copy the data to, which must have enough space
+   *             for all of the data
+   * @param fileName the name of the file being read, for error-reporting
+   * @param basePos the file position to which the start of 'data' corresponds
+   * @throws ChecksumException if the checksums do not match
+   */
+  public void verifyChunkedSumsAndCopy(ByteBuffer data, ByteBuffer checksums,
+      ByteBuffer dest, String fileName, long basePos)
+      throws ChecksumException {
+    if (dest.remaining() < data.remaining()) {
+      throw new BufferOverflowException();
+    }
+    final int chunksPerBlock =
+        Math.max(1, VERIFY_COPY_BLOCK_SIZE / bytesPerChecksum);
+    final int blockSize = chunksPerBlock * bytesPerChecksum;
+    final ByteBuffer block = data.duplicate();
+    final ByteBuffer crcs = checksums.duplicate();
+    final int dataOffset = data.position();
+    final int dataEnd = data.limit();
+    final int destOffset = dest.position();
+    try {
+      for (int i = dataOffset; i < dataEnd; i += blockSize) {
+        block.limit(Math.min(i + blockSize, dataEnd));
+        verifyChunkedSums(block, crcs, fileName, basePos + i - dataOffset);
+        if (block.limit() < dataEnd) {
+          crcs.position(crcs.position() + chunksPerBlock * type.size);
         }
+        dest.put(block);
+      }
+    } catch (ChecksumException e) {
+      dest.position(destOffset);
+      throw e;
+    }
+  }
+
+  /**
+   * Update a checksum with the remaining bytes of a buffer, and move the
+   * position of the buffer to its limit. Direct buffers are checksummed in
+   * place by the JDK on Java 9 and later, instead of being copied to an
+   * array first.
+   */
+  private static void update(Checksum algorithm, ByteBuffer buf) {
+    if (buf.hasArray()) {
+      algorithm.update(buf.array(), buf.arrayOffset() + buf.position(),
+          buf.remaining());
+      buf.position(buf.limit());
+    } else if (ByteBufferUpdater.UPDATE_MH != null) {
+      ByteBufferUpdater.update(algorithm, buf);
+    } else {
+      final byte[] bytes = new byte[Math.min(buf.remaining(), 8192)];
+      while (buf.hasRemaining()) {
+        final int n = Math.min(buf.remaining(), bytes.length);
+        buf.get(bytes, 0, n);
+        algorithm.update(bytes, 0, n);
       }
-    } finally {
-      data.reset();
-      crcs.reset();
     }
   }
 
@@ -546,19 +605,17 @@ public void calculateChunkedSums(ByteBuffer data, ByteBuffer checksums) {
       return;
     }
     
-    data.mark();
+    final ByteBuffer chunk = data.duplicate();
+    final int dataEnd = data.limit();
     checksums.mark();
     try {
-      byte[] buf = new byte[bytesPerChecksum];
-      while (data.remaining() > 0) {
-        int n = Math.min(data.remaining(), bytesPerChecksum);
-        data.get(buf, 0, n);
+      for (int i = data.position(); i < dataEnd; i += bytesPerChecksum) {
+        chunk.limit(Math.min(i + bytesPerChecksum, dataEnd));
         summer.reset();
-        summer.update(buf, 0, n);
+        update(summer, chunk);
         checksums.putInt((int)summer.getValue());
       }
     } finally {
-      data.reset();
       checksums.reset();
     }
   }
@@ -671,4 +728,33 @@ public static Checksum createChecksum() {
       }
     }
   };
+
+  /**
+   * Holds the handle of Checksum#update(ByteBuffer), which exists on Java 9
+   * and later only.
+   */
+  private static class ByteBufferUpdater {
+    private static final MethodHandle UPDATE_MH;
+
+    static {
+      MethodHandle update = null;
+      try {
+        update = MethodHandles.publicLookup().findVirtual(Checksum.class,
+            "update", MethodType.methodType(void.class, ByteBuffer.class));
+      } catch (ReflectiveOperationException e) {
+        LOG.debug("Checksum#update(ByteBuffer) is not available", e);
+      }
+      UPDATE_MH = update;
+    }
+
+    static void update(Checksum algorithm, ByteBuffer buf) {
+      try {
+        // Should throw nothing
+        UPDATE_MH.invokeExact(algorithm, buf);
+      } catch (Throwable t) {
+        throw (t instanceof RuntimeException) ? (RuntimeException) t
+            : new RuntimeException(t);
+      }
+    }
+  }
 }
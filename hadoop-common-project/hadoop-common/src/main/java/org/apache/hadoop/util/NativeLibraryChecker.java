@@ -82,18 +82,18 @@ public static void main(String[] args) {
     String bzip2LibraryName = "";
     String winutilsPath = null;
 
+    // zstd is also available through zstd-jni, without libhadoop
+    zStdLoaded = ZStandardCodec.isNativeCodeLoaded();
+    if (zStdLoaded) {
+      zstdLibraryName = ZStandardCodec.getLibraryName();
+    }
+
     if (nativeHadoopLoaded) {
       hadoopLibraryName = NativeCodeLoader.getLibraryName();
       zlibLoaded = ZlibFactory.isNativeZlibLoaded(conf);
       if (zlibLoaded) {
         zlibLibraryName = ZlibFactory.getLibraryName();
       }
-      zStdLoaded = NativeCodeLoader.buildSupportsZstd() &&
-        ZStandardCodec.isNativeCodeLoaded();
-      if (zStdLoaded && NativeCodeLoader.buildSupportsZstd()) {
-        zstdLibraryName = ZStandardCodec.getLibraryName();
-      }
-
       isalDetail = ErasureCodeNative.getLoadingFailureReason();
       if (isalDetail != null) {
         isalLoaded = false;
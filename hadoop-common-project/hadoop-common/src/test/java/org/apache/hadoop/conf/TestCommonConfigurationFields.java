@@ -158,6 +158,7 @@ public void initializeMemberVariables() {
     xmlPropsToSkipCompare.add("ipc.scheduler.impl");
     xmlPropsToSkipCompare.add("ipc.[port_number].scheduler.priority.levels");
     xmlPropsToSkipCompare.add("ipc.[port_number].callqueue.capacity.weights");
+    xmlPropsToSkipCompare.add("ipc.[port_number].callqueue.sharded.stripes");
     xmlPropsToSkipCompare.add(
         "ipc.[port_number].faircallqueue.multiplexer.weights");
     xmlPropsToSkipCompare.add("ipc.[port_number].identity-provider.impl");
@@ -175,6 +176,8 @@ public void initializeMemberVariables() {
         "ipc.[port_number].decay-scheduler.metrics.top.user.count");
     xmlPropsToSkipCompare.add(
         "ipc.[port_number].decay-scheduler.service-users");
+    xmlPropsToSkipCompare.add(
+        "ipc.[port_number].decay-scheduler.cost-budget");
     xmlPropsToSkipCompare.add("ipc.[port_number].weighted-cost.lockshared");
     xmlPropsToSkipCompare.add("ipc.[port_number].weighted-cost.lockexclusive");
     xmlPropsToSkipCompare.add("ipc.[port_number].weighted-cost.handler");
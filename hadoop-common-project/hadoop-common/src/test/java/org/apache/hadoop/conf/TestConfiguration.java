@@ -32,6 +32,8 @@
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -47,6 +49,8 @@
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 import java.util.regex.Pattern;
 import static java.util.concurrent.TimeUnit.*;
 
@@ -2499,6 +2503,56 @@ public void testGetPasswordDeprecatedKeyStored() throws Exception {
     FileUtil.fullyDelete(tmpDir);
   }
 
+  @Test
+  public void testJarResourceParsedOnce() throws Exception {
+    final String resource = "test-jar-resource-TestConfiguration.xml";
+    final File tmpDir = GenericTestUtils.getRandomizedTestDir();
+    tmpDir.mkdirs();
+    File jar = new File(tmpDir, "resource.jar");
+    writeJar(jar, resource, "<configuration>"
+        + "<property><name>test.jar.old.key</name><value>v1</value>"
+        + "<tag>TEST_JAR_TAG</tag></property>"
+        + "<property><name>test.jar.key</name><value>v1</value></property>"
+        + "</configuration>");
+    URLClassLoader loader = new URLClassLoader(
+        new URL[]{jar.toURI().toURL()}, null);
+    try {
+      conf = new Configuration(false);
+      conf.setClassLoader(loader);
+      conf.addResource(resource);
+      assertEquals("v1", conf.get("test.jar.key"));
+      assertEquals("v1",
+          conf.getAllPropertiesByTag("TEST_JAR_TAG").get("test.jar.old.key"));
+
+      // the properties are not read again from the jar, but deprecations
+      // and tags are applied to them.
+      writeJar(jar, resource, "<configuration>"
+          + "<property><name>test.jar.key</name><value>v2</value></property>"
+          + "</configuration>");
+      Configuration.addDeprecation("test.jar.old.key", "test.jar.new.key");
+      conf = new Configuration(false);
+      conf.setClassLoader(loader);
+      conf.addResource(resource);
+      assertEquals("v1", conf.get("test.jar.key"));
+      assertEquals("v1", conf.get("test.jar.new.key"));
+      assertEquals("v1",
+          conf.getAllPropertiesByTag("TEST_JAR_TAG").get("test.jar.old.key"));
+    } finally {
+      loader.close();
+      FileUtil.fullyDelete(tmpDir);
+    }
+  }
+
+  private static void writeJar(File jar, String name, String content)
+      throws IOException {
+    try (JarOutputStream out = new JarOutputStream(
+        new FileOutputStream(jar))) {
+      out.putNextEntry(new JarEntry(name));
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+  }
+
   @Test
   public void testGetPasswordByDeprecatedKey() throws Exception {
     final String oldKey = "test.password.old.key";
@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.conf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestImmutableConfiguration {
+  private Configuration conf;
+
+  @Before
+  public void setUp() {
+    conf = new Configuration(false);
+    conf.set("test.base", "/base");
+    conf.set("test.dir", "${test.base}/dir");
+    conf.set("test.int", " 0x10 ");
+    conf.set("test.long", "12345678901");
+    conf.set("test.bool", "TRUE");
+    conf.set("test.bad.bool", "yes");
+    conf.set("test.duration", "3s");
+    conf.set("test.duration.nounit", "5");
+  }
+
+  @Test
+  public void testValues() {
+    ImmutableConfiguration snapshot = new ImmutableConfiguration(conf);
+    assertEquals(conf.size(), snapshot.size());
+    for (int i = 0; i < 2; i++) {
+      assertEquals("/base/dir", snapshot.get("test.dir"));
+      assertNull(snapshot.get("test.unset"));
+      assertEquals("default", snapshot.get("test.unset", "default"));
+      assertEquals("/base/default",
+          snapshot.get("test.unset", "${test.base}/default"));
+      assertEquals("/base/dir", snapshot.get("test.dir", "default"));
+      assertEquals(16, snapshot.getInt("test.int", 0));
+      assertEquals(7, snapshot.getInt("test.unset", 7));
+      assertEquals(12345678901L, snapshot.getLong("test.long", 0));
+      assertEquals(16L, snapshot.getLong("test.int", 0));
+      assertTrue(snapshot.getBoolean("test.bool", false));
+      assertTrue(snapshot.getBoolean("test.bad.bool", true));
+      assertFalse(snapshot.getBoolean("test.bad.bool", false));
+      assertFalse(snapshot.getBoolean("test.unset", false));
+      assertEquals(3000,
+          snapshot.getTimeDuration("test.duration", 0, TimeUnit.MILLISECONDS));
+      assertEquals(3, snapshot.getTimeDuration("test.duration", 0,
+          TimeUnit.MILLISECONDS, TimeUnit.SECONDS));
+      assertEquals(5000, snapshot.getTimeDuration("test.duration.nounit", 0,
+          TimeUnit.SECONDS, TimeUnit.MILLISECONDS));
+      assertEquals(2000, snapshot.getTimeDuration("test.unset", "2s",
+          TimeUnit.MILLISECONDS));
+    }
+    try {
+      snapshot.getInt("test.dir", 0);
+      fail("Parsed an invalid int");
+    } catch (NumberFormatException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testSnapshotDoesNotChange() {
+    ImmutableConfiguration snapshot = new ImmutableConfiguration(conf);
+    conf.set("test.base", "/other");
+    conf.set("test.unset", "value");
+    conf.setInt("test.int", 1);
+    assertEquals("/base/dir", snapshot.get("test.dir"));
+    assertNull(snapshot.get("test.unset"));
+    assertEquals(16, snapshot.getInt("test.int", 0));
+  }
+
+  @Test
+  public void testDeprecatedKeys() {
+    Configuration.addDeprecation("test.immutable.old.key",
+        "test.immutable.new.key");
+    conf.set("test.immutable.old.key", "value");
+    ImmutableConfiguration snapshot = new ImmutableConfiguration(conf);
+    assertEquals("value", snapshot.get("test.immutable.new.key"));
+    assertEquals("value", snapshot.get("test.immutable.old.key"));
+  }
+
+  @Test
+  public void testModificationsFail() {
+    ImmutableConfiguration snapshot = new ImmutableConfiguration(conf);
+    try {
+      snapshot.set("test.dir", "value");
+      fail("Set a property");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      snapshot.setInt("test.int", 1);
+      fail("Set a property");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      snapshot.unset("test.dir");
+      fail("Unset a property");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      snapshot.addResource(new Configuration(false));
+      fail("Added a resource");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      snapshot.clear();
+      fail("Cleared the configuration");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    assertEquals("/base/dir", snapshot.get("test.dir"));
+  }
+
+  @Test
+  public void testDefaultResources() {
+    Configuration defaults = new Configuration();
+    ImmutableConfiguration snapshot = new ImmutableConfiguration(defaults);
+    assertEquals(defaults.get(CommonConfigurationKeysPublic.FS_DEFAULT_NAME_KEY),
+        snapshot.get(CommonConfigurationKeysPublic.FS_DEFAULT_NAME_KEY));
+    // snapshots are not reloaded with the other configurations.
+    Configuration.reloadExistingConfigurations();
+    assertEquals(defaults.get(CommonConfigurationKeysPublic.FS_DEFAULT_NAME_KEY),
+        snapshot.get(CommonConfigurationKeysPublic.FS_DEFAULT_NAME_KEY));
+  }
+
+  /**
+   * Snapshots taken while the existing configurations are reloaded must not
+   * be reloaded themselves.
+   */
+  @Test(timeout = 60000)
+  public void testSnapshotWhileReloading() throws Exception {
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread reloader = new Thread(() -> {
+      try {
+        for (int i = 0; i < 200; i++) {
+          Configuration.reloadExistingConfigurations();
+        }
+      } catch (Throwable t) {
+        failure.set(t);
+      }
+    });
+    reloader.start();
+    while (reloader.isAlive()) {
+      new ImmutableConfiguration(conf);
+    }
+    reloader.join();
+    if (failure.get() != null) {
+      throw new AssertionError("Reload failed", failure.get());
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.crypto;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
+import org.apache.hadoop.fs.PositionedReadable;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Run the crypto stream tests with large reads decrypted in parallel.
+ */
+public class TestCryptoStreamsWithParallelDecryption extends
+    TestCryptoStreams {
+
+  @BeforeClass
+  public static void init() {
+    Configuration conf = new Configuration();
+    conf.setInt(CommonConfigurationKeysPublic
+        .HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_KEY, 4);
+    conf.setInt(CommonConfigurationKeysPublic
+        .HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_MIN_SIZE_KEY, 4096);
+    codec = CryptoCodec.getInstance(conf);
+  }
+
+  /**
+   * Test positioned reads from more threads than the shared decrypt pool
+   * has, so that the reading threads decrypt some of the ranges themselves.
+   */
+  @Test(timeout=120000)
+  public void testConcurrentParallelDecrypt() throws Exception {
+    try (OutputStream out = getOutputStream(defaultBufferSize)) {
+      writeData(out);
+    }
+    final int len = getDataLen();
+    final byte[] expected = new byte[len];
+    try (InputStream in = getInputStream(defaultBufferSize)) {
+      // reads below the minimum size are not decrypted in parallel
+      for (int off = 0; off < len; off += smallBufferSize) {
+        ((PositionedReadable) in).readFully(off, expected, off,
+            Math.min(smallBufferSize, len - off));
+      }
+    }
+
+    int threads = 4 * Runtime.getRuntime().availableProcessors();
+    ExecutorService readers = Executors.newFixedThreadPool(threads);
+    try (InputStream in = getInputStream(defaultBufferSize)) {
+      List<Future<byte[]>> reads = new ArrayList<>(threads);
+      for (int i = 0; i < threads; i++) {
+        reads.add(readers.submit(() -> {
+          byte[] result = new byte[len];
+          ((PositionedReadable) in).readFully(0, result, 0, len);
+          return result;
+        }));
+      }
+      for (Future<byte[]> read : reads) {
+        Assert.assertArrayEquals(expected, read.get());
+      }
+    } finally {
+      readers.shutdownNow();
+    }
+  }
+}
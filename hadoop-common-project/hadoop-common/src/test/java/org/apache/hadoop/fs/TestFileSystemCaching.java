@@ -18,6 +18,7 @@
 
 package org.apache.hadoop.fs;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -29,9 +30,11 @@
 
 import org.apache.hadoop.thirdparty.com.google.common.util.concurrent.MoreExecutors;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.token.Token;
 import org.apache.hadoop.security.token.TokenIdentifier;
+import org.apache.hadoop.test.GenericTestUtils;
 import org.apache.hadoop.test.HadoopTestBase;
 import org.apache.hadoop.thirdparty.com.google.common.util.concurrent.ListenableFuture;
 import org.apache.hadoop.thirdparty.com.google.common.util.concurrent.ListeningExecutorService;
@@ -40,7 +43,10 @@
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.FS_CACHE_IDLE_TIMEOUT_KEY;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.FS_CREATION_PARALLEL_COUNT;
+import static org.apache.hadoop.test.MetricsAsserts.assertGauge;
+import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
 import static org.apache.hadoop.test.LambdaTestUtils.intercept;
 import static org.mockito.Mockito.*;
 
@@ -361,14 +367,10 @@ public void testCacheSingleSemaphoredConstruction() throws Exception {
   }
 
   /**
-   * Dual semaphore: thread 2 will get as far as
-   * blocking in the initialize() method while awaiting
-   * thread 1 to complete its initialization.
+   * Dual semaphore: only thread 1 creates an instance, while
+   * the other threads wait for its creation of the same key.
    * <p></p>
-   * The thread 2 FS instance will be discarded.
-   * All other threads will block for a cache semaphore,
-   * so when they are given an opportunity to proceed,
-   * they will find that an FS instance exists.
+   * No FS instance will be discarded.
    */
   @Test
   public void testCacheDualSemaphoreConstruction() throws Exception {
@@ -376,7 +378,7 @@ public void testCacheDualSemaphoreConstruction() throws Exception {
     createFileSystems(cache, 10);
     Assertions.assertThat(cache.getDiscardedInstances())
         .describedAs("Discarded FS instances")
-        .isEqualTo(1);
+        .isEqualTo(0);
   }
 
   /**
@@ -384,9 +386,8 @@ public void testCacheDualSemaphoreConstruction() throws Exception {
    * limit on the number of instances which can be created
    * simultaneously.
    * <p></p>
-   * This is the effective state before HADOOP-17313.
-   * <p></p>
-   * All but one thread's FS instance will be discarded.
+   * Before the creation of instances per key, all but one
+   * thread's FS instance were discarded; now none is.
    */
   @Test
   public void testCacheLargeSemaphoreConstruction() throws Exception {
@@ -395,7 +396,55 @@ public void testCacheLargeSemaphoreConstruction() throws Exception {
     createFileSystems(cache, count);
     Assertions.assertThat(cache.getDiscardedInstances())
         .describedAs("Discarded FS instances")
-        .isEqualTo(count -1);
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void testCacheEvictsIdleInstances() throws Exception {
+    Configuration conf = newConf();
+    conf.setTimeDuration(FS_CACHE_IDLE_TIMEOUT_KEY, 100,
+        TimeUnit.MILLISECONDS);
+    conf.set("fs.closecounting.impl", CloseCountingFileSystem.NAME);
+    FileSystem.Cache cache = new FileSystem.Cache(conf);
+    URI uri = new URI("closecounting://a");
+    FileSystem fs1 = cache.get(uri, conf);
+    assertSame(fs1, cache.get(uri, conf));
+    Thread.sleep(300);
+    FileSystem fs2 = cache.get(uri, conf);
+    assertNotSame(fs1, fs2);
+    Assertions.assertThat(cache.getEvictedInstances())
+        .describedAs("Evicted FS instances")
+        .isEqualTo(1);
+    assertSame(fs2, cache.get(uri, conf));
+    // the evicted instance is not closed, as its caller may still use it.
+    Assertions.assertThat(((CloseCountingFileSystem) fs1).closes)
+        .describedAs("Closes of the evicted FS instance")
+        .isEqualTo(0);
+
+    // instances with paths to delete on exit are not evicted.
+    File dir = GenericTestUtils.getRandomizedTestDir();
+    assertTrue(dir.mkdirs());
+    assertTrue(fs2.deleteOnExit(new Path(dir.getAbsolutePath())));
+    Thread.sleep(300);
+    assertSame(fs2, cache.get(uri, conf));
+    cache.closeAll();
+    assertFalse(dir.exists());
+    fs1.close();
+  }
+
+  @Test
+  public void testCacheMetrics() throws Exception {
+    Configuration conf = newConf();
+    FileSystem.Cache cache = new FileSystem.Cache(conf);
+    cache.get(new URI("cachedfile://a"), conf);
+    cache.get(new URI("cachedfile://b"), conf);
+    cache.get(new URI("file:///"), conf);
+    MetricsRecordBuilder rb = getMetrics(cache);
+    assertGauge("NumInstances", 3, rb);
+    assertGauge("Scheme(cachedfile).NumInstances", 2, rb);
+    assertGauge("Scheme(file).NumInstances", 1, rb);
+    cache.closeAll();
+    assertGauge("NumInstances", 0, getMetrics(cache));
   }
 
   /**
@@ -455,6 +504,22 @@ private void createFileSystems(final FileSystem.Cache cache, final int count)
     }
   }
 
+  /**
+   * An FS which counts how often it is closed.
+   */
+  private static final class CloseCountingFileSystem extends LocalFileSystem {
+
+    private static final String NAME = CloseCountingFileSystem.class.getName();
+
+    private int closes;
+
+    @Override
+    public void close() throws IOException {
+      closes++;
+      super.close();
+    }
+  }
+
   /**
    * An FS which blocks in initialize() until it can acquire the shared
    * semaphore (which it then releases).
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.fs.impl;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.fs.statistics.IOStatisticsSource;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.apache.hadoop.test.HadoopTestBase;
+
+import static org.apache.hadoop.fs.statistics.IOStatisticAssertions.verifyStatisticCounterValue;
+import static org.apache.hadoop.fs.statistics.StoreStatisticNames.OP_LIST_STATUS;
+import static org.apache.hadoop.test.LambdaTestUtils.intercept;
+
+/**
+ * Test {@link ParallelListing} against the serial listings of the local
+ * filesystem.
+ */
+public class TestParallelListing extends HadoopTestBase {
+
+  private static final int THREADS = 4;
+
+  private FileSystem fs;
+  private FileSystem parallelFs;
+  private Path root;
+  private int directories;
+
+  @Before
+  public void setup() throws IOException {
+    Configuration conf = new Configuration();
+    fs = FileSystem.getLocal(conf);
+    conf = new Configuration();
+    conf.setInt(CommonConfigurationKeysPublic.FS_LISTING_THREADS_KEY, THREADS);
+    parallelFs = FileSystem.newInstance(fs.getUri(), conf);
+    root = fs.makeQualified(new Path(
+        GenericTestUtils.getRandomizedTestDir().getAbsolutePath()));
+    directories = 1;
+    for (int i = 0; i < 5; i++) {
+      Path dir = new Path(root, "d" + i);
+      fs.create(new Path(root, "f" + i)).close();
+      for (int j = 0; j < 3; j++) {
+        Path subdir = new Path(dir, "s" + j);
+        for (int k = 0; k < 3; k++) {
+          fs.create(new Path(subdir, "f" + k)).close();
+        }
+        directories++;
+      }
+      fs.mkdirs(new Path(dir, "empty"));
+      directories += 2;
+    }
+  }
+
+  @After
+  public void teardown() throws IOException {
+    if (fs != null) {
+      fs.delete(root, true);
+    }
+    if (parallelFs != null) {
+      parallelFs.close();
+    }
+  }
+
+  private static List<Path> toList(RemoteIterator<LocatedFileStatus> it)
+      throws IOException {
+    List<Path> paths = new ArrayList<>();
+    while (it.hasNext()) {
+      paths.add(it.next().getPath());
+    }
+    return paths;
+  }
+
+  @Test
+  public void testOrderedListing() throws IOException {
+    List<Path> expected = toList(fs.listFiles(root, true));
+    Assertions.assertThat(expected).hasSize(50);
+    RemoteIterator<LocatedFileStatus> it =
+        ParallelListing.listFiles(fs::listLocatedStatus, root, THREADS, true);
+    Assertions.assertThat(toList(it)).isEqualTo(expected);
+    verifyStatisticCounterValue(
+        ((IOStatisticsSource) it).getIOStatistics(), OP_LIST_STATUS,
+        directories);
+    Assertions.assertThat(toList(parallelFs.listFiles(root, true)))
+        .isEqualTo(expected);
+    // a single thread lists the directories ahead of the caller too.
+    Assertions.assertThat(toList(ParallelListing.listFiles(
+        fs::listLocatedStatus, root, 1, true))).isEqualTo(expected);
+  }
+
+  @Test
+  public void testUnorderedListing() throws IOException {
+    List<Path> expected = toList(fs.listFiles(root, true));
+    RemoteIterator<LocatedFileStatus> it =
+        ParallelListing.listFiles(fs::listLocatedStatus, root, THREADS,
+            false);
+    Assertions.assertThat(toList(it))
+        .containsExactlyInAnyOrderElementsOf(expected);
+    verifyStatisticCounterValue(
+        ((IOStatisticsSource) it).getIOStatistics(), OP_LIST_STATUS,
+        directories);
+  }
+
+  @Test
+  public void testListFile() throws IOException {
+    Path file = new Path(root, "f0");
+    for (boolean ordered : new boolean[] {true, false}) {
+      Assertions.assertThat(toList(ParallelListing.listFiles(
+          fs::listLocatedStatus, file, THREADS, ordered)))
+          .containsExactly(file);
+    }
+  }
+
+  @Test
+  public void testListMissingPath() throws Exception {
+    Path missing = new Path(root, "missing");
+    for (boolean ordered : new boolean[] {true, false}) {
+      intercept(FileNotFoundException.class,
+          () -> ParallelListing.listFiles(fs::listLocatedStatus, missing,
+              THREADS, ordered));
+    }
+  }
+
+  @Test
+  public void testListingFailure() throws Exception {
+    Path failing = new Path(root, "d3/s1");
+    for (boolean ordered : new boolean[] {true, false}) {
+      RemoteIterator<LocatedFileStatus> it = ParallelListing.listFiles(
+          dir -> {
+            if (dir.equals(failing)) {
+              throw new IOException("failed to list " + dir);
+            }
+            return fs.listLocatedStatus(dir);
+          }, root, THREADS, ordered);
+      intercept(IOException.class, "failed to list", () -> toList(it));
+    }
+  }
+
+  @Test
+  public void testListingRuntimeFailure() throws Exception {
+    Path failing = new Path(root, "d2/s0");
+    for (boolean ordered : new boolean[] {true, false}) {
+      RemoteIterator<LocatedFileStatus> it = ParallelListing.listFiles(
+          dir -> {
+            if (dir.equals(failing)) {
+              throw new IllegalStateException("failed to list " + dir);
+            }
+            return fs.listLocatedStatus(dir);
+          }, root, THREADS, ordered);
+      intercept(IllegalStateException.class, "failed to list",
+          () -> toList(it));
+    }
+  }
+
+  /**
+   * Check that an unordered listing stops listing while its files are not
+   * taken by the caller.
+   */
+  @Test
+  public void testUnorderedListingIsBounded() throws Exception {
+    Path wide = new Path(root, "wide");
+    int width = 100;
+    for (int i = 0; i < width; i++) {
+      fs.create(new Path(wide, "d" + i + "/f")).close();
+    }
+    AtomicInteger listed = new AtomicInteger();
+    RemoteIterator<LocatedFileStatus> it = ParallelListing.listFiles(
+        dir -> {
+          listed.incrementAndGet();
+          return fs.listLocatedStatus(dir);
+        }, wide, 1, false);
+    Assertions.assertThat(it.hasNext()).isTrue();
+    Thread.sleep(500);
+    Assertions.assertThat(listed.get()).isLessThan(width / 2);
+    Assertions.assertThat(toList(it)).hasSize(width);
+    Assertions.assertThat(listed.get()).isEqualTo(width + 1);
+  }
+
+  /**
+   * Check that an unordered listing which is closed stops listing, and
+   * its iterator still ends.
+   */
+  @Test
+  public void testUnorderedListingClose() throws Exception {
+    Path wide = new Path(root, "wide");
+    int width = 100;
+    for (int i = 0; i < width; i++) {
+      fs.create(new Path(wide, "d" + i + "/f")).close();
+    }
+    AtomicInteger listed = new AtomicInteger();
+    RemoteIterator<LocatedFileStatus> it = ParallelListing.listFiles(
+        dir -> {
+          listed.incrementAndGet();
+          return fs.listLocatedStatus(dir);
+        }, wide, 1, false);
+    Assertions.assertThat(it.hasNext()).isTrue();
+    ((Closeable) it).close();
+    Assertions.assertThat(toList(it).size()).isLessThan(width / 2);
+    Assertions.assertThat(listed.get()).isLessThan(width / 2);
+  }
+
+  @Test
+  public void testGlob() throws IOException {
+    for (String pattern : new String[] {"d*/s*/f1", "d{1,3}/*", "*/s2",
+        "d*/s*/*", "f*", "d4/s0/f2"}) {
+      Path glob = new Path(root, pattern);
+      FileStatus[] expected = fs.globStatus(glob);
+      Assertions.assertThat(expected).isNotEmpty();
+      Assertions.assertThat(parallelFs.globStatus(glob)).as(pattern)
+          .isEqualTo(expected);
+    }
+    Assertions.assertThat(parallelFs.globStatus(new Path(root, "missing")))
+        .isNull();
+  }
+
+  @Test
+  public void testMap() throws Exception {
+    List<Integer> inputs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      inputs.add(i);
+    }
+    List<Integer> squares =
+        ParallelListing.map(inputs, THREADS, i -> i * i);
+    Assertions.assertThat(squares).hasSize(100);
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertThat(squares.get(i)).isEqualTo(i * i);
+    }
+    Assertions.assertThat(ParallelListing.map(Arrays.asList(1, 2), 1,
+        i -> -i)).containsExactly(-1, -2);
+    intercept(IOException.class, "57", () ->
+        ParallelListing.map(inputs, THREADS, i -> {
+          if (i == 57) {
+            throw new IOException(Integer.toString(i));
+          }
+          return i;
+        }));
+  }
+}
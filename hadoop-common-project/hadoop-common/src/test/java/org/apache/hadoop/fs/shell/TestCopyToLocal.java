@@ -17,7 +17,10 @@
  */
 package org.apache.hadoop.fs.shell;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -36,9 +39,12 @@
 import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.shell.CopyCommands.CopyToLocal;
+import org.apache.hadoop.io.IOUtils;
 
 import static org.apache.hadoop.fs.shell.CopyCommandWithMultiThread.DEFAULT_QUEUE_SIZE;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class TestCopyToLocal {
 
@@ -169,6 +175,70 @@ public void testCopySingleFile() throws Exception {
     assert copy.getExecutor() == null;
   }
 
+  private static void writeFile(FileSystem fileSystem, Path path,
+      byte[] data, int length) throws IOException {
+    try (FSDataOutputStream out = fileSystem.create(path, true)) {
+      out.write(data, 0, length);
+    }
+  }
+
+  private static byte[] readFile(Path path) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream in = fs.open(path)) {
+      IOUtils.copyBytes(in, bytes, 4096);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Test(timeout = 10000)
+  public void testCopyResume() throws Exception {
+    byte[] data = RandomUtils.nextBytes(100_000);
+    Path src = new Path(dir, "src");
+    writeFile(fs, src, data, data.length);
+    Path target = new Path(dir, "target");
+    Path partial = new Path(dir, "target._COPYING_");
+    FileSystem raw = ((LocalFileSystem) fs).getRawFileSystem();
+
+    // a partial copy is completed.
+    writeFile(raw, partial, data, 30_000);
+    CopyToLocal copy = new CopyToLocal();
+    run(copy, "-resume", src.toString(), target.toString());
+    assertArrayEquals(data, readFile(target));
+    assertFalse(fs.exists(partial));
+    assertEquals(70_000, copy.getBytesCopied());
+
+    // a copied file is skipped.
+    copy = new CopyToLocal();
+    run(copy, "-resume", src.toString(), target.toString());
+    assertEquals(0, copy.getBytesCopied());
+
+    // a file of the same length modified before the source is copied again,
+    // if it may be overwritten.
+    byte[] stale = data.clone();
+    stale[0]++;
+    writeFile(fs, target, stale, stale.length);
+    long mtime = fs.getFileStatus(src).getModificationTime();
+    fs.setTimes(target, mtime - 10_000, -1);
+    copy = new CopyToLocal();
+    copy.setConf(conf);
+    assertEquals(1, copy.run("-resume", src.toString(), target.toString()));
+    assertArrayEquals(stale, readFile(target));
+    copy = new CopyToLocal();
+    run(copy, "-resume", "-f", src.toString(), target.toString());
+    assertArrayEquals(data, readFile(target));
+    assertEquals(data.length, copy.getBytesCopied());
+
+    // a partial copy which does not match the source is copied again.
+    fs.delete(target, false);
+    byte[] other = Arrays.copyOf(data, 30_000);
+    other[29_999]++;
+    writeFile(raw, partial, other, other.length);
+    copy = new CopyToLocal();
+    run(copy, "-resume", src.toString(), target.toString());
+    assertArrayEquals(data, readFile(target));
+    assertEquals(data.length, copy.getBytesCopied());
+  }
+
   private static class MultiThreadedCopy extends CopyToLocal {
     public static final String NAME = "multiThreadCopy";
     private final int expectedThreads;
@@ -17,8 +17,14 @@
  */
 package org.apache.hadoop.fs.shell;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.junit.AfterClass;
@@ -30,15 +36,20 @@
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.RandomUtils;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.FileSystemTestHelper;
 import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.StreamCapabilities;
 import org.apache.hadoop.fs.shell.CopyCommands.Cp;
+import org.apache.hadoop.io.IOUtils;
 
 import static org.apache.hadoop.fs.shell.CopyCommandWithMultiThread.DEFAULT_QUEUE_SIZE;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class TestCpCommand {
 
@@ -169,6 +180,86 @@ public void testCpSingleFile() throws Exception {
     assert copy.getExecutor() == null;
   }
 
+  private static byte[] createFile(Path path, int length) throws IOException {
+    byte[] data = RandomUtils.nextBytes(length);
+    try (FSDataOutputStream out = fs.create(path, true)) {
+      out.write(data);
+    }
+    return data;
+  }
+
+  private static byte[] toBytes(InputStream in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    IOUtils.copyBytes(in, bytes, 4096);
+    return bytes.toByteArray();
+  }
+
+  private static byte[] readFile(Path path) throws IOException {
+    try (InputStream in = fs.open(path)) {
+      return toBytes(in);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testCpSingleFileInRanges() throws Exception {
+    Path src = new Path(dir, "large");
+    byte[] data = createFile(src, 100_000);
+    Path target = new Path(dir, "copy");
+    Cp copy = new Cp();
+    copy.setRangeSize(4096);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    copy.out = new PrintStream(bytes, true);
+    run(copy, "-t", "4", "-progress", src.toString(), target.toString());
+    assertArrayEquals(data, readFile(target));
+    assertEquals(data.length, copy.getBytesCopied());
+    assertTrue(bytes.toString(), bytes.toString().startsWith("Copied 1 files"));
+  }
+
+  @Test(timeout = 10000)
+  public void testRangeReads() throws Exception {
+    Path src = new Path(dir, "ranges");
+    byte[] data = createFile(src, 50_001);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (int n : new int[] {1, 3}) {
+        for (boolean vectored : new boolean[] {true, false}) {
+          Semaphore permits = new Semaphore(n);
+          FSDataInputStream in = new FSDataInputStream(fs.open(src)) {
+            @Override
+            public boolean hasCapability(String capability) {
+              return vectored
+                  && capability.equals(StreamCapabilities.VECTOREDIO);
+            }
+          };
+          try (InputStream ranges = new ParallelRangeInputStream(in, 1001,
+              data.length, 1000, executor, permits)) {
+            byte[] read = toBytes(ranges);
+            byte[] expected = new byte[data.length - 1001];
+            System.arraycopy(data, 1001, expected, 0, expected.length);
+            assertArrayEquals(expected, read);
+          }
+          assertEquals(n, permits.availablePermits());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testRangePermits() {
+    Cp copy = new Cp();
+    copy.setThreadCount("4");
+    assertEquals(8, copy.getRangePermits());
+    // the read ahead does not grow with the threads beyond the cap.
+    copy.setThreadCount("64");
+    assertEquals(CopyCommandWithMultiThread.MAX_READ_AHEAD,
+        (long) copy.getRangePermits()
+            * CopyCommandWithMultiThread.DEFAULT_RANGE_SIZE);
+    copy.setRangeSize((int) CopyCommandWithMultiThread.MAX_READ_AHEAD);
+    assertEquals(1, copy.getRangePermits());
+  }
+
   private static class MultiThreadedCp extends Cp {
     public static final String NAME = "multiThreadCp";
     private final int expectedThreads;
@@ -29,6 +29,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
@@ -845,4 +846,89 @@ public void testMerge() throws Exception {
           path.getFileSystem(conf).exists(path));
     }
   }
+
+  /**
+   * Test that a compact index finds the same keys as the default index.
+   */
+  @Test
+  public void testCompactIndex() throws Exception {
+    final String TEST_PREFIX = "testCompactIndex.mapfile";
+    Path dirName = new Path(TEST_DIR, TEST_PREFIX);
+    try (MapFile.Writer writer = createWriter(TEST_PREFIX, Text.class,
+        Text.class)) {
+      // even keys 0000, 0002, ..., 0998.
+      for (int i = 0; i < 1000; i += 2) {
+        Text t = new Text(String.format("%04d", i));
+        writer.append(t, t);
+      }
+    }
+    Configuration compactConf = new Configuration(conf);
+    compactConf.setBoolean(CommonConfigurationKeys.IO_MAP_INDEX_COMPACT_KEY,
+        true);
+    try (MapFile.Reader compact = new MapFile.Reader(dirName, compactConf);
+        MapFile.Reader reader = new MapFile.Reader(dirName, conf)) {
+      assertEquals(new Text("0496"), compact.midKey());
+      assertEquals(reader.midKey(), compact.midKey());
+      Text value = new Text();
+      for (int i = -1; i <= 1000; i++) {
+        Text key = new Text(String.format("%04d", i));
+        assertEquals(key.toString(), i >= 0 && i < 1000 && i % 2 == 0,
+            compact.seek(key));
+        assertEquals(key.toString(), reader.getClosest(key, value),
+            compact.getClosest(key, value));
+        assertEquals(key.toString(), reader.getClosest(key, value, true),
+            compact.getClosest(key, value, true));
+      }
+      Text last = new Text();
+      compact.finalKey(last);
+      assertEquals(new Text("0998"), last);
+    }
+  }
+
+  /**
+   * A comparator without key instances, which only compares objects.
+   */
+  private static final class ObjectOnlyTextComparator
+      extends WritableComparator {
+    ObjectOnlyTextComparator() {
+      super(Text.class);
+    }
+
+    @Override
+    public int compare(WritableComparable a, WritableComparable b) {
+      return a.toString().compareTo(b.toString());
+    }
+  }
+
+  /**
+   * Test that a compact index works with a comparator which cannot compare
+   * serialized keys.
+   */
+  @Test
+  public void testCompactIndexWithObjectComparator() throws Exception {
+    final String TEST_PREFIX = "testCompactIndexWithObjectComparator.mapfile";
+    Path dirName = new Path(TEST_DIR, TEST_PREFIX);
+    try (MapFile.Writer writer = createWriter(TEST_PREFIX, Text.class,
+        Text.class)) {
+      for (int i = 0; i < 1000; i += 2) {
+        Text t = new Text(String.format("%04d", i));
+        writer.append(t, t);
+      }
+    }
+    Configuration compactConf = new Configuration(conf);
+    compactConf.setBoolean(CommonConfigurationKeys.IO_MAP_INDEX_COMPACT_KEY,
+        true);
+    try (MapFile.Reader compact = new MapFile.Reader(dirName, compactConf,
+        MapFile.Reader.comparator(new ObjectOnlyTextComparator()))) {
+      Text value = new Text();
+      for (int i = -1; i <= 1000; i++) {
+        Text key = new Text(String.format("%04d", i));
+        boolean exists = i >= 0 && i < 1000 && i % 2 == 0;
+        assertEquals(key.toString(), exists, compact.seek(key));
+        assertEquals(key.toString(), exists ? key : null,
+            compact.get(key, value));
+      }
+      assertEquals(new Text("0496"), compact.midKey());
+    }
+  }
 }
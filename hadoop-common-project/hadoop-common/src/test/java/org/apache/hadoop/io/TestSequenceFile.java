@@ -734,6 +734,60 @@ public void testSerializationAvailability() throws IOException {
     }
   }
 
+  /**
+   * Test that batches of raw records read the records of each compression
+   * type, also after reading records one at a time.
+   */
+  @Test
+  public void testNextBatch() throws IOException {
+    Configuration batchConf = new Configuration(conf);
+    // several compressed blocks.
+    batchConf.setInt(
+        CommonConfigurationKeys.IO_SEQFILE_COMPRESS_BLOCKSIZE_KEY, 5000);
+    final int count = 2000;
+    for (CompressionType type : CompressionType.values()) {
+      Path file = new Path(GenericTestUtils.getTempPath(
+          "testNextBatch." + type + ".seq"));
+      try (SequenceFile.Writer writer = SequenceFile.createWriter(batchConf,
+          SequenceFile.Writer.file(file),
+          SequenceFile.Writer.keyClass(Text.class),
+          SequenceFile.Writer.valueClass(Text.class),
+          SequenceFile.Writer.compression(type, new DefaultCodec()))) {
+        for (int i = 0; i < count; i++) {
+          writer.append(new Text("key" + i), new Text("value" + i));
+        }
+      }
+
+      try (SequenceFile.Reader reader = new SequenceFile.Reader(batchConf,
+          SequenceFile.Reader.file(file))) {
+        Text key = new Text();
+        Text value = new Text();
+        assertTrue(reader.next(key, value));
+        assertEquals(new Text("key0"), key);
+
+        SequenceFile.RecordBatch batch = new SequenceFile.RecordBatch(300);
+        DataInputBuffer in = new DataInputBuffer();
+        int i = 1;
+        int n;
+        while ((n = reader.nextBatch(batch)) != -1) {
+          assertEquals(batch.size(), n);
+          Assertions.assertThat(n).isBetween(1, 300);
+          for (int j = 0; j < n; j++, i++) {
+            in.reset(batch.getKeyData(), batch.getKeyOffset(j),
+                batch.getKeyLength(j));
+            key.readFields(in);
+            assertEquals(type.toString(), new Text("key" + i), key);
+            in.reset(batch.getValueData(), batch.getValueOffset(j),
+                batch.getValueLength(j));
+            value.readFields(in);
+            assertEquals(type.toString(), new Text("value" + i), value);
+          }
+        }
+        assertEquals(type.toString(), count, i);
+      }
+    }
+  }
+
   @Test
   public void testSequenceFileWriter() throws Exception {
     Configuration conf = new Configuration();
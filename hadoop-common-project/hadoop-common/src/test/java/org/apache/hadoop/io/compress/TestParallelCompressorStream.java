@@ -0,0 +1,266 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.io.compress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestParallelCompressorStream {
+
+  private static final int BLOCK_SIZE = 10000;
+  private static final int THREADS = 4;
+
+  private Configuration conf;
+  private GzipCodec gzip;
+
+  @Before
+  public void setUp() {
+    conf = new Configuration();
+    gzip = new GzipCodec();
+    gzip.setConf(conf);
+  }
+
+  private static byte[] generate(int len) {
+    byte[] data = new byte[len];
+    Random r = new Random(len);
+    for (int i = 0; i < len; i++) {
+      // compressible, but not trivially.
+      data[i] = (byte) ('a' + r.nextInt(8));
+    }
+    return data;
+  }
+
+  private static byte[] compress(CompressionOutputStream out,
+      ByteArrayOutputStream bytes, byte[] data) throws IOException {
+    // write in odd pieces, so that writes straddle the blocks.
+    int off = 0;
+    while (off < data.length) {
+      int n = Math.min(3333, data.length - off);
+      out.write(data, off, n);
+      off += n;
+    }
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  private static byte[] decompress(CompressionCodec codec, byte[] compressed)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream in =
+        codec.createInputStream(new ByteArrayInputStream(compressed))) {
+      IOUtils.copyBytes(in, bytes, 4096);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] decompressParallel(CompressionCodec codec,
+      Configuration conf, byte[] compressed) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream in = new ParallelDecompressorStream(
+        new ByteArrayInputStream(compressed), codec, conf, THREADS)) {
+      IOUtils.copyBytes(in, bytes, 4096);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Check that a stream compressed in parallel is read by the serial
+   * decompressor of the codec, for sizes around the block size.
+   */
+  @Test(timeout = 60000)
+  public void testSerialDecompression() throws IOException {
+    for (int len : new int[] {0, 1, BLOCK_SIZE - 1, BLOCK_SIZE,
+        BLOCK_SIZE + 1, 7 * BLOCK_SIZE + 123}) {
+      byte[] data = generate(len);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] compressed = compress(new ParallelCompressorStream(bytes, gzip,
+          conf, THREADS, BLOCK_SIZE, false), bytes, data);
+      assertThat(decompress(gzip, compressed)).isEqualTo(data);
+    }
+  }
+
+  /**
+   * Check that flushing ends a block, and that the data written so far can
+   * be decompressed.
+   */
+  @Test(timeout = 60000)
+  public void testFlush() throws IOException {
+    byte[] data = generate(3 * BLOCK_SIZE);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CompressionOutputStream out = new ParallelCompressorStream(bytes, gzip,
+        conf, THREADS, BLOCK_SIZE, false);
+    out.write(data, 0, BLOCK_SIZE / 2);
+    out.flush();
+    byte[] flushed = bytes.toByteArray();
+    assertThat(decompress(gzip, flushed))
+        .isEqualTo(Arrays.copyOf(data, BLOCK_SIZE / 2));
+    out.write(data, BLOCK_SIZE / 2, data.length - BLOCK_SIZE / 2);
+    out.close();
+    assertThat(decompress(gzip, bytes.toByteArray())).isEqualTo(data);
+  }
+
+  /**
+   * Check the parallel round trip of blocks with their sizes, and that the
+   * parallel decompressor falls back to serial decompression for other
+   * input.
+   */
+  @Test(timeout = 60000)
+  public void testParallelDecompression() throws IOException {
+    byte[] data = generate(9 * BLOCK_SIZE + 1);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] withSizes = compress(new ParallelCompressorStream(bytes, gzip,
+        conf, THREADS, BLOCK_SIZE, true), bytes, data);
+    assertThat(ParallelDecompressorStream.getIntLE(withSizes, 0))
+        .isEqualTo(ParallelCompressorStream.BLOCK_SIZES_MAGIC);
+    assertThat(decompressParallel(gzip, conf, withSizes)).isEqualTo(data);
+
+    bytes = new ByteArrayOutputStream();
+    byte[] plain = compress(gzip.createOutputStream(bytes), bytes, data);
+    assertThat(decompressParallel(gzip, conf, plain)).isEqualTo(data);
+
+    // blocks with sizes followed by a plain stream.
+    byte[] mixed = new byte[withSizes.length + plain.length];
+    System.arraycopy(withSizes, 0, mixed, 0, withSizes.length);
+    System.arraycopy(plain, 0, mixed, withSizes.length, plain.length);
+    byte[] expected = new byte[2 * data.length];
+    System.arraycopy(data, 0, expected, 0, data.length);
+    System.arraycopy(data, 0, expected, data.length, data.length);
+    assertThat(decompressParallel(gzip, conf, mixed)).isEqualTo(expected);
+  }
+
+  /**
+   * Check that the codecs compress in parallel when configured to.
+   */
+  @Test(timeout = 60000)
+  public void testConfiguredThreads() throws IOException {
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY,
+        THREADS);
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY,
+        BLOCK_SIZE);
+    byte[] data = generate(5 * BLOCK_SIZE);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CompressionOutputStream out = gzip.createOutputStream(bytes);
+    assertThat(out).isInstanceOf(ParallelCompressorStream.class);
+    assertThat(decompress(gzip, compress(out, bytes, data))).isEqualTo(data);
+
+    assumeTrue(ZStandardCodec.isNativeCodeLoaded());
+    ZStandardCodec zstd = new ZStandardCodec();
+    zstd.setConf(conf);
+    bytes = new ByteArrayOutputStream();
+    byte[] compressed = compress(zstd.createOutputStream(bytes), bytes, data);
+    CompressionInputStream in =
+        zstd.createInputStream(new ByteArrayInputStream(compressed));
+    assertThat(in).isInstanceOf(ParallelDecompressorStream.class);
+    in.close();
+    assertThat(decompress(zstd, compressed)).isEqualTo(data);
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY, 1);
+    assertThat(decompress(zstd, compressed)).isEqualTo(data);
+  }
+
+  /**
+   * Check which write paths compress in parallel when configured to: the
+   * streams of GzipCodec and ZStandardCodec, with or without a compressor,
+   * and so the SequenceFile writers, but not the DefaultCodec streams which
+   * TFile writes.
+   */
+  @Test(timeout = 60000)
+  public void testWritePaths() throws IOException {
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY,
+        THREADS);
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY,
+        BLOCK_SIZE);
+    byte[] data = generate(5 * BLOCK_SIZE);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CompressionOutputStream out =
+        gzip.createOutputStream(bytes, gzip.createCompressor());
+    assertThat(out).isInstanceOf(ParallelCompressorStream.class);
+    assertThat(decompress(gzip, compress(out, bytes, data))).isEqualTo(data);
+
+    DefaultCodec deflate = new DefaultCodec();
+    deflate.setConf(conf);
+    out = deflate.createOutputStream(new ByteArrayOutputStream(),
+        deflate.createCompressor());
+    assertThat(out).isNotInstanceOf(ParallelCompressorStream.class);
+    out.close();
+
+    FileSystem fs = FileSystem.getLocal(conf);
+    for (CompressionType type : new CompressionType[] {
+        CompressionType.RECORD, CompressionType.BLOCK}) {
+      Path path = new Path(GenericTestUtils.getTempPath(
+          "TestParallelCompressorStream-" + type));
+      try (SequenceFile.Writer writer = SequenceFile.createWriter(conf,
+          SequenceFile.Writer.file(path),
+          SequenceFile.Writer.keyClass(Text.class),
+          SequenceFile.Writer.valueClass(Text.class),
+          SequenceFile.Writer.compression(type, gzip))) {
+        for (int i = 0; i < 10; i++) {
+          // includes an empty value and values of several blocks.
+          writer.append(new Text(Integer.toString(i)),
+              new Text(generate(i * BLOCK_SIZE / 2)));
+        }
+      }
+      try (SequenceFile.Reader reader = new SequenceFile.Reader(conf,
+          SequenceFile.Reader.file(path))) {
+        Text key = new Text();
+        Text value = new Text();
+        for (int i = 0; i < 10; i++) {
+          assertThat(reader.next(key, value)).isTrue();
+          assertThat(key.toString()).isEqualTo(Integer.toString(i));
+          assertThat(value.copyBytes())
+              .isEqualTo(generate(i * BLOCK_SIZE / 2));
+        }
+        assertThat(reader.next(key, value)).isFalse();
+      } finally {
+        fs.delete(path, false);
+      }
+    }
+
+    assumeTrue(ZStandardCodec.isNativeCodeLoaded());
+    ZStandardCodec zstd = new ZStandardCodec();
+    zstd.setConf(conf);
+    bytes = new ByteArrayOutputStream();
+    out = zstd.createOutputStream(bytes, zstd.createCompressor());
+    assertThat(out).isInstanceOf(ParallelCompressorStream.class);
+    assertThat(decompress(zstd, compress(out, bytes, data))).isEqualTo(data);
+  }
+}
@@ -0,0 +1,241 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.io.compress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.apache.hadoop.test.LambdaTestUtils.intercept;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSeekableZStandardCodec {
+
+  private static final int BLOCK_SIZE = 10000;
+
+  private Configuration conf;
+  private FileSystem fs;
+  private Path file;
+  // the blocks are compressed with gzip, which does not need native code.
+  private GzipCodec gzip;
+
+  @Before
+  public void setUp() throws IOException {
+    conf = new Configuration();
+    fs = FileSystem.getLocal(conf);
+    file = new Path(GenericTestUtils.getTestDir().getAbsolutePath(),
+        "TestSeekableZStandardCodec");
+    gzip = new GzipCodec();
+    gzip.setConf(conf);
+  }
+
+  private static byte[] generate(int len) {
+    byte[] data = new byte[len];
+    Random r = new Random(len);
+    for (int i = 0; i < len; i++) {
+      data[i] = (byte) ('a' + r.nextInt(8));
+    }
+    return data;
+  }
+
+  private long write(byte[] data) throws IOException {
+    try (OutputStream out = new SeekableZStandardCodec.SeekableCompressorStream(
+        fs.create(file, true), gzip, conf, 2, BLOCK_SIZE)) {
+      out.write(data);
+    }
+    return fs.getFileStatus(file).getLen();
+  }
+
+  /**
+   * Read the blocks starting in a split, as a record reader would.
+   */
+  private void readSplit(long start, long end, ByteArrayOutputStream bytes)
+      throws IOException {
+    readSplit(gzip, start, end, bytes);
+  }
+
+  /**
+   * Read the blocks starting in a split, whose blocks are compressed with
+   * the given codec, as a record reader would.
+   */
+  private void readSplit(CompressionCodec blockCodec, long start, long end,
+      ByteArrayOutputStream bytes) throws IOException {
+    Decompressor decompressor = blockCodec.createDecompressor();
+    try (FSDataInputStream in = fs.open(file);
+        SplitCompressionInputStream split =
+            new SeekableZStandardCodec.SeekableInputStream(
+                in, decompressor, start, end)) {
+      assertThat(split.getAdjustedStart()).isGreaterThanOrEqualTo(start);
+      assertThat(split.getPos()).isEqualTo(split.getAdjustedStart());
+      byte[] buf = new byte[3000];
+      int n;
+      while ((n = split.read(buf, 0, buf.length)) > 0) {
+        if (split.getPos() > split.getAdjustedEnd()) {
+          // the first block after the split.
+          break;
+        }
+        bytes.write(buf, 0, n);
+      }
+    }
+  }
+
+  /**
+   * Check that every block is read by exactly one split, for split sizes
+   * smaller and larger than the compressed blocks.
+   */
+  @Test(timeout = 60000)
+  public void testSplits() throws IOException {
+    byte[] data = generate(20 * BLOCK_SIZE + 17);
+    long len = write(data);
+    for (long splitSize : new long[] {1000, 2345, 7000, 20000, len}) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      for (long start = 0; start < len; start += splitSize) {
+        readSplit(start, Math.min(len, start + splitSize), bytes);
+      }
+      assertThat(bytes.toByteArray()).as("split size " + splitSize)
+          .isEqualTo(data);
+    }
+  }
+
+  /**
+   * Check that a stream created with a pooled compressor, as SequenceFile
+   * writers and CodecPool users do, is splittable too.
+   */
+  @Test(timeout = 60000)
+  public void testSplitsWithPooledCompressor() throws IOException {
+    assumeTrue(ZStandardCodec.isNativeCodeLoaded());
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY,
+        BLOCK_SIZE);
+    SeekableZStandardCodec codec = new SeekableZStandardCodec();
+    codec.setConf(conf);
+    byte[] data = generate(20 * BLOCK_SIZE + 17);
+    Compressor compressor = CodecPool.getCompressor(codec);
+    try (OutputStream out = codec.createOutputStream(fs.create(file, true),
+        compressor)) {
+      out.write(data);
+    } finally {
+      CodecPool.returnCompressor(compressor);
+    }
+    long len = fs.getFileStatus(file).getLen();
+    for (long splitSize : new long[] {1000, 7000, len}) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      for (long start = 0; start < len; start += splitSize) {
+        readSplit(codec, start, Math.min(len, start + splitSize), bytes);
+      }
+      assertThat(bytes.toByteArray()).as("split size " + splitSize)
+          .isEqualTo(data);
+    }
+  }
+
+  /**
+   * Check that the stream ends with a seek table of all blocks, which is
+   * skipped by the decompressor streams.
+   */
+  @Test(timeout = 60000)
+  public void testSeekTable() throws IOException {
+    byte[] data = generate(5 * BLOCK_SIZE + 1);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream s = new SeekableZStandardCodec.SeekableCompressorStream(
+        out, gzip, conf, 2, BLOCK_SIZE)) {
+      s.write(data);
+    }
+    byte[] compressed = out.toByteArray();
+    int len = compressed.length;
+    assertThat(ParallelDecompressorStream.getIntLE(compressed, len - 4))
+        .isEqualTo(SeekableZStandardCodec.SEEKABLE_MAGIC);
+    int numFrames = ParallelDecompressorStream.getIntLE(compressed, len - 9);
+    assertThat(numFrames).isEqualTo(6);
+    int tableStart = len - 9 - 8 * numFrames - 8;
+    assertThat(ParallelDecompressorStream.getIntLE(compressed, tableStart))
+        .isEqualTo(SeekableZStandardCodec.SEEK_TABLE_MAGIC);
+    long compressedTotal = 0;
+    long total = 0;
+    for (int i = 0; i < numFrames; i++) {
+      compressedTotal += ParallelDecompressorStream.getIntLE(compressed,
+          tableStart + 8 + 8 * i);
+      total += ParallelDecompressorStream.getIntLE(compressed,
+          tableStart + 12 + 8 * i);
+    }
+    assertThat(compressedTotal).isEqualTo(tableStart);
+    assertThat(total).isEqualTo(data.length);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream in = new ParallelDecompressorStream(
+        new ByteArrayInputStream(compressed), gzip, conf, 3)) {
+      IOUtils.copyBytes(in, bytes, 4096);
+    }
+    assertThat(bytes.toByteArray()).isEqualTo(data);
+  }
+
+  /**
+   * Check that a split of a stream in another format is rejected.
+   */
+  @Test(timeout = 60000)
+  public void testNotSeekable() throws Exception {
+    try (OutputStream out = gzip.createOutputStream(fs.create(file, true))) {
+      out.write(generate(BLOCK_SIZE));
+    }
+    try (FSDataInputStream in = fs.open(file)) {
+      intercept(IOException.class, "Not a seekable zstd stream",
+          () -> new SeekableZStandardCodec.SeekableInputStream(in,
+              gzip.createDecompressor(), 0, BLOCK_SIZE));
+    }
+  }
+
+  /**
+   * Check the codec with native zstd, when available.
+   */
+  @Test(timeout = 60000)
+  public void testCodec() throws IOException {
+    CompressionCodec codec = new CompressionCodecFactory(conf)
+        .getCodec(new Path("file.szst"));
+    assertThat(codec).isInstanceOf(SeekableZStandardCodec.class);
+    assertThat(new CompressionCodecFactory(conf)
+        .getCodec(new Path("file.zst"))).isExactlyInstanceOf(
+            ZStandardCodec.class);
+    assumeTrue(ZStandardCodec.isNativeCodeLoaded());
+
+    byte[] data = generate(3 * BLOCK_SIZE);
+    try (OutputStream out = codec.createOutputStream(fs.create(file, true))) {
+      out.write(data);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ZStandardCodec zstd = new ZStandardCodec();
+    zstd.setConf(conf);
+    try (InputStream in = zstd.createInputStream(fs.open(file))) {
+      IOUtils.copyBytes(in, bytes, 4096);
+    }
+    assertThat(bytes.toByteArray()).isEqualTo(data);
+  }
+}
@@ -25,6 +25,7 @@
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Random;
 
 import org.apache.hadoop.conf.Configuration;
@@ -222,6 +223,36 @@ public void testCompressDecompress() {
     }
   }
 
+  // test decompressing from one direct buffer to another
+  @Test
+  public void testDirectDecompress() throws IOException {
+    int BYTE_SIZE = 1024 * 54;
+    byte[] bytes = generate(BYTE_SIZE);
+    Lz4Compressor compressor = new Lz4Compressor();
+    compressor.setInput(bytes, 0, bytes.length);
+    compressor.finish();
+    byte[] compressed = new byte[BYTE_SIZE];
+    int cSize = compressor.compress(compressed, 0, compressed.length);
+
+    ByteBuffer inBuf = ByteBuffer.allocateDirect(cSize);
+    inBuf.put(compressed, 0, cSize);
+    inBuf.flip();
+    // decompress after some existing data.
+    ByteBuffer outBuf = ByteBuffer.allocateDirect(BYTE_SIZE + 10);
+    outBuf.position(10);
+    Lz4Decompressor.Lz4DirectDecompressor decompressor =
+        new Lz4Decompressor.Lz4DirectDecompressor();
+    decompressor.decompress(inBuf, outBuf);
+    assertTrue("direct decompressor finished error !!!",
+        decompressor.finished());
+    assertEquals(0, inBuf.remaining());
+    assertEquals(BYTE_SIZE + 10, outBuf.position());
+    byte[] decompressed = new byte[BYTE_SIZE];
+    outBuf.position(10);
+    outBuf.get(decompressed);
+    assertArrayEquals(bytes, decompressed);
+  }
+
   // test compress/decompress with empty stream
   @Test
   public void testCompressorDecompressorEmptyStreamLogic() {
@@ -17,6 +17,7 @@
 
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.io.DataInputBuffer;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.IOUtils;
@@ -41,6 +42,7 @@
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.Random;
 
@@ -504,6 +506,52 @@ public void testReadingWithAStream() throws Exception {
     assertEquals(bytesToHex(expected), bytesToHex(resultOfDecompression));
   }
 
+  @Test
+  public void testZStandardJniCompressDecompress() throws Exception {
+    assumeTrue(isJniLoaded());
+    byte[] expected = FileUtils.readFileToByteArray(uncompressedFile);
+
+    // the file written by the zstd cli must be readable through zstd-jni
+    try (InputStream in = FileUtils.openInputStream(compressedFile)) {
+      assertArrayEquals(expected, decompressWithJni(in));
+    }
+
+    ZStandardCompressor compressor = new ZStandardCompressor(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_ZSTD_LEVEL_DEFAULT,
+        IO_FILE_BUFFER_SIZE_DEFAULT, IO_FILE_BUFFER_SIZE_DEFAULT, true);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (CompressionOutputStream out =
+             new CompressorStream(baos, compressor, 1024)) {
+      out.write(expected);
+    }
+    assertEquals(expected.length, compressor.getBytesRead());
+    assertTrue(compressor.finished());
+
+    byte[] result =
+        decompressWithJni(new ByteArrayInputStream(baos.toByteArray()));
+    assertArrayEquals(expected, result);
+  }
+
+  private static byte[] decompressWithJni(InputStream in) throws IOException {
+    ZStandardDecompressor decompressor =
+        new ZStandardDecompressor(IO_FILE_BUFFER_SIZE_DEFAULT, true);
+    try (CompressionInputStream cis =
+             new DecompressorStream(in, decompressor, 1024);
+         ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+      IOUtils.copyBytes(cis, baos, 1024);
+      return baos.toByteArray();
+    }
+  }
+
+  private static boolean isJniLoaded() {
+    try {
+      return ZStandardJni.isLoaded();
+    } catch (Throwable t) {
+      // zstd-jni is an optional dependency
+      return false;
+    }
+  }
+
   @Test
   public void testDecompressReturnsWhenNothingToDecompress() throws Exception {
     ZStandardDecompressor decompressor =
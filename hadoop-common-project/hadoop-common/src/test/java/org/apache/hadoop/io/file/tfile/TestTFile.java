@@ -24,6 +24,7 @@
 
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
@@ -436,4 +437,78 @@ public void testMetaBlocks() throws IOException {
     reader.close();
     fin.close();
   }
+
+  // test that readers opened with the status of a file share its indexes
+  @Test
+  public void testIndexCache() throws IOException {
+    Path cFile = new Path(ROOT, "cached.tfile");
+    FSDataOutputStream fout = createFSOutput(cFile);
+    Writer writer = new Writer(fout, minBlockSize, "gz", "memcmp", conf);
+    writeRecords(writer);
+    fout.close();
+    conf.setInt(CommonConfigurationKeysPublic.TFILE_INDEX_CACHE_SIZE_KEY, 2);
+    try (FSDataInputStream fin1 = fs.open(cFile);
+        FSDataInputStream fin2 = fs.open(cFile);
+        Reader reader1 = new Reader(fin1, fs.getFileStatus(cFile), conf);
+        Reader reader2 = new Reader(fin2, fs.getFileStatus(cFile), conf)) {
+      assertTrue("indexes are not shared", reader1.readerBCF.getDataIndex()
+          == reader2.readerBCF.getDataIndex());
+      assertTrue(reader1.readerBCF.getBlockCount() > 1);
+      Scanner scanner = reader2.createScanner();
+      readAllRecords(scanner);
+      scanner.close();
+      scanner = reader1.createScannerByKey(getSomeKey(10), getSomeKey(60));
+      readAndCheckbytes(scanner, 10, 50);
+      assertFalse(scanner.advance());
+      scanner.close();
+
+      // a rewritten file is not read with the cached indexes.
+      fout = createFSOutput(cFile);
+      writer = new Writer(fout, minBlockSize, "none", "memcmp", conf);
+      writeRecords(writer);
+      fout.close();
+      try (FSDataInputStream fin3 = fs.open(cFile);
+          Reader reader3 = new Reader(fin3, fs.getFileStatus(cFile), conf)) {
+        assertFalse(reader1.readerBCF.getDataIndex()
+            == reader3.readerBCF.getDataIndex());
+        scanner = reader3.createScanner();
+        readAllRecords(scanner);
+        scanner.close();
+      }
+    } finally {
+      IndexCache.clear();
+      fs.delete(cFile, true);
+    }
+  }
+
+  // test that readers with another cache size share the cache of the first
+  @Test
+  public void testIndexCacheSizedOnce() throws IOException {
+    Path cFile = new Path(ROOT, "cachedSizes.tfile");
+    FSDataOutputStream fout = createFSOutput(cFile);
+    Writer writer = new Writer(fout, minBlockSize, "none", "memcmp", conf);
+    writeRecords(writer);
+    fout.close();
+    Configuration conf1 = new Configuration(conf);
+    conf1.setInt(CommonConfigurationKeysPublic.TFILE_INDEX_CACHE_SIZE_KEY, 1);
+    Configuration conf2 = new Configuration(conf);
+    conf2.setInt(CommonConfigurationKeysPublic.TFILE_INDEX_CACHE_SIZE_KEY, 5);
+    Configuration conf3 = new Configuration(conf);
+    conf3.setInt(CommonConfigurationKeysPublic.TFILE_INDEX_CACHE_SIZE_KEY, 0);
+    try (FSDataInputStream fin1 = fs.open(cFile);
+        FSDataInputStream fin2 = fs.open(cFile);
+        FSDataInputStream fin3 = fs.open(cFile);
+        Reader reader1 = new Reader(fin1, fs.getFileStatus(cFile), conf1);
+        Reader reader2 = new Reader(fin2, fs.getFileStatus(cFile), conf2);
+        Reader reader3 = new Reader(fin3, fs.getFileStatus(cFile), conf3)) {
+      assertTrue("the cache was replaced", reader1.readerBCF.getDataIndex()
+          == reader2.readerBCF.getDataIndex());
+      // a reader with the cache disabled reads the indexes itself
+      assertFalse(reader1.readerBCF.getDataIndex()
+          == reader3.readerBCF.getDataIndex());
+    } finally {
+      IndexCache.clear();
+      fs.delete(cFile, true);
+    }
+  }
 }
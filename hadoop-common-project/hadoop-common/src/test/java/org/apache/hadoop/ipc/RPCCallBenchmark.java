@@ -60,6 +60,7 @@ private static class MyOptions {
     private boolean failed = false;
     private int serverThreads = 0;
     private int serverReaderThreads = 1;
+    private boolean serverNetty = false;
     private int clientThreads = 0;
     private String host = "0.0.0.0";
     private int port = 0;
@@ -106,6 +107,13 @@ private Options buildOptions() {
           .desc("number of server reader threads to run")
           .build());
 
+      opts.addOption(
+          Option.builder("n")
+          .longOpt("serverNetty")
+          .hasArg(false)
+          .desc("use the Netty transport for the server")
+          .build());
+
       opts.addOption(
           Option.builder("c")
           .longOpt("clientThreads")
@@ -182,6 +190,9 @@ private void processOptions(CommandLine line, Options opts)
       if (line.hasOption('r')) {
         serverReaderThreads = Integer.parseInt(line.getOptionValue('r'));
       }
+      if (line.hasOption('n')) {
+        serverNetty = true;
+      }
       if (line.hasOption('c')) {
         clientThreads = Integer.parseInt(line.getOptionValue('c'));
       }
@@ -226,7 +237,8 @@ public int getPort() {
     @Override
     public String toString() {
       return "rpcEngine=" + rpcEngine + "\nserverThreads=" + serverThreads
-          + "\nserverReaderThreads=" + serverReaderThreads + "\nclientThreads="
+          + "\nserverReaderThreads=" + serverReaderThreads
+          + "\nserverNetty=" + serverNetty + "\nclientThreads="
           + clientThreads + "\nhost=" + host + "\nport=" + getPort()
           + "\nsecondsToRun=" + secondsToRun + "\nmsgSize=" + msgSize;
     }
@@ -240,6 +252,8 @@ private Server startServer(MyOptions opts) throws IOException {
     }
     conf.setInt(CommonConfigurationKeys.IPC_SERVER_RPC_READ_THREADS_KEY,
         opts.serverReaderThreads);
+    conf.setBoolean(CommonConfigurationKeys.IPC_SERVER_NETTY_ENABLED_KEY,
+        opts.serverNetty);
     
     RPC.Server server;
     // Get RPC server for server side implementation
@@ -235,6 +235,28 @@ public void testFcqBackwardCompatibility() throws InterruptedException {
     assertCanPut(manager, 3, 3);
   }
 
+  @Test
+  public void testShardedCallQueueDefaultsToDecayScheduler() {
+    // Specify only the sharded call queue without a scheduler, with and
+    // without a port, and ensure the DecayScheduler is paired with it
+    Configuration conf = new Configuration();
+    final String ns = CommonConfigurationKeys.IPC_NAMESPACE + ".0";
+    conf.setStrings(ns + "." + CommonConfigurationKeys.IPC_CALLQUEUE_IMPL_KEY,
+        ShardedCallQueue.class.getName());
+
+    Class<? extends RpcScheduler> scheduler =
+        Server.getSchedulerClass(CommonConfigurationKeys.IPC_NAMESPACE, 0,
+        conf);
+    assertEquals(DecayRpcScheduler.class, scheduler);
+
+    Configuration legacyConf = new Configuration();
+    legacyConf.setStrings(
+        ns + "." + CommonConfigurationKeys.IPC_CALLQUEUE_IMPL_KEY,
+        ShardedCallQueue.class.getName());
+    assertEquals(DecayRpcScheduler.class,
+        Server.getSchedulerClass(ns, legacyConf));
+  }
+
   @Test
   public void testSchedulerWithoutFCQ() throws InterruptedException {
     Configuration conf = new Configuration();
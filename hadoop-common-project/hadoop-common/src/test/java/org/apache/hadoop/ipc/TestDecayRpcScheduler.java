@@ -421,6 +421,47 @@ public void testUsingWeightedTimeCostProviderNoRequests() {
     assertEquals(0, scheduler.getPriorityLevel(mockCall("A")));
   }
 
+  @Test
+  public void testCostBudgetWithLockTimeCostProvider() {
+    final String ns = "ipc.53";
+    Configuration conf = new Configuration();
+    conf.setClass(ns + "." + CommonConfigurationKeys.IPC_COST_PROVIDER_KEY,
+        LockTimeCostProvider.class, CostProvider.class);
+    conf.setLong(ns + "."
+        + DecayRpcScheduler.IPC_SCHEDULER_DECAYSCHEDULER_PERIOD_KEY, 999999);
+    conf.setLong(ns + "."
+        + DecayRpcScheduler.IPC_DECAYSCHEDULER_COST_BUDGET_KEY, 1500);
+    scheduler = new DecayRpcScheduler(3, ns, conf);
+
+    // a cost of 2000 for the exclusive lock, while the lock free time of the
+    // interactive users is not billed.
+    ProcessingDetails etlDetails =
+        new ProcessingDetails(TimeUnit.NANOSECONDS);
+    etlDetails.set(ProcessingDetails.Timing.LOCKEXCLUSIVE, 200);
+    ProcessingDetails interactiveDetails =
+        new ProcessingDetails(TimeUnit.NANOSECONDS);
+    interactiveDetails.set(ProcessingDetails.Timing.LOCKSHARED, 1000);
+    interactiveDetails.set(ProcessingDetails.Timing.LOCKFREE, 1000000);
+
+    scheduler.addResponseTime("ignored", mockCall("ETL"), etlDetails);
+    for (int i = 0; i < 10; i++) {
+      scheduler.addResponseTime("ignored", mockCall("USER" + i),
+          interactiveDetails);
+    }
+
+    // the share of the ETL user would keep it at the highest priority, but
+    // it exceeds the budget.
+    assertEquals(2, scheduler.getPriorityLevel(mockCall("ETL")));
+    assertTrue(scheduler.shouldBackOff(mockCall("ETL")));
+    assertEquals(0, scheduler.getPriorityLevel(mockCall("USER0")));
+    assertFalse(scheduler.shouldBackOff(mockCall("USER0")));
+
+    // the ETL user gets back under the budget as its cost decays.
+    scheduler.forceDecay();
+    assertEquals(0, scheduler.getPriorityLevel(mockCall("ETL")));
+    assertFalse(scheduler.shouldBackOff(mockCall("ETL")));
+  }
+
   /**
    * Get a scheduler that uses {@link WeightedTimeCostProvider} and has
    * normal decaying disabled.
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.ipc;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.ipc.ProcessingDetails.Timing;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.hadoop.ipc.LockTimeCostProvider.DEFAULT_LOCK_EXCLUSIVE_WEIGHT;
+import static org.apache.hadoop.ipc.LockTimeCostProvider.DEFAULT_LOCK_SHARED_WEIGHT;
+import static org.junit.Assert.assertEquals;
+
+/** Tests for {@link LockTimeCostProvider}. */
+public class TestLockTimeCostProvider {
+
+  private static final int LOCKFREE_TIME = 5;
+  private static final int LOCKWAIT_TIME = 3;
+  private static final int LOCKSHARED_TIME = 7;
+  private static final int LOCKEXCLUSIVE_TIME = 11;
+
+  private LockTimeCostProvider costProvider;
+  private ProcessingDetails processingDetails;
+
+  @Before
+  public void setup() {
+    costProvider = new LockTimeCostProvider();
+    processingDetails = new ProcessingDetails(TimeUnit.NANOSECONDS);
+    processingDetails.set(Timing.LOCKFREE, LOCKFREE_TIME);
+    processingDetails.set(Timing.LOCKWAIT, LOCKWAIT_TIME);
+    processingDetails.set(Timing.LOCKSHARED, LOCKSHARED_TIME);
+    processingDetails.set(Timing.LOCKEXCLUSIVE, LOCKEXCLUSIVE_TIME);
+  }
+
+  @Test
+  public void testGetCostDefaultWeights() {
+    costProvider.init("foo", new Configuration());
+    long actualCost = costProvider.getCost(processingDetails);
+    long expectedCost = DEFAULT_LOCK_SHARED_WEIGHT * LOCKSHARED_TIME
+        + DEFAULT_LOCK_EXCLUSIVE_WEIGHT * LOCKEXCLUSIVE_TIME;
+    assertEquals(expectedCost, actualCost);
+  }
+
+  @Test
+  public void testGetCostConfiguredWeights() {
+    Configuration conf = new Configuration();
+    int lockwaitWeight = 2;
+    int lockexclusiveWeight = 1000;
+    conf.setInt("foo.weighted-cost.lockwait", lockwaitWeight);
+    conf.setInt("foo.weighted-cost.lockexclusive", lockexclusiveWeight);
+    costProvider.init("foo", conf);
+    long actualCost = costProvider.getCost(processingDetails);
+    long expectedCost = lockwaitWeight * LOCKWAIT_TIME
+        + DEFAULT_LOCK_SHARED_WEIGHT * LOCKSHARED_TIME
+        + lockexclusiveWeight * LOCKEXCLUSIVE_TIME;
+    assertEquals(expectedCost, actualCost);
+  }
+}
@@ -83,6 +83,7 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
@@ -107,6 +108,7 @@
 import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
 import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -730,6 +732,117 @@ public void testNoPings() throws Exception {
     new TestRPC().testCallsInternal(conf);
   }
 
+  /**
+   * Verify that RPC calls work when the server uses the Netty transport.
+   */
+  @Test
+  public void testCallsWithNettyServer() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setBoolean(CommonConfigurationKeys.IPC_SERVER_NETTY_ENABLED_KEY,
+        true);
+    new TestRPC().testCallsInternal(conf);
+
+    conf.setInt(CommonConfigurationKeys.IPC_SERVER_RPC_READ_THREADS_KEY, 2);
+    new TestRPC().testCallsInternal(conf);
+  }
+
+  /**
+   * Verify that RPC calls work when every call runs on its own thread, and
+   * that no more calls than the limit run at the same time.
+   */
+  @Test(timeout=60000)
+  public void testCallsWithVirtualThreadHandlers() throws Exception {
+    final int limit = 2;
+    final int numCalls = 6;
+    conf.setBoolean(
+        CommonConfigurationKeys.IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_KEY,
+        true);
+    conf.setInt(CommonConfigurationKeys
+        .IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_CONCURRENCY_KEY, limit);
+    final Server server = setupTestServer(conf, 10);
+    ExecutorService executor = Executors.newFixedThreadPool(numCalls);
+    try {
+      assertNotNull(server.isCallExecutorVirtual());
+      final TestRpcService proxy = getClient(addr, conf);
+      assertEquals("foo",
+          proxy.echo(null, newEchoRequest("foo")).getMessage());
+
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < numCalls; i++) {
+        futures.add(executor.submit(() -> {
+          // needs the current call of the server.
+          proxy.lockAndSleep(null, newSleepRequest(10));
+          proxy.sleep(null, newSleepRequest(200));
+          return null;
+        }));
+      }
+      int maxInProcess = 0;
+      for (Future<Void> future : futures) {
+        while (!future.isDone()) {
+          maxInProcess = Math.max(maxInProcess,
+              server.getNumInProcessHandler());
+          Thread.sleep(10);
+        }
+        future.get();
+      }
+      assertTrue("in process: " + maxInProcess,
+          maxInProcess > 0 && maxInProcess <= limit);
+
+      // the metrics of a call are updated after its response is sent.
+      final long expectedCalls = 1 + 2L * numCalls;
+      GenericTestUtils.waitFor(() -> getLongCounter("RpcProcessingTimeNumOps",
+          getMetrics(server.rpcMetrics.name())) == expectedCalls, 10, 10000);
+      assertCounter("RpcDispatchTimeNumOps", expectedCalls,
+          getMetrics(server.rpcMetrics.name()));
+    } finally {
+      executor.shutdownNow();
+      stop(server, null);
+    }
+  }
+
+  /**
+   * Verify that calls made with {@link ProtobufRpcEngine2#asyncCall} complete
+   * their futures, also when more calls are made than may be outstanding.
+   */
+  @Test(timeout=60000)
+  public void testAsyncCallFutures() throws Exception {
+    final int numCalls = 50;
+    conf.setInt(CommonConfigurationKeys.IPC_CLIENT_ASYNC_CALLS_MAX_KEY, 4);
+    Server server = setupTestServer(conf, 10);
+    TestRpcService proxy = null;
+    try {
+      proxy = getClient(addr, conf);
+      final TestRpcService p = proxy;
+      List<CompletableFuture<TestProtos.EchoResponseProto>> futures =
+          new ArrayList<>();
+      for (int i = 0; i < numCalls; i++) {
+        final TestProtos.EchoRequestProto request = newEchoRequest("m" + i);
+        futures.add(ProtobufRpcEngine2.asyncCall(() -> p.echo(null, request)));
+      }
+      for (int i = 0; i < numCalls; i++) {
+        assertEquals("m" + i, futures.get(i).get().getMessage());
+      }
+
+      // the exception of the server fails the future.
+      CompletableFuture<TestProtos.EmptyResponseProto> error =
+          ProtobufRpcEngine2.asyncCall(() -> p.error(null, newEmptyRequest()));
+      try {
+        error.get();
+        fail("The call should fail");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof RemoteException);
+        assertEquals(RpcServerException.class.getName(),
+            ((RemoteException) e.getCause()).getClassName());
+      }
+
+      // the calls of the thread are synchronous again.
+      assertEquals("sync",
+          proxy.echo(null, newEchoRequest("sync")).getMessage());
+    } finally {
+      stop(server, proxy);
+    }
+  }
+
   /**
    * Test stopping a non-registered proxy
    * @throws IOException
@@ -24,11 +24,13 @@
 import java.nio.ByteBuffer;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcRequestHeaderProto;
 import org.apache.hadoop.ipc.protobuf.TestProtos.EchoRequestProto;
 import org.apache.hadoop.util.Time;
 import org.junit.Assert;
 import org.junit.Test;
 
+import org.apache.hadoop.thirdparty.protobuf.ByteString;
 import org.apache.hadoop.thirdparty.protobuf.Message;
 
 public class TestRpcWritable {//extends TestRpcBase {
@@ -126,4 +128,28 @@ public void testBufferWrapperNested() throws IOException {
     Assert.assertEquals(message2, actual);
     Assert.assertEquals(0, buf2.remaining());
   }
+
+  @Test
+  public void testProtobufWrapperAliasing() throws IOException {
+    byte[] clientId = ClientId.getClientId();
+    RpcRequestHeaderProto header = RpcRequestHeaderProto.newBuilder()
+        .setCallId(1).setClientId(ByteString.copyFrom(clientId)).build();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    baos.write(new byte[7]);
+    header.writeDelimitedTo(baos);
+    byte[] data = baos.toByteArray();
+    ByteBuffer bb = ByteBuffer.wrap(data, 7, data.length - 7).slice();
+
+    RpcRequestHeaderProto actual = RpcWritable.wrap(
+        RpcRequestHeaderProto.getDefaultInstance()).readFrom(bb);
+    Assert.assertEquals(header, actual);
+    Assert.assertEquals(0, bb.remaining());
+
+    // the bytes field is backed by the rpc buffer rather than a copy.
+    for (int i = 0; i < data.length; i++) {
+      data[i] ^= (byte) 0xff;
+    }
+    Assert.assertNotEquals(ByteString.copyFrom(clientId),
+        actual.getClientId());
+  }
 }
@@ -0,0 +1,261 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.ipc;
+
+import static org.apache.hadoop.test.MetricsAsserts.assertCounter;
+import static org.apache.hadoop.test.MetricsAsserts.assertGauge;
+import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestShardedCallQueue {
+  private ShardedCallQueue<Schedulable> scq;
+
+  private Schedulable mockCall(String id, int priority) {
+    Schedulable mockCall = mock(Schedulable.class);
+    UserGroupInformation ugi = mock(UserGroupInformation.class);
+
+    when(ugi.getUserName()).thenReturn(id);
+    when(mockCall.getUserGroupInformation()).thenReturn(ugi);
+    when(mockCall.getPriorityLevel()).thenReturn(priority);
+    when(mockCall.toString()).thenReturn("id=" + id + " priority=" + priority);
+
+    return mockCall;
+  }
+
+  private static Configuration newConf(int stripes) {
+    Configuration conf = new Configuration();
+    conf.setInt("ns." + ShardedCallQueue.IPC_CALLQUEUE_SHARDED_STRIPES_KEY,
+        stripes);
+    return conf;
+  }
+
+  @Before
+  public void setUp() {
+    scq = new ShardedCallQueue<Schedulable>(2, 10, "ns", newConf(2));
+  }
+
+  @Test
+  public void testTotalCapacityOfSubQueues() {
+    ShardedCallQueue<Schedulable> queue;
+    queue = new ShardedCallQueue<Schedulable>(1, 1000, "ns", newConf(4));
+    assertThat(queue.remainingCapacity()).isEqualTo(1000);
+    queue = new ShardedCallQueue<Schedulable>(4, 1025, "ns", newConf(3));
+    assertThat(queue.remainingCapacity()).isEqualTo(1025);
+    queue = new ShardedCallQueue<Schedulable>(7, 1025, "ns",
+        new int[]{7, 6, 5, 4, 3, 2, 1}, newConf(8));
+    assertThat(queue.remainingCapacity()).isEqualTo(1025);
+    assertEquals(8, queue.getNumStripes());
+  }
+
+  @Test
+  public void testWeightedRoundRobin() {
+    Configuration conf = newConf(1);
+    conf.set("ns." +
+        WeightedRoundRobinMultiplexer.IPC_CALLQUEUE_WRRMUX_WEIGHTS_KEY, "2,1");
+    scq = new ShardedCallQueue<Schedulable>(2, 20, "ns", conf);
+    List<Schedulable> p0 = new ArrayList<>();
+    List<Schedulable> p1 = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      p0.add(mockCall("a" + i, 0));
+      p1.add(mockCall("b" + i, 1));
+      scq.add(p0.get(i));
+      scq.add(p1.get(i));
+    }
+
+    // two calls of the first level for every call of the second level, in
+    // FIFO order within a level, then whatever is left.
+    assertSame(p0.get(0), scq.poll());
+    assertSame(p0.get(1), scq.poll());
+    assertSame(p1.get(0), scq.poll());
+    assertSame(p0.get(2), scq.poll());
+    assertSame(p1.get(1), scq.poll());
+    assertSame(p1.get(2), scq.poll());
+    assertNull(scq.poll());
+    assertEquals(0, scq.size());
+  }
+
+  @Test
+  public void testAddOverflows() {
+    Schedulable p0 = mockCall("a", 0);
+    Schedulable p1 = mockCall("b", 1);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(scq.offer(p0));
+    }
+    assertFalse(scq.offer(p0));
+    // overflows into the lower priority level.
+    for (int i = 0; i < 5; i++) {
+      scq.add(p0);
+    }
+    assertEquals(10, scq.size());
+    assertEquals(0, scq.remainingCapacity());
+    try {
+      scq.add(p1);
+      fail("didn't overflow");
+    } catch (IllegalStateException ise) {
+      // Expected exception
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testPutAndTakeBlock() throws Exception {
+    // fills the last level.
+    Schedulable call = mockCall("c", 1);
+    for (int i = 0; i < 5; i++) {
+      scq.put(call);
+    }
+    final CountDownLatch putDone = new CountDownLatch(1);
+    Thread putter = new Thread(() -> {
+      try {
+        scq.put(call);
+        putDone.countDown();
+      } catch (InterruptedException ie) {
+        // exit
+      }
+    });
+    putter.start();
+    assertFalse(putDone.await(100, TimeUnit.MILLISECONDS));
+    assertSame(call, scq.take());
+    assertTrue(putDone.await(10, TimeUnit.SECONDS));
+    putter.join();
+    assertEquals(5, scq.drainTo(new ArrayList<>()));
+
+    assertNull(scq.poll(10, TimeUnit.MILLISECONDS));
+    final CountDownLatch takeDone = new CountDownLatch(1);
+    Thread taker = new Thread(() -> {
+      try {
+        scq.take();
+        takeDone.countDown();
+      } catch (InterruptedException ie) {
+        // exit
+      }
+    });
+    taker.start();
+    assertFalse(takeDone.await(100, TimeUnit.MILLISECONDS));
+    scq.put(call);
+    assertTrue(takeDone.await(10, TimeUnit.SECONDS));
+    taker.join();
+  }
+
+  @Test(timeout = 60000)
+  public void testConcurrentProducersAndConsumers() throws Exception {
+    final int numProducers = 4;
+    final int numConsumers = 8;
+    final int callsPerProducer = 5000;
+    final ShardedCallQueue<Schedulable> queue =
+        new ShardedCallQueue<Schedulable>(4, 64, "ns", newConf(4));
+    final Set<Schedulable> taken =
+        Collections.newSetFromMap(new ConcurrentHashMap<>());
+    final CountDownLatch allTaken =
+        new CountDownLatch(numProducers * callsPerProducer);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < numConsumers; i++) {
+      threads.add(new Thread(() -> {
+        try {
+          while (true) {
+            assertTrue(taken.add(queue.take()));
+            allTaken.countDown();
+          }
+        } catch (InterruptedException ie) {
+          // exit
+        }
+      }));
+    }
+    for (int i = 0; i < numProducers; i++) {
+      final List<Schedulable> calls = new ArrayList<>();
+      for (int j = 0; j < callsPerProducer; j++) {
+        calls.add(mockCall("u" + i, j % 4));
+      }
+      threads.add(new Thread(() -> {
+        try {
+          for (Schedulable call : calls) {
+            queue.put(call);
+          }
+        } catch (InterruptedException ie) {
+          // exit
+        }
+      }));
+    }
+    for (Thread t : threads) {
+      t.start();
+    }
+    allTaken.await();
+    for (Thread t : threads) {
+      t.interrupt();
+      t.join();
+    }
+    assertEquals(numProducers * callsPerProducer, taken.size());
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void testShardedCallQueueMetrics() throws Exception {
+    final String scqMetrics = "ns.ShardedCallQueue";
+    Schedulable p0 = mockCall("a", 0);
+    Schedulable p1 = mockCall("b", 1);
+
+    for (int i = 0; i < 5; i++) {
+      scq.add(p0);
+      scq.add(p1);
+    }
+    try {
+      scq.add(p1);
+      fail("didn't overflow");
+    } catch (IllegalStateException ise) {
+      // Expected exception
+    }
+
+    assertGauge("ShardedCallQueueSize_p0", 5, getMetrics(scqMetrics));
+    assertGauge("ShardedCallQueueSize_p1", 5, getMetrics(scqMetrics));
+    assertCounter("ShardedCallQueueOverflowedCalls_p0", 0L,
+        getMetrics(scqMetrics));
+    assertCounter("ShardedCallQueueOverflowedCalls_p1", 1L,
+        getMetrics(scqMetrics));
+
+    scq.take();
+    scq.take();
+    long numOps = getLongCounter("ShardedCallQueueTimeUs_p0NumOps",
+        getMetrics(scqMetrics)) + getLongCounter(
+        "ShardedCallQueueTimeUs_p1NumOps", getMetrics(scqMetrics));
+    assertEquals(2, numOps);
+  }
+}
@@ -128,6 +128,41 @@ public void testGetMetricsAndJmx() throws Exception {
     assertEquals(1L, (Number)sa.getAttribute("C1"));
   }
 
+  @Test
+  public void testJmxReusesSnapshot() throws Exception {
+    CountingSource source = new CountingSource();
+    List<MetricsTag> injectedTags = new ArrayList<MetricsTag>();
+    MetricsSourceAdapter sa = new MetricsSourceAdapter(
+        "test", "test", "test desc", source, injectedTags, null, null,
+        60000, false);
+
+    // the records of a recent snapshot are used for the JMX cache.
+    sa.getMetrics(new MetricsCollectorImpl(), true);
+    assertEquals(1, source.calls);
+    assertEquals(1, (Number) sa.getAttribute("Calls"));
+    assertEquals(1, source.calls);
+
+    // snapshots of changed metrics only are not.
+    sa = new MetricsSourceAdapter("test", "test", "test desc", source,
+        injectedTags, null, null, 60000, false);
+    sa.getMetrics(new MetricsCollectorImpl(), false);
+    assertEquals(2, source.calls);
+    assertEquals(3, (Number) sa.getAttribute("Calls"));
+    assertEquals(3, source.calls);
+  }
+
+  /** Reports the number of calls to getMetrics. */
+  private static class CountingSource implements MetricsSource {
+    private int calls = 0;
+
+    @Override
+    public void getMetrics(MetricsCollector collector, boolean all) {
+      calls++;
+      collector.addRecord("CountingSource").setContext("test")
+          .addGauge(info("Calls", "Number of calls"), calls);
+    }
+  }
+
   @SuppressWarnings("unused")
   @Metrics(context="test")
   private static class TestSource {
@@ -59,6 +59,22 @@ public class TestMetricsRegistry {
     });
   }
 
+  /**
+   * Test that latency quantiles are estimated by a histogram if enabled
+   */
+  @Test public void testNewLatencyQuantiles() {
+    final MetricsRegistry r = new MetricsRegistry("test");
+    MutableQuantiles q1 = r.newLatencyQuantiles("q1", "q1 desc", 1, false,
+        true);
+    MutableQuantiles q2 = r.newLatencyQuantiles("q2", "q2 desc", 1, true,
+        true);
+
+    assertEquals("num metrics in registry", 2, r.metrics().size());
+    assertFalse("q1 is not a histogram", q1 instanceof MutableHistogram);
+    assertTrue("q2 is a histogram", q2 instanceof MutableHistogram);
+    assertSame("q2 found", q2, r.get("q2"));
+  }
+
   /**
    * Test adding metrics with whitespace in the name
    */
@@ -24,6 +24,7 @@
 import static org.mockito.AdditionalMatchers.eq;
 import static org.mockito.AdditionalMatchers.geq;
 import static org.mockito.AdditionalMatchers.leq;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -37,6 +38,7 @@
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 
+import org.apache.hadoop.metrics2.MetricsInfo;
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.metrics2.util.Quantile;
 import org.apache.hadoop.thirdparty.com.google.common.math.Stats;
@@ -625,6 +627,51 @@ public void testMutableInverseQuantilesEmptyRollover() throws Exception {
         info("FooNumOps", "Number of ops for stat with 5s interval"), 0L);
   }
 
+  /**
+   * Ensure that {@link MutableHistogram} estimates the quantiles within the
+   * relative error of its buckets, and exports the cumulative buckets.
+   */
+  @Test(timeout = 30000)
+  public void testMutableHistogram() throws Exception {
+    MetricsRecordBuilder mb = mockMetricsRecordBuilder();
+    MetricsRegistry registry = new MetricsRegistry("test");
+    // Use a 5s rollover period
+    MutableQuantiles histogram = registry.newHistogram("foo", "stat", "Ops",
+        "Latency", 5, true);
+    long startTimeMS = System.currentTimeMillis();
+    for (long i = 1; i <= SAMPLE_COUNT; i++) {
+      histogram.add(i);
+      histogram.add(1001 - i);
+    }
+    long endTimeMS = System.currentTimeMillis();
+
+    Thread.sleep(SLEEP_TIME_MS - (endTimeMS - startTimeMS));
+
+    registry.snapshot(mb, false);
+
+    verify(mb).addGauge(
+        info("FooNumOps", "Number of ops for stat with 5s interval"), 2000L);
+    String name = "Foo%dthPercentileLatency";
+    String desc = "%d percentile latency with 5 second interval for stat";
+    for (Quantile q : MutableQuantiles.QUANTILES) {
+      int percentile = (int) (100 * q.quantile);
+      String n = String.format(name, percentile);
+      String d = String.format(desc, percentile);
+      long expected = (long) (q.quantile * 1000);
+      verify(mb).addGauge(eq(info(n, d)), leq(expected + expected / 32));
+      verify(mb).addGauge(eq(info(n, d)), geq(expected));
+    }
+
+    String bucketDesc = "Number of ops for stat with latency at most ";
+    verify(mb).addCounter(info("FooBucket_le_0", bucketDesc + 0), 0L);
+    verify(mb).addCounter(info("FooBucket_le_1", bucketDesc + 1), 2L);
+    verify(mb).addCounter(info("FooBucket_le_511", bucketDesc + 511), 1022L);
+    verify(mb).addCounter(info("FooBucket_le_1023", bucketDesc + 1023), 2000L);
+    verify(mb).addCounter(
+        info("FooBucket_le_Inf", bucketDesc + "infinity"), 2000L);
+    verify(mb, times(12)).addCounter(any(MetricsInfo.class), anyLong());
+  }
+
   /**
    * Test {@link MutableGaugeFloat#incr()}.
    */
@@ -33,7 +33,9 @@
 import org.apache.hadoop.metrics2.annotation.Metric.Type;
 import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
 import org.apache.hadoop.metrics2.lib.Interns;
+import org.apache.hadoop.metrics2.lib.MetricsRegistry;
 import org.apache.hadoop.metrics2.lib.MutableCounterLong;
+import org.apache.hadoop.metrics2.lib.MutableQuantiles;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -274,6 +276,55 @@ public void testTopMetricsPublish() throws IOException {
     metrics.shutdown();
   }
 
+  /**
+   * The buckets of a histogram are written as a single metric with the
+   * upper bound of the buckets as tag.
+   */
+  @Test
+  public void testHistogramPublish() throws IOException {
+    MetricsSystem metrics = DefaultMetricsSystem.instance();
+
+    metrics.init("test");
+
+    //GIVEN
+    PrometheusMetricsSink sink = new PrometheusMetricsSink();
+
+    metrics.register("prometheus", "prometheus", sink);
+    TestHistogramMetrics histogramMetrics = metrics.register(
+        "TestHistogram", "Testing histogram", new TestHistogramMetrics());
+    histogramMetrics.latency.add(1);
+    histogramMetrics.latency.add(2);
+    histogramMetrics.latency.add(100);
+
+    metrics.start();
+
+    metrics.publishMetricsNow();
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    OutputStreamWriter writer = new OutputStreamWriter(stream, UTF_8);
+
+    //WHEN
+    sink.writeMetrics(writer);
+    writer.flush();
+
+    //THEN
+    String writtenMetrics = stream.toString(UTF_8.name());
+    System.out.println(writtenMetrics);
+
+    assertThat(writtenMetrics)
+        .contains("# TYPE test_histogram_latency_bucket counter")
+        .contains("le=\"0\"} 0")
+        .contains("le=\"1\"} 1")
+        .contains("le=\"3\"} 2")
+        .contains("le=\"127\"} 3")
+        .contains("le=\"+Inf\"} 3")
+        .doesNotContain("le=\"255\"")
+        .doesNotContain("test_histogram_latency_bucket_le");
+
+    metrics.unregisterSource("TestHistogram");
+    metrics.stop();
+    metrics.shutdown();
+  }
+
   /**
    * Example metric pojo.
    */
@@ -298,6 +349,21 @@ String testTag1() {
     private MutableCounterLong numBucketCreateFails;
   }
 
+  /**
+   * Example metrics source with a histogram.
+   */
+  private static class TestHistogramMetrics implements MetricsSource {
+    private final MetricsRegistry registry =
+        new MetricsRegistry("TestHistogram").setContext("dfs");
+    private final MutableQuantiles latency = registry.newHistogram(
+        "latency", "test latency", "ops", "latency", 60, true);
+
+    @Override
+    public void getMetrics(MetricsCollector collector, boolean all) {
+      registry.snapshot(collector.addRecord(registry.info()), all);
+    }
+  }
+
   /**
    * Example metric TopMetrics.
    */
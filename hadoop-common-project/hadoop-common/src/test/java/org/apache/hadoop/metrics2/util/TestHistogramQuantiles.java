@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.metrics2.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestHistogramQuantiles {
+
+  static final Quantile[] quantiles = { new Quantile(0.50, 0.050),
+      new Quantile(0.75, 0.025), new Quantile(0.90, 0.010),
+      new Quantile(0.95, 0.005), new Quantile(0.99, 0.001) };
+
+  private HistogramQuantiles estimator;
+
+  @Before
+  public void init() {
+    estimator = new HistogramQuantiles(quantiles);
+  }
+
+  /**
+   * Check that every value is counted in a bucket whose bounds contain it,
+   * and that the buckets are contiguous.
+   */
+  @Test
+  public void testBuckets() {
+    long previousUpperBound = -1;
+    for (int i = 0; i < estimator.getNumBuckets(); i++) {
+      long upperBound = HistogramQuantiles.getBucketUpperBound(i);
+      assertThat(upperBound).isGreaterThan(previousUpperBound);
+      assertThat(HistogramQuantiles.getBucket(previousUpperBound + 1))
+          .isEqualTo(i);
+      assertThat(HistogramQuantiles.getBucket(upperBound)).isEqualTo(i);
+      // the width of a bucket is at most 1/32 of its values.
+      assertThat((upperBound - previousUpperBound - 1) * 32)
+          .isLessThanOrEqualTo(upperBound);
+      previousUpperBound = upperBound;
+    }
+    assertThat(previousUpperBound).isEqualTo(HistogramQuantiles.MAX_VALUE);
+    assertThat(HistogramQuantiles.getBucket(-1)).isZero();
+    assertThat(HistogramQuantiles.getBucket(Long.MAX_VALUE))
+        .isEqualTo(estimator.getNumBuckets() - 1);
+    for (int power = 0; power <= 41; power++) {
+      long bound = (1L << power) - 1;
+      assertThat(HistogramQuantiles.getBucketUpperBound(
+          HistogramQuantiles.getBucket(bound))).isEqualTo(bound);
+    }
+  }
+
+  /**
+   * Check that the estimates are within the relative error of the buckets
+   * for random values of different magnitudes.
+   */
+  @Test
+  public void testQuantileError() {
+    final int count = 100000;
+    Random r = new Random(0xDECAFBAD);
+    List<Long> values = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      long value = (long) Math.exp(r.nextDouble() * 25);
+      values.add(value);
+      estimator.insert(value);
+    }
+    values.sort(null);
+    assertThat(estimator.getCount()).isEqualTo(count);
+
+    Map<Quantile, Long> snapshot = estimator.snapshot();
+    for (Quantile q : quantiles) {
+      long actual = values.get((int) Math.ceil(q.quantile * count) - 1);
+      long estimate = snapshot.get(q);
+      assertThat(estimate).isGreaterThanOrEqualTo(actual);
+      assertThat(estimate).isLessThanOrEqualTo(actual + actual / 32);
+    }
+  }
+
+  /**
+   * Check that small values are reported exactly.
+   */
+  @Test
+  public void testExactSmallValues() {
+    for (int i = 1; i <= 50; i++) {
+      estimator.insert(i);
+      estimator.insert(51 - i);
+    }
+    Map<Quantile, Long> snapshot = estimator.snapshot();
+    assertThat(snapshot.get(quantiles[0])).isEqualTo(25);
+    assertThat(snapshot.get(quantiles[2])).isEqualTo(45);
+    assertThat(snapshot.get(quantiles[4])).isEqualTo(50);
+  }
+
+  /**
+   * Check that {@link HistogramQuantiles#clear()} resets the values seen by
+   * the last snapshot only.
+   */
+  @Test
+  public void testClear() {
+    assertThat(estimator.snapshot()).isNull();
+    for (int i = 0; i < 1000; i++) {
+      estimator.insert(1000);
+    }
+    assertThat(estimator.snapshot().get(quantiles[0])).isEqualTo(1007);
+    // inserted after the snapshot, so kept by the clear.
+    estimator.insert(5);
+    estimator.clear();
+    assertThat(estimator.getCount()).isOne();
+    assertThat(estimator.snapshot().get(quantiles[0])).isEqualTo(5);
+    estimator.clear();
+    assertThat(estimator.getCount()).isZero();
+    assertThat(estimator.snapshot()).isNull();
+    // the bucket counts are not cleared.
+    assertThat(estimator.getBucketCount(HistogramQuantiles.getBucket(1000)))
+        .isEqualTo(1000);
+  }
+
+  /**
+   * Check that no values are lost when inserting concurrently.
+   */
+  @Test(timeout = 60000)
+  public void testConcurrentInserts() throws Exception {
+    final int numThreads = 4;
+    final int valuesPerThread = 100000;
+    Thread[] threads = new Thread[numThreads];
+    for (int i = 0; i < numThreads; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < valuesPerThread; j++) {
+          estimator.insert(j);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertThat(estimator.getCount()).isEqualTo(numThreads * valuesPerThread);
+  }
+}
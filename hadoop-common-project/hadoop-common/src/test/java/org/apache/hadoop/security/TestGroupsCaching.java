@@ -17,11 +17,15 @@
  */
 package org.apache.hadoop.security;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -31,6 +35,7 @@
 
 import org.apache.hadoop.test.GenericTestUtils;
 import org.apache.hadoop.util.FakeTimer;
+import org.apache.hadoop.util.Time;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -846,4 +851,98 @@ public void testNegativeCacheEntriesExpire() throws Exception {
     timer.advance(1000);
     assertFalse(groups.getNegativeCache().contains("user2"));
   }
+
+  @Test
+  public void testPrefetch() throws Exception {
+    conf.setBoolean(
+        CommonConfigurationKeys.HADOOP_SECURITY_GROUPS_CACHE_BACKGROUND_RELOAD,
+        true);
+    FakeTimer timer = new FakeTimer();
+    final Groups groups = new Groups(conf, timer);
+    groups.cacheGroupsAdd(Arrays.asList(myGroups));
+    groups.refresh();
+    FakeGroupMapping.clearBlackList();
+    FakeGroupMapping.addToBlackList("user1");
+
+    groups.getGroups("me");
+    FakeGroupMapping.resetRequestCount();
+    // cached users are not looked up again.
+    groups.prefetch(Arrays.asList("me", "one", "two", "user1"));
+    waitForGroupCounters(groups, 0, 0, 2, 1);
+    assertEquals(3, FakeGroupMapping.getRequestCount());
+    assertTrue(groups.getNegativeCache().contains("user1"));
+
+    groups.getGroups("one");
+    groups.getGroups("two");
+    assertEquals(3, FakeGroupMapping.getRequestCount());
+    assertEquals(3, groups.getLookups());
+  }
+
+  @Test
+  public void testSnapshot() throws Exception {
+    File snapshot = new File(GenericTestUtils.getRandomizedTestDir(),
+        "groups");
+    conf.set(CommonConfigurationKeys.HADOOP_SECURITY_GROUPS_CACHE_SNAPSHOT_FILE,
+        snapshot.getPath());
+    List<Groups> services = new ArrayList<>();
+    try {
+      Groups groups = new Groups(conf);
+      services.add(groups);
+      groups.cacheGroupsAdd(Arrays.asList(myGroups));
+      groups.refresh();
+      FakeGroupMapping.clearBlackList();
+
+      groups.getGroups("me");
+      groups.getGroups("you");
+      groups.saveSnapshot();
+      assertTrue(snapshot.isFile());
+      if (snapshot.toPath().getFileSystem().supportedFileAttributeViews()
+          .contains("posix")) {
+        assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ,
+            PosixFilePermission.OWNER_WRITE),
+            Files.getPosixFilePermissions(snapshot.toPath()));
+      }
+
+      // a restarted service serves the saved groups without looking them up.
+      FakeGroupMapping.resetRequestCount();
+      Groups restarted = new Groups(conf);
+      services.add(restarted);
+      assertEquals(Arrays.asList(myGroups), restarted.getGroups("me"));
+      assertEquals(Arrays.asList(myGroups), restarted.getGroups("you"));
+      assertEquals(0, FakeGroupMapping.getRequestCount());
+
+      // a snapshot older than the cache timeout is ignored.
+      assertTrue(snapshot.setLastModified(Time.now() - 301 * 1000));
+      restarted = new Groups(conf);
+      services.add(restarted);
+      restarted.getGroups("me");
+      assertEquals(1, FakeGroupMapping.getRequestCount());
+
+      // with background reload, the loaded groups are refreshed at once.
+      assertTrue(snapshot.setLastModified(Time.now()));
+      FakeGroupMapping.resetRequestCount();
+      conf.setBoolean(
+          CommonConfigurationKeys.HADOOP_SECURITY_GROUPS_CACHE_BACKGROUND_RELOAD,
+          true);
+      restarted = new Groups(conf);
+      services.add(restarted);
+      assertEquals(Arrays.asList(myGroups), restarted.getGroups("me"));
+      GenericTestUtils.waitFor(() -> FakeGroupMapping.getRequestCount() == 2,
+          10, 10000);
+
+      // with background reload, the users of an old snapshot are prefetched.
+      assertTrue(snapshot.setLastModified(Time.now() - 301 * 1000));
+      FakeGroupMapping.resetRequestCount();
+      restarted = new Groups(conf);
+      services.add(restarted);
+      GenericTestUtils.waitFor(() -> FakeGroupMapping.getRequestCount() == 2,
+          10, 10000);
+      assertEquals(Arrays.asList(myGroups), restarted.getGroups("you"));
+      assertEquals(2, FakeGroupMapping.getRequestCount());
+    } finally {
+      for (Groups service : services) {
+        service.removeSnapshotHook();
+      }
+    }
+  }
 }
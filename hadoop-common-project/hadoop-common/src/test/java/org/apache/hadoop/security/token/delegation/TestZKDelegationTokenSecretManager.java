@@ -513,6 +513,70 @@ public Boolean get() {
     }, 1000, 5000);
   }
 
+  @SuppressWarnings({ "unchecked" })
+  @Test
+  public void testTokenLoadingCache() throws Exception {
+    final String connectString = zkServer.getConnectString();
+    final Configuration conf = getSecretConf(connectString);
+    conf.setBoolean(
+        ZKDelegationTokenSecretManager.ZK_DTSM_TOKEN_WATCHER_ENABLED, false);
+    conf.setBoolean(
+        ZKDelegationTokenSecretManager.ZK_DTSM_TOKEN_LOADING_CACHE_ENABLED,
+        true);
+    conf.setLong(
+        ZKDelegationTokenSecretManager.ZK_DTSM_TOKEN_LOADING_CACHE_MAX_SIZE, 1);
+    // Set the token expire time to 5 seconds.
+    conf.setLong(DelegationTokenManager.RENEW_INTERVAL, 5);
+    DelegationTokenManager tm1 =
+        new DelegationTokenManager(conf, new Text("bla"));
+    tm1.init();
+    // Only the second manager removes expired tokens, every second.
+    conf.setLong(DelegationTokenManager.REMOVAL_SCAN_INTERVAL, 1);
+    DelegationTokenManager tm2 =
+        new DelegationTokenManager(conf, new Text("bla"));
+    tm2.init();
+    final ZKDelegationTokenSecretManager sm2 =
+        (ZKDelegationTokenSecretManager) tm2.getDelegationTokenSecretManager();
+    Assert.assertTrue(sm2.isTokenLoadingCacheEnabled());
+
+    List<Token<DelegationTokenIdentifier>> tokens = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      tokens.add((Token<DelegationTokenIdentifier>) tm1.createToken(
+          UserGroupInformation.getCurrentUser(), "foo"));
+    }
+    // The tokens of a peer are read from ZK, but only one is kept in memory.
+    for (Token<DelegationTokenIdentifier> token : tokens) {
+      tm2.verifyToken(token);
+    }
+    Assert.assertEquals(1, sm2.getCurrentTokensSize());
+
+    tm2.cancelToken(tokens.get(0), "foo");
+    // The peer does not keep the cancelled token in memory.
+    LambdaTestUtils.intercept(SecretManager.InvalidToken.class,
+        () -> tm1.verifyToken(tokens.get(0)));
+    tm1.verifyToken(tokens.get(1));
+    // The second manager counts the tokens it creates in its owner stats.
+    tm2.createToken(UserGroupInformation.getCurrentUser(), "foo");
+    Assert.assertEquals(1, sm2.getTopTokenRealOwners(1).get(0).getValue());
+
+    // Expired tokens are removed from ZK, even if they are not in memory.
+    final AbstractDelegationTokenIdentifier id =
+        sm2.decodeTokenIdentifier(tokens.get(2));
+    GenericTestUtils.waitFor(() -> {
+      try {
+        return sm2.getTokenInfoFromZK(
+            (DelegationTokenIdentifier) id, true) == null;
+      } catch (IOException e) {
+        return false;
+      }
+    }, 1000, 20000);
+    // The tokens of the peer are not taken off its owner stats.
+    Assert.assertEquals(1, sm2.getTopTokenRealOwners(1).get(0).getValue());
+
+    verifyDestroy(tm1, conf);
+    verifyDestroy(tm2, conf);
+  }
+
   @Test
   public void testCreatingParentContainersIfNeeded() throws Exception {
 
@@ -121,6 +121,36 @@ void testCorrectness() throws ChecksumException {
         assertTrue(ce.getMessage().contains("fake file"));
       }
     }
+
+    void testVerifyAndCopy(boolean directDest) throws ChecksumException {
+      checksum.calculateChunkedSums(dataBuf, checksumBuf);
+      ByteBuffer dest = directDest ?
+          ByteBuffer.allocateDirect(dataLength + 1) :
+          ByteBuffer.allocate(dataLength + 1);
+      dest.put((byte) 0);
+      checksum.verifyChunkedSumsAndCopy(dataBuf, checksumBuf, dest,
+          "fake file", 0);
+      assertEquals(dataLength + 1, dest.position());
+      assertEquals(DATA_OFFSET_IN_BUFFER, dataBuf.position());
+      assertEquals(SUMS_OFFSET_IN_BUFFER, checksumBuf.position());
+      dest.position(1);
+      assertEquals(dataBuf, dest);
+
+      // a bad checksum of the last chunk fails, without moving the
+      // destination.
+      dest.clear();
+      corruptBufferOffset(checksumBuf, SUMS_OFFSET_IN_BUFFER + sumsLength - 1);
+      try {
+        checksum.verifyChunkedSumsAndCopy(dataBuf, checksumBuf, dest,
+            "fake file", 0);
+        fail("Did not throw on bad checksums");
+      } catch (ChecksumException ce) {
+        int expectedPos = checksum.getBytesPerChecksum() * (numSums - 1);
+        assertEquals(expectedPos, ce.getPos());
+        assertEquals(0, dest.position());
+      }
+      uncorruptBufferOffset(checksumBuf, SUMS_OFFSET_IN_BUFFER + sumsLength - 1);
+    }
   }
 
   private void doBulkTest(DataChecksum checksum, int dataLength,
@@ -130,6 +160,9 @@ private void doBulkTest(DataChecksum checksum, int dataLength,
         (useDirect ? "direct" : "array-backed") + " buffers");
 
     new Harness(checksum, dataLength, useDirect).testCorrectness();
+    Harness harness = new Harness(checksum, dataLength, useDirect);
+    harness.testVerifyAndCopy(false);
+    harness.testVerifyAndCopy(true);
   }
 
   /**
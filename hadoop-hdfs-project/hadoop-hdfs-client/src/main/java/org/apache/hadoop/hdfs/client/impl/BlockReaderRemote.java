@@ -141,21 +141,25 @@ public synchronized int read(byte[] buf, int off, int len)
           randomId, filename, datanodeID.getHostName());
     }
 
+    int nRead = 0;
     if (curDataSlice == null ||
         curDataSlice.remaining() == 0 && bytesNeededToFinish > 0) {
-      readNextPacket();
+      nRead = readNextPacket(ByteBuffer.wrap(buf, off, len));
     }
 
     if (logTraceEnabled) {
       LOG.trace("Finishing read #{}", randomId);
     }
 
+    if (nRead > 0) {
+      return nRead;
+    }
     if (curDataSlice.remaining() == 0) {
       // we're at EOF now
       return -1;
     }
 
-    int nRead = Math.min(curDataSlice.remaining(), len);
+    nRead = Math.min(curDataSlice.remaining(), len);
     curDataSlice.get(buf, off, nRead);
 
     return nRead;
@@ -166,7 +170,10 @@ public synchronized int read(byte[] buf, int off, int len)
   public synchronized int read(ByteBuffer buf) throws IOException {
     if (curDataSlice == null ||
         (curDataSlice.remaining() == 0 && bytesNeededToFinish > 0)) {
-      readNextPacket();
+      int nRead = readNextPacket(buf);
+      if (nRead > 0) {
+        return nRead;
+      }
     }
     if (curDataSlice.remaining() == 0) {
       // we're at EOF now
@@ -182,7 +189,15 @@ public synchronized int read(ByteBuffer buf) throws IOException {
     return nRead;
   }
 
-  private void readNextPacket() throws IOException {
+  /**
+   * Read the next packet, and verify its checksums.
+   * @param dest the buffer the caller reads into, or null. If all of the data
+   *             of the packet fits, it is copied while being verified.
+   * @return the number of bytes copied to dest, which are consumed from the
+   *         packet.
+   */
+  private int readNextPacket(ByteBuffer dest) throws IOException {
+    int copied = 0;
     //Read packet headers.
     packetReceiver.receiveNextPacket(in);
 
@@ -213,9 +228,18 @@ private void readNextPacket() throws IOException {
         // relative to the start of the block, not the start of the file.
         // This is slightly misleading, but preserves the behavior from
         // the older BlockReader.
-        checksum.verifyChunkedSums(curDataSlice,
-            packetReceiver.getChecksumSlice(),
-            filename, curHeader.getOffsetInBlock());
+        if (dest != null && curHeader.getOffsetInBlock() >= startOffset
+            && dest.remaining() >= curDataSlice.remaining()) {
+          copied = curDataSlice.remaining();
+          checksum.verifyChunkedSumsAndCopy(curDataSlice,
+              packetReceiver.getChecksumSlice(), dest,
+              filename, curHeader.getOffsetInBlock());
+          curDataSlice.position(curDataSlice.limit());
+        } else {
+          checksum.verifyChunkedSums(curDataSlice,
+              packetReceiver.getChecksumSlice(),
+              filename, curHeader.getOffsetInBlock());
+        }
       }
       bytesNeededToFinish -= curHeader.getDataLen();
     }
@@ -237,6 +261,7 @@ private void readNextPacket() throws IOException {
         sendReadResult(Status.SUCCESS);
       }
     }
+    return copied;
   }
 
   @Override
@@ -248,7 +273,7 @@ public synchronized long skip(long n) throws IOException {
       long needToSkip = n - skipped;
       if (curDataSlice == null ||
           curDataSlice.remaining() == 0 && bytesNeededToFinish > 0) {
-        readNextPacket();
+        readNextPacket(null);
       }
       if (curDataSlice.remaining() == 0) {
         // we're at EOF now
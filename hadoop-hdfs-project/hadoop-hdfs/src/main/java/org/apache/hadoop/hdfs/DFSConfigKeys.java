@@ -352,6 +352,13 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
       = false;
   public static final String  DFS_NAMENODE_ACLS_ENABLED_KEY = "dfs.namenode.acls.enabled";
   public static final boolean DFS_NAMENODE_ACLS_ENABLED_DEFAULT = true;
+  public static final String DFS_NAMENODE_ACLS_PERMISSION_CACHE_SIZE_KEY =
+      "dfs.namenode.acls.permission-cache.size";
+  public static final int DFS_NAMENODE_ACLS_PERMISSION_CACHE_SIZE_DEFAULT = 0;
+  public static final String DFS_NAMENODE_ACLS_PERMISSION_CACHE_MAX_USERS_KEY =
+      "dfs.namenode.acls.permission-cache.max-users";
+  public static final int DFS_NAMENODE_ACLS_PERMISSION_CACHE_MAX_USERS_DEFAULT =
+      1024;
   public static final String DFS_NAMENODE_POSIX_ACL_INHERITANCE_ENABLED_KEY =
       "dfs.namenode.posix.acl.inheritance.enabled";
   public static final boolean
@@ -361,6 +368,8 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
 
   public static final String  DFS_NAMENODE_XATTRS_ENABLED_KEY = "dfs.namenode.xattrs.enabled";
   public static final boolean DFS_NAMENODE_XATTRS_ENABLED_DEFAULT = true;
+  public static final String  DFS_NAMENODE_XATTRS_INTERN_ENABLED_KEY = "dfs.namenode.xattrs.intern.enabled";
+  public static final boolean DFS_NAMENODE_XATTRS_INTERN_ENABLED_DEFAULT = false;
   public static final String  DFS_ADMIN = "dfs.cluster.administrators";
   public static final String  DFS_SERVER_HTTPS_KEYSTORE_RESOURCE_KEY = "dfs.https.server.keystore.resource";
   public static final String  DFS_SERVER_HTTPS_KEYSTORE_RESOURCE_DEFAULT = "ssl-server.xml";
@@ -523,6 +532,11 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
       "dfs.namenode.snapshotdiff.listing.limit";
   public static final int
       DFS_NAMENODE_SNAPSHOT_DIFF_LISTING_LIMIT_DEFAULT = 1000;
+  public static final String
+      DFS_NAMENODE_SNAPSHOT_DIFF_LISTING_MAX_INODES =
+      "dfs.namenode.snapshotdiff.listing.max-inodes";
+  public static final int
+      DFS_NAMENODE_SNAPSHOT_DIFF_LISTING_MAX_INODES_DEFAULT = 0;
 
   public static final String DFS_NAMENODE_SNAPSHOT_MAX_LIMIT =
       "dfs.namenode.snapshot.max.limit";
@@ -619,6 +633,11 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
       "dfs.namenode.max-lock-hold-to-release-lease-ms";
   public static final long
       DFS_NAMENODE_MAX_LOCK_HOLD_TO_RELEASE_LEASE_MS_DEFAULT = 25;
+  public static final String
+      DFS_NAMENODE_MAX_FILES_TO_RELEASE_LEASE_KEY =
+      "dfs.namenode.max-files-to-release-lease";
+  public static final int
+      DFS_NAMENODE_MAX_FILES_TO_RELEASE_LEASE_DEFAULT = 0;
 
   public static final String DFS_NAMENODE_FSLOCK_FAIR_KEY =
       "dfs.namenode.fslock.fair";
@@ -689,6 +708,9 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String  DFS_METRICS_SESSION_ID_KEY =
       HdfsClientConfigKeys.DeprecatedKeys.DFS_METRICS_SESSION_ID_KEY;
   public static final String  DFS_METRICS_PERCENTILES_INTERVALS_KEY = "dfs.metrics.percentiles.intervals";
+  public static final String  DFS_METRICS_PERCENTILES_HISTOGRAM_KEY =
+      "dfs.metrics.percentiles.histogram";
+  public static final boolean DFS_METRICS_PERCENTILES_HISTOGRAM_DEFAULT = false;
 
   public static final String  DFS_DATANODE_PEER_STATS_ENABLED_KEY =
       "dfs.datanode.peer.stats.enabled";
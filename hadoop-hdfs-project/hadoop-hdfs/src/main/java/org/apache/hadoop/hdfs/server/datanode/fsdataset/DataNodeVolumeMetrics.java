@@ -226,6 +226,12 @@ public double getFileIoErrorStdDev() {
 
   public DataNodeVolumeMetrics(final MetricsSystem metricsSystem,
       final String volumeName, final int[] intervals) {
+    this(metricsSystem, volumeName, intervals, false);
+  }
+
+  public DataNodeVolumeMetrics(final MetricsSystem metricsSystem,
+      final String volumeName, final int[] intervals,
+      final boolean histograms) {
     this.ms = metricsSystem;
     this.name = volumeName;
     final int len = intervals.length;
@@ -239,30 +245,30 @@ public DataNodeVolumeMetrics(final MetricsSystem metricsSystem,
     nativeCopyIoLatencyQuantiles = new MutableQuantiles[len];
     for (int i = 0; i < len; i++) {
       int interval = intervals[i];
-      metadataOperationLatencyQuantiles[i] = registry.newQuantiles(
+      metadataOperationLatencyQuantiles[i] = registry.newLatencyQuantiles(
           "metadataOperationLatency" + interval + "s",
-          "Metadata Operation Latency in ms", "ops", "latency", interval);
-      dataFileIoLatencyQuantiles[i] = registry.newQuantiles(
+          "Metadata Operation Latency in ms", interval, histograms, i == 0);
+      dataFileIoLatencyQuantiles[i] = registry.newLatencyQuantiles(
           "dataFileIoLatency" + interval + "s",
-          "Data File Io Latency in ms", "ops", "latency", interval);
-      flushIoLatencyQuantiles[i] = registry.newQuantiles(
+          "Data File Io Latency in ms", interval, histograms, i == 0);
+      flushIoLatencyQuantiles[i] = registry.newLatencyQuantiles(
           "flushIoLatency" + interval + "s",
-          "Data flush Io Latency in ms", "ops", "latency", interval);
-      syncIoLatencyQuantiles[i] = registry.newQuantiles(
+          "Data flush Io Latency in ms", interval, histograms, i == 0);
+      syncIoLatencyQuantiles[i] = registry.newLatencyQuantiles(
           "syncIoLatency" + interval + "s",
-          "Data sync Io Latency in ms", "ops", "latency", interval);
-      readIoLatencyQuantiles[i] = registry.newQuantiles(
+          "Data sync Io Latency in ms", interval, histograms, i == 0);
+      readIoLatencyQuantiles[i] = registry.newLatencyQuantiles(
           "readIoLatency" + interval + "s",
-          "Data read Io Latency in ms", "ops", "latency", interval);
-      writeIoLatencyQuantiles[i] = registry.newQuantiles(
+          "Data read Io Latency in ms", interval, histograms, i == 0);
+      writeIoLatencyQuantiles[i] = registry.newLatencyQuantiles(
           "writeIoLatency" + interval + "s",
-          "Data write Io Latency in ms", "ops", "latency", interval);
-      transferIoLatencyQuantiles[i] = registry.newQuantiles(
+          "Data write Io Latency in ms", interval, histograms, i == 0);
+      transferIoLatencyQuantiles[i] = registry.newLatencyQuantiles(
           "transferIoLatency" + interval + "s",
-          "Data transfer Io Latency in ms", "ops", "latency", interval);
-      nativeCopyIoLatencyQuantiles[i] = registry.newQuantiles(
+          "Data transfer Io Latency in ms", interval, histograms, i == 0);
+      nativeCopyIoLatencyQuantiles[i] = registry.newLatencyQuantiles(
           "nativeCopyIoLatency" + interval + "s",
-          "Data nativeCopy Io Latency in ms", "ops", "latency", interval);
+          "Data nativeCopy Io Latency in ms", interval, histograms, i == 0);
     }
   }
 
@@ -276,8 +282,11 @@ public static DataNodeVolumeMetrics create(final Configuration conf,
     // Percentile measurement is off by default, by watching no intervals
     int[] intervals =
         conf.getInts(DFSConfigKeys.DFS_METRICS_PERCENTILES_INTERVALS_KEY);
+    boolean histograms = conf.getBoolean(
+        DFSConfigKeys.DFS_METRICS_PERCENTILES_HISTOGRAM_KEY,
+        DFSConfigKeys.DFS_METRICS_PERCENTILES_HISTOGRAM_DEFAULT);
     return ms.register(name, null, new DataNodeVolumeMetrics(ms, name,
-        intervals));
+        intervals, histograms));
   }
 
   public String name() {
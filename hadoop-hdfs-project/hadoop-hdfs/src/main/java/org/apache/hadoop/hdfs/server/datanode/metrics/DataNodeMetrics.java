@@ -216,6 +216,11 @@ public class DataNodeMetrics {
 
   public DataNodeMetrics(String name, String sessionId, int[] intervals,
       final JvmMetrics jvmMetrics) {
+    this(name, sessionId, intervals, false, jvmMetrics);
+  }
+
+  public DataNodeMetrics(String name, String sessionId, int[] intervals,
+      boolean histograms, final JvmMetrics jvmMetrics) {
     this.name = name;
     this.jvmMetrics = jvmMetrics;    
     registry.tag(SessionId, sessionId);
@@ -233,31 +238,33 @@ public DataNodeMetrics(String name, String sessionId, int[] intervals,
 
     for (int i = 0; i < len; i++) {
       int interval = intervals[i];
-      packetAckRoundTripTimeNanosQuantiles[i] = registry.newQuantiles(
+      packetAckRoundTripTimeNanosQuantiles[i] = registry.newLatencyQuantiles(
           "packetAckRoundTripTimeNanos" + interval + "s",
-          "Packet Ack RTT in ns", "ops", "latency", interval);
-      flushNanosQuantiles[i] = registry.newQuantiles(
+          "Packet Ack RTT in ns", interval, histograms, i == 0);
+      flushNanosQuantiles[i] = registry.newLatencyQuantiles(
           "flushNanos" + interval + "s", 
-          "Disk flush latency in ns", "ops", "latency", interval);
-      fsyncNanosQuantiles[i] = registry.newQuantiles(
+          "Disk flush latency in ns", interval, histograms, i == 0);
+      fsyncNanosQuantiles[i] = registry.newLatencyQuantiles(
           "fsyncNanos" + interval + "s", "Disk fsync latency in ns", 
-          "ops", "latency", interval);
-      sendDataPacketBlockedOnNetworkNanosQuantiles[i] = registry.newQuantiles(
+          interval, histograms, i == 0);
+      sendDataPacketBlockedOnNetworkNanosQuantiles[i] =
+          registry.newLatencyQuantiles(
           "sendDataPacketBlockedOnNetworkNanos" + interval + "s", 
           "Time blocked on network while sending a packet in ns",
-          "ops", "latency", interval);
-      sendDataPacketTransferNanosQuantiles[i] = registry.newQuantiles(
+          interval, histograms, i == 0);
+      sendDataPacketTransferNanosQuantiles[i] = registry.newLatencyQuantiles(
           "sendDataPacketTransferNanos" + interval + "s", 
           "Time reading from disk and writing to network while sending " +
-          "a packet in ns", "ops", "latency", interval);
-      ramDiskBlocksEvictionWindowMsQuantiles[i] = registry.newQuantiles(
+          "a packet in ns", interval, histograms, i == 0);
+      ramDiskBlocksEvictionWindowMsQuantiles[i] = registry.newLatencyQuantiles(
           "ramDiskBlocksEvictionWindows" + interval + "s",
           "Time between the RamDisk block write and eviction in ms",
-          "ops", "latency", interval);
-      ramDiskBlocksLazyPersistWindowMsQuantiles[i] = registry.newQuantiles(
+          interval, histograms, i == 0);
+      ramDiskBlocksLazyPersistWindowMsQuantiles[i] =
+          registry.newLatencyQuantiles(
           "ramDiskBlocksLazyPersistWindows" + interval + "s",
           "Time between the RamDisk block write and disk persist in ms",
-          "ops", "latency", interval);
+          interval, histograms, i == 0);
       readTransferRateQuantiles[i] = registry.newInverseQuantiles(
           "readTransferRate" + interval + "s",
           "Rate at which bytes are read from datanode calculated in bytes per second",
@@ -277,8 +284,12 @@ public static DataNodeMetrics create(Configuration conf, String dnName) {
     int[] intervals = 
         conf.getInts(DFSConfigKeys.DFS_METRICS_PERCENTILES_INTERVALS_KEY);
     
+    boolean histograms = conf.getBoolean(
+        DFSConfigKeys.DFS_METRICS_PERCENTILES_HISTOGRAM_KEY,
+        DFSConfigKeys.DFS_METRICS_PERCENTILES_HISTOGRAM_DEFAULT);
+
     return ms.register(name, null, new DataNodeMetrics(name, sessionId,
-        intervals, jm));
+        intervals, histograms, jm));
   }
 
   public String name() { return name; }
@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.fs.permission.FsAction;
+
+/**
+ * Caches the outcome of ACL permission checks per user, so that the ACL
+ * entries of an inode and the group membership of the user are not evaluated
+ * again on every RPC.
+ *
+ * The cache key contains every input of the evaluation: the
+ * {@link AclFeature}, which is interned by {@link AclStorage}, the owner and
+ * group of the inode, its permission bits and the requested access. Changing
+ * the ACL, the owner, the group or the permission of an inode results in a
+ * different key, so cached decisions never become stale and do not need to be
+ * invalidated on edits. The decisions of a user are dropped when the groups
+ * of the user change.
+ *
+ * The cache is bounded by clearing the decisions of a user, or all users,
+ * once the configured number of entries is reached.
+ */
+@InterfaceAudience.Private
+final class AclPermissionCache {
+  private final int maxEntriesPerUser;
+  private final int maxUsers;
+  private final Map<String, UserCache> users = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  AclPermissionCache(int maxEntriesPerUser, int maxUsers) {
+    this.maxEntriesPerUser = maxEntriesPerUser;
+    this.maxUsers = maxUsers;
+  }
+
+  /**
+   * @return the cached decisions of the given user, which are reset if the
+   * groups of the user differ from the groups they were computed for.
+   */
+  UserCache getUserCache(String user, Collection<String> groups) {
+    UserCache cache = users.get(user);
+    if (cache == null || !cache.groups.equals(groups)) {
+      if (users.size() >= maxUsers) {
+        users.clear();
+      }
+      cache = new UserCache(groups);
+      users.put(user, cache);
+    }
+    return cache;
+  }
+
+  long getHits() {
+    return hits.sum();
+  }
+
+  long getMisses() {
+    return misses.sum();
+  }
+
+  /** Cached ACL decisions of a single user with a given set of groups. */
+  final class UserCache {
+    private final Collection<String> groups;
+    private final Map<Key, Boolean> decisions = new ConcurrentHashMap<>();
+
+    private UserCache(Collection<String> groups) {
+      this.groups = groups;
+    }
+
+    /**
+     * @return whether the access is permitted, either cached or computed by
+     * the given check.
+     */
+    boolean hasPermission(INodeAttributes inode, FsAction access,
+        short mode, AclFeature aclFeature, BooleanSupplier check) {
+      final Key key = new Key(aclFeature, inode.getUserName(),
+          inode.getGroupName(), mode, access);
+      Boolean permitted = decisions.get(key);
+      if (permitted != null) {
+        hits.increment();
+        return permitted;
+      }
+      misses.increment();
+      permitted = check.getAsBoolean();
+      if (decisions.size() >= maxEntriesPerUser) {
+        decisions.clear();
+      }
+      decisions.put(key, permitted);
+      return permitted;
+    }
+  }
+
+  /** The inputs of an ACL permission check besides the user. */
+  private static final class Key {
+    private final AclFeature aclFeature;
+    private final String owner;
+    private final String group;
+    private final short mode;
+    private final FsAction access;
+    private final int hash;
+
+    private Key(AclFeature aclFeature, String owner, String group,
+        short mode, FsAction access) {
+      this.aclFeature = aclFeature;
+      this.owner = owner;
+      this.group = group;
+      this.mode = mode;
+      this.access = access;
+      // AclFeature instances are interned, so the identity hash is used
+      // instead of hashing all the entries.
+      int h = System.identityHashCode(aclFeature);
+      h = 31 * h + Objects.hashCode(owner);
+      h = 31 * h + Objects.hashCode(group);
+      h = 31 * h + mode;
+      this.hash = 31 * h + access.ordinal();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key that = (Key) o;
+      return aclFeature == that.aclFeature && mode == that.mode
+          && access == that.access && Objects.equals(owner, that.owner)
+          && Objects.equals(group, that.group);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
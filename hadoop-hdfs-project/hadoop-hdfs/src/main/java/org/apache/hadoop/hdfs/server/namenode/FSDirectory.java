@@ -185,6 +185,8 @@ private static INodeDirectory createRoot(FSNamesystem namesystem) {
   private final boolean aclsEnabled;
   /** Threshold to print a warning. */
   private final long accessControlEnforcerReportingThresholdMs;
+  /** Cache of ACL permission decisions, null if disabled. */
+  private final AclPermissionCache aclPermissionCache;
   /**
    * Support for POSIX ACL inheritance. Not final for testing purpose.
    */
@@ -337,6 +339,15 @@ public enum DirOp {
         DFSConfigKeys.DFS_NAMENODE_ACLS_ENABLED_KEY,
         DFSConfigKeys.DFS_NAMENODE_ACLS_ENABLED_DEFAULT);
     LOG.info("ACLs enabled? " + aclsEnabled);
+    final int aclPermissionCacheSize = conf.getInt(
+        DFSConfigKeys.DFS_NAMENODE_ACLS_PERMISSION_CACHE_SIZE_KEY,
+        DFSConfigKeys.DFS_NAMENODE_ACLS_PERMISSION_CACHE_SIZE_DEFAULT);
+    this.aclPermissionCache = aclsEnabled && aclPermissionCacheSize > 0 ?
+        new AclPermissionCache(aclPermissionCacheSize, conf.getInt(
+            DFSConfigKeys.DFS_NAMENODE_ACLS_PERMISSION_CACHE_MAX_USERS_KEY,
+            DFSConfigKeys.DFS_NAMENODE_ACLS_PERMISSION_CACHE_MAX_USERS_DEFAULT))
+        : null;
+    LOG.info("ACL permission cache size per user: " + aclPermissionCacheSize);
     this.posixAclInheritanceEnabled = conf.getBoolean(
         DFSConfigKeys.DFS_NAMENODE_POSIX_ACL_INHERITANCE_ENABLED_KEY,
         DFSConfigKeys.DFS_NAMENODE_POSIX_ACL_INHERITANCE_ENABLED_DEFAULT);
@@ -345,6 +356,11 @@ public enum DirOp {
         DFSConfigKeys.DFS_NAMENODE_XATTRS_ENABLED_KEY,
         DFSConfigKeys.DFS_NAMENODE_XATTRS_ENABLED_DEFAULT);
     LOG.info("XAttrs enabled? " + xattrsEnabled);
+    final boolean xattrsInternEnabled = conf.getBoolean(
+        DFSConfigKeys.DFS_NAMENODE_XATTRS_INTERN_ENABLED_KEY,
+        DFSConfigKeys.DFS_NAMENODE_XATTRS_INTERN_ENABLED_DEFAULT);
+    LOG.info("XAttrs interned? " + xattrsInternEnabled);
+    XAttrStorage.setInternEnabled(xattrsInternEnabled);
     this.xattrMaxSize = (int) conf.getLongBytes(
         DFSConfigKeys.DFS_NAMENODE_MAX_XATTR_SIZE_KEY,
         DFSConfigKeys.DFS_NAMENODE_MAX_XATTR_SIZE_DEFAULT);
@@ -1878,7 +1894,17 @@ FSPermissionChecker getPermissionChecker(String fsOwner, String superGroup,
     return new FSPermissionChecker(
         fsOwner, superGroup, ugi, getUserFilteredAttributeProvider(ugi),
         useAuthorizationWithContextAPI,
-        accessControlEnforcerReportingThresholdMs);
+        accessControlEnforcerReportingThresholdMs, aclPermissionCache);
+  }
+
+  /** @return the number of ACL permission checks answered from the cache. */
+  long getAclPermissionCacheHits() {
+    return aclPermissionCache == null ? 0 : aclPermissionCache.getHits();
+  }
+
+  /** @return the number of ACL permission checks missing the cache. */
+  long getAclPermissionCacheMisses() {
+    return aclPermissionCache == null ? 0 : aclPermissionCache.getMisses();
   }
 
   void checkOwner(FSPermissionChecker pc, INodesInPath iip)
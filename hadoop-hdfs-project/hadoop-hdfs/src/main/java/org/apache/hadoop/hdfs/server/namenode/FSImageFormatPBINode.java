@@ -186,8 +186,8 @@ public static INodeDirectory loadINodeDirectory(INodeSection.INode n,
         dir.addAclFeature(new AclFeature(entries));
       }
       if (d.hasXAttrs()) {
-        dir.addXAttrFeature(new XAttrFeature(
-            loadXAttrs(d.getXAttrs(), state.getStringTable())));
+        dir.addXAttrFeature(XAttrStorage.intern(new XAttrFeature(
+            loadXAttrs(d.getXAttrs(), state.getStringTable()))));
       }
       return dir;
     }
@@ -553,8 +553,8 @@ private INodeFile loadINodeFile(INodeSection.INode n) {
       }
 
       if (f.hasXAttrs()) {
-        file.addXAttrFeature(new XAttrFeature(
-            loadXAttrs(f.getXAttrs(), state.getStringTable())));
+        file.addXAttrFeature(XAttrStorage.intern(new XAttrFeature(
+            loadXAttrs(f.getXAttrs(), state.getStringTable()))));
       }
 
       // under-construction information
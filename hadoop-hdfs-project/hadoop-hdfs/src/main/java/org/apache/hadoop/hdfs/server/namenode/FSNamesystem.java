@@ -86,6 +86,8 @@
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_LEASE_RECHECK_INTERVAL_MS_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_MAX_LOCK_HOLD_TO_RELEASE_LEASE_MS_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_MAX_LOCK_HOLD_TO_RELEASE_LEASE_MS_DEFAULT;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_MAX_FILES_TO_RELEASE_LEASE_KEY;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_MAX_FILES_TO_RELEASE_LEASE_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_PERMISSIONS_ENABLED_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_PERMISSIONS_ENABLED_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_PERMISSIONS_SUPERUSERGROUP_DEFAULT;
@@ -519,6 +521,8 @@ private boolean isFromProxyUser(CallerContext ctx) {
   private final long leaseRecheckIntervalMs;
   /** Maximum time the lock is hold to release lease. */
   private final long maxLockHoldToReleaseLeaseMs;
+  /** Maximum number of files to release lease in one check. */
+  private final int maxFilesToReleaseLease;
 
   // Batch size for open files response
   private final int maxListOpenFilesResponses;
@@ -1027,6 +1031,9 @@ static FSNamesystem loadFromDisk(Configuration conf) throws IOException {
       this.maxLockHoldToReleaseLeaseMs = conf.getLong(
           DFS_NAMENODE_MAX_LOCK_HOLD_TO_RELEASE_LEASE_MS_KEY,
           DFS_NAMENODE_MAX_LOCK_HOLD_TO_RELEASE_LEASE_MS_DEFAULT);
+      this.maxFilesToReleaseLease = conf.getInt(
+          DFS_NAMENODE_MAX_FILES_TO_RELEASE_LEASE_KEY,
+          DFS_NAMENODE_MAX_FILES_TO_RELEASE_LEASE_DEFAULT);
 
       // For testing purposes, allow the DT secret manager to be started regardless
       // of whether security is enabled.
@@ -1109,6 +1116,11 @@ public long getMaxLockHoldToReleaseLeaseMs() {
     return maxLockHoldToReleaseLeaseMs;
   }
 
+  @VisibleForTesting
+  public int getMaxFilesToReleaseLease() {
+    return maxFilesToReleaseLease;
+  }
+
   public int getMaxListOpenFilesResponses() {
     return maxListOpenFilesResponses;
   }
@@ -5168,6 +5180,30 @@ public long getNumActiveClients() {
     return leaseManager.countLease();
   }
 
+  @Metric(value = {"AclPermissionCacheHits",
+      "Number of ACL permission checks answered from the cache"},
+      type = Metric.Type.COUNTER)
+  public long getAclPermissionCacheHits() {
+    return dir.getAclPermissionCacheHits();
+  }
+
+  @Metric(value = {"AclPermissionCacheMisses",
+      "Number of ACL permission checks missing the cache"},
+      type = Metric.Type.COUNTER)
+  public long getAclPermissionCacheMisses() {
+    return dir.getAclPermissionCacheMisses();
+  }
+
+  /**
+   * Get the number of leases which expired the hard limit and are waiting
+   * for recovery.
+   */
+  @Metric({ "NumExpiredLeases",
+      "Number of leases which expired the hard limit and await recovery" })
+  public long getNumExpiredLeases() {
+    return leaseManager.getNumExpiredLeases();
+  }
+
   /**
    * Get the total number of COMPLETE blocks in the system.
    * For safe mode only complete blocks are counted.
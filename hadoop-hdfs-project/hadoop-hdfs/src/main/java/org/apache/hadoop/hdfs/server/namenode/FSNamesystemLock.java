@@ -188,6 +188,7 @@ public void readUnlock(String opName,
 
     if (needReport) {
       addMetric(opName, readLockIntervalNanos, false);
+      updateProcessingDetails(Timing.LOCKSHARED, readLockIntervalNanos);
       readLockHeldTimeStampNanos.remove();
     }
     final long readLockIntervalMs =
@@ -299,8 +300,9 @@ public void writeUnlock(String opName, boolean suppressWriteLockReport) {
    */
   private void writeUnlock(String opName, boolean suppressWriteLockReport,
       Supplier<String> lockReportInfoSupplier) {
-    final boolean needReport = !suppressWriteLockReport && coarseLock
-        .getWriteHoldCount() == 1 && coarseLock.isWriteLockedByCurrentThread();
+    final boolean outermost = coarseLock.getWriteHoldCount() == 1 &&
+        coarseLock.isWriteLockedByCurrentThread();
+    final boolean needReport = !suppressWriteLockReport && outermost;
     final long writeLockIntervalNanos =
         timer.monotonicNowNanos() - writeLockHeldTimeStampNanos;
     final long currentTimeMs = timer.now();
@@ -334,6 +336,10 @@ private void writeUnlock(String opName, boolean suppressWriteLockReport,
     if (needReport) {
       addMetric(opName, writeLockIntervalNanos, true);
     }
+    if (outermost) {
+      // the hold time is billed to the call even if the report is suppressed.
+      updateProcessingDetails(Timing.LOCKEXCLUSIVE, writeLockIntervalNanos);
+    }
 
     if (logAction.shouldLog()) {
       FSNamesystem.LOG.info(
@@ -410,8 +416,6 @@ private void addMetric(String operationName, long value, boolean isWrite) {
       String overallMetric = getMetricName(OVERALL_METRIC_NAME, isWrite);
       detailedHoldTimeMetrics.add(overallMetric, value);
     }
-    updateProcessingDetails(
-        isWrite ? Timing.LOCKEXCLUSIVE : Timing.LOCKSHARED, value);
   }
 
   private void doLock(boolean isWrite) {
@@ -91,6 +91,8 @@ private String toAccessControlString(INodeAttributes inodeAttrib,
   private final INodeAttributeProvider attributeProvider;
   private final boolean authorizeWithContext;
   private final long accessControlEnforcerReportingThresholdMs;
+  /** Cached ACL decisions of the caller, null if caching is disabled. */
+  private final AclPermissionCache.UserCache aclPermissionCache;
 
   private static ThreadLocal<String> operationType = new ThreadLocal<>();
 
@@ -105,6 +107,17 @@ protected FSPermissionChecker(String fsOwner, String supergroup,
       INodeAttributeProvider attributeProvider,
       boolean useAuthorizationWithContextAPI,
       long accessControlEnforcerReportingThresholdMs) {
+    this(fsOwner, supergroup, callerUgi, attributeProvider,
+        useAuthorizationWithContextAPI,
+        accessControlEnforcerReportingThresholdMs, null);
+  }
+
+  protected FSPermissionChecker(String fsOwner, String supergroup,
+      UserGroupInformation callerUgi,
+      INodeAttributeProvider attributeProvider,
+      boolean useAuthorizationWithContextAPI,
+      long accessControlEnforcerReportingThresholdMs,
+      AclPermissionCache aclPermissionCache) {
     this.fsOwner = fsOwner;
     this.supergroup = supergroup;
     this.callerUgi = callerUgi;
@@ -124,6 +137,11 @@ protected FSPermissionChecker(String fsOwner, String supergroup,
     }
     this.accessControlEnforcerReportingThresholdMs
         = accessControlEnforcerReportingThresholdMs;
+    // The attributes of an external provider are not interned, so the
+    // decisions are only cached for the inode attributes of the namespace.
+    this.aclPermissionCache =
+        aclPermissionCache == null || attributeProvider != null ? null :
+            aclPermissionCache.getUserCache(user, groups);
   }
 
   private String checkAccessControlEnforcerSlowness(
@@ -675,7 +693,12 @@ private boolean hasPermission(INodeAttributes inode, FsAction access) {
       // It's possible that the inode has a default ACL but no access ACL.
       int firstEntry = aclFeature.getEntryAt(0);
       if (AclEntryStatusFormat.getScope(firstEntry) == AclEntryScope.ACCESS) {
-        return hasAclPermission(inode, access, mode, aclFeature);
+        if (aclPermissionCache == null) {
+          return hasAclPermission(inode, access, mode, aclFeature);
+        }
+        return aclPermissionCache.hasPermission(inode, access,
+            mode.toShort(), aclFeature,
+            () -> hasAclPermission(inode, access, mode, aclFeature));
       }
     }
     final FsAction checkAction;
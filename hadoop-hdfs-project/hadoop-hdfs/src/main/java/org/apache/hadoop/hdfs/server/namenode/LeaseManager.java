@@ -27,9 +27,11 @@
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -46,6 +48,7 @@
 import org.apache.hadoop.hdfs.protocol.OpenFilesIterator;
 import org.apache.hadoop.hdfs.server.blockmanagement.BlockInfo;
 import org.apache.hadoop.hdfs.server.common.HdfsServerConstants;
+import org.apache.hadoop.hdfs.server.namenode.metrics.NameNodeMetrics;
 import org.apache.hadoop.util.Daemon;
 import org.apache.hadoop.util.Lists;
 import org.apache.hadoop.util.Time;
@@ -97,6 +100,14 @@ public class LeaseManager {
   private final HashMap<String, Lease> leases = new HashMap<>();
   // INodeID -> Lease
   private final TreeMap<Long, Lease> leasesById = new TreeMap<>();
+  // Leases sorted by their last renewal, the oldest lease first
+  private final NavigableSet<Lease> sortedLeases = new TreeSet<>(
+      (l1, l2) -> {
+        int cmp = Long.compare(l1.getLastUpdate(), l2.getLastUpdate());
+        return cmp != 0 ? cmp : l1.getHolder().compareTo(l2.getHolder());
+      });
+  // Number of leases found past their hard limit by the last check
+  private volatile int numExpiredLeases = 0;
 
   private Daemon lmthread;
   private volatile boolean shouldRunMonitor;
@@ -353,6 +364,7 @@ synchronized Lease addLease(String holder, long inodeId) {
     if (lease == null) {
       lease = new Lease(holder);
       leases.put(holder, lease);
+      sortedLeases.add(lease);
     } else {
       renewLease(lease);
     }
@@ -381,6 +393,7 @@ private synchronized void removeLease(Lease lease, long inodeId) {
       if (leases.remove(lease.holder) == null) {
         LOG.error("{} not found", lease);
       }
+      sortedLeases.remove(lease);
     }
   }
 
@@ -398,6 +411,7 @@ synchronized void removeLease(String holder, INodeFile src) {
   }
 
   synchronized void removeAllLeases() {
+    sortedLeases.clear();
     leasesById.clear();
     leases.clear();
   }
@@ -423,7 +437,13 @@ synchronized void renewLease(String holder) {
 
   synchronized void renewLease(Lease lease) {
     if (lease != null) {
+      // the lease has to be re-inserted as its position depends on the
+      // last renewal time.
+      boolean sorted = sortedLeases.remove(lease);
       lease.renew();
+      if (sorted) {
+        sortedLeases.add(lease);
+      }
     }
   }
 
@@ -498,7 +518,6 @@ String getHolder() {
       return holder;
     }
 
-    @VisibleForTesting
     long getLastUpdate() {
       return lastUpdate;
     }
@@ -509,16 +528,30 @@ public void setLeasePeriod(long softLimit, long hardLimit) {
     this.hardLimit = hardLimit; 
   }
 
+  /**
+   * @return the leases which have expired the hard limit, the oldest lease
+   * first. Only the expired head of the sorted leases is visited.
+   */
   private synchronized Collection<Lease> getExpiredCandidateLeases() {
     final long now = Time.monotonicNow();
-    Collection<Lease> expired = new HashSet<>();
-    for (Lease lease : leases.values()) {
-      if (lease.expiredHardLimit(now)) {
-        expired.add(lease);
+    List<Lease> expired = new ArrayList<>();
+    for (Lease lease : sortedLeases) {
+      if (!lease.expiredHardLimit(now)) {
+        break;
       }
+      expired.add(lease);
     }
+    numExpiredLeases = expired.size();
     return expired;
   }
+
+  /**
+   * @return the number of leases which had expired the hard limit and were
+   * waiting for recovery when the leases were last checked.
+   */
+  int getNumExpiredLeases() {
+    return numExpiredLeases;
+  }
   
   /******************************************************
    * Monitor checks for leases that have expired,
@@ -576,14 +609,22 @@ private synchronized boolean checkLeases(Collection<Lease> leasesToCheck) {
     assert fsnamesystem.hasWriteLock();
 
     long start = monotonicNow();
+    int filesToRelease = 0;
     for (Lease leaseToCheck : leasesToCheck) {
-      if (isMaxLockHoldToReleaseLease(start)) {
+      if (isMaxLockHoldToReleaseLease(start) ||
+          isMaxFilesToReleaseLease(filesToRelease)) {
         break;
       }
-      if (!leaseToCheck.expiredHardLimit(Time.monotonicNow())) {
+      final long now = Time.monotonicNow();
+      if (!leaseToCheck.expiredHardLimit(now)) {
         continue;
       }
       LOG.info("{} has expired hard limit", leaseToCheck);
+      final NameNodeMetrics metrics = NameNode.getNameNodeMetrics();
+      if (metrics != null) {
+        metrics.addLeaseRecoveryDelay(
+            now - leaseToCheck.getLastUpdate() - hardLimit);
+      }
       final List<Long> removing = new ArrayList<>();
       // need to create a copy of the oldest lease files, because
       // internalReleaseLease() removes files corresponding to empty files,
@@ -595,6 +636,7 @@ private synchronized boolean checkLeases(Collection<Lease> leasesToCheck) {
       String p = null;
       String newHolder = getInternalLeaseHolder();
       for(Long id : leaseINodeIds) {
+        filesToRelease++;
         try {
           INodesInPath iip = INodesInPath.fromINode(fsd.getInode(id));
           p = iip.getPath();
@@ -639,6 +681,11 @@ private synchronized boolean checkLeases(Collection<Lease> leasesToCheck) {
               fsnamesystem.getMaxLockHoldToReleaseLeaseMs());
           break;
         }
+        if (isMaxFilesToReleaseLease(filesToRelease)) {
+          LOG.debug("Breaking out of checkLeases after {} files.",
+              filesToRelease);
+          break;
+        }
       }
 
       for(Long id : removing) {
@@ -655,6 +702,12 @@ private boolean isMaxLockHoldToReleaseLease(long start) {
         fsnamesystem.getMaxLockHoldToReleaseLeaseMs();
   }
 
+  /** @return true if max number of files to release in one check is reached */
+  private boolean isMaxFilesToReleaseLease(int files) {
+    final int maxFiles = fsnamesystem.getMaxFilesToReleaseLease();
+    return maxFiles > 0 && files >= maxFiles;
+  }
+
   @Override
   public synchronized String toString() {
     return getClass().getSimpleName() + "= {"
@@ -34,6 +34,7 @@
 import org.apache.hadoop.hdfs.server.namenode.ReencryptionUpdater.FileEdekInfo;
 import org.apache.hadoop.hdfs.server.namenode.ReencryptionUpdater.ReencryptionTask;
 import org.apache.hadoop.hdfs.server.namenode.ReencryptionUpdater.ZoneSubmissionTracker;
+import org.apache.hadoop.hdfs.server.namenode.metrics.NameNodeMetrics;
 import org.apache.hadoop.ipc.RetriableException;
 import org.apache.hadoop.util.Daemon;
 import org.apache.hadoop.util.StopWatch;
@@ -65,6 +66,7 @@
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_REENCRYPT_THROTTLE_LIMIT_HANDLER_RATIO_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_REENCRYPT_EDEK_THREADS_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_REENCRYPT_EDEK_THREADS_KEY;
+import static org.apache.hadoop.util.Time.monotonicNow;
 
 /**
  * Class for handling re-encrypt EDEK operations.
@@ -564,7 +566,12 @@ private boolean reencryptEdeks() {
       // provider already has LoadBalancingKMSClientProvider's reties. It that
       // fails, just fail this callable.
       try {
+        final long startTime = monotonicNow();
         handler.ezManager.getProvider().reencryptEncryptedKeys(edeks);
+        final NameNodeMetrics metrics = NameNode.getNameNodeMetrics();
+        if (metrics != null) {
+          metrics.addReencryptEDEKTime(monotonicNow() - startTime);
+        }
         EncryptionFaultInjector.getInstance().reencryptEncryptedKeys();
       } catch (GeneralSecurityException | IOException ex) {
         LOG.warn("Failed to re-encrypt one batch of {} edeks, start:{}",
@@ -20,6 +20,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.fs.XAttr;
@@ -44,6 +45,12 @@ public class XAttrFeature implements INode.Feature {
    */
   private ImmutableList<XAttr> xAttrs;
 
+  /**
+   * Cached hash code, so that features can be interned by
+   * {@link XAttrStorage} without decoding the packed bytes.
+   */
+  private final int hash;
+
   public XAttrFeature(List<XAttr> xAttrs) {
     if (xAttrs != null && !xAttrs.isEmpty()) {
       List<XAttr> toPack = new ArrayList<XAttr>();
@@ -64,6 +71,7 @@ public XAttrFeature(List<XAttr> xAttrs) {
         this.xAttrs = b.build();
       }
     }
+    this.hash = 31 * Arrays.hashCode(attrs) + Objects.hashCode(this.xAttrs);
   }
 
   /**
@@ -93,12 +101,16 @@ public boolean equals(Object o) {
     if (getClass() != o.getClass()) {
       return false;
     }
-    return getXAttrs().equals(((XAttrFeature) o).getXAttrs());
+    // The packing of XAttrs is deterministic, so comparing the packed bytes
+    // is equivalent to comparing the decoded XAttrs.
+    final XAttrFeature that = (XAttrFeature) o;
+    return hash == that.hash && Arrays.equals(attrs, that.attrs)
+        && Objects.equals(xAttrs, that.xAttrs);
   }
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(getXAttrs().toArray());
+    return hash;
   }
 
   /**
@@ -25,12 +25,44 @@
 import org.apache.hadoop.fs.XAttr;
 import org.apache.hadoop.hdfs.protocol.QuotaExceededException;
 
+import org.apache.hadoop.thirdparty.com.google.common.collect.Interner;
+import org.apache.hadoop.thirdparty.com.google.common.collect.Interners;
+
 /**
  * XAttrStorage is used to read and set xattrs for an inode.
  */
 @InterfaceAudience.Private
 public class XAttrStorage {
 
+  /**
+   * Interner for XAttrFeatures, so that inodes with identical xattrs share a
+   * single feature. Features are held weakly and are dropped once no inode or
+   * snapshot copy refers to them.
+   */
+  private static final Interner<XAttrFeature> UNIQUE_XATTR_FEATURES =
+      Interners.newWeakInterner();
+
+  private static volatile boolean internEnabled = false;
+
+  /**
+   * Enable or disable the interning of XAttrFeatures.
+   * @param enabled whether XAttrFeatures are interned
+   */
+  static void setInternEnabled(boolean enabled) {
+    internEnabled = enabled;
+  }
+
+  /**
+   * Returns the canonical instance of the given feature if interning is
+   * enabled, or the given feature otherwise.
+   *
+   * @param feature XAttrFeature to intern
+   * @return the feature to attach to the inode
+   */
+  public static XAttrFeature intern(XAttrFeature feature) {
+    return internEnabled ? UNIQUE_XATTR_FEATURES.intern(feature) : feature;
+  }
+
   /**
    * Reads the extended attribute of an inode by name with prefix.
    * <p>
@@ -76,6 +108,6 @@ public static void updateINodeXAttrs(INode inode,
     if (xAttrs == null || xAttrs.isEmpty()) {
       return;
     }
-    inode.addXAttrFeature(new XAttrFeature(xAttrs), snapshotId);
+    inode.addXAttrFeature(intern(new XAttrFeature(xAttrs)), snapshotId);
   }
 }
@@ -136,8 +136,14 @@ public long totalFileOps(){
   private final MutableQuantiles[] generateEDEKTimeQuantiles;
   @Metric("Warm-up EDEK time") private MutableRate warmUpEDEKTime;
   private final MutableQuantiles[] warmUpEDEKTimeQuantiles;
+  @Metric("Re-encrypt EDEK time") private MutableRate reencryptEDEKTime;
+  private final MutableQuantiles[] reencryptEDEKTimeQuantiles;
+  @Metric("Number of files whose EDEK was re-encrypted")
+  private MutableCounterLong filesReencrypted;
   @Metric("Resource check time") private MutableRate resourceCheckTime;
   private final MutableQuantiles[] resourceCheckTimeQuantiles;
+  @Metric("Time between a lease expiring the hard limit and its recovery")
+  private MutableRate leaseRecoveryDelay;
 
   @Metric("Duration in SafeMode at startup in msec")
   MutableGaugeInt safeModeTime;
@@ -179,6 +185,7 @@ public long totalFileOps(){
     cacheReportQuantiles = new MutableQuantiles[len];
     generateEDEKTimeQuantiles = new MutableQuantiles[len];
     warmUpEDEKTimeQuantiles = new MutableQuantiles[len];
+    reencryptEDEKTimeQuantiles = new MutableQuantiles[len];
     resourceCheckTimeQuantiles = new MutableQuantiles[len];
     editLogTailTimeQuantiles = new MutableQuantiles[len];
     editLogFetchTimeQuantiles = new MutableQuantiles[len];
@@ -206,6 +213,9 @@ public long totalFileOps(){
       warmUpEDEKTimeQuantiles[i] = registry.newQuantiles(
           "warmupEDEKTime" + interval + "s",
           "Warm up EDEK time", "ops", "latency", interval);
+      reencryptEDEKTimeQuantiles[i] = registry.newQuantiles(
+          "reencryptEDEKTime" + interval + "s",
+          "Re-encrypt EDEK time", "ops", "latency", interval);
       resourceCheckTimeQuantiles[i] = registry.newQuantiles(
           "resourceCheckTime" + interval + "s",
           "resource check time", "ops", "latency", interval);
@@ -447,6 +457,21 @@ public void addWarmUpEDEKTime(long latency) {
     }
   }
 
+  public void addReencryptEDEKTime(long latency) {
+    reencryptEDEKTime.add(latency);
+    for (MutableQuantiles q : reencryptEDEKTimeQuantiles) {
+      q.add(latency);
+    }
+  }
+
+  public void incrFilesReencrypted(long delta) {
+    filesReencrypted.incr(delta);
+  }
+
+  public void addLeaseRecoveryDelay(long delay) {
+    leaseRecoveryDelay.add(delay);
+  }
+
   public void addResourceCheckTime(long latency) {
     resourceCheckTime.add(latency);
     for (MutableQuantiles q : resourceCheckTimeQuantiles) {
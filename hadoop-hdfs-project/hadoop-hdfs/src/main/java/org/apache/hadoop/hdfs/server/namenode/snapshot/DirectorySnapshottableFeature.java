@@ -341,6 +341,11 @@ SnapshotDiffInfo computeDiff(final INodeDirectory snapshotRootDir,
    *           as the no of entries exceeded the snapshotdiffentry limit. -1
    *           indicates, the snapshotdiff computation needs to start right
    *           from the startPath provided.
+   * @param snapshotDiffReportEntriesLimit
+   *           maximum number of diff entries returned by one rpc call
+   * @param snapshotDiffInodesLimit
+   *           maximum number of inodes visited by one rpc call. A
+   *           non-positive value disables the limit.
    *
    * @return The difference between the start/end points.
    * @throws SnapshotException If there is no snapshot matching the starting
@@ -350,7 +355,8 @@ SnapshotDiffInfo computeDiff(final INodeDirectory snapshotRootDir,
   SnapshotDiffListingInfo computeDiff(final INodeDirectory snapshotRootDir,
       final INodeDirectory snapshotDiffScopeDir, final String from,
       final String to, byte[] startPath, int index,
-      int snapshotDiffReportEntriesLimit) throws SnapshotException {
+      int snapshotDiffReportEntriesLimit, int snapshotDiffInodesLimit)
+      throws SnapshotException {
     Preconditions.checkArgument(
         snapshotDiffScopeDir.isDescendantOfSnapshotRoot(snapshotRootDir));
     Snapshot fromSnapshot = getSnapshotByName(snapshotRootDir, from);
@@ -362,7 +368,8 @@ SnapshotDiffListingInfo computeDiff(final INodeDirectory snapshotRootDir,
     }
     SnapshotDiffListingInfo diffs =
         new SnapshotDiffListingInfo(snapshotRootDir, snapshotDiffScopeDir,
-            fromSnapshot, toSnapshot, snapshotDiffReportEntriesLimit);
+            fromSnapshot, toSnapshot, snapshotDiffReportEntriesLimit,
+            snapshotDiffInodesLimit);
     diffs.setLastIndex(index);
     computeDiffRecursively(snapshotDiffScopeDir, snapshotDiffScopeDir,
         new ArrayList<byte[]>(), diffs, resumePath, 0, toProcess);
@@ -480,6 +487,11 @@ private boolean computeDiffRecursively(final INodeDirectory snapshotDir,
     final Snapshot earlier = diffReport.getEarlier();
     final Snapshot later = diffReport.getLater();
     byte[][] relativePath = parentPath.toArray(new byte[parentPath.size()][]);
+    // The node the computation resumes from is always processed so that
+    // every call makes progress; any later node may end the current call.
+    if (processFlag && !diffReport.visitINode(relativePath)) {
+      return false;
+    }
     if (!processFlag && level == resume.length
         && Arrays.equals(resume[resume.length - 1], node.getLocalNameBytes())) {
       processFlag = true;
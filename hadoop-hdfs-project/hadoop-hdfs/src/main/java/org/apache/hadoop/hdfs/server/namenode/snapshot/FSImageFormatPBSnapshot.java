@@ -80,6 +80,7 @@
 import org.apache.hadoop.hdfs.server.namenode.snapshot.DirectoryWithSnapshotFeature.DirectoryDiffList;
 import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot.Root;
 import org.apache.hadoop.hdfs.server.namenode.XAttrFeature;
+import org.apache.hadoop.hdfs.server.namenode.XAttrStorage;
 import org.apache.hadoop.hdfs.util.EnumCounters;
 
 import org.apache.hadoop.util.Preconditions;
@@ -231,8 +232,9 @@ private void loadFileDiffList(InputStream in, INodeFile file, int size)
           }
           XAttrFeature xAttrs = null;
           if (fileInPb.hasXAttrs()) {
-            xAttrs = new XAttrFeature(FSImageFormatPBINode.Loader.loadXAttrs(
-                fileInPb.getXAttrs(), state.getStringTable()));
+            xAttrs = XAttrStorage.intern(new XAttrFeature(
+                FSImageFormatPBINode.Loader.loadXAttrs(
+                    fileInPb.getXAttrs(), state.getStringTable())));
           }
 
           boolean isStriped =
@@ -363,8 +365,9 @@ private void loadDirectoryDiffList(InputStream in, INodeDirectory dir,
           }
           XAttrFeature xAttrs = null;
           if (dirCopyInPb.hasXAttrs()) {
-            xAttrs = new XAttrFeature(FSImageFormatPBINode.Loader.loadXAttrs(
-                dirCopyInPb.getXAttrs(), state.getStringTable()));
+            xAttrs = XAttrStorage.intern(new XAttrFeature(
+                FSImageFormatPBINode.Loader.loadXAttrs(
+                    dirCopyInPb.getXAttrs(), state.getStringTable())));
           }
 
           long modTime = dirCopyInPb.getModificationTime();
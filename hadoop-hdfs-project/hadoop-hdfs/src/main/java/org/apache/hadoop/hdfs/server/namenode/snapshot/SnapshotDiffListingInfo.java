@@ -35,11 +35,20 @@
 /**
  * A class describing the difference between snapshots of a snapshottable
  * directory where the difference is limited by dfs.snapshotDiff-report.limit.
+ * The number of inodes visited to compute the difference can further be
+ * limited by dfs.namenode.snapshotdiff.listing.max-inodes, which bounds the
+ * time a single call holds the namesystem lock for large unchanged trees.
  */
 
 class SnapshotDiffListingInfo {
   private final int maxEntries;
 
+  /** Maximum number of inodes visited, non-positive means no limit. */
+  private final int maxINodes;
+
+  /** Number of inodes visited so far within this rpc call. */
+  private int inodesVisited = 0;
+
   /** The root directory of the snapshots. */
   private final INodeDirectory snapshotRoot;
   /**
@@ -71,7 +80,7 @@ class SnapshotDiffListingInfo {
 
   SnapshotDiffListingInfo(INodeDirectory snapshotRootDir,
       INodeDirectory snapshotDiffScopeDir, Snapshot start, Snapshot end,
-      int snapshotDiffReportLimit) {
+      int snapshotDiffReportLimit, int snapshotDiffINodesLimit) {
     Preconditions.checkArgument(
         snapshotRootDir.isSnapshottable() && snapshotDiffScopeDir
             .isDescendantOfSnapshotRoot(snapshotRootDir));
@@ -80,6 +89,25 @@ class SnapshotDiffListingInfo {
     this.from = start;
     this.to = end;
     this.maxEntries = snapshotDiffReportLimit;
+    this.maxINodes = snapshotDiffINodesLimit;
+  }
+
+  /**
+   * Account for an inode about to be processed. If the inode limit of this
+   * call has been reached, the given path is recorded as the point to resume
+   * from in the next call.
+   *
+   * @param path path of the inode relative to the snapshot diff scope dir.
+   * @return false if the computation has to stop before the inode.
+   */
+  boolean visitINode(byte[][] path) {
+    if (maxINodes > 0 && inodesVisited >= maxINodes) {
+      setLastPath(path);
+      setLastIndex(-1);
+      return false;
+    }
+    inodesVisited++;
+    return true;
   }
 
   boolean addDirDiff(long dirId, byte[][] parent, ChildrenDiff diff) {
@@ -125,6 +125,11 @@ public void initThreadLocals() {
    * directory.
    */
   private final boolean snapshotDiffAllowSnapRootDescendant;
+  /**
+   * Maximum number of inodes visited by a single snapshot diff listing
+   * call. A non-positive value disables the limit.
+   */
+  private final int snapshotDiffListingMaxInodes;
 
   private final AtomicInteger numSnapshots = new AtomicInteger();
   private static final int SNAPSHOT_ID_BIT_WIDTH = 28;
@@ -152,6 +157,9 @@ public SnapshotManager(final Configuration conf, final FSDirectory fsdir)
         DFSConfigKeys.DFS_NAMENODE_SNAPSHOT_DIFF_ALLOW_SNAP_ROOT_DESCENDANT,
         DFSConfigKeys.
             DFS_NAMENODE_SNAPSHOT_DIFF_ALLOW_SNAP_ROOT_DESCENDANT_DEFAULT);
+    this.snapshotDiffListingMaxInodes = conf.getInt(
+        DFSConfigKeys.DFS_NAMENODE_SNAPSHOT_DIFF_LISTING_MAX_INODES,
+        DFSConfigKeys.DFS_NAMENODE_SNAPSHOT_DIFF_LISTING_MAX_INODES_DEFAULT);
     this.maxSnapshotLimit = conf.getInt(
         DFSConfigKeys.
             DFS_NAMENODE_SNAPSHOT_MAX_LIMIT,
@@ -165,6 +173,8 @@ public SnapshotManager(final Configuration conf, final FSDirectory fsdir)
         + skipCaptureAccessTimeOnlyChange
         + ", snapshotDiffAllowSnapRootDescendant: "
         + snapshotDiffAllowSnapRootDescendant
+        + ", snapshotDiffListingMaxInodes: "
+        + snapshotDiffListingMaxInodes
         + ", maxSnapshotFSLimit: "
         + maxSnapshotFSLimit
         + ", maxSnapshotLimit: "
@@ -745,7 +755,8 @@ public SnapshotDiffReportListing diff(final INodesInPath iip,
     final SnapshotDiffListingInfo diffs =
         snapshotRootDir.getDirectorySnapshottableFeature()
             .computeDiff(snapshotRootDir, snapshotDescendantDir, from, to,
-                startPath, index, snapshotDiffReportLimit);
+                startPath, index, snapshotDiffReportLimit,
+                snapshotDiffListingMaxInodes);
     return diffs != null ? diffs.generateReport() :
         new SnapshotDiffReportListing();
   }
@@ -21,6 +21,10 @@
 import java.util.function.Supplier;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.ipc.ProcessingDetails;
+import org.apache.hadoop.ipc.ProcessingDetails.Timing;
+import org.apache.hadoop.ipc.RPC;
+import org.apache.hadoop.ipc.Server;
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
 import org.apache.hadoop.metrics2.lib.MutableRatesWithAggregation;
@@ -445,4 +449,36 @@ public void testFSWriteLockReportSuppressed() throws Exception {
         "Number of suppressed write-lock reports:"));
   }
 
-}
\ No newline at end of file
+  /**
+   * Test that the lock wait and hold times are billed to the current call,
+   * also when the write lock report is suppressed.
+   */
+  @Test
+  public void testLockTimesInProcessingDetails() {
+    final FakeTimer timer = new FakeTimer();
+    final FSNamesystemLock fsnLock =
+        new FSNamesystemLock(new Configuration(), null, timer);
+    Server.Call call = new Server.Call(
+        1, 1, null, null, RPC.RpcKind.RPC_BUILTIN, new byte[] {1, 2, 3});
+    Server.getCurCall().set(call);
+    try {
+      fsnLock.readLock();
+      fsnLock.readLock();
+      timer.advanceNanos(100);
+      fsnLock.readUnlock();
+      timer.advanceNanos(200);
+      fsnLock.readUnlock();
+
+      fsnLock.writeLock();
+      timer.advanceNanos(1000);
+      fsnLock.writeUnlock("testLockTimesInProcessingDetails", true);
+
+      ProcessingDetails details = call.getProcessingDetails();
+      assertEquals(300, details.get(Timing.LOCKSHARED, TimeUnit.NANOSECONDS));
+      assertEquals(1000,
+          details.get(Timing.LOCKEXCLUSIVE, TimeUnit.NANOSECONDS));
+    } finally {
+      Server.getCurCall().set(null);
+    }
+  }
+}
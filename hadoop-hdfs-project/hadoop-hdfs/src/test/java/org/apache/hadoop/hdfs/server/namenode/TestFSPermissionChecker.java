@@ -32,6 +32,7 @@
 import static org.apache.hadoop.fs.permission.FsAction.WRITE;
 import static org.apache.hadoop.fs.permission.FsAction.WRITE_EXECUTE;
 import static org.apache.hadoop.hdfs.server.namenode.AclTestHelpers.aclEntry;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -48,6 +49,7 @@
 import org.apache.hadoop.fs.permission.FsAction;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.fs.permission.PermissionStatus;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
 import org.apache.hadoop.hdfs.protocol.HdfsConstants;
 import org.apache.hadoop.hdfs.server.namenode.FSDirectory.DirOp;
 import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot;
@@ -75,13 +77,14 @@ public class TestFSPermissionChecker {
   private static final UserGroupInformation CLARK =
     UserGroupInformation.createUserForTesting("clark", new String[] { "execs" });
 
+  private FSNamesystem fsn;
   private FSDirectory dir;
   private INodeDirectory inodeRoot;
 
   @Before
   public void setUp() throws IOException {
     Configuration conf = new Configuration();
-    FSNamesystem fsn = mock(FSNamesystem.class);
+    fsn = mock(FSNamesystem.class);
     doAnswer(new Answer() {
       @Override
       public Object answer(InvocationOnMock invocation) throws Throwable {
@@ -398,6 +401,36 @@ public void testAclOther() throws IOException {
     assertPermissionDenied(CLARK, "/file1", ALL);
   }
 
+  @Test
+  public void testAclPermissionCache() throws IOException {
+    Configuration conf = new Configuration();
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_ACLS_PERMISSION_CACHE_SIZE_KEY, 16);
+    dir = new FSDirectory(fsn, conf);
+    inodeRoot = dir.getRoot();
+    INodeFile inodeFile = createINodeFile(inodeRoot, "file1", "bruce", "execs",
+      (short)0640);
+    addAcl(inodeFile,
+      aclEntry(ACCESS, USER, READ_WRITE),
+      aclEntry(ACCESS, USER, "diana", READ),
+      aclEntry(ACCESS, GROUP, READ),
+      aclEntry(ACCESS, MASK, READ),
+      aclEntry(ACCESS, OTHER, NONE));
+    assertPermissionGranted(DIANA, "/file1", READ);
+    assertEquals(0, dir.getAclPermissionCacheHits());
+    assertEquals(1, dir.getAclPermissionCacheMisses());
+    assertPermissionGranted(DIANA, "/file1", READ);
+    assertPermissionDenied(DIANA, "/file1", WRITE);
+    assertPermissionDenied(DIANA, "/file1", WRITE);
+    assertEquals(2, dir.getAclPermissionCacheHits());
+    assertEquals(2, dir.getAclPermissionCacheMisses());
+
+    // Removing the mask permission must not reuse the cached decision.
+    inodeFile.setPermission(FsPermission.createImmutable((short)0600));
+    assertPermissionDenied(DIANA, "/file1", READ);
+    assertEquals(2, dir.getAclPermissionCacheHits());
+    assertEquals(3, dir.getAclPermissionCacheMisses());
+  }
+
   private void addAcl(INodeWithAdditionalFields inode, AclEntry... acl)
       throws IOException {
     AclStorage.updateINodeAcl(inode,
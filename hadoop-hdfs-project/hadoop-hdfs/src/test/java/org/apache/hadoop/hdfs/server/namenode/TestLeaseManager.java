@@ -103,6 +103,37 @@ public void testCheckLease() throws InterruptedException {
     assertTrue(lm.countLease() < numLease);
   }
 
+  /**
+   * Check that LeaseManager.checkLease releases at most the configured
+   * number of files, starting from the lease which expired first.
+   */
+  @Test
+  public void testCheckLeaseWithMaxFiles() throws InterruptedException {
+    FSNamesystem fsn = makeMockFsNameSystem();
+    when(fsn.getMaxFilesToReleaseLease()).thenReturn(10);
+    LeaseManager lm = new LeaseManager(fsn);
+    final long numLease = 100;
+    lm.setLeasePeriod(0, 0);
+
+    for (long i = 0; i < numLease; i++) {
+      lm.addLease("holder" + i, INodeId.ROOT_INODE_ID + i);
+    }
+    Thread.sleep(2);
+    // renew the first lease so that it becomes the latest one to expire
+    lm.renewLease("holder0");
+    Thread.sleep(1);
+
+    lm.checkLeases();
+    assertEquals(numLease - 10, lm.countLease());
+    assertEquals(numLease, lm.getNumExpiredLeases());
+    assertTrue(lm.getLease("holder0") != null);
+
+    lm.checkLeases();
+    assertEquals(numLease - 20, lm.countLease());
+    assertEquals(numLease - 10, lm.getNumExpiredLeases());
+    assertTrue(lm.getLease("holder0") != null);
+  }
+
   /**
    * Test whether the internal lease holder name is updated properly.
    */
@@ -58,6 +58,7 @@
 import org.apache.hadoop.hdfs.server.namenode.ReencryptionUpdater.ZoneSubmissionTracker;
 import org.apache.hadoop.ipc.RemoteException;
 import org.apache.hadoop.ipc.RetriableException;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.test.GenericTestUtils;
 import org.apache.hadoop.test.Whitebox;
 import org.junit.After;
@@ -65,6 +66,9 @@
 import org.junit.Rule;
 import org.junit.Test;
 import static org.apache.hadoop.test.GenericTestUtils.assertExceptionContains;
+import static org.apache.hadoop.test.MetricsAsserts.assertCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
@@ -212,6 +216,9 @@ public void testReencryptionBasic() throws Exception {
     assertNotEquals(fei0.getEzKeyVersionName(), zs.getEzKeyVersionName());
     assertEquals(fei1.getEzKeyVersionName(), zs.getEzKeyVersionName());
     assertEquals(10, zs.getFilesReencrypted());
+    MetricsRecordBuilder rb = getMetrics("NameNodeActivity");
+    assertCounter("FilesReencrypted", 10L, rb);
+    assertTrue(getLongCounter("ReencryptEDEKTimeNumOps", rb) >= 2);
 
     // test re-encrypt on same zone again
     dfsAdmin.reencryptEncryptionZone(zone, ReencryptAction.START);
@@ -116,4 +116,28 @@ public void testXAttrFeature() throws Exception {
     XAttr r8 = feature.getXAttr(name8);
     assertTrue(r8 == null);
   }
+
+  @Test
+  public void testXAttrFeatureIntern() throws Exception {
+    List<XAttr> xAttrs = new ArrayList<>();
+    xAttrs.add(XAttrHelper.buildXAttr(name1, value1));
+    xAttrs.add(XAttrHelper.buildXAttr(name5, value5));
+    XAttrFeature f1 = new XAttrFeature(xAttrs);
+    XAttrFeature f2 = new XAttrFeature(new ArrayList<>(xAttrs));
+    assertEquals(f1, f2);
+    assertEquals(f1.hashCode(), f2.hashCode());
+    assertNotEquals(f1, new XAttrFeature(xAttrs.subList(0, 1)));
+
+    try {
+      XAttrStorage.setInternEnabled(false);
+      assertSame(f2, XAttrStorage.intern(f2));
+
+      XAttrStorage.setInternEnabled(true);
+      assertSame(f1, XAttrStorage.intern(f1));
+      assertSame(f1, XAttrStorage.intern(f2));
+      assertEquals(xAttrs, XAttrStorage.intern(f2).getXAttrs());
+    } finally {
+      XAttrStorage.setInternEnabled(false);
+    }
+  }
 }
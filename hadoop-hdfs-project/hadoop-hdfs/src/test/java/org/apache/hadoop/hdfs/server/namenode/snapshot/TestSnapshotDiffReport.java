@@ -1467,6 +1467,66 @@ public void testDiffReportWithRpcLimit3() throws Exception {
             DFSUtil.string2Bytes("dir1/file4")));
   }
 
+  /**
+   * Tests to verify the diff report when the number of inodes visited within
+   * an rpc is limited, so that the traversal of unchanged inodes is also
+   * spread across multiple rpc calls.
+   * @throws Exception
+   */
+  @Test
+  public void testDiffReportWithINodesLimit() throws Exception {
+    tearDown();
+    conf.setInt(
+        DFSConfigKeys.DFS_NAMENODE_SNAPSHOT_DIFF_LISTING_MAX_INODES, 2);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(REPLICATION)
+        .format(true).build();
+    cluster.waitActive();
+    hdfs = cluster.getFileSystem();
+
+    final Path root = new Path("/");
+    final Path unchanged = new Path(root, "dir0");
+    for (int j = 1; j < 4; j++) {
+      DFSTestUtil.createFile(hdfs, new Path(unchanged, "file" + j),
+          BLOCKSIZE, REPLICATION, SEED);
+    }
+    for (int i = 1; i < 3; i++) {
+      hdfs.mkdirs(new Path(root, "dir" + i));
+    }
+    SnapshotTestHelper.createSnapshot(hdfs, root, "s0");
+    for (int i = 1; i < 3; i++) {
+      final Path path = new Path(root, "dir" + i);
+      for (int j = 1; j < 3; j++) {
+        DFSTestUtil.createFile(hdfs, new Path(path, "file" + j), BLOCKSIZE,
+            REPLICATION, SEED);
+      }
+    }
+    SnapshotTestHelper.createSnapshot(hdfs, root, "s1");
+
+    int calls = 0;
+    RemoteIterator<SnapshotDiffReportListing> iterator =
+        hdfs.snapshotDiffReportListingRemoteIterator(root, "s0", "s1");
+    while (iterator.hasNext()) {
+      iterator.next();
+      calls++;
+    }
+    // the 7 entries alone need 3 calls, visiting the 7 inodes of s0 with at
+    // most 2 inodes per call needs at least 4 calls
+    Assert.assertTrue("Unexpected number of calls " + calls, calls >= 4);
+
+    verifyDiffReport(root, "s0", "s1",
+        new DiffReportEntry(DiffType.MODIFY, DFSUtil.string2Bytes("")),
+        new DiffReportEntry(DiffType.MODIFY, DFSUtil.string2Bytes("dir1")),
+        new DiffReportEntry(DiffType.CREATE,
+            DFSUtil.string2Bytes("dir1/file1")),
+        new DiffReportEntry(DiffType.CREATE,
+            DFSUtil.string2Bytes("dir1/file2")),
+        new DiffReportEntry(DiffType.MODIFY, DFSUtil.string2Bytes("dir2")),
+        new DiffReportEntry(DiffType.CREATE,
+            DFSUtil.string2Bytes("dir2/file1")),
+        new DiffReportEntry(DiffType.CREATE,
+            DFSUtil.string2Bytes("dir2/file2")));
+  }
+
   private void verifyDiffReportForGivenReport(Path dirPath, String from,
       String to, SnapshotDiffReport report, DiffReportEntry... entries)
       throws IOException {
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.mapreduce.lib.input;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.SeekableZStandardCodec;
+import org.apache.hadoop.io.compress.ZStandardCodec;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Read splittable zstd files with {@link TextInputFormat} in several splits.
+ */
+public class TestSeekableZStandardTextInput {
+  private static final Path WORK_DIR = new Path(new Path(System.getProperty(
+      "test.build.data", "target"), "data"), "TestSeekableZStandardTextInput");
+  private static final int BLOCK_SIZE = 4096;
+  private static final int LINES = 20000;
+
+  private Configuration conf;
+  private FileSystem fs;
+
+  @Before
+  public void setUp() throws IOException {
+    assumeTrue(ZStandardCodec.isNativeCodeLoaded());
+    conf = new Configuration();
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY,
+        BLOCK_SIZE);
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY, 2);
+    fs = FileSystem.getLocal(conf);
+    fs.delete(WORK_DIR, true);
+  }
+
+  private List<String> writeLines(Path file) throws IOException {
+    SeekableZStandardCodec codec = new SeekableZStandardCodec();
+    codec.setConf(conf);
+    List<String> lines = new ArrayList<>(LINES);
+    try (OutputStream out = codec.createOutputStream(fs.create(file))) {
+      for (int i = 0; i < LINES; i++) {
+        // lines of varying length, so that they cross the block boundaries.
+        StringBuilder line = new StringBuilder("line ").append(i);
+        for (int j = 0; j < i % 13; j++) {
+          line.append(' ').append(j);
+        }
+        lines.add(line.toString());
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return lines;
+  }
+
+  private List<String> readSplits(Path file, long splitSize)
+      throws IOException, InterruptedException {
+    Job job = Job.getInstance(conf);
+    FileInputFormat.setInputPaths(job, file);
+    FileInputFormat.setMaxInputSplitSize(job, splitSize);
+    TextInputFormat format = new TextInputFormat();
+    List<InputSplit> splits = format.getSplits(job);
+    if (splitSize < fs.getFileStatus(file).getLen()) {
+      assertThat(splits).as("splits of size " + splitSize)
+          .hasSizeGreaterThan(1);
+    }
+    List<String> lines = new ArrayList<>();
+    for (InputSplit split : splits) {
+      TaskAttemptContext context = new TaskAttemptContextImpl(
+          job.getConfiguration(), new TaskAttemptID());
+      try (RecordReader<LongWritable, Text> reader =
+          format.createRecordReader(split, context)) {
+        reader.initialize(split, context);
+        while (reader.nextKeyValue()) {
+          lines.add(reader.getCurrentValue().toString());
+        }
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Check that every line is read by exactly one split, for splits smaller
+   * and larger than the compressed blocks.
+   */
+  @Test(timeout = 60000)
+  public void testSplits() throws Exception {
+    Path file = new Path(WORK_DIR, "lines.szst");
+    List<String> lines = writeLines(file);
+    long len = fs.getFileStatus(file).getLen();
+    for (long splitSize : new long[] {500, 1777, 4096, 10000, len}) {
+      assertThat(readSplits(file, splitSize)).as("split size " + splitSize)
+          .isEqualTo(lines);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.ipc.CallQueueManager;
+import org.apache.hadoop.ipc.DefaultRpcScheduler;
+import org.apache.hadoop.ipc.Schedulable;
+import org.apache.hadoop.security.UserGroupInformation;
+
+/**
+ * Drives the call queue implementations with a number of producers, which
+ * stand in for the IPC readers, and a number of handlers, which are set with
+ * the arguments of {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CallQueueBenchmark {
+
+  static final String NAMESPACE = "ipc.benchmark";
+
+  /** A call of a given priority level. */
+  static final class BenchmarkCall implements Schedulable {
+    private final int priorityLevel;
+
+    BenchmarkCall(int priorityLevel) {
+      this.priorityLevel = priorityLevel;
+    }
+
+    @Override
+    public UserGroupInformation getUserGroupInformation() {
+      return null;
+    }
+
+    @Override
+    public int getPriorityLevel() {
+      return priorityLevel;
+    }
+  }
+
+  @State(Scope.Group)
+  public static class QueueChoice {
+    @Param({"java.util.concurrent.LinkedBlockingQueue",
+        "org.apache.hadoop.ipc.FairCallQueue",
+        "org.apache.hadoop.ipc.ShardedCallQueue"})
+    private String queueClass;
+
+    @Param({"4"})
+    private int priorityLevels;
+
+    @Param({"25600"})
+    private int capacity;
+
+    private BlockingQueue<Schedulable> queue;
+    private Schedulable[] calls;
+
+    @SuppressWarnings("unchecked")
+    @Setup(Level.Trial)
+    public void setup() throws ClassNotFoundException {
+      Configuration conf = new Configuration();
+      conf.setInt(NAMESPACE + "." +
+          CommonConfigurationKeys.IPC_SCHEDULER_PRIORITY_LEVELS_KEY,
+          priorityLevels);
+      queue = new CallQueueManager<Schedulable>(
+          (Class<? extends BlockingQueue<Schedulable>>)
+              Class.forName(queueClass),
+          DefaultRpcScheduler.class, false, capacity, NAMESPACE, conf);
+      // the default weights of the multiplexer, so that every level sees
+      // the share of calls it is served with.
+      int[] weights = new int[priorityLevels];
+      int total = 0;
+      for (int i = 0; i < priorityLevels; i++) {
+        weights[i] = 1 << (priorityLevels - 1 - i);
+        total += weights[i];
+      }
+      calls = new Schedulable[total];
+      for (int i = 0, n = 0; i < priorityLevels; i++) {
+        for (int j = 0; j < weights[i]; j++) {
+          calls[n++] = new BenchmarkCall(i);
+        }
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ProducerState {
+    private int next;
+  }
+
+  @Benchmark
+  @Group("callQueue")
+  public boolean produce(QueueChoice choice, ProducerState state)
+      throws InterruptedException {
+    Schedulable call = choice.calls[state.next];
+    state.next = (state.next + 1) % choice.calls.length;
+    // time out instead of blocking, so that producers stop at the end of an
+    // iteration even when the handlers already did.
+    return choice.queue.offer(call, 1, TimeUnit.MILLISECONDS);
+  }
+
+  @Benchmark
+  @Group("callQueue")
+  public void handle(QueueChoice choice, Blackhole blackhole)
+      throws InterruptedException {
+    blackhole.consume(choice.queue.poll(1, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * Run the benchmarks.
+   * @param args the number of producers and the number of handlers, which
+   *             default to 1 and 200
+   * @throws Exception any ex.
+   */
+  public static void main(String[] args) throws Exception {
+    int producers = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+    int handlers = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    OptionsBuilder opts = new OptionsBuilder();
+    opts.include("CallQueueBenchmark");
+    opts.jvmArgs("-server", "-Xms256m", "-Xmx2g");
+    opts.threadGroups(producers, handlers);
+    opts.forks(1);
+    new Runner(opts.build()).run();
+  }
+}
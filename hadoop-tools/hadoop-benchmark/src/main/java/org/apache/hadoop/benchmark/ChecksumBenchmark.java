@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.fs.ChecksumException;
+import org.apache.hadoop.util.DataChecksum;
+
+/**
+ * Compares verifying the checksums of a packet and then copying it with
+ * {@link DataChecksum#verifyChunkedSumsAndCopy}, for a number of chunk sizes
+ * and buffer kinds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChecksumBenchmark {
+
+  @State(Scope.Thread)
+  public static class Packet {
+    @Param({"CRC32C", "CRC32"})
+    private String type;
+
+    @Param({"512", "4096", "65536"})
+    private int bytesPerChecksum;
+
+    @Param({"false", "true"})
+    private boolean direct;
+
+    @Param({"65536", "4194304"})
+    private int packetSize;
+
+    private DataChecksum checksum;
+    private ByteBuffer data;
+    private ByteBuffer sums;
+    private ByteBuffer dest;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      checksum = DataChecksum.newDataChecksum(
+          DataChecksum.Type.valueOf(type), bytesPerChecksum);
+      byte[] bytes = new byte[packetSize];
+      new Random(1).nextBytes(bytes);
+      int numSums = (packetSize - 1) / bytesPerChecksum + 1;
+      data = allocate(packetSize);
+      data.put(bytes).flip();
+      sums = allocate(numSums * checksum.getChecksumSize());
+      dest = allocate(packetSize);
+      checksum.calculateChunkedSums(data, sums);
+    }
+
+    private ByteBuffer allocate(int size) {
+      return direct ? ByteBuffer.allocateDirect(size) :
+          ByteBuffer.allocate(size);
+    }
+  }
+
+  @Benchmark
+  public ByteBuffer verifyThenCopy(Packet packet) throws ChecksumException {
+    packet.checksum.verifyChunkedSums(packet.data, packet.sums, "bench", 0);
+    packet.dest.clear();
+    packet.dest.put(packet.data.duplicate());
+    return packet.dest;
+  }
+
+  @Benchmark
+  public ByteBuffer verifyAndCopy(Packet packet) throws ChecksumException {
+    packet.dest.clear();
+    packet.checksum.verifyChunkedSumsAndCopy(packet.data, packet.sums,
+        packet.dest, "bench", 0);
+    return packet.dest;
+  }
+
+  /**
+   * Run the benchmarks.
+   * @param args unused
+   * @throws Exception any ex.
+   */
+  public static void main(String[] args) throws Exception {
+    OptionsBuilder opts = new OptionsBuilder();
+    opts.include("ChecksumBenchmark");
+    opts.jvmArgs("-server", "-Xms256m", "-Xmx2g");
+    opts.forks(1);
+    new Runner(opts.build()).run();
+  }
+}
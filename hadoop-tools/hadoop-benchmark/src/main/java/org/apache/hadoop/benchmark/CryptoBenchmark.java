@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.crypto.CryptoCodec;
+import org.apache.hadoop.crypto.CryptoInputStream;
+import org.apache.hadoop.crypto.CryptoOutputStream;
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
+
+/**
+ * Compares decrypting a stream with {@link CryptoInputStream} on the reading
+ * thread and in parallel, for a number of read sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CryptoBenchmark {
+
+  private static final int DATA_SIZE = 16 * 1024 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  @State(Scope.Thread)
+  public static class EncryptedData {
+    @Param({"1", "4"})
+    private int threads;
+
+    @Param({"65536", "1048576", "4194304"})
+    private int readSize;
+
+    private CryptoCodec codec;
+    private byte[] key;
+    private byte[] iv;
+    private byte[] encrypted;
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      Configuration conf = new Configuration();
+      conf.setInt(CommonConfigurationKeysPublic
+          .HADOOP_SECURITY_CRYPTO_PARALLEL_DECRYPT_THREADS_KEY, threads);
+      codec = CryptoCodec.getInstance(conf);
+      Random random = new Random(1);
+      key = new byte[16];
+      iv = new byte[16];
+      random.nextBytes(key);
+      random.nextBytes(iv);
+      byte[] data = new byte[DATA_SIZE];
+      random.nextBytes(data);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(DATA_SIZE);
+      try (OutputStream out =
+          new CryptoOutputStream(bytes, codec, BUFFER_SIZE, key, iv)) {
+        out.write(data);
+      }
+      encrypted = bytes.toByteArray();
+      buffer = new byte[readSize];
+    }
+  }
+
+  @Benchmark
+  public long read(EncryptedData data) throws IOException {
+    long total = 0;
+    try (CryptoInputStream in = new CryptoInputStream(
+        new ByteArrayInputStream(data.encrypted), data.codec, BUFFER_SIZE,
+        data.key, data.iv)) {
+      int n;
+      while ((n = in.read(data.buffer, 0, data.buffer.length)) > 0) {
+        total += n;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Run the benchmarks.
+   * @param args unused
+   * @throws Exception any ex.
+   */
+  public static void main(String[] args) throws Exception {
+    OptionsBuilder opts = new OptionsBuilder();
+    opts.include("CryptoBenchmark");
+    opts.jvmArgs("-server", "-Xms256m", "-Xmx2g");
+    opts.forks(1);
+    new Runner(opts.build()).run();
+  }
+}